@@ -0,0 +1,179 @@
+/**
+ * k6 부하 테스트 — 인기 게시글 1개에 좋아요 집중 (Row Lock 경합).
+ *
+ * 모든 VU가 같은 게시글(POST_ID)에 좋아요 → 취소를 반복한다.
+ * 변경 전: 좋아요마다 posts 행 UPDATE → 같은 행 락에서 직렬화, VU를 늘려도 처리량이 늘지 않고 지연만 증가.
+ * 변경 후: Redis 카운터(LikeCountService) + write-behind flush → 요청 트랜잭션은 post_likes INSERT IGNORE뿐.
+ *
+ * 비교 방법: 변경 전/후 빌드에 같은 프로필로 각각 실행하고 요약의 like_ops/s, like P95를 비교한다.
+ *   # 변경 전 (이전 커밋 빌드)
+ *   k6 run -e PROFILE=load -e POST_ID=1 -e LABEL=before -e BASE_URL=http://<서버ip>:8080 k6/hot-post-like-test.js
+ *   # 변경 후
+ *   k6 run -e PROFILE=load -e POST_ID=1 -e LABEL=after -e BASE_URL=http://<서버ip>:8080 k6/hot-post-like-test.js
+ *
+ * 프로필 (PROFILE 환경변수):
+ *   - smoke:  스크립트 검증용 (1분, 10 VU)
+ *   - load:   처리량 비교용 (5분, 최대 200 VU) ← 기본값
+ *   - stress: 한계점 탐색용 (6분, 최대 500 VU)
+ *
+ * 종료 후 teardown에서 좋아요 수를 조회해 기대값(= 테스트 전 값)과 비교한다 —
+ * 모든 VU가 좋아요/취소를 짝으로 실행하므로 flush 주기(5초) 이후 posts.like_count는 원래 값으로 돌아와야 한다.
+ */
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Counter, Rate, Trend } from 'k6/metrics';
+
+// ─── 커스텀 메트릭 ──────────────────────────────────────
+
+const likeDuration = new Trend('like_duration', true);
+const unlikeDuration = new Trend('unlike_duration', true);
+const likeOps = new Counter('like_ops');
+const errorRate = new Rate('errors');
+
+// ─── 설정 ──────────────────────────────────────────────
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const API_PREFIX = `${BASE_URL}/api/v1.0`;
+const PROFILE = (__ENV.PROFILE || 'load').toLowerCase();
+const POST_ID = __ENV.POST_ID || '1';
+const LABEL = __ENV.LABEL || 'run';
+
+const PROFILES = {
+    smoke: [
+        { duration: '20s', target: 10 },
+        { duration: '30s', target: 10 },
+        { duration: '10s', target: 0 },
+    ],
+    load: [
+        { duration: '1m', target: 200 },   // 워밍업: 0 → 200 VU
+        { duration: '3m', target: 200 },   // 유지: 같은 게시글에 200 VU 집중
+        { duration: '1m', target: 0 },     // 쿨다운
+    ],
+    stress: [
+        { duration: '1m', target: 200 },
+        { duration: '2m', target: 500 },   // 한계 탐색: 500 VU
+        { duration: '2m', target: 500 },
+        { duration: '1m', target: 0 },
+    ],
+};
+
+const stages = PROFILES[PROFILE];
+if (!stages) {
+    throw new Error(`알 수 없는 PROFILE: "${PROFILE}". smoke, load, stress 중 선택하세요.`);
+}
+
+const MAX_VU_BY_PROFILE = {
+    smoke: 10,
+    load: 200,
+    stress: 500,
+};
+
+export const options = {
+    stages,
+    setupTimeout: '300s',
+    thresholds: {
+        errors: ['rate<0.01'],
+    },
+};
+
+// ─── 인증 ──────────────────────────────────────────────
+
+const TEST_USER_PREFIX = 'k6like';
+const TEST_PASSWORD = 'Test1234!';
+const MAX_TEST_USERS = MAX_VU_BY_PROFILE[PROFILE];
+
+function fetchLikeCount() {
+    const res = http.get(`${API_PREFIX}/posts/${POST_ID}`);
+    return res.status === 200 ? res.json('likeCount') : null;
+}
+
+export function setup() {
+    console.log(`\n[k6] 프로필: ${PROFILE.toUpperCase()} (${LABEL})`);
+    console.log(`[k6] 대상 서버: ${BASE_URL}, 게시글: ${POST_ID}`);
+
+    const initial = fetchLikeCount();
+    if (initial === null) {
+        throw new Error(`게시글 ${POST_ID} 조회 실패 — POST_ID를 확인하세요`);
+    }
+
+    // 테스트 계정 생성 (이미 존재하면 409 → 무시)
+    for (let i = 1; i <= MAX_TEST_USERS; i++) {
+        http.post(`${API_PREFIX}/auth/signup`, JSON.stringify({
+            username: `${TEST_USER_PREFIX}${i}`,
+            nickname: `K6좋아요${i}`,
+            password: TEST_PASSWORD,
+        }), { headers: { 'Content-Type': 'application/json' } });
+    }
+    console.log(`[k6] 계정 생성/확인 완료: ${MAX_TEST_USERS}개, 시작 좋아요 수: ${initial}\n`);
+    return { initial };
+}
+
+function ensureLoggedIn() {
+    const cookies = http.cookieJar().cookiesForURL(BASE_URL);
+    if (!cookies.token || cookies.token.length === 0) {
+        const vuId = ((__VU - 1) % MAX_TEST_USERS) + 1;
+        const res = http.post(`${API_PREFIX}/auth/login`, JSON.stringify({
+            username: `${TEST_USER_PREFIX}${vuId}`,
+            password: TEST_PASSWORD,
+        }), { headers: { 'Content-Type': 'application/json' } });
+        check(res, { '로그인 성공': (r) => r.status === 200 });
+        // 이전 실행이 중간에 끊겨 남은 좋아요 정리 (404 무시)
+        http.del(`${API_PREFIX}/posts/${POST_ID}/like`);
+    }
+}
+
+// ─── 메인 시나리오 ─────────────────────────────────────
+
+export default function () {
+    ensureLoggedIn();
+
+    const like = http.post(`${API_PREFIX}/posts/${POST_ID}/like`, null, { tags: { name: 'like' } });
+    likeDuration.add(like.timings.duration);
+    const liked = check(like, { '좋아요 200': (r) => r.status === 200 });
+    errorRate.add(!liked);
+    if (liked) {
+        likeOps.add(1);
+    }
+
+    const unlike = http.del(`${API_PREFIX}/posts/${POST_ID}/like`, null, { tags: { name: 'unlike' } });
+    unlikeDuration.add(unlike.timings.duration);
+    const unliked = check(unlike, { '좋아요 취소 200': (r) => r.status === 200 });
+    errorRate.add(!unliked);
+    if (unliked) {
+        likeOps.add(1);
+    }
+
+    sleep(0.1);
+}
+
+// ─── 정합성 확인 ───────────────────────────────────────
+
+export function teardown(data) {
+    sleep(10);   // write-behind flush(5초) + 상세 캐시 무효화 대기
+    const final = fetchLikeCount();
+    console.log(`[k6] 좋아요 수 — 시작: ${data.initial}, 종료: ${final}`);
+    check(final, { '좋아요 수 복원 (좋아요/취소 짝)': (v) => v === data.initial });
+}
+
+// ─── 테스트 종료 후 요약 ───────────────────────────────
+
+export function handleSummary(data) {
+    const m = (metric) => data.metrics[metric] ? data.metrics[metric].values : null;
+    const fmt = (values, key) => (values && values[key] != null) ? values[key].toFixed(2) : 'N/A';
+
+    const like = m('like_duration');
+    const unlike = m('unlike_duration');
+    const ops = m('like_ops');
+
+    console.log(`\n========== 인기 게시글 좋아요 ${PROFILE.toUpperCase()} (${LABEL}) ==========`);
+    console.log(`  게시글: ${POST_ID}`);
+    console.log(`  처리량: ${fmt(ops, 'rate')} like_ops/s (총 ${ops ? ops.count : 0}건)`);
+    console.log(`  좋아요      평균: ${fmt(like, 'avg')}ms  P95: ${fmt(like, 'p(95)')}ms  P99: ${fmt(like, 'p(99)')}ms`);
+    console.log(`  좋아요 취소 평균: ${fmt(unlike, 'avg')}ms  P95: ${fmt(unlike, 'p(95)')}ms  P99: ${fmt(unlike, 'p(99)')}ms`);
+    console.log(`  에러율: ${data.metrics.errors ? (data.metrics.errors.values.rate * 100).toFixed(2) : '0'}%`);
+    console.log('================================================\n');
+
+    return {
+        [`k6/hot-like-${PROFILE}-${LABEL}-result.json`]: JSON.stringify(data, null, 2),
+    };
+}
@@ -39,6 +39,8 @@ FEATURE_NAMES = [
 def load_data(csv_path):
     """CSV에서 학습 데이터를 로드한다."""
     df = pd.read_csv(csv_path)
+    # 동시 판정으로 CSV 행이 qid 순서가 아닐 수 있음 — XGBRanker는 qid 연속 그룹을 요구
+    df = df.sort_values("qid", kind="stable").reset_index(drop=True)
     print(f"데이터 로드: {len(df)} rows, {df['qid'].nunique()} queries")
     print(f"Relevance 분포:\n{df['relevance'].value_counts().sort_index()}")
     return df
@@ -1,6 +1,5 @@
 package com.wiki.engine.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -37,23 +36,6 @@ public class CacheConfig {
         return manager;
     }
 
-    /** L1 캐시 — TieredCacheService에서 직접 사용 (검색 결과) */
-    @Bean
-    Cache<String, Object> searchResultsL1Cache() {
-        return Caffeine.newBuilder()
-                .maximumSize(10_000)
-                .expireAfterWrite(Duration.ofMinutes(5))
-                .recordStats()
-                .build();
-    }
-
-    /** L1 캐시 — TieredCacheService에서 직접 사용 (게시글 상세) */
-    @Bean
-    Cache<String, Object> postDetailL1Cache() {
-        return Caffeine.newBuilder()
-                .maximumSize(50_000)
-                .expireAfterAccess(Duration.ofMinutes(30))
-                .recordStats()
-                .build();
-    }
+    // 검색 결과 L1(searchResultsL1Cache)은 Origin 로드 시각 기준 만료 — post.internal.cache.SearchResultsCacheConfig
+    // 게시글 상세 L1(postDetailL1Cache)은 바이트 가중치 기반 — post.internal.cache.PostDetailCacheConfig
 }
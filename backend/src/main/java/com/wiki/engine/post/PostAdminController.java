@@ -3,10 +3,12 @@ package com.wiki.engine.post;
 import com.wiki.engine.common.BusinessException;
 import com.wiki.engine.common.ErrorCode;
 import com.wiki.engine.post.dto.PostSummaryResponse;
+import com.wiki.engine.post.internal.cache.RedisShardMigrationService;
 import com.wiki.engine.post.internal.category.CategoryClassificationService;
 import com.wiki.engine.post.internal.lucene.LuceneIndexService;
 import com.wiki.engine.post.internal.lucene.LTRDataGenerationService;
 import com.wiki.engine.post.internal.lucene.LTRFeatureExtractor;
+import com.wiki.engine.post.internal.lucene.LTRRescorer;
 import com.wiki.engine.post.internal.lucene.LuceneSearchService;
 import com.wiki.engine.post.internal.PostRepository;
 import lombok.RequiredArgsConstructor;
@@ -134,10 +136,15 @@ public class PostAdminController {
      *
      * 관련성 판정: 쿼리 키워드의 50% 이상이 제목에 포함되면 relevant로 판정.
      * 위키 덤프 한계로 클릭 로그 대신 제목 매칭 휴리스틱을 사용한다.
+     *
+     * LTR 모델이 로드되어 있으면 full window(XGBoost 200건) vs cascade(linear → XGBoost slice)도
+     * 같은 쿼리·휴리스틱으로 비교한다 (P@10, MAP, 상위 10건 overlap) — cascade 파라미터 조정 후 품질 손실 확인용.
+     *
+     * @param queries 테스트 쿼리 (생략 시 기본 15개)
      */
     @GetMapping("/evaluate")
-    public Map<String, Object> evaluate() throws IOException {
-        List<String> testQueries = List.of(
+    public Map<String, Object> evaluate(@RequestParam(required = false) List<String> queries) throws IOException {
+        List<String> testQueries = queries != null && !queries.isEmpty() ? queries : List.of(
                 "삼성전자", "삼성전자 반도체", "인공지능 기술",
                 "대한민국 역사", "프로그래밍", "양자역학",
                 "축구", "한국전쟁", "서울 지하철",
@@ -148,6 +155,10 @@ public class PostAdminController {
         List<Map<String, Object>> queryResults = new ArrayList<>();
         double bm25P10Sum = 0, fullP10Sum = 0;
         double bm25MapSum = 0, fullMapSum = 0;
+        boolean ltrLoaded = ltrRescorer.isModelLoaded();
+        double ltrFullP10Sum = 0, cascadeP10Sum = 0;
+        double ltrFullMapSum = 0, cascadeMapSum = 0;
+        double overlapSum = 0;
 
         for (String query : testQueries) {
             List<EvalDoc> bm25Results = luceneSearchService.searchForEval(query, 10, true);
@@ -168,19 +179,31 @@ public class PostAdminController {
             bm25MapSum += bm25Ap;
             fullMapSum += fullAp;
 
-            queryResults.add(Map.of(
-                    "query", query,
-                    "bm25Only", Map.of(
-                            "p10", Math.round(bm25P10 * 1000) / 1000.0,
-                            "ap", Math.round(bm25Ap * 1000) / 1000.0,
-                            "results", formatResults(bm25Results, keywords)
-                    ),
-                    "fullRanking", Map.of(
-                            "p10", Math.round(fullP10 * 1000) / 1000.0,
-                            "ap", Math.round(fullAp * 1000) / 1000.0,
-                            "results", formatResults(fullResults, keywords)
-                    )
+            Map<String, Object> queryResult = new LinkedHashMap<>();
+            queryResult.put("query", query);
+            queryResult.put("bm25Only", Map.of(
+                    "p10", Math.round(bm25P10 * 1000) / 1000.0,
+                    "ap", Math.round(bm25Ap * 1000) / 1000.0,
+                    "results", formatResults(bm25Results, keywords)
             ));
+            queryResult.put("fullRanking", Map.of(
+                    "p10", Math.round(fullP10 * 1000) / 1000.0,
+                    "ap", Math.round(fullAp * 1000) / 1000.0,
+                    "results", formatResults(fullResults, keywords)
+            ));
+            if (ltrLoaded) {
+                CascadeComparison cascade = compareCascade(query, keywords);
+                ltrFullP10Sum += cascade.fullP10();
+                cascadeP10Sum += cascade.cascadeP10();
+                ltrFullMapSum += cascade.fullAp();
+                cascadeMapSum += cascade.cascadeAp();
+                overlapSum += cascade.overlap();
+                queryResult.put("ltrFull", Map.of("p10", round3(cascade.fullP10()), "ap", round3(cascade.fullAp())));
+                queryResult.put("ltrCascade",
+                        Map.of("p10", round3(cascade.cascadeP10()), "ap", round3(cascade.cascadeAp())));
+                queryResult.put("overlapAt10", round3(cascade.overlap()));
+            }
+            queryResults.add(queryResult);
         }
 
         int n = testQueries.size();
@@ -200,17 +223,23 @@ public class PostAdminController {
                 ? Math.round((fullMapSum - bm25MapSum) / bm25MapSum * 1000) / 10.0
                 : 0;
 
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("bm25Only", bm25Summary);
+        summary.put("fullRanking", fullSummary);
+        summary.put("improvement", Map.of(
+                "p10", p10Improvement + "%",
+                "MAP", mapImprovement + "%"
+        ));
+        if (ltrLoaded) {
+            summary.put("ltrFull", Map.of("avgP10", round3(ltrFullP10Sum / n), "MAP", round3(ltrFullMapSum / n)));
+            summary.put("ltrCascade", Map.of("avgP10", round3(cascadeP10Sum / n), "MAP", round3(cascadeMapSum / n)));
+            summary.put("avgOverlapAt10", round3(overlapSum / n));
+        }
+        summary.put("testQueryCount", n);
+        summary.put("method", "제목-키워드 매칭 휴리스틱 (쿼리 키워드 50%+ 포함 시 relevant)");
+
         return Map.of(
-                "summary", Map.of(
-                        "bm25Only", bm25Summary,
-                        "fullRanking", fullSummary,
-                        "improvement", Map.of(
-                                "p10", p10Improvement + "%",
-                                "MAP", mapImprovement + "%"
-                        ),
-                        "testQueryCount", n,
-                        "method", "제목-키워드 매칭 휴리스틱 (쿼리 키워드 50%+ 포함 시 relevant)"
-                ),
+                "summary", summary,
                 "queries", queryResults
         );
     }
@@ -345,29 +374,88 @@ public class PostAdminController {
         ));
     }
 
+    // === Redis 리샤딩 ===
+
+    private final RedisShardMigrationService redisShardMigrationService;
+
+    /**
+     * 샤드 노드 추가 — 링에 넣은 뒤 기존 노드에서 새 노드 담당 키를 비동기로 옮긴다.
+     * 이동이 끝날 때까지 읽기 미스는 이전 담당 노드에서 한 번 더 조회한다 (dual-read).
+     */
+    @PostMapping("/redis/shards")
+    public ResponseEntity<Map<String, Object>> addRedisShard(@RequestParam String address) {
+        return ResponseEntity.accepted().body(redisShardMigrationService.addNode(address));
+    }
+
+    /** 샤드 노드 제거 — 링에서 뺀 뒤 그 노드의 키를 새 담당 노드로 비동기로 옮긴다. */
+    @DeleteMapping("/redis/shards/{index}")
+    public ResponseEntity<Map<String, Object>> removeRedisShard(@PathVariable int index) {
+        return ResponseEntity.accepted().body(redisShardMigrationService.removeNode(index));
+    }
+
+    /** 중단된 키 이동 재개 (dual-read 유지 중일 때만). */
+    @PostMapping("/redis/shards/migration/resume")
+    public ResponseEntity<Map<String, Object>> resumeRedisShardMigration() {
+        return ResponseEntity.accepted().body(redisShardMigrationService.resume());
+    }
+
+    /** 리샤딩 진행 상태 — 원본 노드 진행률, 이동/스킵/실패 키 수. */
+    @GetMapping("/redis/shards/migration")
+    public ResponseEntity<Map<String, Object>> getRedisShardMigration() {
+        return ResponseEntity.ok(redisShardMigrationService.getStatus());
+    }
+
     // === LTR 학습 데이터 추출 ===
 
     private final LTRDataGenerationService ltrDataGenerationService;
+    private final LTRRescorer ltrRescorer;
+
+    /**
+     * LTR 모델 상태 — 현재 서빙(active) / 섀도(shadow) 모델 버전.
+     * 모델 교체는 ltr.model-dir에 파일을 mv하면 폴링으로 반영된다.
+     */
+    @GetMapping("/ltr/models")
+    public ResponseEntity<Map<String, Object>> getLTRModels() {
+        return ResponseEntity.ok(ltrRescorer.getModelStatus());
+    }
+
+    /** LTR full window vs cascade 한 쿼리 비교 결과. overlap = 상위 10건 중 full과 겹치는 비율. */
+    private record CascadeComparison(double fullP10, double fullAp, double cascadeP10, double cascadeAp,
+                                     double overlap) {}
+
+    private CascadeComparison compareCascade(String query, String[] keywords) throws IOException {
+        List<EvalDoc> fullResults = luceneSearchService.searchForEvalLtr(query, 10, false);
+        List<EvalDoc> cascadeResults = luceneSearchService.searchForEvalLtr(query, 10, true);
+        Set<Long> fullIds = fullResults.stream().map(EvalDoc::id).collect(Collectors.toSet());
+        long common = cascadeResults.stream().filter(doc -> fullIds.contains(doc.id())).count();
+        return new CascadeComparison(
+                computePrecisionAtK(fullResults, keywords, 10), computeAveragePrecision(fullResults, keywords),
+                computePrecisionAtK(cascadeResults, keywords, 10), computeAveragePrecision(cascadeResults, keywords),
+                fullIds.isEmpty() ? 1.0 : (double) common / fullIds.size());
+    }
+
+    private static double round3(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
 
     /**
      * LTR 학습 데이터 생성 시작 — Gemini LLM-as-a-Judge.
      * 비동기로 실행되며, /ltr/status로 진행 상태를 확인할 수 있다.
+     * 동시성/배치 크기/RPM은 ltr.judge.* 설정을 따른다.
      *
-     * @param queries     검색어 목록 (JSON 배열)
-     * @param topN        쿼리당 추출할 문서 수 (기본 20)
-     * @param delayMillis Gemini 호출 간 대기 시간 ms (기본 4500, 15 RPM 대응)
+     * @param queries 검색어 목록 (JSON 배열)
+     * @param topN    쿼리당 추출할 문서 수 (기본 20)
      */
     @PostMapping("/ltr/generate")
     public ResponseEntity<Map<String, Object>> generateLTRData(
             @RequestBody List<String> queries,
-            @RequestParam(defaultValue = "20") int topN,
-            @RequestParam(defaultValue = "4500") long delayMillis) {
-        ltrDataGenerationService.generateAsync(queries, topN, delayMillis);
+            @RequestParam(defaultValue = "20") int topN) {
+        ltrDataGenerationService.generateAsync(queries, topN);
         return ResponseEntity.accepted().body(Map.of(
                 "message", "LTR 데이터 생성 시작",
                 "queries", queries.size(),
                 "totalDocs", queries.size() * topN,
-                "estimatedMinutes", (queries.size() * topN * delayMillis) / 60000
+                "estimatedMinutes", ltrDataGenerationService.estimateMinutes(queries.size() * topN)
         ));
     }
 
@@ -72,8 +72,8 @@ public class PostController {
     }
 
     /**
-     * 게시글 상세 조회 + 조회수 증가 (Redis INCR).
-     * DB UPDATE 대신 Redis INCR → 30초 주기 배치 flush.
+     * 게시글 상세 조회 + 조회수 증가 (로컬 선집계).
+     * DB UPDATE·Redis 호출 없이 노드 로컬 카운터만 올리고, 1초마다 Redis 시간 버킷에 HINCRBY → 30초 주기 배치 flush.
      * GET 요청에서 DB 쓰기를 제거하여 R/W 분리 라우팅 문제 해결.
      */
     @GetMapping("/{id}")
@@ -158,9 +158,10 @@ public class PostController {
     public SearchResponseWithSuggestion search(
             @RequestParam String q,
             @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String sessionId,
             @PageableDefault(size = 20) Pageable pageable) {
 
-        SearchResponseWithSuggestion result = postService.search(q, categoryId, pageable);
+        SearchResponseWithSuggestion result = postService.search(q, categoryId, pageable, sessionId);
         List<PostSearchResponse> content = result.results().getContent();
 
         Map<Long, String> nicknames = resolveSearchNicknames(content);
@@ -170,7 +171,8 @@ public class PostController {
 
         Slice<PostSearchResponse> enrichedSlice = new SliceImpl<>(
                 enriched, result.results().getPageable(), result.results().hasNext());
-        return new SearchResponseWithSuggestion(enrichedSlice, result.suggestion(), result.categoryFacets());
+        return new SearchResponseWithSuggestion(enrichedSlice, result.suggestion(), result.categoryFacets(),
+                result.impressionId());
     }
 
     /**
@@ -247,6 +249,7 @@ public class PostController {
      * 검색 결과 클릭 이벤트를 기록한다.
      * 프론트엔드에서 검색 결과 클릭 시 호출.
      * Kafka topic "search.clicks"에 produce + DB 저장.
+     * impressionId는 검색 응답의 값을 그대로 전달 — LTR serve-time 피처 로그 조인 키.
      */
     @PostMapping("/{id}/click")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -255,10 +258,11 @@ public class PostController {
             @RequestParam String q,
             @RequestParam short position,
             @RequestParam(required = false) String sessionId,
+            @RequestParam(required = false) Long impressionId,
             @CurrentUser UserPrincipal user) {
         clickLogService.recordClick(
                 q, id, position, sessionId,
-                user != null ? user.userId() : null);
+                user != null ? user.userId() : null, impressionId);
     }
 
     /**
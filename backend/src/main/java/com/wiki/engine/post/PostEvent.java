@@ -1,5 +1,7 @@
 package com.wiki.engine.post;
 
+import java.util.Objects;
+
 /**
  * PostService 쓰기 작업의 도메인 이벤트.
  * AFTER_COMMIT 리스너에서 소비되어 Read Model(Lucene, 캐시)을 갱신한다.
@@ -13,7 +15,15 @@ public sealed interface PostEvent {
 
     record Created(Long postId, Post post) implements PostEvent {}
 
-    record Updated(Long postId, Post post) implements PostEvent {}
+    /**
+     * @param previousTitle 수정 전 제목 — 제목이 바뀐 경우에만 검색 캐시 제목 매칭 무효화를 한다
+     */
+    record Updated(Long postId, Post post, String previousTitle) implements PostEvent {
+
+        public boolean titleChanged() {
+            return !Objects.equals(previousTitle, post.getTitle());
+        }
+    }
 
     record Deleted(Long postId) implements PostEvent {}
 
@@ -1,6 +1,8 @@
 package com.wiki.engine.post;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.wiki.engine.post.internal.cache.PostDetailCache;
+import com.wiki.engine.post.internal.cache.SearchCacheIndex;
 import com.wiki.engine.post.internal.cache.TieredCacheService;
 import com.wiki.engine.post.dto.CachedSearchResult;
 import com.wiki.engine.post.dto.PostSearchResponse;
@@ -14,16 +16,21 @@ import com.wiki.engine.post.internal.category.CategoryRecommendService;
 import com.wiki.engine.post.internal.filter.ContentFilterService;
 import com.wiki.engine.post.internal.lucene.LuceneSearchService;
 import com.wiki.engine.post.internal.search.SearchLogCollector;
+import com.wiki.engine.post.internal.LikeCountService;
 import com.wiki.engine.post.internal.PostLikeRepository;
 import com.wiki.engine.post.internal.PostRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -52,45 +59,53 @@ public class PostService {
     private static final int MAX_LIST_PAGE = 15;
     private static final int MAX_SEARCH_PAGE = 15;
     private static final Duration SEARCH_L2_TTL = Duration.ofMinutes(10);
-    private static final Duration POST_DETAIL_L2_TTL = Duration.ofMinutes(30);
 
     private final PostRepository postRepository;
     private final PostLikeRepository postLikeRepository;
+    private final LikeCountService likeCountService;
     private final LuceneSearchService luceneSearchService;
     private final SearchLogCollector searchLogCollector;
     private final RedisAutocompleteService redisAutocompleteService;
     private final SpellCheckService spellCheckService;
     private final CategoryRecommendService categoryRecommendService;
     private final TieredCacheService tieredCacheService;
+    private final SearchCacheIndex searchCacheIndex;
     private final ContentFilterService contentFilterService;
     private final Cache<String, Object> searchResultsL1Cache;
     private final Cache<String, Object> postDetailL1Cache;
     private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     public PostService(PostRepository postRepository,
                        PostLikeRepository postLikeRepository,
+                       LikeCountService likeCountService,
                        LuceneSearchService luceneSearchService,
                        SearchLogCollector searchLogCollector,
                        RedisAutocompleteService redisAutocompleteService,
                        SpellCheckService spellCheckService,
                        CategoryRecommendService categoryRecommendService,
                        TieredCacheService tieredCacheService,
+                       SearchCacheIndex searchCacheIndex,
                        ContentFilterService contentFilterService,
                        @Qualifier("searchResultsL1Cache") Cache<String, Object> searchResultsL1Cache,
                        @Qualifier("postDetailL1Cache") Cache<String, Object> postDetailL1Cache,
-                       ApplicationEventPublisher eventPublisher) {
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager) {
         this.postRepository = postRepository;
         this.postLikeRepository = postLikeRepository;
+        this.likeCountService = likeCountService;
         this.luceneSearchService = luceneSearchService;
         this.searchLogCollector = searchLogCollector;
         this.redisAutocompleteService = redisAutocompleteService;
         this.spellCheckService = spellCheckService;
         this.categoryRecommendService = categoryRecommendService;
         this.tieredCacheService = tieredCacheService;
+        this.searchCacheIndex = searchCacheIndex;
         this.contentFilterService = contentFilterService;
         this.searchResultsL1Cache = searchResultsL1Cache;
         this.postDetailL1Cache = postDetailL1Cache;
         this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -124,9 +139,9 @@ public class PostService {
 
     /** ID로 게시글을 조회한다 (L1+L2 2계층 캐시). */
     public Post findByIdCached(Long id) {
-        String redisKey = "post:" + id;
+        String redisKey = PostDetailCache.key(id);
         return tieredCacheService.get("postDetail", postDetailL1Cache, redisKey,
-                Post.class, POST_DETAIL_L2_TTL,
+                Post.class, PostDetailCache.L2_TTL,
                 () -> postRepository.findById(id)
                         .orElseThrow(() -> new BusinessException(ErrorCode.POST_NOT_FOUND)));
     }
@@ -161,8 +176,9 @@ public class PostService {
             throw new BusinessException(ErrorCode.ACCESS_DENIED);
         }
 
+        String previousTitle = post.getTitle();
         post.update(title, content);
-        eventPublisher.publishEvent(new PostEvent.Updated(id, post));
+        eventPublisher.publishEvent(new PostEvent.Updated(id, post, previousTitle));
         return post;
     }
 
@@ -193,41 +209,66 @@ public class PostService {
      * INSERT IGNORE를 사용하여 이미 좋아요를 누른 경우 무시한다.
      * UNIQUE 제약(post_id, user_id)으로 중복 방지, 동시 요청에도 안전하다.
      *
+     * <p>posts.like_count 행 UPDATE 대신 Redis 카운터(LikeCountService)를 증가시키고 그 값을 반환한다.
+     * 인기 게시글의 동시 좋아요가 posts 행 락에서 직렬화되지 않는다. DB 반영과 LikeChanged 발행은 flush가 한다.
+     * 카운터는 post_likes INSERT가 커밋된 뒤에 올린다 — 커밋이 실패해도 카운터와 pending 증분이 남지 않도록.
+     * Redis 장애 시에만 기존 행 UPDATE로 fallback하고, 그 증분이 빠진 카운터는 지운다.
+     *
      * @param postId 게시글 ID
      * @param userId 사용자 ID
      * @return 좋아요 후 현재 상태 (likeCount + liked)
      * @throws BusinessException ALREADY_LIKED — 이미 좋아요를 누른 경우
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LikeResponse likePost(Long postId, Long userId) {
-        int inserted = postLikeRepository.insertIgnore(postId, userId);
-
-        if (inserted == 0) {
-            throw new BusinessException(ErrorCode.ALREADY_LIKED);
-        }
-        postRepository.incrementLikeCount(postId);
-        eventPublisher.publishEvent(new PostEvent.LikeChanged(postId));
-        return new LikeResponse(postRepository.findLikeCountById(postId), true);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (postLikeRepository.insertIgnore(postId, userId) == 0) {
+                throw new BusinessException(ErrorCode.ALREADY_LIKED);
+            }
+        });
+        return new LikeResponse(applyLikeDelta(postId, 1), true);
     }
 
     /**
      * 게시글 좋아요를 취소한다.
+     * likePost와 같이 커밋 후 Redis 카운터를 감소시키고, Redis 장애 시에만 행 UPDATE로 fallback.
      *
      * @param postId 게시글 ID
      * @param userId 사용자 ID
      * @return 취소 후 현재 상태 (likeCount + liked)
      * @throws BusinessException LIKE_NOT_FOUND — 좋아요 기록이 없는 경우
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LikeResponse unlikePost(Long postId, Long userId) {
-        int deleted = postLikeRepository.deleteByPostIdAndUserId(postId, userId);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (postLikeRepository.deleteByPostIdAndUserId(postId, userId) == 0) {
+                throw new BusinessException(ErrorCode.LIKE_NOT_FOUND);
+            }
+        });
+        return new LikeResponse(applyLikeDelta(postId, -1), false);
+    }
 
-        if (deleted == 0) {
-            throw new BusinessException(ErrorCode.LIKE_NOT_FOUND);
+    /**
+     * 커밋된 좋아요 변경을 카운터에 반영하고 현재 좋아요 수를 반환한다.
+     * Redis 장애면 행 UPDATE + LikeChanged를 별도 트랜잭션으로 하고, 이 증분이 빠진 카운터를 지운다.
+     */
+    private long applyLikeDelta(Long postId, int delta) {
+        try {
+            return likeCountService.add(postId, delta);
+        } catch (DataAccessException e) {
+            log.warn("Redis 좋아요 카운터 실패, DB 직접 반영: postId={}, {}", postId, e.getMessage());
+            Long count = transactionTemplate.execute(status -> {
+                if (delta > 0) {
+                    postRepository.incrementLikeCount(postId);
+                } else {
+                    postRepository.decrementLikeCount(postId);
+                }
+                eventPublisher.publishEvent(new PostEvent.LikeChanged(postId));
+                return postRepository.findLikeCountById(postId);
+            });
+            likeCountService.invalidate(postId);
+            return count != null ? count : 0L;
         }
-        postRepository.decrementLikeCount(postId);
-        eventPublisher.publishEvent(new PostEvent.LikeChanged(postId));
-        return new LikeResponse(postRepository.findLikeCountById(postId), false);
     }
 
     /**
@@ -276,21 +317,34 @@ public class PostService {
      * L1(Caffeine) + L2(Redis) 2계층 캐시.
      * 검색 로그는 캐시 히트/미스와 무관하게 항상 기록한다.
      *
-     * 오타 교정 — 결과가 적으면 DirectSpellChecker로 교정 제안.
+     * 오타 교정 — 교정 사전/캐시 우선, 미스면 시간 제한 DirectSpellChecker (SpellCheckService).
      * @param categoryId null이면 전체 검색, 값이 있으면 해당 카테고리만 필터링.
      */
     public SearchResponseWithSuggestion search(String keyword, Long categoryId, Pageable pageable) {
+        return search(keyword, categoryId, pageable, null);
+    }
+
+    /**
+     * @param sessionId 검색 페이지 세션 ID (없으면 null) — 첫 페이지 결과 수와 함께 재검색 쌍 수집에 쓴다.
+     */
+    public SearchResponseWithSuggestion search(String keyword, Long categoryId, Pageable pageable, String sessionId) {
         validatePageLimit(pageable, MAX_SEARCH_PAGE);
         searchLogCollector.record(keyword);
 
         // 캐시 키에 categoryId 포함 — 같은 키워드라도 카테고리별로 다른 결과
         String categoryPart = categoryId != null ? categoryId.toString() : "all";
         String redisKey = "search:" + keyword + ":" + categoryPart + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize();
+        // impression ID는 캐시 히트여도 응답마다 새로 — 같은 결과를 받은 사용자들의 클릭이 섞이지 않게.
+        // 피처 행은 이 요청 스레드가 직접 계산한 결과만 기록한다. 캐시 히트/합류 응답과 soft TTL 백그라운드
+        // 갱신(다른 스레드, 이 응답에 나가지 않는 결과)은 기록하지 않는다.
+        long impressionId = luceneSearchService.newImpressionId();
+        Thread requestThread = Thread.currentThread();
         CachedSearchResult cached = tieredCacheService.get("searchResults", searchResultsL1Cache,
                 redisKey, CachedSearchResult.class, SEARCH_L2_TTL,
                 () -> {
                     try {
-                        var searchResult = luceneSearchService.search(keyword, categoryId, pageable);
+                        var searchResult = luceneSearchService.search(keyword, categoryId, pageable,
+                                Thread.currentThread() == requestThread ? impressionId : 0L);
                         List<PostSearchResponse> responses = searchResult.posts().getContent().stream()
                                 .map(post -> {
                                     // Highlighter snippet이 있으면 사용, 없으면 fallback (앞 150자)
@@ -307,7 +361,11 @@ public class PostService {
                     } catch (IOException e) {
                         throw new UncheckedIOException(e);
                     }
-                });
+                },
+                // 역색인: 이 결과에 포함된 게시글이 수정/삭제되면 이 키만 무효화 — 캐시 저장 후에 기록해야
+                // 로드~저장 사이의 무효화가 역색인을 먼저 지우고 지나가 stale 결과가 남는 일이 없다
+                stored -> searchCacheIndex.register(redisKey,
+                        stored.content().stream().map(PostSearchResponse::id).toList(), SEARCH_L2_TTL));
         Slice<PostSearchResponse> results = new SliceImpl<>(cached.content(), pageable, cached.hasNext());
 
         // 오타 교정 제안 (첫 페이지에서만)
@@ -315,6 +373,7 @@ public class PostService {
         // "프로그래링" → "프로그래밍" 제안 (결과가 있어도 관련도가 낮은 경우)
         String suggestion = null;
         if (pageable.getPageNumber() == 0) {
+            searchLogCollector.recordOutcome(sessionId, keyword, results.getNumberOfElements(), results.hasNext());
             suggestion = spellCheckService.suggestCorrection(keyword).orElse(null);
             // 교정 결과가 원본과 같으면 제안 불필요
             if (suggestion != null && suggestion.equalsIgnoreCase(keyword)) {
@@ -322,7 +381,8 @@ public class PostService {
             }
         }
 
-        return new SearchResponseWithSuggestion(results, suggestion, cached.categoryFacets());
+        return new SearchResponseWithSuggestion(results, suggestion, cached.categoryFacets(),
+                impressionId != 0 ? Long.toString(impressionId) : null);
     }
 
     private void validatePageLimit(Pageable pageable, int maxPage) {
@@ -7,6 +7,8 @@ import java.util.Map;
  * 검색 결과 캐시용 래퍼.
  * Slice는 Spring Data 인터페이스라 JSON 역직렬화가 복잡하므로,
  * content + hasNext만 캐싱하고 SliceImpl으로 재구성한다.
+ * impression ID와 LTR 피처 행은 캐싱하지 않는다 — ID는 응답마다 새로 발급하고,
+ * 피처 행은 결과를 계산한 응답에서만 기록한다 (PostService.search).
  */
 public record CachedSearchResult(List<PostSearchResponse> content, boolean hasNext,
                                   Map<String, Long> categoryFacets) {
@@ -10,9 +10,18 @@ import java.util.Map;
  * @param results        검색 결과 (Slice)
  * @param suggestion     오타 교정 제안 ("혹시 OO을 찾으셨나요?"). null이면 교정 없음.
  * @param categoryFacets 카테고리별 매칭 건수. 재색인 전이면 빈 맵.
+ * @param impressionId   LTR 검색 impression ID. 클릭 로그에 함께 보내면 serve-time 피처 로그와 조인된다.
+ *                       63비트라 JS number 정밀도를 넘으므로 문자열로 내려준다. null이면 LTR 피처 행 없음 (미적용 등).
  */
 public record SearchResponseWithSuggestion(
         Slice<PostSearchResponse> results,
         String suggestion,
-        Map<String, Long> categoryFacets
-) {}
+        Map<String, Long> categoryFacets,
+        String impressionId
+) {
+
+    public SearchResponseWithSuggestion(Slice<PostSearchResponse> results, String suggestion,
+                                        Map<String, Long> categoryFacets) {
+        this(results, suggestion, categoryFacets, null);
+    }
+}
@@ -0,0 +1,324 @@
+package com.wiki.engine.post.internal;
+
+import com.wiki.engine.post.PostEvent;
+import com.wiki.engine.post.internal.cache.ConsistentHashRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Redis 기반 좋아요 카운터 (write-behind).
+ *
+ * 좋아요/취소 시 posts 행 UPDATE 대신 Redis 카운터 post:likes:{id}를 INCRBY하고 그 값을 바로 응답한다.
+ * 같은 Lua 스크립트에서 노드 로컬 해시 likes:pending에 증분을 누적 → 주기적으로 posts.like_count에 배치 반영.
+ *
+ * 인기 게시글에 좋아요가 몰려도 posts 행 락 대기열이 생기지 않는다 — 요청 트랜잭션은 post_likes INSERT IGNORE뿐.
+ * 중복 좋아요 방지는 그대로 post_likes UNIQUE(post_id, user_id)가 보장한다.
+ *
+ * 카운터 갱신은 post_likes 트랜잭션 커밋 후에 호출된다 (PostService) — 롤백된 좋아요가 카운터에 남지 않도록.
+ * Redis 장애로 DB에 직접 반영한 게시글은 카운터를 지워({@link #invalidate}) 다음 갱신 때 DB 값으로 다시 초기화한다.
+ *
+ * 카운터 키가 없으면(첫 좋아요, TTL 만료, 담당 노드 변경) DB 값 + 전 노드의 미반영 증분(pending + flushing)으로 초기화한다.
+ * 담당 노드가 바뀌면(브레이커 퇴출/복귀, 리샤딩) 이전 담당 노드의 카운터는 새 담당 노드에 쌓인 증분을 모르므로,
+ * 링 교체 알림({@link ConsistentHashRouter#addRingChangeListener})마다 담당이 바뀐 카운터를 전 노드에서 지운다.
+ * 지우지 않으면 노드 복귀 후 이전 카운터가 다시 응답되고, 요청마다 TTL이 연장되어 어긋남이 해소되지 않는다.
+ *
+ * 트레이드오프:
+ * - posts.like_count(목록/상세/검색 랭킹)는 최대 flush 주기만큼 지연 반영
+ * - 초기화 시 퇴출된 노드의 미반영 증분은 읽을 수 없다 — 그 노드가 복귀하면 카운터를 다시 지워 재초기화하므로 퇴출 기간에만 어긋난다
+ * - 초기화가 같은 게시글의 flush(DB 반영 → HDEL)와 겹치면 그 증분 1회분이 빠질 수 있다 (다음 재초기화까지)
+ */
+@Slf4j
+@Service
+public class LikeCountService {
+
+    private static final String KEY_PREFIX = "post:likes:";
+    /** 노드 로컬 증분 해시 — 필드 postId, 값 미반영 증분(음수 가능). */
+    private static final String PENDING = "likes:pending";
+    /** RENAME 후 DB 반영 중인 해시 — 크래시 후 복구 지점. */
+    private static final String FLUSHING = "likes:flushing";
+    private static final String FLUSH_LOCK = "likes:flush-lock";
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(60);
+    private static final String SELECT_SQL = "SELECT like_count FROM posts WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE posts SET like_count = GREATEST(like_count + ?, 0) WHERE id = ?";
+
+    /**
+     * 카운터 INCRBY + pending 증분 누적을 원자적으로.
+     * 카운터가 없고 seed(ARGV[1])가 비어 있으면 아무것도 하지 않고 -1 — 호출자가 DB 값을 읽어 재호출한다.
+     */
+    private static final RedisScript<Long> ADD = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                if ARGV[1] == '' then
+                    return -1
+                end
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            local count = redis.call('INCRBY', KEYS[1], ARGV[2])
+            if count < 0 then
+                redis.call('SET', KEYS[1], 0)
+                count = 0
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            redis.call('HINCRBY', KEYS[2], ARGV[3], ARGV[2])
+            return count
+            """, Long.class);
+
+    /** pending → flushing 원자적 RENAME. 이전 flushing이 남아 있으면 그것부터 반영한다. */
+    private static final RedisScript<Long> SEAL = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 or redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final @Nullable ConsistentHashRouter hashRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RedisDeltaDrainer drainer;
+    private final ExecutorService shardExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /** DB fallback 후 지우지 못한(Redis 장애 지속) 카운터 — flush 주기마다 재시도. 노드 로컬. */
+    private final Set<Long> staleCounters = ConcurrentHashMap.newKeySet();
+
+    private final Timer flushDuration;
+    private final DistributionSummary flushRows;
+    private final Counter seeded;
+    private final Counter dropped;
+
+    @Value("${like-count.counter-ttl-hours:24}")
+    private long counterTtlHours;
+
+    @Value("${like-count.flush.db-batch-size:500}")
+    private int dbBatchSize;
+
+    public LikeCountService(StringRedisTemplate redisTemplate,
+                            @Nullable ConsistentHashRouter hashRouter,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hashRouter = hashRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        Counter retained = Counter.builder("like_count_flush_retained")
+                .description("DB 반영 실패로 pending 해시에 남겨 다음 flush에서 재시도하는 게시글 수")
+                .register(meterRegistry);
+        this.drainer = new RedisDeltaDrainer(jdbcTemplate, new TransactionTemplate(transactionManager),
+                UPDATE_SQL, retained);
+        this.flushDuration = Timer.builder("like_count_flush_duration")
+                .description("좋아요 flush 1회 소요 시간")
+                .register(meterRegistry);
+        this.flushRows = DistributionSummary.builder("like_count_flush_rows")
+                .description("flush 1회에 UPDATE한 게시글 수")
+                .register(meterRegistry);
+        this.seeded = Counter.builder("like_count_seeded")
+                .description("Redis 카운터가 없어 DB 값 + 미반영 증분으로 초기화한 횟수")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("like_count_counters_dropped")
+                .description("담당 노드가 바뀌어 지운 Redis 카운터 수")
+                .register(meterRegistry);
+        if (hashRouter != null) {
+            hashRouter.addRingChangeListener(previousOwnerOf ->
+                    shardExecutor.execute(() -> dropMovedCounters(previousOwnerOf)));
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        shardExecutor.shutdownNow();
+    }
+
+    /** 카운터는 한 노드에만 — 복제본으로 분산하면 응답 값이 노드마다 달라진다. */
+    private StringRedisTemplate redisFor(String key) {
+        return hashRouter != null ? hashRouter.getNode(key) : redisTemplate;
+    }
+
+    /**
+     * 좋아요 수를 delta(+1/-1)만큼 바꾸고 바뀐 값을 반환한다. DB 행 락 없음.
+     * Redis 예외는 그대로 던진다 — 호출자가 DB 직접 UPDATE로 fallback.
+     */
+    public long add(Long postId, int delta) {
+        String key = KEY_PREFIX + postId;
+        StringRedisTemplate node = redisFor(key);
+        List<String> keys = List.of(key, PENDING);
+        String ttl = String.valueOf(TimeUnit.HOURS.toSeconds(counterTtlHours));
+        Long count = node.execute(ADD, keys, "", String.valueOf(delta), postId.toString(), ttl);
+        if (count == null || count < 0) {
+            seeded.increment();
+            count = node.execute(ADD, keys, String.valueOf(seedFor(postId)),
+                    String.valueOf(delta), postId.toString(), ttl);
+        }
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 카운터 초기값 — DB 값 + 아직 DB에 반영되지 않은 증분.
+     * 증분은 좋아요를 받은 시점의 담당 노드 pending/flushing 해시에 있으므로 퇴출되지 않은 전 노드에서 읽는다.
+     */
+    private long seedFor(Long postId) {
+        Long dbCount = jdbcTemplate.queryForObject(SELECT_SQL, Long.class, postId);
+        long seed = dbCount != null ? dbCount : 0L;
+        String field = postId.toString();
+        List<StringRedisTemplate> targets = hashRouter != null
+                ? hashRouter.getMemberNodes().stream().filter(node -> !hashRouter.isEjected(node)).toList()
+                : List.of(redisTemplate);
+        for (StringRedisTemplate target : targets) {
+            try {
+                seed += parseDelta(target.<String, String>opsForHash().get(PENDING, field));
+                seed += parseDelta(target.<String, String>opsForHash().get(FLUSHING, field));
+            } catch (Exception e) {
+                log.debug("미반영 좋아요 증분 조회 실패 — 제외하고 초기화: postId={}, {}", postId, e.getMessage());
+            }
+        }
+        return Math.max(seed, 0L);
+    }
+
+    private static long deleteAll(StringRedisTemplate node, List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long deleted = node.delete(List.copyOf(keys));
+        keys.clear();
+        return deleted != null ? deleted : 0;
+    }
+
+    private static long parseDelta(@Nullable String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * 링 교체 후 — 담당 노드가 바뀐 카운터, 또는 현재 담당이 아닌 노드에 남은 카운터를 지운다.
+     * 다음 {@link #add}가 새 담당 노드에서 DB + 미반영 증분으로 다시 초기화한다.
+     */
+    void dropMovedCounters(Function<String, StringRedisTemplate> previousOwnerOf) {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        long removed = 0;
+        for (StringRedisTemplate node : hashRouter.getMemberNodes()) {
+            if (hashRouter.isEjected(node)) {
+                continue;   // 복귀 시 다시 알림을 받는다
+            }
+            List<String> stale = new ArrayList<>();
+            try (Cursor<String> cursor = node.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    StringRedisTemplate owner = hashRouter.getOwnerNode(key);
+                    if (owner != node || previousOwnerOf.apply(key) != owner) {
+                        stale.add(key);
+                    }
+                    if (stale.size() >= 1000) {
+                        removed += deleteAll(node, stale);
+                    }
+                }
+                removed += deleteAll(node, stale);
+            } catch (Exception e) {
+                log.warn("담당 노드가 바뀐 좋아요 카운터 삭제 실패 ({}건): {}", stale.size(), e.getMessage());
+            }
+        }
+        dropped.increment(removed);
+        if (removed > 0) {
+            log.info("링 교체로 좋아요 카운터 {}건 삭제 — 다음 갱신 때 재초기화", removed);
+        }
+    }
+
+    /**
+     * 카운터를 지운다 — DB에 직접 반영한 증분이 카운터에 없으므로, 다음 {@link #add}가 DB 값으로 다시 초기화하도록.
+     * Redis가 아직 장애면 목록에 남겨 두고 flush 주기마다 다시 지운다.
+     */
+    public void invalidate(Long postId) {
+        staleCounters.add(postId);
+        deleteStaleCounters();
+    }
+
+    private void deleteStaleCounters() {
+        for (Long postId : staleCounters) {
+            String key = KEY_PREFIX + postId;
+            try {
+                redisFor(key).delete(key);
+                staleCounters.remove(postId);
+            } catch (Exception e) {
+                log.debug("좋아요 카운터 삭제 실패 — 다음 flush에서 재시도: postId={}, {}", postId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 누적된 좋아요 증분을 DB에 배치 flush (5초 주기).
+     * 노드별: 락 → pending을 flushing으로 RENAME → HSCAN 페이지별 batch UPDATE + HDEL(RedisDeltaDrainer).
+     * 반영한 게시글은 같은 트랜잭션에서 LikeChanged를 발행해 커밋 후 상세 캐시를 무효화한다.
+     */
+    @Scheduled(fixedRateString = "${like-count.flush.interval-ms:5000}")
+    public void flushToDB() {
+        long start = System.nanoTime();
+        deleteStaleCounters();
+        List<StringRedisTemplate> targets = hashRouter != null
+                ? hashRouter.getAllNodes()
+                : List.of(redisTemplate);
+        List<CompletableFuture<Integer>> futures = targets.stream()
+                .map(node -> CompletableFuture.supplyAsync(() -> flushNode(node), shardExecutor))
+                .toList();
+        int flushed = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            flushed += future.join();
+        }
+        flushRows.record(flushed);
+        flushDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (flushed > 0) {
+            log.debug("좋아요 flush 완료: {}건", flushed);
+        }
+    }
+
+    int flushNode(StringRedisTemplate node) {
+        int applied = 0;
+        String token = null;
+        try {
+            token = drainer.tryLock(node, FLUSH_LOCK, FLUSH_LOCK_TTL);
+            if (token == null) {
+                return 0;   // 다른 인스턴스가 이 노드를 flush 중
+            }
+            node.execute(SEAL, List.of(PENDING, FLUSHING));
+            RedisDeltaDrainer.Result result = drainer.drain(node, FLUSHING, dbBatchSize,
+                    postIds -> postIds.forEach(id -> eventPublisher.publishEvent(new PostEvent.LikeChanged(id))));
+            applied = result.applied();
+            if (result.complete()) {
+                node.delete(FLUSHING);
+            }
+        } catch (Exception e) {
+            // 반영 못 한 필드는 flushing 해시에 남아 다음 flush에서 이어서
+            log.warn("좋아요 flush 실패 (반영분 {}건): {}", applied, e.getMessage());
+        } finally {
+            if (token != null) {
+                drainer.unlock(node, FLUSH_LOCK, token);
+            }
+        }
+        return applied;
+    }
+}
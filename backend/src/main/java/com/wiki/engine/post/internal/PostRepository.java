@@ -68,6 +68,18 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("UPDATE Post p SET p.likeCount = p.likeCount - 1 WHERE p.id = :id AND p.likeCount > 0")
     void decrementLikeCount(@Param("id") Long id);
 
+    /**
+     * 조회수 상위 제목 — 자동완성 FST 빌드용 (제목, 조회수).
+     * 블라인드 게시글 제외. 매시간 백그라운드 빌드에서만 호출한다 (view_count 인덱스 없음 → 전체 스캔 + top-N 정렬).
+     */
+    @Query(value = """
+        SELECT title, view_count FROM posts
+        WHERE blinded = false
+        ORDER BY view_count DESC
+        LIMIT :lmt
+        """, nativeQuery = true)
+    List<Object[]> findTopTitlesByViewCount(@Param("lmt") int lmt);
+
     /** 좋아요 수만 조회한다. (좋아요 변경 후 최신 값 반환용) */
     @Query("SELECT p.likeCount FROM Post p WHERE p.id = :id")
     long findLikeCountById(@Param("id") Long id);
@@ -0,0 +1,142 @@
+package com.wiki.engine.post.internal;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Redis 증분 해시(필드 = postId, 값 = 증분)를 DB 카운터 컬럼에 반영하는 write-behind drain.
+ * 조회수 버킷(ViewCountService)과 좋아요 pending 해시(LikeCountService)가 공유한다.
+ *
+ * HSCAN 페이지마다 postId 오름차순 JDBC batch UPDATE를 트랜잭션 1개로 커밋한 뒤 그 필드만 HDEL.
+ * - 정렬 순서 고정 → 샤드별 병렬 flush 간 데드락 없음
+ * - 실패한 페이지는 해시에 남아 다음 flush에서 재시도, 커밋 후 HDEL 전에 죽은 페이지 1개만 중복 반영될 수 있다
+ * - HSCAN은 rehash 중 같은 필드를 두 번 돌려줄 수 있어 본 필드는 건너뛴다 (drain 대상 해시는 더 이상 쓰이지 않는다)
+ */
+@Slf4j
+class RedisDeltaDrainer {
+
+    /** 자신이 잡은 락만 해제 — TTL 만료 후 다른 인스턴스가 잡은 락을 지우지 않도록 토큰 비교. */
+    private static final RedisScript<Long> RELEASE_LOCK = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String updateSql;
+    private final Counter retained;
+
+    /** @param updateSql 파라미터 (증분, postId) 순서의 UPDATE 문 */
+    RedisDeltaDrainer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                      String updateSql, Counter retained) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.updateSql = updateSql;
+        this.retained = retained;
+    }
+
+    /** drain 1회 결과 — complete가 false면 해시에 반영 못 한 필드가 남아 있다. */
+    record Result(int applied, boolean complete) {}
+
+    /** 노드별 flush 락 — 여러 인스턴스가 같은 해시를 동시에 반영(중복 집계)하지 않도록. 실패 시 null. */
+    @Nullable
+    String tryLock(StringRedisTemplate node, String lockKey, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        return Boolean.TRUE.equals(node.opsForValue().setIfAbsent(lockKey, token, ttl)) ? token : null;
+    }
+
+    void unlock(StringRedisTemplate node, String lockKey, String token) {
+        try {
+            node.execute(RELEASE_LOCK, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.debug("flush 락 해제 실패 (TTL 만료 대기): key={}, {}", lockKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 해시 1개를 HSCAN 페이지(pageSize) 단위로 반영한다.
+     *
+     * @param onCommit 페이지 트랜잭션 안에서 반영한 postId 목록으로 호출 (트랜잭션 이벤트 발행용)
+     */
+    Result drain(StringRedisTemplate node, String key, int pageSize, @Nullable Consumer<List<Long>> onCommit) {
+        ScanOptions options = ScanOptions.scanOptions().count(pageSize).build();
+        Set<String> seen = new HashSet<>();
+        List<Map.Entry<Object, Object>> page = new ArrayList<>(pageSize);
+        int applied = 0;
+        boolean complete = true;
+        try (Cursor<Map.Entry<Object, Object>> cursor = node.opsForHash().scan(key, options)) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                if (seen.add(entry.getKey().toString())) {
+                    page.add(entry);
+                }
+                if (page.size() >= pageSize) {
+                    int rows = applyPage(node, key, page, onCommit);
+                    complete &= rows >= 0;
+                    applied += Math.max(rows, 0);
+                    page = new ArrayList<>(pageSize);
+                }
+            }
+        }
+        if (!page.isEmpty()) {
+            int rows = applyPage(node, key, page, onCommit);
+            complete &= rows >= 0;
+            applied += Math.max(rows, 0);
+        }
+        return new Result(applied, complete);
+    }
+
+    /** 페이지 1개 — postId 정렬 batch UPDATE(트랜잭션 1개) 커밋 후 HDEL. 실패 시 -1. */
+    private int applyPage(StringRedisTemplate node, String key, List<Map.Entry<Object, Object>> page,
+                          @Nullable Consumer<List<Long>> onCommit) {
+        TreeMap<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : page) {
+            try {
+                long delta = Long.parseLong(entry.getValue().toString());
+                if (delta != 0) {
+                    deltas.put(Long.parseLong(entry.getKey().toString()), delta);
+                }
+            } catch (NumberFormatException e) {
+                // 잘못된 필드는 HDEL로 버린다 — 남겨두면 해시가 영원히 비지 않는다
+                log.warn("증분 필드 무시: key={}, field={}", key, entry.getKey());
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((postId, delta) -> rows.add(new Object[]{delta, postId}));
+        try {
+            if (!rows.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(updateSql, rows);
+                    if (onCommit != null) {
+                        onCommit.accept(List.copyOf(deltas.keySet()));
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.warn("증분 DB 반영 실패 ({}건), 해시에 남겨 재시도: key={}, {}", rows.size(), key, e.getMessage());
+            retained.increment(rows.size());
+            return -1;
+        }
+        node.opsForHash().delete(key, page.stream().map(Map.Entry::getKey).toArray());
+        return rows.size();
+    }
+}
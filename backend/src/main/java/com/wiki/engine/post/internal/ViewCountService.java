@@ -1,114 +1,414 @@
 package com.wiki.engine.post.internal;
 
 import com.wiki.engine.post.internal.cache.ConsistentHashRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Redis 기반 조회수 카운터 (INCR + 배치 flush).
+ * Redis 기반 조회수 카운터 (로컬 선집계 → 시간 버킷 HINCRBY → 배치 flush).
  *
- * GET /posts/{id} 요청 시 DB UPDATE 대신 Redis INCR로 즉시 반환.
- * 30초마다 누적된 조회수를 DB에 배치 flush.
+ * GET /posts/{id} 요청 시 DB UPDATE도 Redis 호출도 없이 로컬 LongAdder만 증가.
+ * 1초마다 샤드별 파이프라인 1회로 Redis 버킷에 HINCRBY, 30초마다 닫힌 버킷을 DB에 배치 flush.
  *
  * 장점:
  * - GET 요청에서 DB 쓰기 제거 → R/W 분리 라우팅 문제 해결
- * - Redis INCR은 싱글스레드 원자적 연산 → 동시성 문제 없음
+ * - Redis HINCRBY는 싱글스레드 원자적 연산 → 동시성 문제 없음
  * - Row Lock 경합 제거 → DB 부하 감소
  *
  * 트레이드오프:
- * - Redis 장애 시 최대 30초 조회수 유실 (커뮤니티에서 허용 가능)
- * - 조회수가 최대 30초 지연 반영 (Eventual Consistency)
+ * - 프로세스 비정상 종료 시 최대 ~2초분 로컬 증분 유실, Redis 장애 시 최대 30초 조회수 유실 (커뮤니티에서 허용 가능)
+ * - 조회수가 최대 버킷 길이 + 30초 지연 반영 (Eventual Consistency)
  */
 @Slf4j
 @Service
 public class ViewCountService {
 
+    /** 라우팅 키 겸 기존(게시글별 문자열 키) 포맷의 접두사. */
+    private static final String KEY_PREFIX = "post:views:";
+    private static final String BUCKET_PREFIX = "views:bucket:";
+    private static final String FLUSHING_PREFIX = "views:flushing:";
+    /** 노드별 쓰기 중인 버킷 id 목록 — flush가 SCAN 없이 버킷을 찾는다. */
+    private static final String OPEN_BUCKETS = "views:buckets";
+    /** 노드별 RENAME 후 아직 DB 반영이 끝나지 않은 버킷 id 목록 — 크래시 후 복구 지점. */
+    private static final String FLUSHING_BUCKETS = "views:flushing";
+    /** 노드별 flush 락 — 여러 인스턴스가 같은 flushing 해시를 동시에 반영하지 않도록. */
+    private static final String FLUSH_LOCK = "views:flush-lock";
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(60);
+    private static final String UPDATE_SQL = "UPDATE posts SET view_count = view_count + ? WHERE id = ?";
+
+    /**
+     * 닫힌 버킷을 flushing 키로 원자적 RENAME.
+     * 버킷이 이미 비어 있으면(이전 flush가 옮김) 그제서야 열린 목록에서 뺀다 —
+     * 유예 시간 이후 늦게 도착한 HINCRBY도 한 주기 더 수거된다.
+     * 같은 버킷의 이전 flushing 키가 남아 있으면 RENAMENX가 실패 → 잔여분 반영 후 다음 flush에서 재시도.
+     */
+    private static final RedisScript<Long> CLOSE_BUCKET = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SREM', KEYS[3], ARGV[1])
+                return 0
+            end
+            if redis.call('RENAMENX', KEYS[1], KEYS[2]) == 0 then
+                return -1
+            end
+            redis.call('SADD', KEYS[4], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /** 기존 post:views:{id} 키를 GETDEL해 버킷 해시로 옮긴다 (KEYS[1] = 버킷, ARGV[1] = 접두사 길이). */
+    private static final RedisScript<Long> MIGRATE_LEGACY = RedisScript.of("""
+            local moved = 0
+            for i = 2, #KEYS do
+                local v = redis.call('GETDEL', KEYS[i])
+                if v then
+                    redis.call('HINCRBY', KEYS[1], string.sub(KEYS[i], tonumber(ARGV[1]) + 1), v)
+                    moved = moved + 1
+                end
+            end
+            return moved
+            """, Long.class);
+
     private final StringRedisTemplate redisTemplate;
     private final @Nullable ConsistentHashRouter hashRouter;
-    private final PostRepository postRepository;
+    private final RedisDeltaDrainer drainer;
+    private final ExecutorService shardExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /**
+     * 로컬 선집계 더블 버퍼 — 요청 스레드는 pending에만 쓰고, 주기마다 pending → sealed → Redis 순으로 넘긴다.
+     * 교체 직전에 LongAdder를 집어 든 스레드의 증가분도 한 주기 뒤 sealed를 읽을 때 포함된다.
+     */
+    private volatile ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Long, LongAdder> sealed = new ConcurrentHashMap<>();
+    private volatile boolean legacyMigrated;
 
-    private static final String KEY_PREFIX = "post:views:";
+    private final Timer flushDuration;
+    private final DistributionSummary flushRows;
+    private final Counter retained;
+    private final Counter bufferOverflow;
+    private final Counter bufferDropped;
+
+    @Value("${view-count.bucket-seconds:10}")
+    private long bucketSeconds;
+
+    @Value("${view-count.close-grace-ms:2000}")
+    private long closeGraceMs;
+
+    @Value("${view-count.migrate-legacy-keys:true}")
+    private boolean migrateLegacyKeys;
+
+    @Value("${view-count.buffer.max-posts:100000}")
+    private int maxBufferedPosts;
+
+    @Value("${view-count.flush.scan-page-size:500}")
+    private int scanPageSize;
+
+    @Value("${view-count.flush.db-batch-size:500}")
+    private int dbBatchSize;
 
     public ViewCountService(StringRedisTemplate redisTemplate,
                             @Nullable ConsistentHashRouter hashRouter,
-                            PostRepository postRepository) {
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
         this.hashRouter = hashRouter;
-        this.postRepository = postRepository;
+        this.flushDuration = Timer.builder("view_count_flush_duration")
+                .description("조회수 flush 1회 소요 시간 (버킷 RENAME + HSCAN + DB 반영)")
+                .register(meterRegistry);
+        this.flushRows = DistributionSummary.builder("view_count_flush_rows")
+                .description("flush 1회에 UPDATE한 게시글 수")
+                .register(meterRegistry);
+        this.retained = Counter.builder("view_count_flush_retained")
+                .description("DB 반영 실패로 버킷에 남겨 다음 flush에서 재시도하는 게시글 수")
+                .register(meterRegistry);
+        this.drainer = new RedisDeltaDrainer(jdbcTemplate, new TransactionTemplate(transactionManager),
+                UPDATE_SQL, retained);
+        this.bufferOverflow = Counter.builder("view_count_buffer_overflow")
+                .description("로컬 버퍼가 가득 차 Redis에 직접 쓴 조회 수")
+                .register(meterRegistry);
+        this.bufferDropped = Counter.builder("view_count_buffer_dropped")
+                .description("Redis 반영 실패 후 버퍼가 가득 차 버린 조회수 증분")
+                .register(meterRegistry);
+        Gauge.builder("view_count_buffer_posts", this, s -> s.pending.size() + s.sealed.size())
+                .description("로컬 선집계 버퍼의 게시글 수")
+                .register(meterRegistry);
     }
 
+    /** 종료 시 남은 로컬 증분을 모두 Redis로 — 버퍼 두 개를 순서대로 반영. */
+    @PreDestroy
+    void close() {
+        synchronized (this) {
+            ConcurrentHashMap<Long, LongAdder> ready = sealed;
+            ConcurrentHashMap<Long, LongAdder> last = pending;
+            sealed = new ConcurrentHashMap<>();
+            pending = new ConcurrentHashMap<>();
+            publish(ready);
+            publish(last);
+        }
+        shardExecutor.shutdownNow();
+    }
+
+    /** hot 게시글은 복제 노드로 HINCRBY 분산 — flush가 모든 노드의 버킷을 순회하므로 유실 없음. */
     private StringRedisTemplate redisFor(String key) {
-        return hashRouter != null ? hashRouter.getNode(key) : redisTemplate;
+        return hashRouter != null ? hashRouter.getBalancedNode(key) : redisTemplate;
+    }
+
+    long bucketOf(long epochMillis) {
+        return epochMillis / (bucketSeconds * 1000);
     }
 
     /**
-     * 조회수 1 증가 (Redis INCR, O(1), ~0.1ms).
+     * 조회수 1 증가 (로컬 LongAdder, Redis I/O 없음).
      * DB를 타지 않으므로 R/W 라우팅과 무관.
+     *
+     * 같은 게시글의 반복 조회는 한 주기 안에서 하나의 HINCRBY로 합쳐진다 — Redis ops/s는 반복률만큼 감소.
+     * 버퍼 게시글 수가 max-posts에 닿으면 새 게시글은 이전처럼 Redis에 직접 쓴다 (메모리 상한).
      */
     public void increment(Long postId) {
-        String key = KEY_PREFIX + postId;
+        ConcurrentHashMap<Long, LongAdder> current = pending;
+        LongAdder adder = current.get(postId);
+        if (adder == null) {
+            if (current.size() >= maxBufferedPosts) {
+                bufferOverflow.increment();
+                writeThrough(postId);
+                return;
+            }
+            adder = current.computeIfAbsent(postId, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    private void writeThrough(Long postId) {
         try {
-            redisFor(key).opsForValue().increment(key);
+            publishTo(redisFor(KEY_PREFIX + postId), Map.of(postId, 1L));
         } catch (RedisConnectionFailureException e) {
-            log.warn("Redis 조회수 INCR 실패 (무시): postId={}", postId);
+            log.warn("Redis 조회수 HINCRBY 실패 (무시): postId={}", postId);
         }
     }
 
+    /** 로컬 버퍼 → Redis (1초 주기). 한 주기 전에 봉인한 버퍼를 반영하고 현재 버퍼를 봉인한다. */
+    @Scheduled(fixedRateString = "${view-count.buffer.publish-interval-ms:1000}")
+    public synchronized void publishBuffered() {
+        ConcurrentHashMap<Long, LongAdder> ready = sealed;
+        sealed = pending;
+        pending = new ConcurrentHashMap<>();
+        publish(ready);
+    }
+
+    /** 샤드별로 묶어 파이프라인 1회씩 병렬 전송. 실패한 샤드 분은 버퍼로 되돌려 다음 주기에 재시도. */
+    void publish(Map<Long, LongAdder> buffer) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        Map<StringRedisTemplate, Map<Long, Long>> byNode = new HashMap<>();
+        buffer.forEach((postId, adder) -> {
+            long delta = adder.sum();
+            if (delta > 0) {
+                byNode.computeIfAbsent(redisFor(KEY_PREFIX + postId), node -> new HashMap<>()).put(postId, delta);
+            }
+        });
+        List<CompletableFuture<Void>> futures = byNode.entrySet().stream()
+                .map(e -> CompletableFuture.runAsync(() -> {
+                    try {
+                        publishTo(e.getKey(), e.getValue());
+                    } catch (Exception ex) {
+                        log.warn("조회수 Redis 반영 실패 ({}건), 버퍼로 되돌림: {}", e.getValue().size(), ex.getMessage());
+                        e.getValue().forEach(this::restore);
+                    }
+                }, shardExecutor))
+                .toList();
+        futures.forEach(CompletableFuture::join);
+    }
+
+    private void restore(Long postId, Long delta) {
+        ConcurrentHashMap<Long, LongAdder> current = pending;
+        LongAdder adder = current.get(postId);
+        if (adder == null && current.size() >= maxBufferedPosts) {
+            bufferDropped.increment(delta);
+            return;
+        }
+        (adder != null ? adder : current.computeIfAbsent(postId, k -> new LongAdder())).add(delta);
+    }
+
+    /**
+     * 노드 1개 — 현재 시간 버킷 해시 views:bucket:{버킷}에 postId 필드로 HINCRBY.
+     * 버킷 id 등록(SADD)을 같은 파이프라인의 맨 앞에 — flush가 찾지 못하는 버킷은 생기지 않는다.
+     */
+    private void publishTo(StringRedisTemplate node, Map<Long, Long> deltas) {
+        String bucket = Long.toString(bucketOf(System.currentTimeMillis()));
+        byte[] bucketKey = (BUCKET_PREFIX + bucket).getBytes(StandardCharsets.UTF_8);
+        node.executePipelined((RedisCallback<Object>) connection -> {
+            connection.setCommands().sAdd(OPEN_BUCKETS.getBytes(StandardCharsets.UTF_8),
+                    bucket.getBytes(StandardCharsets.UTF_8));
+            deltas.forEach((postId, delta) -> connection.hashCommands().hIncrBy(
+                    bucketKey, postId.toString().getBytes(StandardCharsets.UTF_8), delta));
+            return null;
+        });
+    }
+
     /**
-     * 누적된 조회수를 DB에 배치 flush (30초 주기).
-     * Redis에서 읽고 삭제 → DB UPDATE.
+     * 닫힌 버킷을 DB에 배치 flush (30초 주기).
+     *
+     * SCAN MATCH 제거: 게시글별 키를 전체 keyspace(검색 캐시, 자동완성 버전, 블랙리스트 포함)에서
+     * 찾던 방식 대신, 노드별 버킷 목록(SMEMBERS) → 닫힌 버킷 RENAME → HSCAN.
+     * flush 비용이 keyspace 크기가 아니라 조회된 게시글 수에 비례한다.
      *
-     * KEYS → SCAN 전환: KEYS는 전체 keyspace를 O(N) 블로킹 스캔하여
-     * 실행 동안 모든 Redis 명령이 대기한다. SCAN은 커서 기반으로
-     * 각 호출 사이에 다른 명령이 실행될 수 있어 블로킹하지 않는다.
+     * 버킷은 끝난 뒤 close-grace-ms(인스턴스 간 시계 오차 유예)가 지나야 닫는다.
+     * 샤드별 병렬 처리, HSCAN 페이지(db-batch-size)마다 postId 오름차순 JDBC batch UPDATE를
+     * 별도 트랜잭션으로 커밋한 뒤 그 필드만 HDEL — 정렬 순서 고정으로 샤드 간 데드락 방지.
+     * 크래시 시 flushing 키에 미반영 필드가 그대로 남아 다음 flush가 이어서 처리한다
+     * (커밋 후 HDEL 전에 죽은 페이지 1개만 중복 반영될 수 있다).
      */
     @Scheduled(fixedRate = 30_000)
-    @Transactional
     public void flushToDB() {
-        ScanOptions options = ScanOptions.scanOptions()
-                .match(KEY_PREFIX + "*")
-                .count(1000)
-                .build();
-
-        int flushed = 0;
-
+        long start = System.nanoTime();
         // 샤딩 시 모든 노드를 순회, 아니면 단일 Redis만
         List<StringRedisTemplate> targets = hashRouter != null
                 ? hashRouter.getAllNodes()
                 : List.of(redisTemplate);
+        if (migrateLegacyKeys && !legacyMigrated) {
+            boolean migrated = true;
+            for (StringRedisTemplate node : targets) {
+                migrated &= migrateLegacy(node);
+            }
+            legacyMigrated = migrated;   // 실패한 노드가 있으면 다음 flush에서 다시 (이전이 끝난 노드는 SCAN 결과가 비어 no-op)
+        }
 
-        for (StringRedisTemplate node : targets) {
-            try (Cursor<String> cursor = node.scan(options)) {
-                while (cursor.hasNext()) {
-                    String key = cursor.next();
-                    try {
-                        String value = node.opsForValue().getAndDelete(key);
-                        if (value == null) continue;
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Integer>> futures = targets.stream()
+                .map(node -> CompletableFuture.supplyAsync(() -> flushNode(node, now), shardExecutor))
+                .toList();
+        int flushed = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            flushed += future.join();
+        }
 
-                        long delta = Long.parseLong(value);
-                        if (delta <= 0) continue;
+        flushRows.record(flushed);
+        flushDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (flushed > 0) {
+            log.debug("조회수 flush 완료: {}건", flushed);
+        }
+    }
 
-                        Long postId = Long.parseLong(key.substring(KEY_PREFIX.length()));
-                        postRepository.incrementViewCountBy(postId, delta);
-                        flushed++;
-                    } catch (Exception e) {
-                        log.warn("조회수 flush 실패: key={}, error={}", key, e.getMessage());
-                    }
+    /** 노드 1개 — 닫힌 버킷 RENAME 후 flushing 목록(이전 잔여분 포함)을 모두 반영. 반영한 행 수 반환. */
+    int flushNode(StringRedisTemplate node, long nowMillis) {
+        long closeBefore = bucketOf(nowMillis - closeGraceMs);
+        int applied = 0;
+        String token = null;
+        try {
+            token = drainer.tryLock(node, FLUSH_LOCK, FLUSH_LOCK_TTL);
+            if (token == null) {
+                return 0;   // 다른 인스턴스가 이 노드를 flush 중
+            }
+            for (String bucket : members(node, OPEN_BUCKETS)) {
+                if (Long.parseLong(bucket) < closeBefore) {
+                    node.execute(CLOSE_BUCKET,
+                            List.of(BUCKET_PREFIX + bucket, FLUSHING_PREFIX + bucket, OPEN_BUCKETS, FLUSHING_BUCKETS),
+                            bucket);
                 }
             }
+            for (String bucket : members(node, FLUSHING_BUCKETS)) {
+                applied += drain(node, bucket);
+            }
+        } catch (Exception e) {
+            // 반영 못 한 버킷은 flushing 키로 남아 다음 flush에서 이어서
+            log.warn("조회수 flush 실패 (반영분 {}건): {}", applied, e.getMessage());
+        } finally {
+            if (token != null) {
+                drainer.unlock(node, FLUSH_LOCK, token);
+            }
         }
+        return applied;
+    }
 
-        if (flushed > 0) {
-            log.debug("조회수 flush 완료: {}건", flushed);
+    private static Set<String> members(StringRedisTemplate node, String key) {
+        Set<String> members = node.opsForSet().members(key);
+        return members != null ? members : Set.of();
+    }
+
+    /**
+     * flushing 해시 1개를 HSCAN 페이지(db-batch-size) 단위로 반영 (RedisDeltaDrainer).
+     * 모든 페이지가 성공해야 키와 목록 항목을 지운다 — 실패한 필드는 남아 다음 flush에서 재시도.
+     */
+    int drain(StringRedisTemplate node, String bucket) {
+        String key = FLUSHING_PREFIX + bucket;
+        RedisDeltaDrainer.Result result = drainer.drain(node, key, dbBatchSize, null);
+        if (result.complete()) {
+            node.delete(key);
+            node.opsForSet().remove(FLUSHING_BUCKETS, bucket);
         }
+        return result.applied();
+    }
+
+    /**
+     * 배포 전 포맷(post:views:{id} 문자열 키)의 잔여 증분을 현재 버킷으로 옮긴다 — 기동 후 전 노드 성공까지 flush마다.
+     * SCAN 페이지마다 Lua로 GETDEL + HINCRBY를 원자적으로 수행해 옮기는 중 크래시로 인한 유실이 없다.
+     *
+     * @return 노드의 기존 키를 끝까지 훑었으면 true
+     */
+    boolean migrateLegacy(StringRedisTemplate node) {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(KEY_PREFIX + "*")
+                .count(1000)
+                .build();
+        long bucket = bucketOf(System.currentTimeMillis());
+        long moved = 0;
+        List<String> page = new ArrayList<>(scanPageSize + 1);
+        page.add(BUCKET_PREFIX + bucket);
+        try (Cursor<String> cursor = node.scan(options)) {
+            node.opsForSet().add(OPEN_BUCKETS, Long.toString(bucket));
+            while (cursor.hasNext()) {
+                page.add(cursor.next());
+                if (page.size() > scanPageSize) {
+                    moved += moveLegacyPage(node, page);
+                    page.subList(1, page.size()).clear();
+                }
+            }
+            if (page.size() > 1) {
+                moved += moveLegacyPage(node, page);
+            }
+        } catch (Exception e) {
+            log.warn("기존 조회수 키 이전 실패 — 다음 flush에서 재시도 (이전분 {}건): {}", moved, e.getMessage());
+            return false;
+        }
+        if (moved > 0) {
+            log.info("기존 조회수 키 {}건을 버킷 {}로 이전", moved, bucket);
+        }
+        return true;
+    }
+
+    private long moveLegacyPage(StringRedisTemplate node, List<String> keys) {
+        Long moved = node.execute(MIGRATE_LEGACY, List.copyOf(keys), String.valueOf(KEY_PREFIX.length()));
+        return moved != null ? moved : 0;
     }
 }
@@ -14,13 +14,21 @@ import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.infrastructure.repeat.RepeatStatus;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.PlatformTransactionManager;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -30,7 +38,12 @@ import java.util.*;
  * <p>설계 문서의 MapReduce 배턴을 Spring Batch로 구현:
  * - Map: 검색 로그에서 인기 검색어 추출 → 접두사 분해 (원본 + 자모 + 초성)
  * - Reduce: 접두사별 Top-K 집계
- * - Write: Redis에 버전 네임스페이스로 적재 → 버전 포인터 원자적 전환
+ * - Write: 샤드별 파이프라인(1000키 단위)으로 버전 네임스페이스에 적재 → 전부 성공했을 때만 버전 포인터 원자적 전환
+ *   (일부 배치가 실패하면 포인터를 유지하고 불완전한 새 버전을 지운 뒤 Step을 실패 처리 — 재시작 가능)
+ * - Cleanup: 전환 후 직전 버전 삭제를 TaskScheduler에 {@link #RETIRE_DELAY} 뒤로 예약 — 조회 측 버전 캐시(30초)가
+ *   직전 버전을 볼 수 있는 동안은 남겨 두되, 배치 스레드를 재우지 않고 다음 빌드까지 두 벌을 들고 있지도 않는다.
+ *   예약이 유실된 버전(재시작 등)은 다음 빌드 시작 시 현재 버전을 뺀 나머지로 정리한다.
+ * - 적재/삭제 라우팅은 {@link ConsistentHashRouter#getOwnerNode} — 요청 트래픽이 아니므로 처리량/hot key 집계에 넣지 않는다.
  *
  * <p>Spring Batch JobRepository가 실행 이력/상태/재시작을 관리하고,
  * @Scheduled(매시간)로 Job을 트리거한다.
@@ -44,6 +57,14 @@ public class AutocompleteBatchConfig {
     private static final int MAX_QUERIES = 10_000;
     private static final Duration KEY_TTL = Duration.ofHours(2);
     private static final String VERSION_KEY = "prefix:current_version";
+    private static final String KEY_PREFIX = "prefix:v";
+    /** 적재한 버전 → payload 바이트. 이전 버전 정리 대상 목록을 겸한다 (기본 Redis). */
+    private static final String VERSIONS_KEY = "prefix:versions";
+    /** 노드별 버전 키 이름 추적 SET — prefix:v* 패턴과 겹치지 않게 별도 접두사 (리샤딩 이동 대상 아님). */
+    private static final String TRACK_PREFIX = "prefix:keys:v";
+    private static final int WRITE_BATCH = 1000;
+    /** 포인터 전환 후 직전 버전 삭제까지 — 조회 측 버전 캐시 TTL(30초)의 2배. */
+    static final Duration RETIRE_DELAY = Duration.ofSeconds(60);
 
     @Bean
     Job autocompleteBuildJob(JobRepository jobRepository, Step autocompleteBuildStep) {
@@ -65,7 +86,8 @@ public class AutocompleteBatchConfig {
     Tasklet autocompleteBuildTasklet(SearchLogRepository searchLogRepository,
                                      StringRedisTemplate redis,
                                      @Nullable ConsistentHashRouter hashRouter,
-                                     JsonMapper jsonMapper) {
+                                     JsonMapper jsonMapper,
+                                     TaskScheduler taskScheduler) {
         return (contribution, chunkContext) -> {
             long start = System.nanoTime();
 
@@ -78,7 +100,7 @@ public class AutocompleteBatchConfig {
             }
 
             // Map: 검색어 → 접두사 분해 (원본 + 자모 + 초성)
-            Map<String, PriorityQueue<ScoredQuery>> prefixMap = new HashMap<>();
+            Map<String, PrefixTopK> prefixMap = new HashMap<>();
 
             for (Object[] row : topQueries) {
                 String query = (String) row[0];
@@ -97,52 +119,158 @@ public class AutocompleteBatchConfig {
                 }
             }
 
-            // Reduce + Write: Top-K 정렬 → Redis 적재
+            // Cleanup: 예약 삭제가 유실된 이전 빌드 정리 — 현재 버전만 남긴다
+            List<StringRedisTemplate> nodes = hashRouter != null ? hashRouter.getAllNodes() : List.of(redis);
+            String current = redis.opsForValue().get(VERSION_KEY);
+            for (Object old : redis.opsForHash().keys(VERSIONS_KEY)) {
+                if (!old.toString().equals(current)) {
+                    deleteVersion(redis, hashRouter, nodes, old.toString());
+                }
+            }
+
+            // Reduce: Top-K 정렬 → 담당 샤드별로 묶기
             long newVersion = System.currentTimeMillis();
-            int keyCount = 0;
+            String version = String.valueOf(newVersion);
+            Map<StringRedisTemplate, List<Map.Entry<String, String>>> byNode = new HashMap<>();
+            long bytes = 0;
 
             for (var entry : prefixMap.entrySet()) {
-                List<String> topK = entry.getValue().stream()
-                        .sorted(Comparator.comparingLong(ScoredQuery::score).reversed())
-                        .map(ScoredQuery::query)
-                        .toList();
+                String key = KEY_PREFIX + version + ":" + entry.getKey();
                 try {
-                    String key = "prefix:v" + newVersion + ":" + entry.getKey();
-                    StringRedisTemplate target = hashRouter != null ? hashRouter.getNode(key) : redis;
-                    target.opsForValue().set(key, jsonMapper.writeValueAsString(topK), KEY_TTL);
-                    keyCount++;
+                    String value = jsonMapper.writeValueAsString(entry.getValue().sorted());
+                    bytes += utf8Length(key) + utf8Length(value);
+                    StringRedisTemplate target = hashRouter != null ? hashRouter.getOwnerNode(key) : redis;
+                    byNode.computeIfAbsent(target, node -> new ArrayList<>()).add(Map.entry(key, value));
                 } catch (Exception e) {
-                    log.warn("[Batch] Redis 저장 실패: prefix={}, error={}", entry.getKey(), e.getMessage());
+                    log.warn("[Batch] 직렬화 실패: prefix={}, error={}", entry.getKey(), e.getMessage());
                 }
             }
 
-            // 버전 포인터 원자적 전환
-            redis.opsForValue().set(VERSION_KEY, String.valueOf(newVersion));
+            // Write: 버전 등록 → 샤드별 파이프라인 적재 → 버전 포인터 원자적 전환
+            // 등록을 먼저 — 적재 도중 죽어도 다음 빌드가 이 버전을 찾아 정리한다
+            redis.opsForHash().put(VERSIONS_KEY, version, String.valueOf(bytes));
+            int keyCount = 0;
+            int expected = 0;
+            for (var entry : byNode.entrySet()) {
+                keyCount += writeVersion(entry.getKey(), version, entry.getValue());
+                expected += entry.getValue().size();
+            }
+            if (keyCount < expected) {
+                // 일부 접두사가 빠진 버전으로 전환하지 않는다 — 현재 버전을 계속 응답
+                deleteVersion(redis, hashRouter, nodes, version);
+                throw new IllegalStateException("prefix_topk 적재 실패 " + (expected - keyCount) + "/" + expected
+                        + "건 — 버전 전환 취소: version=" + version);
+            }
+            redis.opsForValue().set(VERSION_KEY, version);
+            if (current != null) {
+                taskScheduler.schedule(() -> deleteVersion(redis, hashRouter, nodes, current),
+                        Instant.now().plus(RETIRE_DELAY));
+            }
 
-            long elapsed = (System.nanoTime() - start) / 1_000_000;
-            log.info("[Batch] prefix_topk 갱신 완료: version={}, keys={}, 소스 쿼리={}, {}ms",
-                    newVersion, keyCount, topQueries.size(), elapsed);
+            long buildMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("[Batch] prefix_topk 갱신 완료: version={}, keys={}, shards={}, payload={}KB, 소스 쿼리={}, {}ms",
+                    version, keyCount, byNode.size(), bytes / 1024, topQueries.size(), buildMs);
 
             contribution.incrementWriteCount(keyCount);
             return RepeatStatus.FINISHED;
         };
     }
 
-    private void addPrefixes(Map<String, PriorityQueue<ScoredQuery>> prefixMap,
-                             String text, String originalQuery, long count) {
-        for (int len = 1; len <= Math.min(text.length(), MAX_PREFIX_LENGTH); len++) {
-            String prefix = text.substring(0, len);
-            PriorityQueue<ScoredQuery> heap = prefixMap.computeIfAbsent(prefix,
-                    k -> new PriorityQueue<>(Comparator.comparingLong(ScoredQuery::score)));
-            boolean exists = heap.stream().anyMatch(sq -> sq.query().equals(originalQuery));
-            if (!exists) {
-                heap.offer(new ScoredQuery(originalQuery, count));
-                if (heap.size() > TOPK) {
-                    heap.poll();
+    /**
+     * 노드 1개에 버전 키를 WRITE_BATCH개씩 파이프라인으로 SET EX (키마다 왕복하던 set 대체).
+     * 같은 파이프라인에서 적재한 키 이름을 노드 로컬 추적 SET(prefix:keys:v{version})에 기록한다.
+     * 적재에 성공한 키 수 반환.
+     */
+    private int writeVersion(StringRedisTemplate node, String version, List<Map.Entry<String, String>> entries) {
+        byte[] trackKey = (TRACK_PREFIX + version).getBytes(StandardCharsets.UTF_8);
+        Expiration ttl = Expiration.from(KEY_TTL);
+        int written = 0;
+        for (int from = 0; from < entries.size(); from += WRITE_BATCH) {
+            List<Map.Entry<String, String>> batch = entries.subList(from, Math.min(from + WRITE_BATCH, entries.size()));
+            try {
+                node.executePipelined((RedisCallback<Object>) connection -> {
+                    byte[][] names = new byte[batch.size()][];
+                    for (int i = 0; i < batch.size(); i++) {
+                        names[i] = batch.get(i).getKey().getBytes(StandardCharsets.UTF_8);
+                        connection.stringCommands().set(names[i],
+                                batch.get(i).getValue().getBytes(StandardCharsets.UTF_8), ttl, SetOption.upsert());
+                    }
+                    connection.setCommands().sAdd(trackKey, names);
+                    connection.keyCommands().expire(trackKey, KEY_TTL.toSeconds());
+                    return null;
+                });
+                written += batch.size();
+            } catch (Exception e) {
+                log.warn("[Batch] Redis 적재 실패 ({}건): version={}, error={}", batch.size(), version, e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 버전 1개 삭제 — 노드별 추적 SET을 SSCAN해 키 이름을 현재 담당 노드(리샤딩 중이면 이전 담당 포함)로
+     * 묶어 파이프라인 UNLINK. 추적 SET이 없는 버전(이 방식 이전 빌드)은 TTL로 만료된다.
+     */
+    private void deleteVersion(StringRedisTemplate redis, @Nullable ConsistentHashRouter hashRouter,
+                               List<StringRedisTemplate> nodes, String version) {
+        String trackKey = TRACK_PREFIX + version;
+        long deleted = 0;
+        try {
+            for (StringRedisTemplate node : nodes) {
+                List<String> page = new ArrayList<>(WRITE_BATCH);
+                try (Cursor<String> cursor = node.opsForSet().scan(trackKey,
+                        ScanOptions.scanOptions().count(WRITE_BATCH).build())) {
+                    while (cursor.hasNext()) {
+                        page.add(cursor.next());
+                        if (page.size() >= WRITE_BATCH) {
+                            deleted += unlinkRouted(redis, hashRouter, page);
+                            page.clear();
+                        }
+                    }
                 }
+                if (!page.isEmpty()) {
+                    deleted += unlinkRouted(redis, hashRouter, page);
+                }
+                node.delete(trackKey);
             }
+            redis.opsForHash().delete(VERSIONS_KEY, version);
+            log.info("[Batch] 이전 prefix_topk 버전 삭제: version={}, keys={}", version, deleted);
+        } catch (Exception e) {
+            // 버전 목록에 남아 다음 빌드에서 재시도 (키는 TTL로도 만료)
+            log.warn("[Batch] 이전 버전 삭제 실패: version={}, error={}", version, e.getMessage());
+        }
+    }
+
+    private long unlinkRouted(StringRedisTemplate redis, @Nullable ConsistentHashRouter hashRouter, List<String> keys) {
+        Map<StringRedisTemplate, List<String>> byNode = new HashMap<>();
+        for (String key : keys) {
+            if (hashRouter == null) {
+                byNode.computeIfAbsent(redis, node -> new ArrayList<>()).add(key);
+                continue;
+            }
+            byNode.computeIfAbsent(hashRouter.getOwnerNode(key), node -> new ArrayList<>()).add(key);
+            StringRedisTemplate previous = hashRouter.getPreviousNode(key);
+            if (previous != null) {
+                byNode.computeIfAbsent(previous, node -> new ArrayList<>()).add(key);
+            }
+        }
+        long deleted = 0;
+        for (var entry : byNode.entrySet()) {
+            Long count = entry.getKey().unlink(entry.getValue());
+            deleted += count != null ? count : 0;
         }
+        return deleted;
     }
 
-    private record ScoredQuery(String query, long score) {}
+    private static long utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void addPrefixes(Map<String, PrefixTopK> prefixMap,
+                             String text, String originalQuery, long count) {
+        for (int len = 1; len <= Math.min(text.length(), MAX_PREFIX_LENGTH); len++) {
+            prefixMap.computeIfAbsent(text.substring(0, len), k -> new PrefixTopK(TOPK))
+                    .offer(originalQuery, count);
+        }
+    }
 }
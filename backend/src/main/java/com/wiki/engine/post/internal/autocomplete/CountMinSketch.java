@@ -0,0 +1,87 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+/**
+ * 검색어 빈도 근사 — Count-Min Sketch (depth × width double 카운터, conservative update).
+ *
+ * <p>검색어 종류가 몇 개든 메모리는 depth × width × 8바이트로 고정된다.
+ * 추정값은 실제 값 이상(과대 추정만)이며, 증가 시 행별 최솟값에 맞춰 필요한 카운터만 올려(conservative update)
+ * 충돌로 인한 과대 추정을 줄인다.
+ *
+ * <p>가중치는 double — 호출자가 forward decay 가중치(exp(λ·(t − landmark)))를 그대로 더하고,
+ * landmark를 옮길 때 {@link #scale(double)}로 전체를 한 번에 줄인다.
+ * 동기화 없음 — 단일 스레드(TrendingQueryTracker tick)에서만 호출한다.
+ */
+final class CountMinSketch {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int depth;
+    private final int mask;
+    private final double[][] counts;
+    private final int[] buckets;
+
+    /** @param width 2의 거듭제곱으로 올림 */
+    CountMinSketch(int depth, int width) {
+        int size = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.depth = depth;
+        this.mask = size - 1;
+        this.counts = new double[depth][size];
+        this.buckets = new int[depth];
+    }
+
+    /** weight만큼 증가 후 새 추정값 반환. */
+    double add(String item, double weight) {
+        fillBuckets(item);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][buckets[row]]);
+        }
+        double target = min + weight;
+        for (int row = 0; row < depth; row++) {
+            if (counts[row][buckets[row]] < target) {
+                counts[row][buckets[row]] = target;
+            }
+        }
+        return target;
+    }
+
+    double estimate(String item) {
+        fillBuckets(item);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][buckets[row]]);
+        }
+        return min;
+    }
+
+    /** 전체 카운터에 factor를 곱한다 (decay landmark 이동). */
+    void scale(double factor) {
+        for (double[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= factor;
+            }
+        }
+    }
+
+    long sizeInBytes() {
+        return (long) depth * (mask + 1) * Double.BYTES;
+    }
+
+    /** 64비트 FNV-1a 1회 + double hashing(h1 + row·h2) — 행마다 해시를 새로 계산하지 않는다. */
+    private void fillBuckets(String item) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < item.length(); i++) {
+            hash ^= item.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;   // 하위 비트 섞기 (mask가 하위 비트만 쓴다)
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            buckets[row] = (h1 + row * h2) & mask;
+        }
+    }
+}
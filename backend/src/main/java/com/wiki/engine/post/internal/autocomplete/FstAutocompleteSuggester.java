@@ -0,0 +1,335 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.fst.WFSTCompletionLookup;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 노드 로컬 FST 자동완성 — Lucene suggest 모듈의 WFSTCompletionLookup(가중치 FST).
+ *
+ * <p>Redis 경로는 키 입력마다 버전 GET + prefix GET + JSON 역직렬화가 요청 스레드에서 일어난다.
+ * FST는 힙 안에서 prefix → 가중치 상위 N개를 바로 찾으므로 네트워크 왕복 없이 수 μs에 끝난다.
+ *
+ * <p>소스 (RedisAutocompleteService 배치와 같은 검색 로그 + 문서 제목):
+ * - search_logs 최근 7일 상위 검색어 — 가중치 = 검색 수 × query-weight
+ * - 조회수 상위 제목 (PopularTitles — 오타 교정 사전과 공유) — 가중치 = 조회수
+ * 같은 문자열은 가중치를 합산한다.
+ *
+ * <p>키 = 변형 + SEP + 표시 문자열. 변형은 원본(lowercase) / 자모 분해 / 초성(2자 이상) 3종이며,
+ * FST는 변형 부분으로 prefix 매칭하고 응답에는 SEP 뒤의 표시 문자열만 쓴다.
+ *
+ * <p>빌드: primary 노드가 매시간 백그라운드로 새 FST를 만들어 volatile 참조만 교체한다 (조회 중 lock 없음).
+ * {@code autocomplete.fst.dir}가 설정되면 파일로 저장(임시 파일 → rename)하고, replica는 파일 변경을 폴링해
+ * 로드한다 — 빌드(DB 전체 스캔)는 primary에서 1회만. 기본값은 Lucene 인덱스 디렉토리 아래라서
+ * lucene-sync(rsync)가 인덱스와 함께 replica로 복사한다. dir을 비우면 노드마다 직접 빌드한다.
+ */
+@Slf4j
+@Component
+public class FstAutocompleteSuggester {
+
+    static final char SEP = '\u001F';
+    static final String FILE_NAME = "autocomplete.fst";
+    private static final int MAX_QUERIES = 10_000;
+    private static final int VARIANTS = 3;
+
+    private record FileStamp(long lastModified, long size) {}
+
+    private record Candidate(String display, long weight) {}
+
+    private final SearchLogRepository searchLogRepository;
+    private final PopularTitles popularTitles;
+    private final Timer lookupTimer;
+    private final Timer buildTimer;
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private volatile Lookup lookup;
+    private volatile FileStamp loadedStamp;
+
+    @Value("${autocomplete.fst.enabled:true}")
+    private boolean enabled;
+
+    @Value("${autocomplete.fst.dir:${lucene.index-path}/autocomplete}")
+    private String dir;
+
+    @Value("${autocomplete.fst.query-weight:100}")
+    private long queryWeight;
+
+    @Value("${lucene.mode:primary}")
+    private String luceneMode;
+
+    FstAutocompleteSuggester(SearchLogRepository searchLogRepository,
+                             PopularTitles popularTitles,
+                             MeterRegistry meterRegistry) {
+        this.searchLogRepository = searchLogRepository;
+        this.popularTitles = popularTitles;
+        this.lookupTimer = Timer.builder("autocomplete_fst_lookup")
+                .description("FST 자동완성 조회 시간")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("autocomplete_fst_build")
+                .description("FST 자동완성 빌드 시간 (DB 조회 포함)")
+                .register(meterRegistry);
+        Gauge.builder("autocomplete_fst_entries", this, s -> s.lookup != null ? s.lookup.getCount() : 0)
+                .description("FST 자동완성 키 수 (변형 포함)")
+                .register(meterRegistry);
+        Gauge.builder("autocomplete_fst_bytes", this,
+                        s -> s.lookup instanceof WFSTCompletionLookup w ? w.ramBytesUsed() : 0)
+                .description("FST 자동완성 힙 사용량")
+                .register(meterRegistry);
+    }
+
+    /** 기동 시 — 공유 파일이 있으면 로드, 없고 빌드 담당이면 백그라운드 빌드 (기동을 막지 않는다). */
+    @EventListener(ApplicationReadyEvent.class)
+    void initialize() {
+        if (!enabled) {
+            return;
+        }
+        reloadIfChanged();
+        if (lookup == null && isBuilder()) {
+            Thread.ofVirtual().name("fst-autocomplete-build").start(this::rebuild);
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && lookup != null;
+    }
+
+    /**
+     * prefix 자동완성. 입력은 항상 자모 분해해서 자모/초성 변형과 매칭한다 — 자모가 섞인 입력("삼ㅅ", "ㅅㅅ")뿐
+     * 아니라 종성을 아직 치지 않은 음절("삼서" → "삼성")도 잡힌다. 비한글은 분해해도 그대로라 원본과 같다.
+     * 같은 문자열이 여러 변형으로 잡히므로 limit × 3개를 찾은 뒤 중복을 제거한다.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Lookup current = lookup;
+        String normalized = prefix.toLowerCase().trim();
+        if (current == null || normalized.isEmpty() || normalized.indexOf(SEP) >= 0) {
+            return List.of();
+        }
+        String key = JamoDecomposer.decompose(normalized);
+
+        long start = System.nanoTime();
+        try {
+            Set<String> suggestions = new LinkedHashSet<>();
+            for (Lookup.LookupResult result : current.lookup(key, false, limit * VARIANTS)) {
+                String entry = result.key.toString();
+                suggestions.add(entry.substring(entry.indexOf(SEP) + 1));
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+            }
+            return List.copyOf(suggestions);
+        } catch (Exception e) {
+            log.warn("FST 자동완성 조회 실패: prefix='{}', {}", prefix, e.getMessage());
+            return List.of();
+        } finally {
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 매시간 재빌드 (Redis prefix_topk 배치 정각 실행과 겹치지 않게 5분).
+     * 빌드(DB 스캔 + FST 컴파일)는 가상 스레드로 넘긴다 — 스케줄러 스레드를 잡고 있지 않도록.
+     * 이전 빌드가 아직 돌고 있으면 rebuild()의 tryLock에서 건너뛴다.
+     */
+    @Scheduled(cron = "${autocomplete.fst.rebuild-cron:0 5 * * * *}")
+    void scheduledRebuild() {
+        if (enabled && isBuilder() && !buildLock.isLocked()) {
+            Thread.ofVirtual().name("fst-autocomplete-build").start(this::rebuild);
+        }
+    }
+
+    /** 새 FST를 빌드해 참조를 교체한다. 동시 빌드는 건너뛴다. */
+    void rebuild() {
+        if (!buildLock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Map<String, Candidate> candidates = loadCandidates();
+            WFSTCompletionLookup built = new WFSTCompletionLookup(new ByteBuffersDirectory(), "autocomplete");
+            built.build(new EntryIterator(toEntries(candidates)));
+            if (hasDir()) {
+                loadedStamp = store(built);
+            }
+            lookup = built;
+            long elapsed = System.nanoTime() - start;
+            buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("FST 자동완성 빌드 완료: 문자열={}, 키={}, {}KB, {}ms",
+                    candidates.size(), built.getCount(), built.ramBytesUsed() / 1024, elapsed / 1_000_000);
+        } catch (Exception e) {
+            // 이전 FST 유지
+            log.error("FST 자동완성 빌드 실패: {}", e.getMessage(), e);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /** 공유 파일이 바뀌었으면 로드해 교체 (replica, 또는 다른 노드가 빌드한 파일). */
+    @Scheduled(fixedDelayString = "${autocomplete.fst.poll-interval-ms:30000}")
+    void reloadIfChanged() {
+        if (!enabled || !hasDir()) {
+            return;
+        }
+        Path file = Path.of(dir, FILE_NAME);
+        FileStamp stamp = stampOf(file);
+        if (stamp == null || stamp.equals(loadedStamp)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            WFSTCompletionLookup loaded = new WFSTCompletionLookup(new ByteBuffersDirectory(), "autocomplete");
+            loaded.load(in);
+            lookup = loaded;
+            loadedStamp = stamp;
+            log.info("FST 자동완성 로드: 키={}, {}KB", loaded.getCount(), loaded.ramBytesUsed() / 1024);
+        } catch (IOException e) {
+            log.warn("FST 자동완성 파일 로드 실패 (이전 FST 유지): {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Candidate> loadCandidates() {
+        Map<String, Candidate> candidates = new HashMap<>();
+        for (Object[] row : searchLogRepository.findTopQueriesSince(LocalDateTime.now().minusDays(7), MAX_QUERIES)) {
+            String query = (String) row[0];
+            if (query != null && !query.isBlank()) {
+                String normalized = query.toLowerCase().trim();
+                merge(candidates, normalized, normalized, ((Number) row[1]).longValue() * queryWeight);
+            }
+        }
+        for (PopularTitles.Title title : popularTitles.top()) {
+            merge(candidates, title.title().toLowerCase().trim(), title.title().trim(), title.viewCount());
+        }
+        return candidates;
+    }
+
+    /** 먼저 들어온 표시 문자열 유지 (검색어 lowercase → 제목 원문 순). */
+    private static void merge(Map<String, Candidate> candidates, String normalized, String display, long weight) {
+        candidates.merge(normalized, new Candidate(display, weight),
+                (a, b) -> new Candidate(a.display(), a.weight() + b.weight()));
+    }
+
+    static List<Map.Entry<String, Long>> toEntries(Map<String, Candidate> candidates) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.size() * VARIANTS);
+        candidates.forEach((normalized, candidate) -> {
+            String display = candidate.display().replace(SEP, ' ');
+            // WFST 가중치는 int 범위
+            long weight = Math.min(Math.max(candidate.weight(), 0), Integer.MAX_VALUE);
+            Set<String> variants = new LinkedHashSet<>(VARIANTS);
+            variants.add(normalized);
+            variants.add(JamoDecomposer.decompose(normalized));
+            String choseong = JamoDecomposer.extractChoseong(normalized);
+            if (choseong.length() >= 2) {
+                variants.add(choseong);
+            }
+            for (String variant : variants) {
+                entries.add(Map.entry(variant + SEP + display, weight));
+            }
+        });
+        return entries;
+    }
+
+    /** 임시 파일에 쓴 뒤 rename — replica가 부분 기록된 파일을 읽지 않도록. */
+    private FileStamp store(WFSTCompletionLookup built) throws IOException {
+        Path target = Path.of(dir, FILE_NAME);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(FILE_NAME + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            built.store(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stampOf(target);
+    }
+
+    /** 공유 파일이 있으면 primary만, 없으면 노드마다 빌드. */
+    private boolean isBuilder() {
+        return !hasDir() || "primary".equals(luceneMode);
+    }
+
+    private boolean hasDir() {
+        return dir != null && !dir.isBlank();
+    }
+
+    private static FileStamp stampOf(Path path) {
+        try {
+            return Files.exists(path)
+                    ? new FileStamp(Files.getLastModifiedTime(path).toMillis(), Files.size(path))
+                    : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** (키, 가중치) 목록 → suggest InputIterator (payload/context 없음). */
+    private static final class EntryIterator implements InputIterator {
+
+        private final Iterator<Map.Entry<String, Long>> it;
+        private long weight;
+
+        EntryIterator(List<Map.Entry<String, Long>> entries) {
+            this.it = entries.iterator();
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!it.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, Long> entry = it.next();
+            weight = entry.getValue();
+            return new BytesRef(entry.getKey());
+        }
+
+        @Override
+        public long weight() {
+            return weight;
+        }
+
+        @Override
+        public BytesRef payload() {
+            return null;
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return false;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
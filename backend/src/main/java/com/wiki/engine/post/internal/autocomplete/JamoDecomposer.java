@@ -65,7 +65,7 @@ public final class JamoDecomposer {
      * "삼성" → "ㅅㅅ"
      * 이미 자모인 문자(ㄱ~ㅎ)는 그대로 포함.
      */
-    static String extractChoseong(String text) {
+    public static String extractChoseong(String text) {
         StringBuilder sb = new StringBuilder(text.length());
         for (char c : text.toCharArray()) {
             if (isHangulSyllable(c)) {
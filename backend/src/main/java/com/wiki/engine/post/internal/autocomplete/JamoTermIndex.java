@@ -0,0 +1,160 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.LevenshteinAutomata;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 오타 교정 사전 — 인기 제목/검색어 단어를 자모 분해해 FST(자모 시퀀스 → 단어 번호)로 보관한다.
+ *
+ * <p>DirectSpellChecker는 음절 단위라 "컴퓨텨" → "컴퓨터"도 음절 1개 치환(편집 거리 1)이고,
+ * 인덱스 term은 Nori가 복합어를 분해한 형태라 사용자가 입력한 단어와 잘 맞지 않는다.
+ * 여기서는 사용자가 실제로 쓰는 단어(제목/검색어의 공백 단위 단어)를 자모로 비교한다 —
+ * "컴퓨텨"(ㅋㅓㅁㅍㅠㅌㅕ) → "컴퓨터"(ㅋㅓㅁㅍㅠㅌㅓ)는 자모 1개 치환.
+ *
+ * <p>조회: 입력 자모 시퀀스의 Levenshtein 오토마톤(전치 포함)과 FST를 함께 따라가며(교집합 DFS)
+ * 후보를 찾는다 — term dictionary 전체를 훑지 않고 오토마톤이 받아들이는 경로만 방문한다.
+ * 편집 1 후보가 있으면 그중 가중치 최대, 없으면 편집 2 (긴 단어만). 첫 자모는 일치해야 한다.
+ *
+ * <p>불변 — SpellCheckService가 reader refresh 시(최소 간격 제한) 새로 빌드해 참조를 교체한다.
+ */
+final class JamoTermIndex {
+
+    /** 이보다 짧은 자모 시퀀스(한글 1음절 등)는 후보가 너무 많아 교정하지 않는다. */
+    private static final int MIN_KEY_LENGTH = 4;
+    /** 편집 2를 허용하는 최소 자모 길이 (한글 약 3음절). */
+    private static final int TWO_EDITS_KEY_LENGTH = 8;
+
+    static final JamoTermIndex EMPTY = new JamoTermIndex(null, new String[0], new long[0]);
+
+    private final FST<Long> fst;
+    private final String[] terms;
+    private final long[] weights;
+
+    private JamoTermIndex(FST<Long> fst, String[] terms, long[] weights) {
+        this.fst = fst;
+        this.terms = terms;
+        this.weights = weights;
+    }
+
+    private record Entry(String term, long weight) {}
+
+    /**
+     * @param termWeights 정규화된 단어 → 가중치. 자모 분해 결과가 같은 단어는 가중치가 큰 쪽만 남긴다.
+     */
+    static JamoTermIndex build(Map<String, Long> termWeights) throws IOException {
+        // FST 입력은 정렬 순서로 — 키는 BMP 문자만이므로 String 순서 = 코드 포인트 순서
+        TreeMap<String, Entry> byKey = new TreeMap<>();
+        termWeights.forEach((term, weight) -> byKey.merge(JamoDecomposer.decompose(term), new Entry(term, weight),
+                (a, b) -> a.weight() >= b.weight() ? a : b));
+        if (byKey.isEmpty()) {
+            return EMPTY;
+        }
+
+        FSTCompiler<Long> compiler = new FSTCompiler.Builder<>(FST.INPUT_TYPE.BYTE4, PositiveIntOutputs.getSingleton())
+                .build();
+        IntsRefBuilder scratch = new IntsRefBuilder();
+        String[] terms = new String[byKey.size()];
+        long[] weights = new long[byKey.size()];
+        int ord = 0;
+        for (var e : byKey.entrySet()) {
+            compiler.add(Util.toUTF32(e.getKey(), scratch), (long) ord);
+            terms[ord] = e.getValue().term();
+            weights[ord] = e.getValue().weight();
+            ord++;
+        }
+        FST<Long> fst = FST.fromFSTReader(compiler.compile(), compiler.getFSTReader());
+        return new JamoTermIndex(fst, terms, weights);
+    }
+
+    int size() {
+        return terms.length;
+    }
+
+    long ramBytesUsed() {
+        return fst != null ? fst.ramBytesUsed() : 0;
+    }
+
+    /** 사전에 있는 단어(자모 시퀀스 일치)인지. */
+    boolean contains(String term) throws IOException {
+        return fst != null && Util.get(fst, Util.toUTF32(JamoDecomposer.decompose(term), new IntsRefBuilder())) != null;
+    }
+
+    /**
+     * 자모 편집 거리가 가장 가까운 단어 중 가중치 최대 단어.
+     *
+     * @return 교정 단어, 후보가 없거나 너무 짧으면 null
+     */
+    String correct(String term) throws IOException {
+        String key = JamoDecomposer.decompose(term);
+        if (fst == null || key.length() < MIN_KEY_LENGTH) {
+            return null;
+        }
+        int maxEdits = key.length() >= TWO_EDITS_KEY_LENGTH ? 2 : 1;
+        for (int edits = 1; edits <= maxEdits; edits++) {
+            int best = bestWithin(key, edits);
+            if (best >= 0) {
+                return terms[best];
+            }
+        }
+        return null;
+    }
+
+    /** 편집 거리 edits 이내 후보 중 가중치 최대 단어 번호 (-1: 없음). */
+    private int bestWithin(String key, int edits) throws IOException {
+        CharacterRunAutomaton automaton = new CharacterRunAutomaton(Operations.determinize(
+                new LevenshteinAutomata(key, true).toAutomaton(edits), Operations.DEFAULT_DETERMINIZE_WORK_LIMIT));
+        FST.BytesReader reader = fst.getBytesReader();
+        FST.Arc<Long> first = fst.findTargetArc(key.codePointAt(0), fst.getFirstArc(new FST.Arc<>()),
+                new FST.Arc<>(), reader);
+        if (first == null) {
+            return -1;
+        }
+        int[] best = {-1};
+        visit(first, automaton.step(0, first.label()), first.output(), automaton, reader, best);
+        return best[0];
+    }
+
+    /** arc를 따라온 상태(state, 누적 출력)에서 자식 arc를 오토마톤과 함께 따라간다. */
+    private void visit(FST.Arc<Long> arc, int state, long output, CharacterRunAutomaton automaton,
+                       FST.BytesReader reader, int[] best) throws IOException {
+        if (state < 0) {
+            return;
+        }
+        if (!FST.targetHasArcs(arc)) {
+            if (arc.isFinal() && automaton.isAccept(state)) {
+                offer((int) (output + arc.nextFinalOutput()), best);
+            }
+            return;
+        }
+        FST.Arc<Long> child = fst.readFirstTargetArc(arc, new FST.Arc<>(), reader);
+        while (true) {
+            if (child.label() == FST.END_LABEL) {
+                if (automaton.isAccept(state)) {
+                    offer((int) (output + child.output()), best);
+                }
+            } else {
+                visit(child, automaton.step(state, child.label()), output + child.output(), automaton, reader, best);
+            }
+            if (child.isLast()) {
+                break;
+            }
+            fst.readNextArc(child, reader);
+        }
+    }
+
+    private void offer(int ord, int[] best) {
+        if (best[0] < 0 || weights[ord] > weights[best[0]]) {
+            best[0] = ord;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 조회수 상위 제목 스냅샷 — FST 자동완성(FstAutocompleteSuggester)과 오타 교정 자모 단어 사전(SpellCheckService)의
+ * 공통 소스.
+ *
+ * <p>두 빌더가 각자 findTopTitlesByViewCount(posts 조회수 정렬 스캔)를 매시간 돌리던 것을 노드당
+ * max-age-ms에 1번으로 줄인다. 먼저 요청한 빌더가 DB에서 읽고, 그 안에 요청한 빌더는 같은 목록을 쓴다.
+ * max-age-ms는 두 빌더의 재빌드 주기(1시간)보다 짧게 둬서 매 주기 최신 목록을 읽게 한다.
+ */
+@Component
+class PopularTitles {
+
+    /** 제목 원문 + 조회수. */
+    record Title(String title, long viewCount) {}
+
+    private record Snapshot(List<Title> titles, long loadedAtMillis) {}
+
+    private final PostRepository postRepository;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @Value("${autocomplete.titles.max:200000}")
+    private int maxTitles;
+
+    @Value("${autocomplete.titles.max-age-ms:3000000}")
+    private long maxAgeMs;
+
+    PopularTitles(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    /** 조회수 내림차순 상위 제목. 스냅샷이 max-age-ms보다 오래됐으면 다시 읽는다 (동시 요청은 1번만 읽는다). */
+    List<Title> top() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current.titles();
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current.titles();
+            }
+            List<Title> titles = new ArrayList<>();
+            for (Object[] row : postRepository.findTopTitlesByViewCount(maxTitles)) {
+                String title = (String) row[0];
+                if (title != null && !title.isBlank()) {
+                    titles.add(new Title(title, ((Number) row[1]).longValue()));
+                }
+            }
+            snapshot = new Snapshot(List.copyOf(titles), System.currentTimeMillis());
+            return snapshot.titles();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && System.currentTimeMillis() - current.loadedAtMillis() < maxAgeMs;
+    }
+}
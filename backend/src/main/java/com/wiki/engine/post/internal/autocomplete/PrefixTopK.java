@@ -0,0 +1,51 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 접두사 1개의 Top-K 집계 — min-heap + 멤버 Set.
+ *
+ * <p>같은 검색어가 원본/자모/초성 분해에서 같은 접두사로 여러 번 들어오므로 중복 검사가 필요하다.
+ * heap 순회(O(K)) 대신 Set 조회 O(1), heap에서 밀려난 검색어는 Set에서도 뺀다.
+ */
+final class PrefixTopK {
+
+    private final int k;
+    private final PriorityQueue<ScoredQuery> heap;
+    private final Set<String> members = new HashSet<>();
+
+    PrefixTopK(int k) {
+        this.k = k;
+        this.heap = new PriorityQueue<>(k + 1, Comparator.comparingLong(ScoredQuery::score));
+    }
+
+    /** @return Top-K에 들어갔으면 true (중복이거나 최솟값 이하라 밀려나면 false) */
+    boolean offer(String query, long score) {
+        if (members.contains(query)) {
+            return false;
+        }
+        if (heap.size() >= k && score <= heap.peek().score()) {
+            return false;
+        }
+        heap.offer(new ScoredQuery(query, score));
+        members.add(query);
+        if (heap.size() > k) {
+            members.remove(heap.poll().query());
+        }
+        return true;
+    }
+
+    /** 점수 내림차순 검색어 목록. */
+    List<String> sorted() {
+        return heap.stream()
+                .sorted(Comparator.comparingLong(ScoredQuery::score).reversed())
+                .map(ScoredQuery::query)
+                .toList();
+    }
+
+    private record ScoredQuery(String query, long score) {}
+}
@@ -23,8 +23,12 @@ import java.util.*;
  * <p>Trie(9단계)를 퇴역시키고 Redis {@code prefix:v{version}:{prefix} → [top-K]} 매핑으로 전환.
  * 매시간 배치로 검색 로그 기반 prefix_topk를 빌드하여 Redis에 적재한다.
  *
- * <p>조회 경로: Redis GET O(1) → [미스] → Lucene PrefixQuery fallback (~5ms).
- * Redis 장애 시에도 Lucene fallback으로 서비스 중단 없음.
+ * <p>조회 경로: 노드 로컬 FST(FstAutocompleteSuggester, 수 μs) → [FST 미준비 시] Redis GET O(1)
+ * → [미스] → Lucene PrefixQuery fallback (~5ms).
+ * FST가 로드되면 Redis는 거치지 않는다 — Redis 장애/미사용 환경에서도 자동완성 품질 유지.
+ *
+ * <p>급상승 검색어(TrendingQueryTracker, 수 초 단위 갱신)가 접두사에 걸리면 기준선 결과 앞에 최대 3개를 넣고
+ * 기준선에 이미 있는 검색어는 중복 제거한다.
  *
  * <p>버전 네임스페이스: 새 데이터를 별도 버전 키에 적재 후 버전 포인터(단일 키)만 원자적 전환.
  * 적재 도중 실패해도 이전 버전이 유지된다 (safe rollback).
@@ -45,6 +49,8 @@ public class RedisAutocompleteService {
     private final JsonMapper jsonMapper;
     private final SearchLogRepository searchLogRepository;
     private final LuceneSearchService luceneSearchService;
+    private final FstAutocompleteSuggester fstSuggester;
+    private final TrendingQueryTracker trendingQueryTracker;
 
     /** 버전 로컬 캐싱 — Redis GET 2번 → 1번으로 축소 */
     private volatile String cachedVersion;
@@ -54,12 +60,16 @@ public class RedisAutocompleteService {
                                     @Nullable ConsistentHashRouter hashRouter,
                                     JsonMapper jsonMapper,
                                     SearchLogRepository searchLogRepository,
-                                    LuceneSearchService luceneSearchService) {
+                                    LuceneSearchService luceneSearchService,
+                                    FstAutocompleteSuggester fstSuggester,
+                                    TrendingQueryTracker trendingQueryTracker) {
         this.redis = redis;
         this.hashRouter = hashRouter;
         this.jsonMapper = jsonMapper;
         this.searchLogRepository = searchLogRepository;
         this.luceneSearchService = luceneSearchService;
+        this.fstSuggester = fstSuggester;
+        this.trendingQueryTracker = trendingQueryTracker;
     }
 
     /** 샤딩 활성화 시 ConsistentHashRouter로 라우팅, 아니면 기존 단일 Redis */
@@ -67,6 +77,18 @@ public class RedisAutocompleteService {
         return hashRouter != null ? hashRouter.getNode(key) : redis;
     }
 
+    /** 리샤딩 dual-read — 담당 노드에 없으면 이전 담당 노드에서 읽는다. */
+    private String getRouted(String key) {
+        String value = redisFor(key).opsForValue().get(key);
+        if (value == null && hashRouter != null) {
+            StringRedisTemplate previous = hashRouter.getPreviousNode(key);
+            if (previous != null) {
+                value = previous.opsForValue().get(key);
+            }
+        }
+        return value;
+    }
+
     /**
      * 앱 기동 시 Redis에 prefix_topk가 없으면 초기 빌드.
      */
@@ -88,7 +110,7 @@ public class RedisAutocompleteService {
     }
 
     /**
-     * 자동완성 검색: Redis flat KV → Lucene PrefixQuery fallback.
+     * 자동완성 검색: 급상승 검색어 + 기준선(FST → (FST 미준비 시) Redis flat KV → Lucene PrefixQuery fallback).
      *
      * @param prefix 검색 접두사 (예: "삼성", "ㅅㅅ")
      * @param limit  최대 반환 수
@@ -97,17 +119,36 @@ public class RedisAutocompleteService {
     public List<String> search(String prefix, int limit) {
         String normalized = prefix.toLowerCase();
 
-        // 자모 포함 시 자모 분해하여 검색
-        String searchKey = JamoDecomposer.containsJamo(normalized)
-                ? JamoDecomposer.decompose(normalized)
-                : normalized;
+        // 항상 자모 분해 키로 검색 — 입력 중인 마지막 음절("삼서" → "삼성")도 접두사로 매칭된다
+        String searchKey = JamoDecomposer.decompose(normalized);
+
+        List<String> trending = trendingQueryTracker.suggest(searchKey, limit);
+        if (trending.isEmpty()) {
+            return baseline(prefix, normalized, searchKey, limit);
+        }
+        // 중복으로 줄어드는 만큼 기준선을 더 받아 limit을 채운다
+        Set<String> merged = new LinkedHashSet<>(trending);
+        merged.addAll(baseline(prefix, normalized, searchKey, limit + trending.size()));
+        return merged.stream().limit(limit).toList();
+    }
+
+    /** 기준선 자동완성 — 매시간 빌드되는 FST / Redis prefix_topk, 둘 다 없으면 Lucene. */
+    private List<String> baseline(String prefix, String normalized, String searchKey, int limit) {
+        // 1. 노드 로컬 FST — 준비됐으면 Redis를 건너뛴다 (같은 검색 로그 + 제목을 이미 포함)
+        boolean fstReady = fstSuggester.isReady();
+        if (fstReady) {
+            List<String> suggestions = fstSuggester.suggest(prefix, limit);
+            if (!suggestions.isEmpty()) {
+                return suggestions;
+            }
+        }
 
-        // 1. Redis flat KV 조회
+        // 2. Redis flat KV 조회
         try {
-            String version = getCurrentVersion();
+            String version = fstReady ? null : getCurrentVersion();
             if (version != null) {
                 String key = "prefix:v" + version + ":" + searchKey;
-                String json = redisFor(key).opsForValue().get(key);
+                String json = getRouted(key);
                 if (json != null) {
                     List<?> raw = jsonMapper.readValue(json, List.class);
                     log.info("자동완성 Redis 히트: prefix='{}', key='{}', results={}", prefix, key, raw.size());
@@ -120,7 +161,7 @@ public class RedisAutocompleteService {
                 // 원본 prefix로도 시도 (자모가 아닌 완성 음절 검색)
                 if (!searchKey.equals(normalized)) {
                     String originalKey = "prefix:v" + version + ":" + normalized;
-                    String originalJson = redisFor(originalKey).opsForValue().get(originalKey);
+                    String originalJson = getRouted(originalKey);
                     if (originalJson != null) {
                         List<?> raw = jsonMapper.readValue(originalJson, List.class);
                         return raw.stream()
@@ -136,7 +177,7 @@ public class RedisAutocompleteService {
             log.warn("Redis 자동완성 역직렬화 실패, Lucene fallback: {}", e.getMessage());
         }
 
-        // 2. Lucene PrefixQuery fallback
+        // 3. Lucene PrefixQuery fallback
         try {
             List<String> fallback = luceneSearchService.autocomplete(prefix, limit);
             log.info("자동완성 Lucene fallback: prefix='{}', results={}", prefix, fallback.size());
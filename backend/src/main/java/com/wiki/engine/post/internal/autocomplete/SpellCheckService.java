@@ -1,66 +1,387 @@
 package com.wiki.engine.post.internal.autocomplete;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wiki.engine.post.internal.search.QueryReformulationRepository;
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.spell.DirectSpellChecker;
 import org.apache.lucene.search.spell.SuggestWord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
- * 오타 교정 서비스 — Lucene DirectSpellChecker 기반.
+ * 오타 교정 서비스 — 교정 사전 + 캐시 + 자모 단어 사전(JamoTermIndex).
  *
- * 인덱스의 term dictionary를 사전으로 활용하여
- * 편집 거리(Damerau-Levenshtein) 기반 오타 교정을 수행한다.
- * 별도 사전 구축 없이, 인덱스가 곧 사전이다.
+ * 기존에는 첫 페이지 검색마다(검색 결과 L1 캐시 히트여도) DirectSpellChecker를 새로 만들어
+ * title term dictionary를 토큰별로 편집 거리 열거했다. 이제 요청 경로는 다음 순서로만 본다:
  *
- * 의존성: lucene-suggest (org.apache.lucene:lucene-suggest:10.3.2)
+ * 1. 교정 사전 (O(1)) — query_reformulations(결과가 적은 검색 → 가까운 재검색으로 결과를 얻은 쌍)에서
+ *    최근 30일 min-support 이상인 쌍의 검색어별 최다 교정. 매시간 + 기동 시 통째로 교체 (volatile swap)
+ * 2. 교정 캐시 — (정규화 검색어, reader 세대) 키. 교정 없음도 캐시한다
+ * 3. 캐시 미스 — 단어별 교정을 전용 스레드 풀에서 실행하고 budget-ms만 기다린다.
+ *    시간 안에 못 끝나면 이번 응답은 제안 없이 반환하고, 계산은 계속되어 캐시를 채운다.
+ *    같은 검색어 동시 미스는 계산 1번으로 합쳐진다 (AsyncCache)
  *
- * 한국어 한계:
- * - 음절 단위 비교이므로 "컴퓨텨"→"컴퓨터"(편집 거리 1)는 잡히지만,
- *   Nori가 복합어를 분해하므로 인덱스 term이 원형과 다를 수 있다.
- * - 이 한계는 검색 로그 기반 "Did you mean?"으로 보강 가능.
+ * 단어별 교정: 조회수 상위 제목의 단어를 자모 분해한 FST(JamoTermIndex)에서
+ * 자모 Levenshtein 오토마톤으로 후보를 찾는다 — "컴퓨텨"→"컴퓨터"가 음절 치환이 아닌 자모 1개 치환이고,
+ * Nori가 분해한 인덱스 term 대신 사용자가 실제로 쓰는 단어와 비교한다.
+ * 단어 집합은 제목 + 교정 사전의 교정 검색어 단어로만 정한다 — 최근 검색어는 그 단어들의 가중치만 올린다.
+ * 검색어를 그대로 넣으면 자주 치는 오타("컴퓨텨")가 사전에 들어가 교정되지 않는다.
+ * 제목 목록은 FST 자동완성과 같은 PopularTitles 스냅샷을 쓴다 (posts 스캔 1번).
+ * 사전은 SearcherManager refresh 시 다시 빌드한다 (rebuild-interval-ms 간격으로 제한, 백그라운드).
+ * 기동 직후 사전이 준비되기 전에만 DirectSpellChecker(title term, 음절 단위)로 교정한다.
+ *
+ * reader 세대: 사전을 새로 빌드해 교체할 때 올린다 — 세대가 바뀌면 이전 키는 자연히 미스가 되고 만료된다.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SpellCheckService {
 
+    private static final Duration DICTIONARY_WINDOW = Duration.ofDays(30);
+    /** 캐시 값 — 교정 없음. */
+    private static final String NO_CORRECTION = "";
+    private static final int MAX_QUERIES = 10_000;
+    private static final Duration QUERY_WINDOW = Duration.ofDays(7);
+
     private final SearcherManager searcherManager;
+    private final QueryReformulationRepository queryReformulationRepository;
+    private final PopularTitles popularTitles;
+    private final SearchLogRepository searchLogRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile long lastBuildMillis;
+    private volatile Map<String, String> dictionary = Map.of();
+    private volatile JamoTermIndex termIndex;
+
+    /** 공유 인스턴스 — 생성자에서 설정한 뒤 조회만 하므로 교정 스레드 간에 공유한다. */
+    private final DirectSpellChecker spellChecker = new DirectSpellChecker();
+
+    private final Counter dictionaryHits;
+    private final Counter cacheHits;
+    private final Counter computed;
+    private final Counter timeouts;
+    private final Timer buildTimer;
+
+    private ThreadPoolExecutor executor;
+    private AsyncCache<CacheKey, String> corrections;
+
+    @Value("${spell-check.budget-ms:30}")
+    private long budgetMs;
+
+    @Value("${spell-check.threads:2}")
+    private int threads;
+
+    @Value("${spell-check.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${spell-check.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${spell-check.rebuild-interval-ms:3600000}")
+    private long rebuildIntervalMs;
+
+    @Value("${spell-check.query-weight:100}")
+    private long queryWeight;
+
+    @Value("${spell-check.dictionary-min-support:3}")
+    private long dictionaryMinSupport;
+
+    @Value("${spell-check.dictionary-max-size:100000}")
+    private int dictionaryMaxSize;
+
+    private record CacheKey(String query, long generation) {}
+
+    SpellCheckService(SearcherManager searcherManager,
+                      QueryReformulationRepository queryReformulationRepository,
+                      PopularTitles popularTitles,
+                      SearchLogRepository searchLogRepository,
+                      MeterRegistry meterRegistry) {
+        this.searcherManager = searcherManager;
+        this.queryReformulationRepository = queryReformulationRepository;
+        this.popularTitles = popularTitles;
+        this.searchLogRepository = searchLogRepository;
+        spellChecker.setMaxEdits(2);        // 최대 편집 거리 2
+        spellChecker.setMinPrefix(1);        // 첫 글자는 일치해야 함
+        spellChecker.setMinQueryLength(2);   // 2글자 미만은 교정 안 함
+
+        this.dictionaryHits = requests(meterRegistry, "dictionary");
+        this.cacheHits = requests(meterRegistry, "cache");
+        this.computed = requests(meterRegistry, "computed");
+        this.timeouts = requests(meterRegistry, "timeout");
+        Gauge.builder("spell_check_dictionary_size", this, s -> s.dictionary.size())
+                .description("교정 사전 검색어 수")
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("spell_check_term_index_build")
+                .description("자모 단어 사전 빌드 시간 (DB 조회 포함)")
+                .register(meterRegistry);
+        Gauge.builder("spell_check_term_index_terms", this, s -> s.termIndex != null ? s.termIndex.size() : 0)
+                .description("자모 단어 사전 단어 수")
+                .register(meterRegistry);
+        Gauge.builder("spell_check_term_index_bytes", this,
+                        s -> s.termIndex != null ? s.termIndex.ramBytesUsed() : 0)
+                .description("자모 단어 사전 FST 힙 사용량")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("spell_check_requests")
+                .tag("source", source)
+                .description("오타 교정 요청 수 (응답 출처별)")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "spell-check-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        corrections = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(1))
+                .buildAsync();
+
+        searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {}
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                if (didRefresh && System.currentTimeMillis() - lastBuildMillis >= rebuildIntervalMs
+                        && !buildLock.isLocked()) {
+                    Thread.ofVirtual().name("spell-check-term-index-build").start(SpellCheckService.this::rebuildTermIndex);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** 기동 시 교정 사전 로드 + 자모 단어 사전 백그라운드 빌드 — 준비 전에는 DirectSpellChecker로 동작한다. */
+    @EventListener(ApplicationReadyEvent.class)
+    void initialize() {
+        refreshDictionary();
+        Thread.ofVirtual().name("spell-check-term-index-build").start(this::rebuildTermIndex);
+    }
+
+    /**
+     * 자모 단어 사전 재빌드 — 조회수 상위 제목의 단어(가중치 = 조회수)에 최근 7일 검색어 단어의
+     * 검색 수 × query-weight를 더한다. 검색어 단어는 제목 또는 교정 사전의 교정 검색어에 있는 단어일 때만 반영한다.
+     * 교체 후 reader 세대를 올려 이전 사전으로 계산한 캐시를 버린다. 동시 빌드는 건너뛴다.
+     */
+    void rebuildTermIndex() {
+        if (!buildLock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Map<String, Long> termWeights = new HashMap<>();
+            for (PopularTitles.Title title : popularTitles.top()) {
+                addTerms(termWeights, title.title(), title.viewCount(), term -> true);
+            }
+            Set<String> known = new HashSet<>(termWeights.keySet());
+            for (String correction : dictionary.values()) {
+                known.addAll(terms(correction));
+            }
+            for (Object[] row : searchLogRepository.findTopQueriesSince(
+                    LocalDateTime.now().minus(QUERY_WINDOW), MAX_QUERIES)) {
+                addTerms(termWeights, (String) row[0], ((Number) row[1]).longValue() * queryWeight, known::contains);
+            }
+            JamoTermIndex built = JamoTermIndex.build(termWeights);
+            termIndex = built;
+            generation.incrementAndGet();
+            long elapsed = System.nanoTime() - start;
+            buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("자모 단어 사전 빌드 완료: 단어={}, {}KB, {}ms",
+                    built.size(), built.ramBytesUsed() / 1024, elapsed / 1_000_000);
+        } catch (Exception e) {
+            // 이전 사전 유지
+            log.error("자모 단어 사전 빌드 실패: {}", e.getMessage(), e);
+        } finally {
+            lastBuildMillis = System.currentTimeMillis();
+            buildLock.unlock();
+        }
+    }
+
+    /** accept를 통과한 단어에 가중치를 더한다. */
+    private static void addTerms(Map<String, Long> termWeights, String text, long weight, Predicate<String> accept) {
+        for (String token : terms(text)) {
+            if (accept.test(token)) {
+                termWeights.merge(token, Math.max(weight, 0), Long::sum);
+            }
+        }
+    }
+
+    /** 문자/숫자만으로 된 2자 이상 단어 (BMP만 — 서로게이트 쌍은 isLetterOrDigit(char)에서 제외된다). */
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= 2 && token.chars().allMatch(c -> Character.isLetterOrDigit((char) c))) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 교정 사전 재구축 — SearchLogCollector flush(5분)가 쌓은 재검색 쌍에서 검색어별 최다 교정 1개.
+     * 쿼리 결과가 빈도 내림차순이므로 검색어별 첫 쌍이 최다 교정이다.
+     */
+    @Scheduled(cron = "${spell-check.dictionary-cron:0 10 * * * *}")
+    void refreshDictionary() {
+        try {
+            List<Object[]> rows = queryReformulationRepository.findTopPairsSince(
+                    LocalDateTime.now().minus(DICTIONARY_WINDOW), dictionaryMinSupport, dictionaryMaxSize);
+            Map<String, String> next = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                next.putIfAbsent((String) row[0], (String) row[1]);
+            }
+            dictionary = Map.copyOf(next);
+            log.info("오타 교정 사전 갱신: {}개 검색어", next.size());
+        } catch (Exception e) {
+            log.warn("오타 교정 사전 갱신 실패 — 이전 사전 유지", e);
+        }
+    }
 
     /**
      * 검색어의 오타를 교정하여 제안을 반환한다.
      *
      * @param query 사용자 원본 검색어
-     * @return 교정된 검색어 (교정이 없으면 empty)
+     * @return 교정된 검색어 (교정이 없거나 시간 안에 계산하지 못하면 empty)
      */
     public Optional<String> suggestCorrection(String query) {
         if (query == null || query.isBlank() || query.length() < 2) {
             return Optional.empty();
         }
+        String normalized = query.toLowerCase().trim();
+
+        String fromDictionary = dictionary.get(normalized);
+        if (fromDictionary != null) {
+            dictionaryHits.increment();
+            return Optional.of(fromDictionary);
+        }
+
+        CacheKey key = new CacheKey(normalized, generation.get());
+        CompletableFuture<String> cached = corrections.getIfPresent(key);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            cacheHits.increment();
+            return toSuggestion(cached.join());
+        }
 
+        CompletableFuture<String> future;
+        try {
+            future = corrections.get(key, (k, ignored) -> CompletableFuture.supplyAsync(() -> compute(normalized), executor));
+        } catch (RejectedExecutionException e) {
+            // 교정 풀 포화 — 이번 요청은 제안 없이 (다음 요청이 다시 시도)
+            timeouts.increment();
+            return Optional.empty();
+        }
+        try {
+            String correction = future.get(budgetMs, TimeUnit.MILLISECONDS);
+            computed.increment();
+            return toSuggestion(correction);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            log.warn("오타 교정 실패: query={}", query, e.getCause());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> toSuggestion(String correction) {
+        return NO_CORRECTION.equals(correction) ? Optional.empty() : Optional.of(correction);
+    }
+
+    /** 단어별 교정 — 교정 풀 스레드에서만 실행. */
+    private String compute(String normalized) {
+        JamoTermIndex index = termIndex;
+        if (index == null) {
+            return computeWithDirectSpellChecker(normalized);
+        }
+        try {
+            String[] tokens = normalized.split("\\s+");
+            boolean hasCorrected = false;
+            for (int i = 0; i < tokens.length; i++) {
+                // 숫자만 있는 단어("2025")는 교정하지 않는다
+                if (tokens[i].length() < 2 || tokens[i].chars().noneMatch(Character::isLetter)
+                        || index.contains(tokens[i])) {
+                    continue;
+                }
+                String correction = index.correct(tokens[i]);
+                if (correction != null) {
+                    tokens[i] = correction;
+                    hasCorrected = true;
+                }
+            }
+            return hasCorrected ? String.join(" ", tokens) : NO_CORRECTION;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** 자모 단어 사전 준비 전 — title term dictionary 기준 음절 단위 교정. */
+    private String computeWithDirectSpellChecker(String normalized) {
         IndexSearcher searcher;
         try {
             searcher = searcherManager.acquire();
         } catch (IOException e) {
-            log.warn("SearcherManager acquire 실패", e);
-            return Optional.empty();
+            throw new UncheckedIOException("SearcherManager acquire 실패", e);
         }
 
         try {
-            DirectSpellChecker spellChecker = new DirectSpellChecker();
-            spellChecker.setMaxEdits(2);        // 최대 편집 거리 2
-            spellChecker.setMinPrefix(1);        // 첫 글자는 일치해야 함
-            spellChecker.setMinQueryLength(2);   // 2글자 미만은 교정 안 함
-
-            String[] tokens = query.split("\\s+");
+            String[] tokens = normalized.split("\\s+");
             List<String> corrected = new ArrayList<>();
             boolean hasCorrected = false;
 
@@ -69,7 +390,7 @@ public class SpellCheckService {
 
                 // title 필드의 term dictionary에서 유사 단어 검색
                 SuggestWord[] suggestions = spellChecker.suggestSimilar(
-                        new Term("title", token.toLowerCase()),
+                        new Term("title", token),
                         1,  // 최대 1개 제안
                         searcher.getIndexReader()
                 );
@@ -82,13 +403,10 @@ public class SpellCheckService {
                 }
             }
 
-            return hasCorrected
-                    ? Optional.of(String.join(" ", corrected))
-                    : Optional.empty();
+            return hasCorrected ? String.join(" ", corrected) : NO_CORRECTION;
 
         } catch (IOException e) {
-            log.warn("오타 교정 실패: query={}", query, e);
-            return Optional.empty();
+            throw new UncheckedIOException(e);
         } finally {
             try {
                 searcherManager.release(searcher);
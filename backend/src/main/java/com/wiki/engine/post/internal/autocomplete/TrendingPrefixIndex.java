@@ -0,0 +1,87 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 급상승 검색어 접두사 인덱스 — 접두사 → 점수 내림차순 검색어 목록.
+ *
+ * <p>배치(AutocompleteBatchConfig)와 같은 키 체계: 원본 / 자모 분해 / 초성(2자 이상)의 접두사 1~10자.
+ * 검색어가 급상승 목록에 들어오거나(put) 빠질 때(remove) 그 검색어의 접두사만 갱신한다 — 전체 재빌드 없음.
+ *
+ * <p>접두사별 목록은 불변 리스트로 교체(copy-on-write) — 조회는 lock 없이 읽는다.
+ * 쓰기는 TrendingQueryTracker tick 스레드 하나뿐이다.
+ */
+final class TrendingPrefixIndex {
+
+    private static final int MAX_PREFIX_LENGTH = 10;
+    private static final Comparator<Scored> BY_SCORE =
+            Comparator.comparingDouble(Scored::score).reversed().thenComparing(Scored::query);
+
+    private final ConcurrentHashMap<String, List<Scored>> byPrefix = new ConcurrentHashMap<>();
+
+    record Scored(String query, double score) {}
+
+    /** 검색어 추가 또는 점수 갱신. */
+    void put(String query, double score) {
+        Scored scored = new Scored(query, score);
+        for (String prefix : prefixes(query)) {
+            byPrefix.compute(prefix, (key, current) -> {
+                List<Scored> next = new ArrayList<>(current != null ? current.size() + 1 : 1);
+                if (current != null) {
+                    for (Scored s : current) {
+                        if (!s.query().equals(query)) {
+                            next.add(s);
+                        }
+                    }
+                }
+                next.add(scored);
+                next.sort(BY_SCORE);
+                return List.copyOf(next);
+            });
+        }
+    }
+
+    void remove(String query) {
+        for (String prefix : prefixes(query)) {
+            byPrefix.computeIfPresent(prefix, (key, current) -> {
+                List<Scored> next = current.stream().filter(s -> !s.query().equals(query)).toList();
+                return next.isEmpty() ? null : next;
+            });
+        }
+    }
+
+    /** @param key 원본 또는 자모 분해된 접두사 (RedisAutocompleteService의 조회 키와 같다) */
+    List<String> lookup(String key, int limit) {
+        List<Scored> scored = byPrefix.get(key);
+        if (scored == null || limit <= 0) {
+            return List.of();
+        }
+        return scored.stream().limit(limit).map(Scored::query).toList();
+    }
+
+    int prefixCount() {
+        return byPrefix.size();
+    }
+
+    static Set<String> prefixes(String query) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        addPrefixes(prefixes, query);
+        addPrefixes(prefixes, JamoDecomposer.decompose(query));
+        String choseong = JamoDecomposer.extractChoseong(query);
+        if (choseong.length() >= 2) {
+            addPrefixes(prefixes, choseong);
+        }
+        return prefixes;
+    }
+
+    private static void addPrefixes(Set<String> prefixes, String text) {
+        for (int len = 1; len <= Math.min(text.length(), MAX_PREFIX_LENGTH); len++) {
+            prefixes.add(text.substring(0, len));
+        }
+    }
+}
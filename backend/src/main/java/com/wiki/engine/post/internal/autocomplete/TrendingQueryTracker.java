@@ -0,0 +1,278 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 급상승 검색어 스트리밍 집계 — Count-Min Sketch + Top-K + 시간 감쇠.
+ *
+ * <p>자동완성 기준선(prefix_topk 배치, FST)은 매시간 7일치 search_logs로 빌드되고 search_logs는 5분마다 flush되므로,
+ * 갑자기 뜬 검색어가 자동완성에 나오기까지 최대 65분이 걸린다.
+ * 이 트래커는 SearchLogCollector.record()에서 바로 검색어를 받아 수 초 단위로 급상승 목록을 갱신한다.
+ *
+ * <p>집계:
+ * - record()는 tick 버퍼(ConcurrentHashMap + LongAdder)에만 누적 — 요청 경로 I/O 없음
+ * - tick(5초)마다 버퍼를 교체해 sketch에 forward decay 가중치(exp(λ·(t − landmark)))로 더하고,
+ *   추정값으로 Top-K(capacity개)를 갱신한다. 오래된 검색 가중치가 상대적으로 작아져 반감기(half-life)마다 절반으로 감쇠
+ * - 메모리는 sketch(depth × width) + Top-K + 접두사 인덱스로 고정 — 검색어 종류 수와 무관
+ *
+ * <p>기준선과의 병합: 감쇠 점수(최근 검색 수)에서 기준선 7일 검색 수가 같은 감쇠 창에 기대하는 몫을 뺀 값(lift)이
+ * min-lift 이상인 검색어만 급상승으로 본다. 평소에도 많이 찾는 검색어는 기준선이 이미 상위에 두므로 제외되고,
+ * 기준선이 새로 빌드되면(매시간) 같은 기준으로 다시 계산한다 — 기준선에 반영된 검색을 두 번 세지 않는다.
+ *
+ * <p>급상승 목록에 들어오거나 빠진 검색어만 TrendingPrefixIndex의 해당 접두사를 갱신하고,
+ * RedisAutocompleteService가 기준선 결과 앞에 최대 max-slots개를 끼워 넣는다 (중복 제거).
+ * 노드마다 자기 트래픽으로 집계한다 — 로드밸런서가 고르게 분산하므로 급상승 검색어는 모든 노드에서 같이 뜬다.
+ */
+@Slf4j
+@Component
+public class TrendingQueryTracker {
+
+    private static final int MAX_BASELINE_QUERIES = 10_000;
+    private static final Duration BASELINE_WINDOW = Duration.ofDays(7);
+    /** λ·Δt가 이 값을 넘으면 landmark를 옮겨 double 오버플로우를 막는다 (e^20 ≈ 4.8억). */
+    private static final double MAX_EXPONENT = 20;
+    /** 점수 변화가 이 비율 미만이면 접두사 인덱스를 다시 쓰지 않는다. */
+    private static final double RESCORE_RATIO = 0.05;
+
+    private final SearchLogRepository searchLogRepository;
+    private final TrendingPrefixIndex index = new TrendingPrefixIndex();
+    private final Counter entered;
+    private final Counter left;
+    private final Counter dropped;
+
+    private volatile ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private volatile Map<String, Long> baseline = Map.of();
+
+    // tick 스레드 전용 상태
+    private CountMinSketch sketch;
+    private final Map<String, Double> topScores = new HashMap<>();
+    private final TreeSet<TrendingPrefixIndex.Scored> topK = new TreeSet<>(
+            Comparator.comparingDouble(TrendingPrefixIndex.Scored::score)
+                    .thenComparing(TrendingPrefixIndex.Scored::query));
+    private volatile Map<String, Double> published = Map.of();
+    private long landmarkMillis = -1;
+
+    @Value("${autocomplete.trending.enabled:true}")
+    private boolean enabled;
+
+    @Value("${autocomplete.trending.capacity:500}")
+    private int capacity;
+
+    @Value("${autocomplete.trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${autocomplete.trending.sketch-width:16384}")
+    private int sketchWidth;
+
+    @Value("${autocomplete.trending.half-life-minutes:15}")
+    private long halfLifeMinutes;
+
+    @Value("${autocomplete.trending.min-lift:20}")
+    private double minLift;
+
+    @Value("${autocomplete.trending.max-slots:3}")
+    private int maxSlots;
+
+    @Value("${autocomplete.trending.max-pending:50000}")
+    private int maxPending;
+
+    public TrendingQueryTracker(SearchLogRepository searchLogRepository, MeterRegistry meterRegistry) {
+        this.searchLogRepository = searchLogRepository;
+        this.entered = Counter.builder("autocomplete_trending_changes")
+                .tag("type", "entered")
+                .description("급상승 목록에 들어온 검색어 수")
+                .register(meterRegistry);
+        this.left = Counter.builder("autocomplete_trending_changes")
+                .tag("type", "left")
+                .description("급상승 목록에서 빠진 검색어 수")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("autocomplete_trending_dropped")
+                .description("tick 버퍼 검색어 수 상한 초과로 버린 검색 수")
+                .register(meterRegistry);
+        Gauge.builder("autocomplete_trending_queries", this, t -> t.published.size())
+                .description("현재 급상승 검색어 수")
+                .register(meterRegistry);
+        Gauge.builder("autocomplete_trending_prefixes", index, TrendingPrefixIndex::prefixCount)
+                .description("급상승 접두사 인덱스 키 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        sketch = new CountMinSketch(sketchDepth, sketchWidth);
+        log.info("급상승 검색어 sketch: depth={}, {}KB, Top-K={}", sketchDepth, sketch.sizeInBytes() / 1024, capacity);
+    }
+
+    /** 기동 시 기준선 로드 — 실패해도 급상승 집계는 기준선 없이(기대값 0) 동작한다. */
+    @EventListener(ApplicationReadyEvent.class)
+    void initialize() {
+        refreshBaseline();
+    }
+
+    /** 검색어 1건 (SearchLogCollector에서 정규화된 값). 버퍼 누적만 — I/O 없음. */
+    public void record(String normalizedQuery) {
+        if (!enabled) {
+            return;
+        }
+        ConcurrentHashMap<String, LongAdder> buffer = pending;
+        LongAdder adder = buffer.get(normalizedQuery);
+        if (adder == null) {
+            if (buffer.size() >= maxPending) {
+                dropped.increment();
+                return;
+            }
+            adder = buffer.computeIfAbsent(normalizedQuery, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 접두사에 해당하는 급상승 검색어 (점수 내림차순, 최대 max-slots개).
+     *
+     * @param key 원본 또는 자모 분해된 접두사
+     */
+    public List<String> suggest(String key, int limit) {
+        return enabled ? index.lookup(key, Math.min(limit, maxSlots)) : List.of();
+    }
+
+    @Scheduled(fixedRateString = "${autocomplete.trending.tick-ms:5000}")
+    void tick() {
+        if (enabled) {
+            tick(System.currentTimeMillis());
+        }
+    }
+
+    synchronized void tick(long nowMillis) {
+        ConcurrentHashMap<String, LongAdder> snapshot = pending;
+        pending = new ConcurrentHashMap<>();
+
+        if (landmarkMillis < 0) {
+            landmarkMillis = nowMillis;
+        }
+        double lambda = lambdaPerMilli();
+        if (lambda * (nowMillis - landmarkMillis) > MAX_EXPONENT) {
+            moveLandmark(nowMillis, lambda);
+        }
+        double weight = Math.exp(lambda * (nowMillis - landmarkMillis));
+
+        snapshot.forEach((query, count) -> offer(query, sketch.add(query, count.sum() * weight)));
+        publish(weight);
+    }
+
+    /** 기준선(7일 검색 수) 갱신 — 자동완성 배치와 같은 소스/같은 주기. */
+    @Scheduled(cron = "${autocomplete.trending.baseline-cron:0 0 * * * *}")
+    void refreshBaseline() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Long> next = new HashMap<>();
+            for (Object[] row : searchLogRepository.findTopQueriesSince(
+                    LocalDateTime.now().minus(BASELINE_WINDOW), MAX_BASELINE_QUERIES)) {
+                String query = (String) row[0];
+                if (query != null && !query.isBlank()) {
+                    next.merge(query.toLowerCase().trim(), ((Number) row[1]).longValue(), Long::sum);
+                }
+            }
+            baseline = next;
+            log.info("급상승 기준선 갱신: 검색어 {}개", next.size());
+        } catch (Exception e) {
+            // 이전 기준선 유지
+            log.warn("급상승 기준선 갱신 실패: {}", e.getMessage());
+        }
+    }
+
+    /** Top-K 갱신 — 이미 있으면 점수만, 없으면 최솟값보다 클 때 최솟값을 밀어낸다. */
+    private void offer(String query, double score) {
+        Double current = topScores.get(query);
+        if (current != null) {
+            topK.remove(new TrendingPrefixIndex.Scored(query, current));
+        } else if (topScores.size() >= capacity) {
+            TrendingPrefixIndex.Scored min = topK.first();
+            if (score <= min.score()) {
+                return;
+            }
+            topK.pollFirst();
+            topScores.remove(min.query());
+        }
+        topK.add(new TrendingPrefixIndex.Scored(query, score));
+        topScores.put(query, score);
+    }
+
+    /** lift 기준 급상승 목록을 다시 계산해 바뀐 검색어만 접두사 인덱스에 반영. */
+    private void publish(double weight) {
+        // 정상 상태 감쇠 점수 = 초당 검색 수 / λ(초) → 기준선 7일 검색 수가 기대하는 감쇠 점수
+        double expectedPerBaselineCount = 1.0 / (BASELINE_WINDOW.toMillis() * lambdaPerMilli());
+        Map<String, Long> currentBaseline = baseline;
+        Map<String, Double> next = new HashMap<>();
+        for (TrendingPrefixIndex.Scored scored : topK) {
+            double recent = scored.score() / weight;
+            double lift = recent - currentBaseline.getOrDefault(scored.query(), 0L) * expectedPerBaselineCount;
+            if (lift >= minLift) {
+                next.put(scored.query(), lift);
+            }
+        }
+
+        for (String query : published.keySet()) {
+            if (!next.containsKey(query)) {
+                index.remove(query);
+                left.increment();
+            }
+        }
+        List<String> newcomers = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : next.entrySet()) {
+            Double previous = published.get(entry.getKey());
+            if (previous == null) {
+                newcomers.add(entry.getKey());
+                entered.increment();
+            }
+            if (previous == null || Math.abs(entry.getValue() - previous) >= previous * RESCORE_RATIO) {
+                index.put(entry.getKey(), entry.getValue());
+            } else {
+                entry.setValue(previous);   // 인덱스에 있는 점수 유지 — 작은 변화가 누적되면 다음 tick에 반영
+            }
+        }
+        published = next;
+        if (!newcomers.isEmpty()) {
+            log.info("급상승 검색어 추가: {}", newcomers);
+        }
+    }
+
+    /** landmark를 now로 옮긴다 — sketch와 Top-K 점수에 같은 비율을 곱하므로 순위/추정값 불변. */
+    private void moveLandmark(long nowMillis, double lambda) {
+        double factor = Math.exp(-lambda * (nowMillis - landmarkMillis));
+        sketch.scale(factor);
+        List<TrendingPrefixIndex.Scored> rescaled = topK.stream()
+                .map(s -> new TrendingPrefixIndex.Scored(s.query(), s.score() * factor))
+                .toList();
+        topK.clear();
+        topK.addAll(rescaled);
+        rescaled.forEach(s -> topScores.put(s.query(), s.score()));
+        landmarkMillis = nowMillis;
+    }
+
+    private double lambdaPerMilli() {
+        return Math.log(2) / Duration.ofMinutes(halfLifeMinutes).toMillis();
+    }
+}
@@ -0,0 +1,237 @@
+package com.wiki.engine.post.internal.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis L2 캐시 값 인코딩 — 버전 헤더 + 포맷 + 크기 임계 압축.
+ *
+ * <p>기존에는 JSON 문자열을 그대로 저장했다. CachedSearchResult(20건 × 필드명 반복)와
+ * Post(본문 수 KB~수십 KB)가 대부분이라 Redis 메모리와 네트워크 전송량의 대부분이 중복 텍스트였다.
+ *
+ * <p>값 레이아웃:
+ * <pre>
+ * v1: magic(0xCA) | version(1) | formatId(0=JSON, 1=Smile) | flags(bit0 = deflate) | payload
+ * v2: magic(0xCA) | version(2) | formatId | flags | loadedAtMillis(8B) | payload
+ * </pre>
+ * loadedAtMillis는 Origin에서 값을 만든 시각 — soft TTL 판정용. v1/헤더 없는 값은 0(즉시 stale)으로 읽는다
+ * (envelope 비활성 모드의 헤더 없는 값은 예외, 아래 참고).
+ * - payload가 compress-threshold-bytes 이상이면 Deflate(BEST_SPEED) 후 더 작을 때만 압축본 저장
+ * - 헤더 없는 값(첫 바이트 '{' / '[' / '"' 등)은 이전 배포가 쓴 JSON 문자열로 읽는다
+ * - 읽기는 등록된 모든 포맷을 지원, 쓰기는 {@code cache.codec.format} 하나만 사용
+ *
+ * <p>{@code cache.codec.envelope-enabled=false}(기본값)이면 헤더·압축 없이 기존 배포와 같은 JSON 바이트를 쓴다.
+ * 이 모드에서는 format=json만 허용하며, 헤더 없는 값엔 로드 시각이 없으므로 읽은 시각을 로드 시각으로 본다
+ * (0으로 읽으면 모든 L2 hit이 stale 갱신을 일으킨다). 롤링 배포 순서:
+ * <ol>
+ *   <li>envelope-enabled=false로 전 노드 배포 — 쓰기는 기존 포맷 그대로, 읽기만 헤더 값 지원</li>
+ *   <li>전 노드가 두 포맷을 읽을 수 있게 된 뒤 envelope-enabled=true — 헤더 + 압축 쓰기 시작</li>
+ *   <li>필요하면 format=smile로 전환</li>
+ * </ol>
+ */
+@Component
+class CacheEnvelopeCodec {
+
+    static final byte MAGIC = (byte) 0xCA;
+    static final byte VERSION = 2;
+    static final int HEADER_SIZE_V1 = 4;
+    static final int HEADER_SIZE = 12;
+    static final byte FLAG_DEFLATE = 1;
+
+    /** 인코딩 결과 — 저장할 바이트와 압축 전 payload 크기 (L1 가중치 추정용). */
+    record Encoded(byte[] bytes, int payloadBytes) {
+
+        boolean compressed() {
+            return isCompressed(bytes);
+        }
+    }
+
+    /** 디코딩 결과 — 값, Origin 로드 시각, 압축 해제 후 payload 크기. */
+    record Decoded<T>(T value, long loadedAtMillis, int payloadBytes) {}
+
+    private final Map<Byte, CacheValueCodec> codecsById = new HashMap<>();
+    private final CacheValueCodec writeCodec;
+    private final boolean envelopeEnabled;
+    private final int compressThresholdBytes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RegionMeters> metersByRegion = new ConcurrentHashMap<>();
+
+    private record RegionMeters(DistributionSummary payloadBytes, DistributionSummary storedBytes,
+                                Timer encodeTimer, Timer decodeTimer) {}
+
+    CacheEnvelopeCodec(List<CacheValueCodec> codecs,
+                       @Value("${cache.codec.format:json}") String format,
+                       @Value("${cache.codec.envelope-enabled:false}") boolean envelopeEnabled,
+                       @Value("${cache.codec.compress-threshold-bytes:1024}") int compressThresholdBytes,
+                       MeterRegistry meterRegistry) {
+        CacheValueCodec selected = null;
+        for (CacheValueCodec codec : codecs) {
+            codecsById.put(codec.formatId(), codec);
+            if (codec.name().equalsIgnoreCase(format)) {
+                selected = codec;
+            }
+        }
+        if (selected == null) {
+            throw new IllegalArgumentException("알 수 없는 cache.codec.format: " + format);
+        }
+        if (!envelopeEnabled && selected.formatId() != JsonCacheValueCodec.FORMAT_ID) {
+            // 헤더 없는 값은 JSON으로만 읽히므로 다른 포맷은 envelope 없이 쓸 수 없다
+            throw new IllegalArgumentException("cache.codec.format=" + format + "은 cache.codec.envelope-enabled=true가 필요하다");
+        }
+        this.writeCodec = selected;
+        this.envelopeEnabled = envelopeEnabled;
+        this.compressThresholdBytes = compressThresholdBytes;
+        this.meterRegistry = meterRegistry;
+    }
+
+    Encoded encode(String region, Object value, long loadedAtMillis) {
+        RegionMeters meters = metersFor(region);
+        long start = System.nanoTime();
+
+        byte[] payload = writeCodec.serialize(value);
+        int payloadBytes = payload.length;
+        meters.payloadBytes().record(payloadBytes);
+        if (!envelopeEnabled) {
+            // 기존 배포와 같은 헤더 없는 JSON — 이전 버전 노드도 그대로 읽는다
+            meters.encodeTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.storedBytes().record(payloadBytes);
+            return new Encoded(payload, payloadBytes);
+        }
+        byte flags = 0;
+        if (payload.length >= compressThresholdBytes) {
+            byte[] compressed = deflate(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[] out = new byte[HEADER_SIZE + payload.length];
+        out[0] = MAGIC;
+        out[1] = VERSION;
+        out[2] = writeCodec.formatId();
+        out[3] = flags;
+        ByteBuffer.wrap(out, 4, 8).putLong(loadedAtMillis);
+        System.arraycopy(payload, 0, out, HEADER_SIZE, payload.length);
+
+        meters.encodeTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        meters.storedBytes().record(out.length);
+        return new Encoded(out, payloadBytes);
+    }
+
+    /** Redis L2 값 디코딩 — region별 decode 타이머에 기록. */
+    <T> Decoded<T> decode(String region, byte[] bytes, Class<T> type) {
+        RegionMeters meters = metersFor(region);
+        long start = System.nanoTime();
+        try {
+            return decode(bytes, type);
+        } finally {
+            meters.decodeTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** 메트릭 없이 디코딩 — L1에 압축 보관된 값의 지연 복원용 (호출 측이 별도 타이머로 측정). */
+    <T> Decoded<T> decode(byte[] bytes, Class<T> type) {
+        if (!hasHeader(bytes)) {
+            // 헤더 도입 이전 배포(또는 envelope 비활성 노드)가 쓴 JSON 문자열
+            T value = codecsById.get(JsonCacheValueCodec.FORMAT_ID).deserialize(bytes, 0, bytes.length, type);
+            long loadedAtMillis = envelopeEnabled ? 0L : System.currentTimeMillis();
+            return new Decoded<>(value, loadedAtMillis, bytes.length);
+        }
+        CacheValueCodec codec = codecsById.get(bytes[2]);
+        if (codec == null) {
+            throw new IllegalStateException("지원하지 않는 캐시 값 포맷: " + bytes[2]);
+        }
+        int headerSize = bytes[1] == 1 ? HEADER_SIZE_V1 : HEADER_SIZE;
+        long loadedAtMillis = bytes[1] == 1 ? 0L : ByteBuffer.wrap(bytes, 4, 8).getLong();
+        if ((bytes[3] & FLAG_DEFLATE) != 0) {
+            byte[] inflated = inflate(bytes, headerSize, bytes.length - headerSize);
+            return new Decoded<>(codec.deserialize(inflated, 0, inflated.length, type), loadedAtMillis, inflated.length);
+        }
+        int length = bytes.length - headerSize;
+        return new Decoded<>(codec.deserialize(bytes, headerSize, length, type), loadedAtMillis, length);
+    }
+
+    /** 헤더가 있고 Deflate로 압축된 값인지. */
+    static boolean isCompressed(byte[] bytes) {
+        return hasHeader(bytes) && (bytes[3] & FLAG_DEFLATE) != 0;
+    }
+
+    /** JSON 문서는 ASCII 토큰('{', '[', '"', 숫자, 공백 등)으로 시작하므로 0xCA로 시작하는 값은 헤더가 있는 값이다. */
+    static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_SIZE_V1 && bytes[0] == MAGIC && bytes[1] > 0 && bytes[1] <= VERSION
+                && (bytes[1] == 1 || bytes.length >= HEADER_SIZE);
+    }
+
+    private RegionMeters metersFor(String region) {
+        return metersByRegion.computeIfAbsent(region, r -> new RegionMeters(
+                DistributionSummary.builder("tiered_cache_value_bytes")
+                        .tag("region", r).tag("stage", "payload")
+                        .description("L2 캐시 값 직렬화 크기 (압축 전)")
+                        .baseUnit("bytes")
+                        .register(meterRegistry),
+                DistributionSummary.builder("tiered_cache_value_bytes")
+                        .tag("region", r).tag("stage", "stored")
+                        .description("L2 캐시에 저장된 값 크기 (헤더 + 인코딩 + 압축)")
+                        .baseUnit("bytes")
+                        .register(meterRegistry),
+                Timer.builder("tiered_cache_codec")
+                        .tag("region", r).tag("op", "encode")
+                        .description("L2 캐시 값 인코딩 시간")
+                        .register(meterRegistry),
+                Timer.builder("tiered_cache_codec")
+                        .tag("region", r).tag("op", "decode")
+                        .description("L2 캐시 값 디코딩 시간")
+                        .register(meterRegistry)));
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 3);
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("손상된 압축 캐시 값");
+                }
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("손상된 압축 캐시 값", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
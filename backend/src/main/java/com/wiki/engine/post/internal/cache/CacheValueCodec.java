@@ -0,0 +1,20 @@
+package com.wiki.engine.post.internal.cache;
+
+/**
+ * Redis L2 캐시 값 직렬화 포맷.
+ *
+ * <p>구현체는 {@link CacheEnvelopeCodec}에 등록되고, formatId가 값 헤더에 기록된다.
+ * 한 번 배포된 formatId는 재사용하지 않는다 (롤링 배포 중 이전 노드가 쓴 값을 읽어야 하므로).
+ */
+interface CacheValueCodec {
+
+    /** 헤더에 기록되는 포맷 ID. */
+    byte formatId();
+
+    /** 설정값({@code cache.codec.format})으로 쓰는 이름. */
+    String name();
+
+    byte[] serialize(Object value);
+
+    <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type);
+}
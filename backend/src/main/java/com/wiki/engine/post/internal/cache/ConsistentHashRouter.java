@@ -1,14 +1,33 @@
 package com.wiki.engine.post.internal.cache;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
 
-import com.google.common.hash.Hashing;
-
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * Consistent Hashing 기반 Redis 노드 라우터.
@@ -17,55 +36,127 @@ import java.util.concurrent.ConcurrentSkipListMap;
  * 키의 해시값에서 시계 방향으로 가장 가까운 노드를 선택한다.
  * 노드 추가/제거 시 ~1/N 키만 재배치된다.
  *
- * <p>ConcurrentSkipListMap은 lock-free 알고리즘으로
- * ceilingEntry() O(log N) 조회를 동시성 문제 없이 수행한다.
+ * <p>링은 정렬된 long[] + 소유 노드 배열의 불변 스냅샷이다.
+ * 조회는 volatile 읽기 1회 + 이진 탐색이며, 노드 추가/제거/퇴출 시에만 새 스냅샷으로 교체한다.
+ *
+ * <p>샤드별 서킷 브레이커:
+ * - 호출자가 {@link #recordFailure}로 보고한 연속 실패가 failure-threshold에 도달하면 링에서 퇴출
+ *   (해당 키는 시계 방향 다음 노드가 담당 → 2초 타임아웃 대신 캐시 미스로 처리)
+ * - 퇴출된 노드는 probe-interval마다 PING, probe-successes회 연속 성공 시 링에 복귀
+ * - 마지막 남은 활성 노드는 퇴출하지 않는다
+ *
+ * <p>리샤딩 dual-read: {@link #addNode}/{@link #removeNode}는 변경 전 링을 보관한다.
+ * {@link #completeMigration}까지 {@link #getPreviousNode}가 이전 담당 노드를 알려주어,
+ * 아직 옮겨지지 않은 키를 이전 노드에서 읽고 삭제도 양쪽에 적용할 수 있다 ({@link RedisShardMigrationService}).
+ *
+ * <p>Hot key 분산: 라우팅을 샘플링해 hot key를 찾는다({@link HotKeyTracker}).
+ * hot key는 링에서 시계 방향으로 서로 다른 replicas개 노드에 복제해 두고, {@link #getBalancedNode}가
+ * 그중 최근 1초 처리량이 (평균 × load-factor) 이하인 노드를 고른다 (bounded-load consistent hashing).
+ * 부하 한도는 복제본 사이에서만 적용 — 일반 키의 담당 노드는 바뀌지 않아 미스가 늘지 않는다.
+ *
+ * <p>링 교체(추가/제거/퇴출/복귀)는 {@link #addRingChangeListener}로 등록한 리스너에 알린다.
+ * 담당 노드가 바뀐 키의 노드 로컬 상태(예: 좋아요 카운터)를 정리하는 용도.
+ *
+ * <p>메트릭: redis_shard_latency / redis_shard_errors / redis_shard_ejections / redis_shard_ejected /
+ * redis_shard_ops_per_second (tag: shard), redis_hot_keys
  */
-public class ConsistentHashRouter {
+public class ConsistentHashRouter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsistentHashRouter.class);
 
-    private final ConcurrentSkipListMap<Long, StringRedisTemplate> ring = new ConcurrentSkipListMap<>();
-    private final List<StringRedisTemplate> nodes;
     private static final int VIRTUAL_NODES = 150;
-    private int nodeCount;
+    private static final long C1 = 0x87c37b91114253d5L;   // MurmurHash3 x64_128 상수
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /** 브레이커 설정 — 연속 실패 몇 번에 퇴출, PING 몇 번 성공에 복귀할지. */
+    public record BreakerSettings(int failureThreshold, int probeSuccesses, Duration probeInterval) {
+        public static final BreakerSettings DEFAULTS = new BreakerSettings(5, 3, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Hot key 설정 — 샘플링 비율, hot 판정 임계(추정 ops/s), 판정 윈도우, 복제 수(담당 노드 포함), 부하 한도 배수.
+     */
+    public record HotKeySettings(boolean enabled, int sampleOneIn, double thresholdPerSecond, Duration window,
+                                 int maxTracked, int replicas, double loadFactor) {
+        public static final HotKeySettings DEFAULTS =
+                new HotKeySettings(true, 64, 200, Duration.ofSeconds(10), 10_000, 3, 1.25);
+    }
+
+    /**
+     * 링 교체 알림 — 교체 직전 링 기준의 담당 노드 조회 함수를 받는다 (현재 담당 노드는 {@link #getOwnerNode}).
+     * 링을 바꾼 스레드(요청 스레드의 퇴출 포함)에서 락을 쥔 채 호출되므로 무거운 작업은 다른 스레드로 넘긴다.
+     */
+    @FunctionalInterface
+    public interface RingChangeListener {
+        void onRingChange(Function<String, StringRedisTemplate> previousOwnerOf);
+    }
+
+    /** 불변 링 스냅샷 — hashes는 오름차순, owners[i]가 hashes[i]의 노드. */
+    private record Ring(long[] hashes, Shard[] owners) {
+    }
+
+    private final List<StringRedisTemplate> nodes = new CopyOnWriteArrayList<>();
+    private final List<Shard> shards = new CopyOnWriteArrayList<>();
+    private final Map<StringRedisTemplate, Shard> shardByNode = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final BreakerSettings settings;
+    private final HotKeySettings hotKeySettings;
+    private final HotKeyTracker hotKeys;
+    private final List<RingChangeListener> ringChangeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober;
+    private volatile Ring ring = new Ring(new long[0], new Shard[0]);
+    private long statsTicks;   // prober 스레드 전용
+    private volatile @Nullable Ring previousRing;   // 마이그레이션 중에만 — 변경 전 링
 
     public ConsistentHashRouter(List<StringRedisTemplate> shardNodes) {
-        this.nodes = new java.util.ArrayList<>(shardNodes);
-        this.nodeCount = nodes.size();
-        for (int i = 0; i < nodes.size(); i++) {
-            addToRing(nodes.get(i), i);
-        }
+        this(shardNodes, new SimpleMeterRegistry(), BreakerSettings.DEFAULTS, HotKeySettings.DEFAULTS);
     }
 
-    private void addToRing(StringRedisTemplate node, int nodeIndex) {
-        for (int v = 0; v < VIRTUAL_NODES; v++) {
-            long h = hash("node-" + nodeIndex + "-vnode-" + v);
-            ring.put(h, node);
+    public ConsistentHashRouter(List<StringRedisTemplate> shardNodes, MeterRegistry meterRegistry,
+                                BreakerSettings settings, HotKeySettings hotKeySettings) {
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+        this.hotKeySettings = hotKeySettings;
+        this.hotKeys = new HotKeyTracker(hotKeySettings.sampleOneIn(), hotKeySettings.thresholdPerSecond(),
+                Math.max(1, hotKeySettings.window().toSeconds()), hotKeySettings.maxTracked(), 1_000);
+        for (StringRedisTemplate node : shardNodes) {
+            register(node);
         }
+        rebuildRing();
+        Gauge.builder("redis_hot_keys", hotKeys, HotKeyTracker::hotCount)
+                .description("복제·분산 중인 hot key 수")
+                .register(meterRegistry);
+        this.prober = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("redis-shard-probe").factory());
+        long intervalMs = settings.probeInterval().toMillis();
+        prober.scheduleWithFixedDelay(this::probeEjected, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        prober.scheduleAtFixedRate(this::tickStats, 1, 1, TimeUnit.SECONDS);
     }
 
-    private void removeFromRing(int nodeIndex) {
-        for (int v = 0; v < VIRTUAL_NODES; v++) {
-            long h = hash("node-" + nodeIndex + "-vnode-" + v);
-            ring.remove(h);
-        }
+    @Override
+    public void close() {
+        prober.shutdownNow();
     }
 
     /**
      * 노드를 해시 링에 추가한다.
      * 기존 키 중 ~1/N만 새 노드로 이동한다 (Consistent Hashing의 핵심 이점).
-     * ConcurrentSkipListMap이므로 추가 중에도 조회가 안전하다.
+     * 새 스냅샷으로 교체하므로 추가 중에도 조회가 안전하다.
      */
-    public void addNode(StringRedisTemplate newNode) {
-        int index = nodeCount++;
-        nodes.add(newNode);
-        addToRing(newNode, index);
+    public synchronized void addNode(StringRedisTemplate newNode) {
+        beginMigration();
+        register(newNode);
+        rebuildRing();
     }
 
     /**
      * 노드를 해시 링에서 제거한다.
      * 해당 노드가 담당하던 키는 시계 방향 다음 노드가 자동으로 담당한다.
      */
-    public void removeNode(int nodeIndex) {
-        removeFromRing(nodeIndex);
+    public synchronized void removeNode(int nodeIndex) {
+        beginMigration();
+        shards.get(nodeIndex).removed = true;
+        rebuildRing();
     }
 
     /**
@@ -74,39 +165,407 @@ public class ConsistentHashRouter {
      * 없으면 링의 첫 번째 엔트리로 순환한다.
      */
     public StringRedisTemplate getNode(String key) {
+        Shard owner = ownerOf(ring, hash(key));
+        owner.ops.increment();
+        if (hotKeySettings.enabled()) {
+            hotKeys.record(key);
+        }
+        return owner.node;
+    }
+
+    /**
+     * 키의 담당 노드 — {@link #getNode}와 같은 노드지만 처리량/hot key 집계에 넣지 않는다.
+     * 리샤딩 SCAN처럼 요청 트래픽이 아닌 전수 조회용 (집계되면 전 키가 한 번씩 hot key 후보로 샘플링된다).
+     */
+    public StringRedisTemplate getOwnerNode(String key) {
+        return ownerOf(ring, hash(key)).node;
+    }
+
+    /**
+     * 부하 분산 라우팅 — 일반 키는 {@link #getNode}와 같고, hot key는 복제 노드 중
+     * 최근 1초 처리량이 (평균 × load-factor) 이하인 노드를 무작위 시작점부터 찾아 고른다.
+     * 복제본이 모두 한도를 넘으면 담당 노드. 복제본에 값이 없을 수 있으므로 읽기 미스 시 호출자가 담당 노드를 다시 본다.
+     */
+    public StringRedisTemplate getBalancedNode(String key) {
+        if (!hotKeySettings.enabled() || !hotKeys.isHot(key)) {
+            return getNode(key);
+        }
+        hotKeys.record(key);
+        List<Shard> replicas = replicasOf(ring, hash(key));
+        double bound = averageOpsPerSecond() * hotKeySettings.loadFactor();
+        int start = ThreadLocalRandom.current().nextInt(replicas.size());
+        Shard chosen = replicas.getFirst();
+        for (int i = 0; i < replicas.size(); i++) {
+            Shard candidate = replicas.get((start + i) % replicas.size());
+            if (candidate.opsPerSecond <= bound) {
+                chosen = candidate;
+                break;
+            }
+        }
+        chosen.ops.increment();
+        return chosen.node;
+    }
+
+    /** hot key로 판정되어 복제 대상인지. */
+    public boolean isHot(String key) {
+        return hotKeySettings.enabled() && hotKeys.isHot(key);
+    }
+
+    /**
+     * 키의 복제 노드 — 담당 노드 + 시계 방향의 서로 다른 노드, 최대 replicas개.
+     * hot key 쓰기 fan-out과, hot 여부가 바뀌었을 수 있는 삭제(전 복제본 삭제)에 사용한다.
+     */
+    public List<StringRedisTemplate> getReplicaNodes(String key) {
+        return replicasOf(ring, hash(key)).stream().map(shard -> shard.node).toList();
+    }
+
+    /**
+     * 마이그레이션 중 키의 이전 담당 노드 — 현재 담당 노드와 다를 때만 반환한다.
+     * 마이그레이션 중이 아니거나 담당이 바뀌지 않은 키는 null.
+     */
+    public @Nullable StringRedisTemplate getPreviousNode(String key) {
+        Ring previous = previousRing;
+        if (previous == null) {
+            return null;
+        }
         long h = hash(key);
-        Map.Entry<Long, StringRedisTemplate> entry = ring.ceilingEntry(h);
-        if (entry == null) {
-            entry = ring.firstEntry();
+        Shard old = ownerOf(previous, h);
+        return old != ownerOf(ring, h) ? old.node : null;
+    }
+
+    /** 링 교체 리스너 등록 — 이후의 추가/제거/퇴출/복귀마다 호출된다. */
+    public void addRingChangeListener(RingChangeListener listener) {
+        ringChangeListeners.add(listener);
+    }
+
+    /** 변경 전 링을 보관하고 있는지 (dual-read 기간). */
+    public boolean isMigrating() {
+        return previousRing != null;
+    }
+
+    /** 키 이동이 끝났다 — 이전 링을 버리고 dual-read를 종료한다. */
+    public synchronized void completeMigration() {
+        previousRing = null;
+    }
+
+    private synchronized void beginMigration() {
+        if (previousRing == null) {
+            previousRing = ring;
         }
-        return entry.getValue();
     }
 
-    /** 모든 활성 노드를 반환한다 (SCAN 등 전체 순회 시 사용). */
+    private static Shard ownerOf(Ring snapshot, long h) {
+        return snapshot.owners[ownerIndex(snapshot, h)];
+    }
+
+    private static int ownerIndex(Ring snapshot, long h) {
+        int i = Arrays.binarySearch(snapshot.hashes, h);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i == snapshot.hashes.length ? 0 : i;
+    }
+
+    private List<Shard> replicasOf(Ring snapshot, long h) {
+        int start = ownerIndex(snapshot, h);
+        int want = Math.max(1, hotKeySettings.replicas());
+        List<Shard> replicas = new ArrayList<>(want);
+        for (int step = 0; step < snapshot.owners.length && replicas.size() < want; step++) {
+            Shard shard = snapshot.owners[(start + step) % snapshot.owners.length];
+            if (!replicas.contains(shard)) {
+                replicas.add(shard);
+            }
+        }
+        return replicas;
+    }
+
+    private double averageOpsPerSecond() {
+        long total = 0;
+        int active = 0;
+        for (Shard shard : shards) {
+            if (shard.inRing()) {
+                total += shard.opsPerSecond;
+                active++;
+            }
+        }
+        return active == 0 ? 0 : (double) total / active;
+    }
+
+    /** 1초마다 샤드별 처리량을 갱신하고, 윈도우마다 hot key 집합을 교체한다. */
+    void tickStats() {
+        for (Shard shard : shards) {
+            shard.opsPerSecond = shard.ops.sumThenReset();
+        }
+        if (++statsTicks % Math.max(1, hotKeySettings.window().toSeconds()) == 0) {
+            rotateHotKeys();
+        }
+    }
+
+    void rotateHotKeys() {
+        hotKeys.rotate();
+    }
+
+    /** 모든 노드를 반환한다 (SCAN 등 전체 순회 시 사용). 퇴출된 노드도 포함 — 남은 데이터를 놓치지 않도록. */
     public List<StringRedisTemplate> getAllNodes() {
         return Collections.unmodifiableList(nodes);
     }
 
-    /** 현재 링의 노드 수. */
+    /** removeNode로 제거되지 않은 노드 (브레이커로 퇴출된 노드 포함 — 복귀 예정이므로). */
+    public List<StringRedisTemplate> getMemberNodes() {
+        return shards.stream().filter(shard -> !shard.removed).map(shard -> shard.node).toList();
+    }
+
+    /** 등록된 노드 수. */
     public int getNodeCount() {
-        return nodeCount;
+        return nodes.size();
     }
 
     /** 현재 링의 가상 노드(엔트리) 수. */
     public int getRingSize() {
-        return ring.size();
+        return ring.hashes.length;
+    }
+
+    /** 노드가 서킷 브레이커에 의해 링에서 퇴출된 상태인지. */
+    public boolean isEjected(StringRedisTemplate node) {
+        Shard shard = shardByNode.get(node);
+        return shard != null && shard.ejected;
+    }
+
+    /** 명령 성공 보고 — 연속 실패 카운트를 초기화하고 지연을 기록한다. */
+    public void recordSuccess(StringRedisTemplate node, long latencyNanos) {
+        Shard shard = shardByNode.get(node);
+        if (shard != null) {
+            shard.latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            shard.consecutiveFailures.set(0);
+        }
+    }
+
+    /** 명령 실패(타임아웃/연결 실패) 보고 — 연속 실패가 임계값에 도달하면 링에서 퇴출한다. */
+    public void recordFailure(StringRedisTemplate node) {
+        Shard shard = shardByNode.get(node);
+        if (shard == null) {
+            return;
+        }
+        shard.errors.increment();
+        if (shard.consecutiveFailures.incrementAndGet() >= settings.failureThreshold() && !shard.ejected) {
+            eject(shard);
+        }
+    }
+
+    private synchronized void eject(Shard shard) {
+        if (shard.ejected || shard.removed) {
+            return;
+        }
+        long active = shards.stream().filter(Shard::inRing).count();
+        if (active <= 1) {
+            return;
+        }
+        shard.ejected = true;
+        shard.probeSuccesses = 0;
+        shard.ejections.increment();
+        rebuildRing();
+        log.warn("Redis 샤드 {} 퇴출 — 연속 실패 {}회, 해당 키는 다음 노드로 라우팅", shard.index, shard.consecutiveFailures.get());
+    }
+
+    private synchronized void readmit(Shard shard) {
+        shard.ejected = false;
+        shard.consecutiveFailures.set(0);
+        rebuildRing();
+        log.info("Redis 샤드 {} 복귀 — PING {}회 연속 성공", shard.index, settings.probeSuccesses());
+    }
+
+    /** 퇴출된 노드에만 PING을 보낸다. */
+    void probeEjected() {
+        for (Shard shard : shards) {
+            if (!shard.ejected || shard.removed) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                shard.node.execute((RedisCallback<String>) RedisConnection::ping);
+                shard.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (++shard.probeSuccesses >= settings.probeSuccesses()) {
+                    readmit(shard);
+                }
+            } catch (Exception e) {
+                shard.probeSuccesses = 0;
+                shard.errors.increment();
+            }
+        }
+    }
+
+    private void register(StringRedisTemplate node) {
+        Shard shard = new Shard(shards.size(), node);
+        nodes.add(node);
+        shards.add(shard);
+        shardByNode.put(node, shard);
+    }
+
+    /** 활성 노드(제거/퇴출되지 않은)의 가상 노드로 새 스냅샷을 만든다. 해시 충돌 시 먼저 등록된 노드가 유지된다. */
+    private synchronized void rebuildRing() {
+        TreeMap<Long, Shard> sorted = new TreeMap<>();
+        for (Shard shard : shards) {
+            if (shard.inRing()) {
+                for (long h : shard.vnodeHashes) {
+                    sorted.putIfAbsent(h, shard);
+                }
+            }
+        }
+        long[] hashes = new long[sorted.size()];
+        Shard[] owners = new Shard[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Long, Shard> e : sorted.entrySet()) {
+            hashes[i] = e.getKey();
+            owners[i++] = e.getValue();
+        }
+        Ring before = ring;
+        ring = new Ring(hashes, owners);
+        if (before.hashes.length > 0) {
+            for (RingChangeListener listener : ringChangeListeners) {
+                listener.onRingChange(key -> ownerOf(before, hash(key)).node);
+            }
+        }
+    }
+
+    /** 노드 1개의 링 상태 + 브레이커 + 메트릭. */
+    private final class Shard {
+        final int index;
+        final StringRedisTemplate node;
+        final long[] vnodeHashes = new long[VIRTUAL_NODES];
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final LongAdder ops = new LongAdder();
+        volatile long opsPerSecond;   // 직전 1초 라우팅 수
+        final Timer latency;
+        final Counter errors;
+        final Counter ejections;
+        volatile boolean ejected;
+        volatile boolean removed;
+        volatile int probeSuccesses;   // 증가는 prober 스레드만
+
+        Shard(int index, StringRedisTemplate node) {
+            this.index = index;
+            this.node = node;
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                vnodeHashes[v] = hash("node-" + index + "-vnode-" + v);
+            }
+            String tag = String.valueOf(index);
+            this.latency = Timer.builder("redis_shard_latency")
+                    .tag("shard", tag)
+                    .description("샤드별 Redis 명령/PING 지연")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.errors = Counter.builder("redis_shard_errors")
+                    .tag("shard", tag)
+                    .description("샤드별 Redis 명령/PING 실패 수")
+                    .register(meterRegistry);
+            this.ejections = Counter.builder("redis_shard_ejections")
+                    .tag("shard", tag)
+                    .description("서킷 브레이커가 샤드를 링에서 퇴출한 횟수")
+                    .register(meterRegistry);
+            Gauge.builder("redis_shard_ejected", this, s -> s.ejected ? 1 : 0)
+                    .tag("shard", tag)
+                    .description("샤드 퇴출 상태 (1=퇴출)")
+                    .register(meterRegistry);
+            Gauge.builder("redis_shard_ops_per_second", this, s -> s.opsPerSecond)
+                    .tag("shard", tag)
+                    .description("샤드별 직전 1초 라우팅 수 — hot key 분산 후 균형 확인용")
+                    .register(meterRegistry);
+        }
+
+        boolean inRing() {
+            return !removed && !ejected;
+        }
     }
 
     /**
-     * Guava MurmurHash3-128의 상위 long을 양수로 변환한다.
+     * MurmurHash3 x64_128(seed 0)의 상위 long을 양수로 변환한다.
      *
-     * <p>MurmurHash3는 비암호화 해시 함수로 균등 분산에 최적화되어 있다.
-     * Cassandra(토큰 링), Elasticsearch(라우팅) 등에서 사용.
-     * 해시 계산(~140ns)은 Redis 네트워크 왕복(~500us) 대비 무시 가능.
+     * <p>Guava {@code Hashing.murmur3_128().hashString(key, UTF_8).asLong()}와 같은 값을 내되,
+     * UTF-8 인코딩을 문자 단위로 즉석 수행해 byte[]·Hasher 할당이 없다.
+     * 짝 없는 surrogate는 String.getBytes와 같이 '?'로 인코딩한다.
      */
-    private long hash(String key) {
-        return Hashing.murmur3_128()
-                .hashString(key, StandardCharsets.UTF_8)
-                .asLong() & 0x7FFFFFFFFFFFFFFFL;
+    static long hash(String key) {
+        long h1 = 0;
+        long h2 = 0;
+        long k1 = 0;
+        long k2 = 0;
+        int pos = 0;          // 현재 16바이트 블록 안의 위치
+        long length = 0;
+        int n = key.length();
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            long packed;      // UTF-8 바이트를 little-endian으로 묶은 값
+            int count;
+            if (c < 0x80) {
+                packed = c;
+                count = 1;
+            } else if (c < 0x800) {
+                packed = (0xC0 | (c >>> 6)) | (long) (0x80 | (c & 0x3F)) << 8;
+                count = 2;
+            } else if (!Character.isSurrogate(c)) {
+                packed = (0xE0 | (c >>> 12)) | (long) (0x80 | ((c >>> 6) & 0x3F)) << 8
+                        | (long) (0x80 | (c & 0x3F)) << 16;
+                count = 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(key.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, key.charAt(++i));
+                packed = (0xF0 | (cp >>> 18)) | (long) (0x80 | ((cp >>> 12) & 0x3F)) << 8
+                        | (long) (0x80 | ((cp >>> 6) & 0x3F)) << 16 | (long) (0x80 | (cp & 0x3F)) << 24;
+                count = 4;
+            } else {
+                packed = '?';
+                count = 1;
+            }
+            for (int b = 0; b < count; b++, packed >>>= 8) {
+                long v = packed & 0xFF;
+                if (pos < 8) {
+                    k1 |= v << (pos << 3);
+                } else {
+                    k2 |= v << ((pos - 8) << 3);
+                }
+                if (++pos == 16) {
+                    h1 ^= mixK1(k1);
+                    h1 = Long.rotateLeft(h1, 27) + h2;
+                    h1 = h1 * 5 + 0x52dce729;
+                    h2 ^= mixK2(k2);
+                    h2 = Long.rotateLeft(h2, 31) + h1;
+                    h2 = h2 * 5 + 0x38495ab5;
+                    k1 = 0;
+                    k2 = 0;
+                    pos = 0;
+                }
+            }
+            length += count;
+        }
+        if (pos > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (pos > 0) {
+            h1 ^= mixK1(k1);
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1 & 0x7FFFFFFFFFFFFFFFL;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
     }
 }
@@ -0,0 +1,73 @@
+package com.wiki.engine.post.internal.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 샘플링 기반 hot key 탐지.
+ *
+ * <p>라우팅 호출 1/sampleOneIn만 키별 카운터에 기록하고, 윈도우가 끝날 때
+ * 추정 접근률(샘플 수 × sampleOneIn / 윈도우 초)이 임계값 이상인 키를 hot 집합으로 교체한다.
+ * - 추적 키 수는 maxTracked로 제한 — 꽉 차면 이번 윈도우의 새 키는 버린다 (진짜 hot key는 이미 들어와 있다)
+ * - hot 집합은 상위 maxHot개만 유지, 읽기는 volatile 참조 1회 + Set 조회
+ */
+class HotKeyTracker {
+
+    private final int sampleOneIn;
+    private final long thresholdSamples;
+    private final int maxTracked;
+    private final int maxHot;
+
+    private volatile Map<String, LongAdder> samples = new ConcurrentHashMap<>();
+    private volatile Set<String> hotKeys = Set.of();
+
+    HotKeyTracker(int sampleOneIn, double thresholdPerSecond, long windowSeconds, int maxTracked, int maxHot) {
+        this.sampleOneIn = sampleOneIn;
+        this.thresholdSamples = Math.max(1, (long) Math.ceil(thresholdPerSecond * windowSeconds / sampleOneIn));
+        this.maxTracked = maxTracked;
+        this.maxHot = maxHot;
+    }
+
+    /** 라우팅 1회 — 1/sampleOneIn 확률로 카운트한다. */
+    void record(String key) {
+        if (ThreadLocalRandom.current().nextInt(sampleOneIn) != 0) {
+            return;
+        }
+        Map<String, LongAdder> current = samples;
+        LongAdder counter = current.get(key);
+        if (counter == null) {
+            if (current.size() >= maxTracked) {
+                return;
+            }
+            counter = current.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    boolean isHot(String key) {
+        Set<String> hot = hotKeys;
+        return !hot.isEmpty() && hot.contains(key);
+    }
+
+    int hotCount() {
+        return hotKeys.size();
+    }
+
+    /** 윈도우 종료 — 임계값을 넘은 키로 hot 집합을 교체하고 카운터를 비운다. */
+    void rotate() {
+        Map<String, LongAdder> finished = samples;
+        samples = new ConcurrentHashMap<>();
+        hotKeys = finished.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .filter(e -> e.getValue() >= thresholdSamples)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(maxHot)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
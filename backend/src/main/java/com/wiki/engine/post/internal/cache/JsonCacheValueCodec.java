@@ -0,0 +1,40 @@
+package com.wiki.engine.post.internal.cache;
+
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * JSON 포맷 — 기존 L2 값(헤더 없는 JSON 문자열)과 같은 직렬화.
+ * 헤더 없는 값을 읽을 때의 fallback이기도 하다.
+ */
+@Component
+class JsonCacheValueCodec implements CacheValueCodec {
+
+    static final byte FORMAT_ID = 0;
+
+    private final JsonMapper jsonMapper;
+
+    JsonCacheValueCodec(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public byte formatId() {
+        return FORMAT_ID;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        return jsonMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type) {
+        return jsonMapper.readValue(bytes, offset, length, type);
+    }
+}
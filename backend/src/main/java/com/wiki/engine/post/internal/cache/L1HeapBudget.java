@@ -0,0 +1,109 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 게시글 상세 L1 캐시의 바이트 예산을 힙 여유에 맞춰 조정한다.
+ *
+ * <p>예산 = clamp(현재 가중치 + (최대 힙 − 직전 GC 후 사용량) × headroom-fraction, 하한, 최대 힙 × max-heap-fraction)
+ * - GC 후 사용량(live set 근사)이 늘면 예산을 줄여 Caffeine이 즉시 eviction
+ * - 여유가 있으면 상한까지 늘린다
+ * 30초마다 재계산. 하한(min-budget-mb)은 힙 압박 중에도 인기 문서 캐시가 비지 않도록 유지.
+ *
+ * <p>메트릭: l1_cache_weighted_bytes / l1_cache_budget_bytes / l1_cache_evictions_total / l1_cache_evicted_bytes_total
+ */
+@Slf4j
+@Component
+class L1HeapBudget {
+
+    private static final String CACHE_TAG = "postDetail";
+
+    private final Policy.Eviction<String, Object> eviction;
+    private final AtomicLong budgetBytes = new AtomicLong();
+
+    @Value("${cache.l1.post-detail.max-heap-fraction:0.2}")
+    private double maxHeapFraction;
+
+    @Value("${cache.l1.post-detail.headroom-fraction:0.5}")
+    private double headroomFraction;
+
+    @Value("${cache.l1.post-detail.min-budget-mb:32}")
+    private long minBudgetMb;
+
+    L1HeapBudget(@Qualifier("postDetailL1Cache") Cache<String, Object> postDetailL1Cache,
+                 MeterRegistry meterRegistry) {
+        this.eviction = postDetailL1Cache.policy().eviction()
+                .orElseThrow(() -> new IllegalStateException("postDetailL1Cache에 eviction 정책이 없습니다"));
+        budgetBytes.set(eviction.getMaximum());
+
+        Gauge.builder("l1_cache_weighted_bytes", eviction, e -> e.weightedSize().orElse(0))
+                .tag("cache", CACHE_TAG)
+                .description("L1 캐시 가중치 합 (추정 바이트)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("l1_cache_budget_bytes", budgetBytes, AtomicLong::get)
+                .tag("cache", CACHE_TAG)
+                .description("힙 여유 기반 L1 캐시 바이트 예산")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("l1_cache_evictions", postDetailL1Cache, c -> c.stats().evictionCount())
+                .tag("cache", CACHE_TAG)
+                .description("용량(가중치) 초과로 제거된 엔트리 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("l1_cache_evicted_bytes", postDetailL1Cache, c -> c.stats().evictionWeight())
+                .tag("cache", CACHE_TAG)
+                .description("용량(가중치) 초과로 제거된 바이트 수")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    void adjust() {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        long target = computeBudget(maxHeap, usedAfterLastGc(), eviction.weightedSize().orElse(0));
+        long previous = budgetBytes.getAndSet(target);
+        if (previous != target) {
+            eviction.setMaximum(target);
+            if (Math.abs(previous - target) > previous / 10) {
+                log.info("postDetail L1 예산 조정: {}MB → {}MB (weighted={}MB)",
+                        previous >> 20, target >> 20, eviction.weightedSize().orElse(0) >> 20);
+            }
+        }
+    }
+
+    long computeBudget(long maxHeap, long usedAfterGc, long currentWeight) {
+        long floor = minBudgetMb * 1024 * 1024;
+        long ceiling = Math.max(floor, (long) (maxHeap * maxHeapFraction));
+        long headroom = Math.max(0, maxHeap - usedAfterGc);
+        long target = currentWeight + (long) (headroom * headroomFraction);
+        return Math.clamp(target, floor, ceiling);
+    }
+
+    /** 힙 풀들의 직전 GC 직후 사용량 합 — 지원하지 않는 풀이 있으면 현재 사용량으로 대체. */
+    private static long usedAfterLastGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            used += usage != null ? usage.getUsed() : pool.getUsage().getUsed();
+        }
+        return used;
+    }
+}
@@ -0,0 +1,284 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 노드 간 L1(Caffeine) 무효화 버스 — Redis pub/sub.
+ *
+ * <p>배경: 무효화는 이벤트를 처리한 노드(또는 CDC 레코드를 소비한 노드)에서만 일어났다.
+ * 다른 노드는 postDetail L1(expireAfterAccess 30분) 동안 수정 전 게시글을 계속 응답했다.
+ *
+ * <p>동작:
+ * - 로컬 무효화 후 {@link #publishKeys}/{@link #publishTitle}로 무효화 항목을 큐에 넣는다
+ * - batch-window-ms 동안 모인 항목을 중복 제거 후 메시지 1건으로 PUBLISH (CDC 대량 반영 시 메시지 수 억제)
+ * - 모든 노드가 구독, 자신이 보낸 메시지는 무시하고 나머지는 로컬 L1에 적용
+ * - 제목 매칭 무효화(새 문서/제목 변경)는 노드마다 L1 키가 다르므로 키 대신 제목을 보내 각 노드가 매칭한다.
+ *   L1 전체 순회라서 본문만 바뀐 수정은 보내지 않고(SearchCacheEventHandler/CDC의 제목 변경 게이트),
+ *   받은 메시지 안의 제목들은 region별로 모아 L1을 1번만 순회한다 (CDC 대량 반영 시 제목 수 × 순회 방지).
+ *   매칭된 키는 {@link #onTitleMatched}로 등록한 핸들러에 넘긴다 (SearchCacheIndex의 L2 삭제)
+ *
+ * <p>메시지 포맷 (UTF-8 텍스트, 줄 단위, 항목 안의 '\' / 개행은 escape):
+ * <pre>
+ * {nodeId} {publishedAtMillis}
+ * k {region} {key}
+ * t {region} {title}
+ * </pre>
+ * pub/sub는 at-most-once — 구독 끊김 동안의 메시지는 유실되며, 그 경우 L1 TTL이 상한이다.
+ * 샤딩 여부와 무관하게 기본 Redis 하나로 publish/subscribe 한다.
+ */
+@Slf4j
+@Component
+class L1InvalidationBus implements MessageListener {
+
+    static final String CHANNEL = "cache:l1-invalidation";
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Map<Cache<String, Object>, String> regionByCache = new IdentityHashMap<>();
+    private final Map<String, Cache<String, Object>> cacheByRegion;
+    private final Map<Cache<String, Object>, Consumer<List<String>>> titleMatchHandlers =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    private final String nodeId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("l1-invalidation-flush").factory());
+
+    private final Counter publishedEntries;
+    private final Counter publishedMessages;
+    private final Counter appliedEntries;
+    private final Timer publishDelay;
+    private final Timer applyLag;
+
+    private final Object lock = new Object();
+    private LinkedHashSet<String> pending = new LinkedHashSet<>();
+    private long pendingSinceNanos;
+    private boolean flushScheduled;
+
+    @Value("${cache.invalidation-bus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.invalidation-bus.batch-window-ms:5}")
+    private long batchWindowMillis;
+
+    @Value("${cache.invalidation-bus.max-entries-per-message:500}")
+    private int maxEntriesPerMessage;
+
+    L1InvalidationBus(StringRedisTemplate redis,
+                      RedisMessageListenerContainer listenerContainer,
+                      @Qualifier("searchResultsL1Cache") Cache<String, Object> searchResultsL1Cache,
+                      @Qualifier("postDetailL1Cache") Cache<String, Object> postDetailL1Cache,
+                      MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.listenerContainer = listenerContainer;
+        this.cacheByRegion = Map.of("searchResults", searchResultsL1Cache, "postDetail", postDetailL1Cache);
+        cacheByRegion.forEach((region, cache) -> regionByCache.put(cache, region));
+
+        this.publishedEntries = Counter.builder("l1_invalidation_bus_entries_total")
+                .tag("direction", "published")
+                .description("다른 노드로 보낸 L1 무효화 항목 수 (배치 내 중복 제거 후)")
+                .register(meterRegistry);
+        this.appliedEntries = Counter.builder("l1_invalidation_bus_entries_total")
+                .tag("direction", "applied")
+                .description("다른 노드에서 받아 적용한 L1 무효화 항목 수")
+                .register(meterRegistry);
+        this.publishedMessages = Counter.builder("l1_invalidation_bus_messages_total")
+                .description("PUBLISH한 무효화 메시지 수")
+                .register(meterRegistry);
+        this.publishDelay = Timer.builder("l1_invalidation_bus_publish_delay")
+                .description("무효화 항목이 큐에 들어온 뒤 PUBLISH까지 걸린 시간 (배치 대기 포함)")
+                .register(meterRegistry);
+        this.applyLag = Timer.builder("l1_invalidation_bus_apply_lag")
+                .description("PUBLISH 시각부터 다른 노드가 L1에 적용하기까지의 지연 (노드 간 시계 차 포함)")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        flush();
+        flusher.shutdownNow();
+    }
+
+    /** 로컬에서 무효화한 L1 키를 다른 노드에도 전파한다. 등록되지 않은 캐시는 무시. */
+    void publishKeys(Cache<String, Object> l1Cache, Iterable<String> keys) {
+        String region = regionByCache.get(l1Cache);
+        if (!enabled || region == null) {
+            return;
+        }
+        for (String key : keys) {
+            enqueue("k " + region + " " + escape(key));
+        }
+    }
+
+    /** 받은 제목 매칭 메시지로 L1에서 무효화한 키를 넘겨받을 핸들러 — 캐시당 1개. */
+    void onTitleMatched(Cache<String, Object> l1Cache, Consumer<List<String>> handler) {
+        titleMatchHandlers.put(l1Cache, handler);
+    }
+
+    /** 제목 매칭 무효화를 다른 노드에도 전파한다 — 각 노드가 자신의 L1 키로 매칭. */
+    void publishTitle(Cache<String, Object> l1Cache, String title) {
+        String region = regionByCache.get(l1Cache);
+        if (!enabled || region == null || title == null) {
+            return;
+        }
+        enqueue("t " + region + " " + escape(title));
+    }
+
+    private void enqueue(String entry) {
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                pendingSinceNanos = System.nanoTime();
+            }
+            pending.add(entry);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void flush() {
+        List<String> batch;
+        long since;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            since = pendingSinceNanos;
+            pending = new LinkedHashSet<>();
+        }
+        try {
+            for (int from = 0; from < batch.size(); from += maxEntriesPerMessage) {
+                List<String> chunk = batch.subList(from, Math.min(from + maxEntriesPerMessage, batch.size()));
+                redis.convertAndSend(CHANNEL, encode(nodeId, System.currentTimeMillis(), chunk));
+                publishedMessages.increment();
+            }
+            publishedEntries.increment(batch.size());
+            publishDelay.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            // 전파 실패 — 다른 노드는 L1 TTL까지 stale 허용 (로컬 무효화는 이미 완료)
+            log.warn("L1 무효화 전파 실패 ({}건): {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int headerEnd = body.indexOf('\n');
+        if (headerEnd < 0) {
+            return;
+        }
+        String[] header = body.substring(0, headerEnd).split(" ");
+        if (header.length != 2 || header[0].equals(nodeId)) {
+            return;
+        }
+        int applied = apply(body.substring(headerEnd + 1));
+        appliedEntries.increment(applied);
+        applyLag.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(header[1])), TimeUnit.MILLISECONDS);
+    }
+
+    /** 메시지 본문(헤더 제외)을 로컬 L1에 적용하고 적용한 항목 수를 반환한다. */
+    int apply(String entries) {
+        int applied = 0;
+        Map<Cache<String, Object>, List<String>> titlesByCache = new IdentityHashMap<>();
+        for (String line : entries.split("\n")) {
+            String[] parts = line.split(" ", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+            Cache<String, Object> cache = cacheByRegion.get(parts[1]);
+            if (cache == null) {
+                continue;
+            }
+            String value = unescape(parts[2]);
+            switch (parts[0]) {
+                case "k" -> cache.invalidate(value);
+                case "t" -> titlesByCache.computeIfAbsent(cache, c -> new ArrayList<>()).add(value);
+                default -> {
+                    continue;
+                }
+            }
+            applied++;
+        }
+        titlesByCache.forEach((cache, titles) -> {
+            List<String> matched = SearchCacheIndex.keysMatchingTitles(cache, titles);
+            if (matched.isEmpty()) {
+                return;
+            }
+            cache.invalidateAll(matched);
+            Consumer<List<String>> handler = titleMatchHandlers.get(cache);
+            if (handler != null) {
+                handler.accept(matched);
+            }
+        });
+        return applied;
+    }
+
+    static String encode(String nodeId, long publishedAtMillis, List<String> entries) {
+        StringBuilder sb = new StringBuilder(nodeId).append(' ').append(publishedAtMillis);
+        for (String entry : entries) {
+            sb.append('\n').append(entry);
+        }
+        return sb.toString();
+    }
+
+    static String escape(String s) {
+        if (s.indexOf('\\') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return s.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.wiki.engine.post.Post;
+import com.wiki.engine.post.internal.PostRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 게시글 상세 캐시(L1+L2) 다건 조회 — 검색 결과 hydration용.
+ *
+ * <p>기존 hydration은 {@code postRepository.findAllById}로 매 검색마다 MySQL을 조회했다.
+ * 상세 조회({@code post:{id}})와 같은 엔트리를 공유하므로, 인기 문서는 L1/L2에서 바로 채워지고
+ * 미스인 게시글만 findAllById 1회로 조회한다.
+ */
+@Component
+public class PostDetailCache {
+
+    public static final String KEY_PREFIX = "post:";
+    public static final Duration L2_TTL = Duration.ofMinutes(30);
+    private static final String REGION = "postDetail";
+
+    private final TieredCacheService tieredCacheService;
+    private final Cache<String, Object> postDetailL1Cache;
+    private final PostRepository postRepository;
+
+    public PostDetailCache(TieredCacheService tieredCacheService,
+                           @Qualifier("postDetailL1Cache") Cache<String, Object> postDetailL1Cache,
+                           PostRepository postRepository) {
+        this.tieredCacheService = tieredCacheService;
+        this.postDetailL1Cache = postDetailL1Cache;
+        this.postRepository = postRepository;
+    }
+
+    public static String key(long postId) {
+        return KEY_PREFIX + postId;
+    }
+
+    /**
+     * 게시글 다건 조회 — 입력 ID 순서대로 반환, 존재하지 않는 게시글은 제외.
+     */
+    public List<Post> getAll(List<Long> postIds) {
+        List<String> keys = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            keys.add(key(postId));
+        }
+        Map<String, Post> found = tieredCacheService.getAll(REGION, postDetailL1Cache, keys, Post.class, L2_TTL,
+                missingKeys -> {
+                    List<Long> missingIds = new ArrayList<>(missingKeys.size());
+                    for (String key : missingKeys) {
+                        missingIds.add(Long.parseLong(key.substring(KEY_PREFIX.length())));
+                    }
+                    Map<String, Post> loaded = new HashMap<>();
+                    for (Post post : postRepository.findAllById(missingIds)) {
+                        loaded.put(key(post.getId()), post);
+                    }
+                    return loaded;
+                });
+        return new ArrayList<>(found.values());
+    }
+}
@@ -0,0 +1,31 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 게시글 상세 L1 캐시 — 엔트리 수 대신 바이트 가중치로 제한.
+ *
+ * <p>기존 maximumSize(50,000)은 Post 엔티티(LONGTEXT 본문 포함) 개수 제한이라,
+ * 수백 KB짜리 나무위키 문서가 몰리면 최악의 경우 2GB 힙을 넘는다.
+ * 가중치는 {@link TieredCacheService.Entry#weigh} — 직렬화 payload 크기 또는 압축 보관 바이트 크기.
+ * 최대 가중치는 {@link L1HeapBudget}이 힙 여유에 맞춰 주기적으로 조정한다 (여기 값은 초기값).
+ */
+@Configuration
+class PostDetailCacheConfig {
+
+    @Bean
+    Cache<String, Object> postDetailL1Cache(@Value("${cache.l1.post-detail.initial-budget-mb:128}") long initialBudgetMb) {
+        return Caffeine.newBuilder()
+                .maximumWeight(initialBudgetMb * 1024 * 1024)
+                .<String, Object>weigher(TieredCacheService.Entry::weigh)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .recordStats()
+                .build();
+    }
+}
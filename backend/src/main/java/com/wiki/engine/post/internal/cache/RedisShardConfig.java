@@ -1,61 +1,108 @@
 package com.wiki.engine.post.internal.cache;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Redis 샤딩 설정.
  *
- * <p>redis.sharding.enabled=true이면 3개 독립 Redis 인스턴스에 대한
- * ConsistentHashRouter Bean을 생성한다.
+ * <p>redis.sharding.enabled=true이면 redis.sharding.nodes("host:port,host:port,...")의
+ * 독립 Redis 인스턴스들로 ConsistentHashRouter Bean을 생성한다. 노드 수 제한 없음.
+ * nodes가 비어 있으면 기존 redis.shard1~3 설정으로 3노드를 구성한다 (하위 호환).
  * false이면 Bean을 생성하지 않아, 각 서비스가 기존 단일 Redis로 동작한다.
+ * 운영 중 노드 추가/제거는 {@link RedisShardMigrationService}가 키 이동과 함께 수행한다.
+ *
+ * <p>샤드 템플릿의 명령 타임아웃(command-timeout-ms)은 기본 Redis(2초)보다 짧게 둔다 —
+ * 멈춘 샤드는 브레이커가 퇴출하기 전까지 호출마다 타임아웃만큼 지연을 만든다.
  */
 @Configuration
 class RedisShardConfig {
 
     private static final Logger log = LoggerFactory.getLogger(RedisShardConfig.class);
 
+    /** 샤드 주소 "host:port". */
+    record ShardAddress(String host, int port) {
+
+        static ShardAddress parse(String address) {
+            String trimmed = address.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0 || colon == trimmed.length() - 1) {
+                throw new IllegalArgumentException("샤드 주소는 host:port 형식이어야 합니다: " + address);
+            }
+            return new ShardAddress(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
     @Bean
     ConsistentHashRouter consistentHashRouter(
             @Value("${redis.sharding.enabled:false}") boolean enabled,
+            @Value("${redis.sharding.nodes:}") String nodes,
             @Value("${redis.shard1.host:localhost}") String host1,
             @Value("${redis.shard1.port:6379}") int port1,
             @Value("${redis.shard2.host:localhost}") String host2,
             @Value("${redis.shard2.port:6379}") int port2,
             @Value("${redis.shard3.host:localhost}") String host3,
             @Value("${redis.shard3.port:6379}") int port3,
-            @Value("${redis.password:}") String password) {
+            @Value("${redis.password:}") String password,
+            @Value("${redis.sharding.command-timeout-ms:500}") long commandTimeoutMs,
+            @Value("${redis.sharding.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${redis.sharding.breaker.probe-successes:3}") int probeSuccesses,
+            @Value("${redis.sharding.breaker.probe-interval-ms:1000}") long probeIntervalMs,
+            @Value("${redis.sharding.hot-key.enabled:true}") boolean hotKeyEnabled,
+            @Value("${redis.sharding.hot-key.sample-one-in:64}") int hotKeySampleOneIn,
+            @Value("${redis.sharding.hot-key.threshold-per-second:200}") double hotKeyThreshold,
+            @Value("${redis.sharding.hot-key.window-seconds:10}") long hotKeyWindowSeconds,
+            @Value("${redis.sharding.hot-key.max-tracked:10000}") int hotKeyMaxTracked,
+            @Value("${redis.sharding.hot-key.replicas:3}") int hotKeyReplicas,
+            @Value("${redis.sharding.hot-key.load-factor:1.25}") double hotKeyLoadFactor,
+            MeterRegistry meterRegistry) {
 
         if (!enabled) {
             log.info("Redis 샤딩 비활성화 — 기존 단일 Redis로 동작");
             return null;
         }
 
-        log.info("Redis 샤딩 활성화 — 3노드 ConsistentHashRouter 생성: {}:{}, {}:{}, {}:{}",
-                host1, port1, host2, port2, host3, port3);
+        List<ShardAddress> addresses = nodes.isBlank()
+                ? List.of(new ShardAddress(host1, port1), new ShardAddress(host2, port2), new ShardAddress(host3, port3))
+                : Arrays.stream(nodes.split(",")).filter(s -> !s.isBlank()).map(ShardAddress::parse).toList();
+        log.info("Redis 샤딩 활성화 — {}노드 ConsistentHashRouter 생성: {}", addresses.size(), addresses);
 
-        List<StringRedisTemplate> shardNodes = List.of(
-                createTemplate(host1, port1, password),
-                createTemplate(host2, port2, password),
-                createTemplate(host3, port3, password)
-        );
-        return new ConsistentHashRouter(shardNodes);
+        Duration timeout = Duration.ofMillis(commandTimeoutMs);
+        List<StringRedisTemplate> shardNodes = addresses.stream()
+                .map(address -> createTemplate(address, password, timeout))
+                .toList();
+        return new ConsistentHashRouter(shardNodes, meterRegistry,
+                new ConsistentHashRouter.BreakerSettings(failureThreshold, probeSuccesses, Duration.ofMillis(probeIntervalMs)),
+                new ConsistentHashRouter.HotKeySettings(hotKeyEnabled, hotKeySampleOneIn, hotKeyThreshold,
+                        Duration.ofSeconds(hotKeyWindowSeconds), hotKeyMaxTracked, hotKeyReplicas, hotKeyLoadFactor));
     }
 
-    private StringRedisTemplate createTemplate(String host, int port, String password) {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(host, port);
+    static StringRedisTemplate createTemplate(ShardAddress address, String password, Duration commandTimeout) {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(address.host(), address.port());
         if (password != null && !password.isBlank()) {
             config.setPassword(password);
         }
-        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(commandTimeout)
+                .build();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config, clientConfig);
         factory.afterPropertiesSet();
         return new StringRedisTemplate(factory);
     }
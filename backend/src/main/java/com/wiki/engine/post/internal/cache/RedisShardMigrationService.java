@@ -0,0 +1,487 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.wiki.engine.common.BusinessException;
+import com.wiki.engine.common.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 온라인 리샤딩 — 노드 추가/제거 후 담당이 바뀐 키를 새 담당 노드로 옮긴다.
+ *
+ * <p>배경: addNode/removeNode는 링만 바꾸고 데이터는 그대로였다.
+ * 노드를 추가하면 ~1/N 키(자동완성 버전 키, 캐시 엔트리)가 빈 노드로 향해 콜드 미스가 났다.
+ *
+ * <p>절차:
+ * 1. 링 변경 — 라우터가 변경 전 링을 보관, 이때부터 dual-read (읽기 미스 시 이전 노드 조회, 삭제는 양쪽)
+ * 2. 원본 노드를 key-patterns별 SCAN, 새 링에서 담당이 바뀐 키만 batch-size씩 모음
+ * 3. 원본에서 DUMP + PTTL 파이프라인 → 대상에 RESTORE(REPLACE 없음) 파이프라인 → 원본 DEL 파이프라인
+ * 4. 모든 원본을 끝내면 completeMigration — dual-read 종료
+ *
+ * <p>충돌 규칙:
+ * - 대상에 이미 키가 있으면(BUSYKEY) 링 변경 후 쓰인 최신 값이므로 대상을 유지하고 원본은 남긴다(skipped).
+ *   캐시는 TTL로 정리된다.
+ * - RESTORE 후 원본 DEL이 0이면 그 사이 원본이 삭제(캐시 무효화)된 것이므로 대상 사본도 지운다.
+ *
+ * <p>SCAN 대상은 라우터를 거치는 키 패턴만 — 기본 Redis와 같은 인스턴스를 샤드로 쓰는 환경에서
+ * 버전 포인터/lease 같은 비샤딩 키를 옮기지 않도록. 조회수 버킷(views:*)은 키가 아니라 노드별 저장소다 —
+ * 증분은 요청을 받은 노드의 버킷에 쌓이고 flush가 모든 노드를 순회하므로 담당 노드라는 개념이 없고,
+ * 버킷 목록 SET과 한 노드 안에서 Lua로 같이 갱신되는 쌍이라 옮기면 안 된다. 좋아요 카운터(post:likes:)도 제외한다 —
+ * 같은 노드의 likes:pending과 Lua 스크립트 한 번으로 갱신되는 쌍이라 카운터만 옮기면 안 되고,
+ * 새 담당 노드에 없으면 DB 값 + 미반영 증분으로 다시 초기화된다 (이전 담당 노드의 카운터는
+ * LikeCountService가 링 교체 알림을 받아 지운다). SCAN 중 담당 노드 확인은
+ * {@link ConsistentHashRouter#getOwnerNode}로 — 샤드 처리량/hot key 집계에 넣지 않는다.
+ *
+ * <p>링 구성 공유: 링 변경은 요청을 받은 노드만의 일이 아니다. 변경 후 구성(주소 순서 + 제거 여부 +
+ * 이동 중 여부)을 기본 Redis의 {@value #TOPOLOGY_KEY}에 저장하고 {@value #TOPOLOGY_CHANNEL}로 발행한다.
+ * 다른 노드는 같은 구성으로 링을 맞추고(dual-read 포함), 이동 완료 발행에 dual-read를 끝낸다.
+ * 재시작한 노드는 설정 노드로 링을 만든 뒤 저장된 구성을 적용한다 — 런타임에 추가한 노드가 빠지지 않도록.
+ * 키 이동은 변경을 시작한 노드만 한다.
+ *
+ * <p>메트릭: redis_shard_migration_keys{result=moved|skipped|failed} / redis_shard_migration_progress (0~1)
+ */
+@Slf4j
+@Service
+public class RedisShardMigrationService implements MessageListener {
+
+    static final String TOPOLOGY_KEY = "redis:sharding:topology";
+    static final String TOPOLOGY_CHANNEL = "cache:shard-topology";
+
+    private final @Nullable ConsistentHashRouter hashRouter;
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String nodeId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger sourcesDone = new AtomicInteger();
+    private final AtomicInteger sourcesTotal = new AtomicInteger();
+    private final Counter scanned;
+    private final Counter moved;
+    private final Counter skipped;
+    private final Counter failed;
+    private volatile String operation = "none";
+    private volatile @Nullable Instant startedAt;
+    private volatile @Nullable Instant finishedAt;
+    private volatile @Nullable String lastError;
+
+    @Value("${redis.password:}")
+    private String password;
+
+    @Value("${redis.sharding.command-timeout-ms:500}")
+    private long commandTimeoutMs;
+
+    @Value("${redis.sharding.migration.key-patterns:post:[0-9]*,search:*,searchrev:*,prefix:v*}")
+    private List<String> keyPatterns;
+
+    @Value("${redis.sharding.migration.scan-count:1000}")
+    private int scanCount;
+
+    @Value("${redis.sharding.migration.batch-size:200}")
+    private int batchSize;
+
+    public RedisShardMigrationService(@Nullable ConsistentHashRouter hashRouter, StringRedisTemplate redis,
+                                      RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.hashRouter = hashRouter;
+        this.redis = redis;
+        this.listenerContainer = listenerContainer;
+        this.scanned = Counter.builder("redis_shard_migration_keys")
+                .tag("result", "scanned")
+                .description("리샤딩 SCAN으로 확인한 키 수")
+                .register(meterRegistry);
+        this.moved = Counter.builder("redis_shard_migration_keys")
+                .tag("result", "moved")
+                .description("새 담당 노드로 옮긴 키 수")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("redis_shard_migration_keys")
+                .tag("result", "skipped")
+                .description("대상에 최신 값이 있어 옮기지 않은 키 수")
+                .register(meterRegistry);
+        this.failed = Counter.builder("redis_shard_migration_keys")
+                .tag("result", "failed")
+                .description("이동 중 오류가 난 키 수")
+                .register(meterRegistry);
+        Gauge.builder("redis_shard_migration_progress", this, RedisShardMigrationService::progress)
+                .description("진행 중인 리샤딩의 원본 노드 처리 비율 (0~1, 없으면 1)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 링 구성 — 등록 순서대로의 샤드 주소, 제거된 인덱스, 키 이동 중 여부.
+     * 가상 노드 해시가 등록 인덱스로 만들어지므로 주소 순서가 곧 링이다.
+     *
+     * <p>텍스트 포맷: 첫 줄 {@code migrating|stable}, 이후 노드마다 {@code +host:port}(멤버) / {@code -host:port}(제거).
+     */
+    record Topology(List<String> addresses, Set<Integer> removed, boolean migrating) {
+
+        String encode() {
+            StringBuilder sb = new StringBuilder(migrating ? "migrating" : "stable");
+            for (int i = 0; i < addresses.size(); i++) {
+                sb.append('\n').append(removed.contains(i) ? '-' : '+').append(addresses.get(i));
+            }
+            return sb.toString();
+        }
+
+        static Topology decode(String text) {
+            String[] lines = text.split("\n");
+            List<String> addresses = new ArrayList<>();
+            Set<Integer> removed = new HashSet<>();
+            for (int i = 1; i < lines.length; i++) {
+                if (lines[i].startsWith("-")) {
+                    removed.add(i - 1);
+                }
+                addresses.add(lines[i].substring(1));
+            }
+            return new Topology(addresses, removed, "migrating".equals(lines[0]));
+        }
+    }
+
+    /** 구성 변경 구독 + 저장된 구성 복원. */
+    @PostConstruct
+    void init() {
+        if (hashRouter == null) {
+            return;
+        }
+        listenerContainer.addMessageListener(this, new ChannelTopic(TOPOLOGY_CHANNEL));
+        try {
+            String saved = redis.opsForValue().get(TOPOLOGY_KEY);
+            if (saved != null) {
+                applyTopology(Topology.decode(saved));
+            }
+        } catch (Exception e) {
+            log.warn("저장된 샤드 구성 복원 실패 — 설정 노드로 시작: {}", e.getMessage());
+        }
+    }
+
+    /** 다른 노드가 발행한 구성 변경 — 본문 첫 줄은 발행 노드 ID. */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int headerEnd = body.indexOf('\n');
+        if (headerEnd < 0 || body.substring(0, headerEnd).equals(nodeId)) {
+            return;
+        }
+        applyTopology(Topology.decode(body.substring(headerEnd + 1)));
+    }
+
+    /**
+     * 로컬 링을 구성에 맞춘다 — 없는 노드 추가, 제거 표시된 노드 제거, 이동이 끝났으면 dual-read 종료.
+     * 이미 아는 인덱스의 주소가 다르면(설정이 어긋난 노드) 적용하지 않는다.
+     */
+    synchronized void applyTopology(Topology topology) {
+        ConsistentHashRouter router = requireRouter();
+        List<String> local = currentTopology().addresses();
+        for (int i = 0; i < Math.min(local.size(), topology.addresses().size()); i++) {
+            if (!local.get(i).equals(topology.addresses().get(i))) {
+                log.warn("샤드 구성 불일치 — 인덱스 {}: 로컬 {}, 수신 {} (적용 안 함)",
+                        i, local.get(i), topology.addresses().get(i));
+                return;
+            }
+        }
+        for (int i = local.size(); i < topology.addresses().size(); i++) {
+            router.addNode(RedisShardConfig.createTemplate(RedisShardConfig.ShardAddress.parse(
+                    topology.addresses().get(i)), password, Duration.ofMillis(commandTimeoutMs)));
+        }
+        List<StringRedisTemplate> members = router.getMemberNodes();
+        for (int index : topology.removed()) {
+            if (members.contains(router.getAllNodes().get(index))) {
+                router.removeNode(index);
+            }
+        }
+        if (!topology.migrating()) {
+            router.completeMigration();
+        }
+        log.info("샤드 구성 적용: {}노드 (제거 {}개), {}", topology.addresses().size(), topology.removed().size(),
+                topology.migrating() ? "이동 중 — dual-read" : "안정");
+    }
+
+    Topology currentTopology() {
+        ConsistentHashRouter router = requireRouter();
+        List<StringRedisTemplate> all = router.getAllNodes();
+        List<StringRedisTemplate> members = router.getMemberNodes();
+        Set<Integer> removed = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            if (!members.contains(all.get(i))) {
+                removed.add(i);
+            }
+        }
+        List<String> addresses = all.stream().map(RedisShardMigrationService::addressOf).toList();
+        return new Topology(addresses, removed, router.isMigrating());
+    }
+
+    /** 샤드 템플릿의 "host:port" — RedisShardConfig가 만든 Lettuce 연결 설정에서 읽는다. */
+    static String addressOf(StringRedisTemplate node) {
+        if (node.getConnectionFactory() instanceof LettuceConnectionFactory factory) {
+            return new RedisShardConfig.ShardAddress(factory.getHostName(), factory.getPort()).toString();
+        }
+        throw new IllegalStateException("샤드 주소를 알 수 없는 템플릿입니다: " + node);
+    }
+
+    /** 현재 구성을 저장하고 다른 노드에 알린다. 실패해도 로컬 링은 유지 — 상태의 lastError로 노출. */
+    private void publishTopology() {
+        String encoded = currentTopology().encode();
+        try {
+            redis.opsForValue().set(TOPOLOGY_KEY, encoded);
+            redis.convertAndSend(TOPOLOGY_CHANNEL, nodeId + "\n" + encoded);
+        } catch (Exception e) {
+            lastError = "샤드 구성 전파 실패: " + e.getMessage();
+            log.error("샤드 구성 저장/발행 실패 — 다른 노드의 링이 다를 수 있음: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 노드를 추가하고 기존 노드에서 새 노드 담당 키를 옮긴다 (비동기).
+     *
+     * @param address "host:port"
+     */
+    public Map<String, Object> addNode(String address) {
+        ConsistentHashRouter router = requireRouter();
+        RedisShardConfig.ShardAddress shardAddress = RedisShardConfig.ShardAddress.parse(address);
+        if (currentTopology().addresses().contains(shardAddress.toString())) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "이미 등록된 샤드입니다: " + shardAddress);
+        }
+        StringRedisTemplate node = RedisShardConfig.createTemplate(
+                shardAddress, password, Duration.ofMillis(commandTimeoutMs));
+        start("add " + shardAddress, () -> {
+            List<StringRedisTemplate> sources = router.getMemberNodes();
+            router.addNode(node);
+            return sources;
+        });
+        return getStatus();
+    }
+
+    /** 노드를 링에서 제거하고 그 노드의 키를 새 담당 노드로 옮긴다 (비동기). */
+    public Map<String, Object> removeNode(int nodeIndex) {
+        ConsistentHashRouter router = requireRouter();
+        if (nodeIndex < 0 || nodeIndex >= router.getNodeCount()) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "존재하지 않는 샤드 인덱스입니다: " + nodeIndex);
+        }
+        if (router.getMemberNodes().size() <= 1) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "마지막 샤드는 제거할 수 없습니다");
+        }
+        StringRedisTemplate removed = router.getAllNodes().get(nodeIndex);
+        start("remove " + nodeIndex, () -> {
+            router.removeNode(nodeIndex);
+            return List.of(removed);
+        });
+        return getStatus();
+    }
+
+    /**
+     * 중단된 리샤딩을 재개한다 — 링은 그대로 두고 모든 노드에서 담당이 아닌 키를 다시 옮긴다.
+     * 이미 옮긴 키는 원본에 없으므로 재실행해도 안전하다.
+     */
+    public Map<String, Object> resume() {
+        ConsistentHashRouter router = requireRouter();
+        if (!router.isMigrating()) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "진행 중인 리샤딩이 없습니다");
+        }
+        start("resume", router::getAllNodes);
+        return getStatus();
+    }
+
+    public Map<String, Object> getStatus() {
+        var status = new LinkedHashMap<String, Object>();
+        status.put("running", running.get());
+        status.put("operation", operation);
+        status.put("sourcesDone", sourcesDone.get());
+        status.put("sourcesTotal", sourcesTotal.get());
+        status.put("scanned", (long) scanned.count());
+        status.put("moved", (long) moved.count());
+        status.put("skipped", (long) skipped.count());
+        status.put("failed", (long) failed.count());
+        status.put("dualRead", hashRouter != null && hashRouter.isMigrating());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private ConsistentHashRouter requireRouter() {
+        if (hashRouter == null) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "Redis 샤딩이 비활성화되어 있습니다");
+        }
+        return hashRouter;
+    }
+
+    private void start(String op, Supplier<List<StringRedisTemplate>> changeRing) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.INVALID_INPUT, "이미 리샤딩이 진행 중입니다: " + operation);
+        }
+        List<StringRedisTemplate> sources;
+        try {
+            synchronized (this) {
+                sources = changeRing.get();
+            }
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        operation = op;
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastError = null;
+        publishTopology();
+        sourcesDone.set(0);
+        sourcesTotal.set(sources.size());
+        log.info("리샤딩 시작: {} — 원본 노드 {}개", op, sources.size());
+        Thread.ofVirtual().name("redis-shard-migration").start(() -> migrate(sources));
+    }
+
+    void migrate(List<StringRedisTemplate> sources) {
+        try {
+            for (StringRedisTemplate source : sources) {
+                migrateSource(source);
+                sourcesDone.incrementAndGet();
+            }
+            hashRouter.completeMigration();
+            publishTopology();
+            log.info("리샤딩 완료: {} — moved={}, skipped={}, failed={}",
+                    operation, (long) moved.count(), (long) skipped.count(), (long) failed.count());
+        } catch (Exception e) {
+            // dual-read 유지 — 원인 해소 후 resume()으로 이어서 옮긴다
+            lastError = e.getMessage();
+            log.error("리샤딩 중단: {} — {}", operation, e.getMessage(), e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    private void migrateSource(StringRedisTemplate source) {
+        for (String pattern : keyPatterns) {
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(scanCount).build();
+            List<String> batch = new ArrayList<>(batchSize);
+            try (Cursor<String> cursor = source.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    scanned.increment();
+                    if (hashRouter.getOwnerNode(key) != source) {
+                        batch.add(key);
+                        if (batch.size() >= batchSize) {
+                            moveBatch(source, batch);
+                            batch.clear();
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                moveBatch(source, batch);
+            }
+        }
+    }
+
+    /** 이동 1건 — 원본 DUMP 결과와 남은 TTL(ms, 0이면 만료 없음). */
+    private record Move(byte[] key, byte[] dump, long ttlMillis) {
+    }
+
+    void moveBatch(StringRedisTemplate source, List<String> keys) {
+        List<byte[]> rawKeys = keys.stream().map(k -> k.getBytes(StandardCharsets.UTF_8)).toList();
+        List<Object> dumped = source.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] key : rawKeys) {
+                connection.keyCommands().dump(key);
+                connection.keyCommands().pTtl(key);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+
+        Map<StringRedisTemplate, List<Move>> byTarget = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] dump = (byte[]) dumped.get(2 * i);
+            Long pttl = (Long) dumped.get(2 * i + 1);
+            if (dump == null || pttl == null || pttl == -2) {
+                continue;   // SCAN 이후 만료/삭제됨
+            }
+            byTarget.computeIfAbsent(hashRouter.getOwnerNode(keys.get(i)), t -> new ArrayList<>())
+                    .add(new Move(rawKeys.get(i), dump, Math.max(0, pttl)));
+        }
+        byTarget.forEach((target, moves) -> restoreAndDelete(source, target, moves));
+    }
+
+    private void restoreAndDelete(StringRedisTemplate source, StringRedisTemplate target, List<Move> moves) {
+        List<Object> restored;
+        try {
+            restored = target.executePipelined((RedisCallback<Object>) connection -> {
+                for (Move move : moves) {
+                    connection.keyCommands().restore(move.key(), move.ttlMillis(), move.dump(), false);
+                }
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            restored = e.getPipelineResult();
+        }
+
+        List<byte[]> restoredKeys = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Object result = i < restored.size() ? restored.get(i) : null;
+            if (result instanceof Exception e) {
+                if (String.valueOf(e.getMessage()).contains("BUSYKEY")) {
+                    skipped.increment();
+                } else {
+                    failed.increment();
+                    lastError = e.getMessage();
+                }
+            } else {
+                restoredKeys.add(moves.get(i).key());
+            }
+        }
+        if (restoredKeys.isEmpty()) {
+            return;
+        }
+
+        List<Object> deleted = source.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] key : restoredKeys) {
+                connection.keyCommands().del(key);
+            }
+            return null;
+        });
+        List<byte[]> orphaned = new ArrayList<>();
+        for (int i = 0; i < restoredKeys.size(); i++) {
+            if (Long.valueOf(0L).equals(deleted.get(i))) {
+                orphaned.add(restoredKeys.get(i));   // 이동 중 원본이 무효화/flush됨 → 대상 사본도 제거
+            }
+        }
+        if (!orphaned.isEmpty()) {
+            target.executePipelined((RedisCallback<Object>) connection -> {
+                orphaned.forEach(key -> connection.keyCommands().del(key));
+                return null;
+            });
+        }
+        moved.increment(restoredKeys.size() - orphaned.size());
+    }
+
+    private double progress() {
+        int total = sourcesTotal.get();
+        return total == 0 ? 1.0 : (double) sourcesDone.get() / total;
+    }
+}
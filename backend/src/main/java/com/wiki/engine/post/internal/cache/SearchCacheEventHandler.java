@@ -1,10 +1,8 @@
 package com.wiki.engine.post.internal.cache;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import com.wiki.engine.post.PostEvent;
 import com.wiki.engine.post.internal.cdc.DebeziumCdcConsumer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Component;
@@ -12,13 +10,12 @@ import org.springframework.stereotype.Component;
 /**
  * 게시글 변경 이벤트를 받아 검색 결과 캐시를 무효화한다.
  *
- * <p>L1(Caffeine): invalidateAll()로 즉시 무효화.
- * L2(Redis): TTL(10분)에 의한 자연 만료. 키 패턴("search:*") 삭제는
- * KEYS/SCAN 비용이 크므로 TTL에 위임한다.
+ * <p>{@link SearchCacheIndex}로 영향받는 검색 키만 무효화한다:
+ * - Created: 검색어 토큰이 새 제목에 포함된 L1 키
+ * - Updated: 이 게시글을 포함한 키(L1 + L2) + 제목이 바뀌었으면 새 제목에 매칭되는 L1 키
+ * - Deleted: 이 게시글을 포함한 키(L1 + L2)
  *
- * <p>L1 즉시 무효화 + L2 최대 10분 stale.
- *
- * <p>멱등성: invalidateAll()은 여러 번 호출해도 동일.
+ * <p>멱등성: 이미 삭제된 키를 다시 삭제해도 no-op.
  *
  * <p>Kafka CDC Consumer가 활성화되면 이 핸들러는 비활성화된다.
  */
@@ -27,29 +24,27 @@ import org.springframework.stereotype.Component;
 @ConditionalOnMissingBean(DebeziumCdcConsumer.class)
 public class SearchCacheEventHandler {
 
-    private final Cache<String, Object> searchResultsL1Cache;
+    private final SearchCacheIndex searchCacheIndex;
 
-    public SearchCacheEventHandler(
-            @Qualifier("searchResultsL1Cache") Cache<String, Object> searchResultsL1Cache) {
-        this.searchResultsL1Cache = searchResultsL1Cache;
+    public SearchCacheEventHandler(SearchCacheIndex searchCacheIndex) {
+        this.searchCacheIndex = searchCacheIndex;
     }
 
     @ApplicationModuleListener
     public void onCreated(PostEvent.Created event) {
-        invalidateSearchCache();
+        searchCacheIndex.invalidateMatchingTitle(event.post());
     }
 
     @ApplicationModuleListener
     public void onUpdated(PostEvent.Updated event) {
-        invalidateSearchCache();
+        searchCacheIndex.invalidatePost(event.postId());
+        if (event.titleChanged()) {
+            searchCacheIndex.invalidateMatchingTitle(event.post());
+        }
     }
 
     @ApplicationModuleListener
     public void onDeleted(PostEvent.Deleted event) {
-        invalidateSearchCache();
-    }
-
-    private void invalidateSearchCache() {
-        searchResultsL1Cache.invalidateAll();
+        searchCacheIndex.invalidatePost(event.postId());
     }
 }
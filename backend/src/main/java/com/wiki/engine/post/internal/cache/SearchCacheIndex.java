@@ -0,0 +1,255 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wiki.engine.post.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 검색 결과 캐시 역색인 — postId → 그 게시글을 포함한 검색 캐시 키.
+ *
+ * <p>기존에는 게시글 생성/수정/삭제마다 L1 검색 캐시를 invalidateAll() 했다.
+ * 쓰기가 잦으면 L1 히트율이 0에 수렴하고, L2는 TTL(10분)까지 stale로 남았다.
+ *
+ * <p>무효화 정밀도:
+ * - 수정/삭제: 해당 postId를 결과에 포함한 검색 키만 L1 + L2에서 삭제 (L2 stale 제거)
+ * - 생성/제목 변경: 새 문서는 어떤 캐시 결과에도 아직 없으므로 역색인으로 찾을 수 없다.
+ *   검색어 토큰이 제목에 포함된 L1 키를 찾아 L1 + L2에서 삭제한다 (L2를 남기면 다음 요청이 stale 값으로 L1을 다시 채운다).
+ *   다른 노드도 버스로 받은 제목을 자신의 L1 키에 매칭해 같은 방식으로 삭제한다.
+ *   본문에만 매칭되는 쿼리, 어느 노드 L1에도 없는 L2 키는 TTL까지 누락을 허용.
+ *
+ * <p>역색인 저장:
+ * - L1: Caffeine&lt;postId, Set&lt;searchKey&gt;&gt; — 크기/TTL은 {@code cache.search-index.l1.*}
+ *   (TTL은 L1 검색 캐시 만료인 L2 hard TTL 10분에 맞춘다)
+ * - L2: Redis SET {@code searchrev:{postId}} (TTL = L2 검색 캐시 TTL), 다른 노드가 캐싱한 키도 찾을 수 있다.
+ *   샤딩 시 노드별로 묶어 SADD + EXPIRE를 pipeline 1회로 보낸다.
+ *
+ * <p>역색인은 캐시보다 늦게 만료되거나 먼저 만료될 수 있다. 전자는 없는 키 삭제(no-op),
+ * 후자는 해당 캐시가 어차피 곧 만료되므로 허용한다.
+ *
+ * <p>L1 무효화는 {@link L1InvalidationBus}로 다른 노드에도 전파한다 (키 목록 / 새 문서 제목).
+ */
+@Slf4j
+@Component
+public class SearchCacheIndex {
+
+    static final String REVERSE_KEY_PREFIX = "searchrev:";
+    private static final String SEARCH_KEY_PREFIX = "search:";
+
+    private final StringRedisTemplate redis;
+    private final @Nullable ConsistentHashRouter hashRouter;
+    private final Cache<String, Object> searchResultsL1Cache;
+    private final Cache<Long, Set<String>> l1Reverse;
+    private final L1InvalidationBus invalidationBus;
+    private final Counter postEvictions;
+    private final Counter titleEvictions;
+
+    public SearchCacheIndex(StringRedisTemplate redis,
+                            @Nullable ConsistentHashRouter hashRouter,
+                            @Qualifier("searchResultsL1Cache") Cache<String, Object> searchResultsL1Cache,
+                            L1InvalidationBus invalidationBus,
+                            MeterRegistry meterRegistry,
+                            @Value("${cache.search-index.l1.max-size:200000}") long l1MaxSize,
+                            @Value("${cache.search-index.l1.ttl-ms:600000}") long l1TtlMillis) {
+        this.redis = redis;
+        this.hashRouter = hashRouter;
+        this.searchResultsL1Cache = searchResultsL1Cache;
+        this.invalidationBus = invalidationBus;
+        this.l1Reverse = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofMillis(l1TtlMillis))
+                .build();
+        this.postEvictions = Counter.builder("search_cache_invalidated_keys_total")
+                .tag("reason", "post")
+                .description("역색인으로 무효화한 검색 캐시 키 수")
+                .register(meterRegistry);
+        this.titleEvictions = Counter.builder("search_cache_invalidated_keys_total")
+                .tag("reason", "title_match")
+                .description("새 문서 제목 매칭으로 무효화한 검색 캐시 키 수")
+                .register(meterRegistry);
+        invalidationBus.onTitleMatched(searchResultsL1Cache, this::deleteFromL2);
+    }
+
+    private StringRedisTemplate redisFor(String key) {
+        return hashRouter != null ? hashRouter.getNode(key) : redis;
+    }
+
+    /**
+     * 키가 있을 수 있는 모든 노드 — 담당 노드 + hot key 복제 노드 + 리샤딩 중이면 이전 담당 노드.
+     * 삭제/역색인 조회는 전부에 적용한다.
+     */
+    private List<StringRedisTemplate> ownersOf(String key) {
+        if (hashRouter == null) {
+            return List.of(redis);
+        }
+        List<StringRedisTemplate> owners = new ArrayList<>(hashRouter.getReplicaNodes(key));
+        StringRedisTemplate previous = hashRouter.getPreviousNode(key);
+        if (previous != null && !owners.contains(previous)) {
+            owners.add(previous);
+        }
+        return owners;
+    }
+
+    /**
+     * 검색 결과가 캐싱될 때 결과에 포함된 postId → 검색 키를 기록한다.
+     *
+     * @param l2Ttl 검색 결과 L2 TTL — 역색인도 같은 시간 유지
+     */
+    public void register(String searchKey, Collection<Long> postIds, Duration l2Ttl) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        for (Long postId : postIds) {
+            l1Reverse.get(postId, id -> ConcurrentHashMap.newKeySet()).add(searchKey);
+        }
+
+        Map<StringRedisTemplate, List<byte[]>> byNode = new HashMap<>();
+        for (Long postId : postIds) {
+            String reverseKey = REVERSE_KEY_PREFIX + postId;
+            byNode.computeIfAbsent(redisFor(reverseKey), node -> new ArrayList<>())
+                    .add(reverseKey.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] member = searchKey.getBytes(StandardCharsets.UTF_8);
+        long ttlSeconds = l2Ttl.toSeconds();
+        try {
+            byNode.forEach((node, reverseKeys) -> node.executePipelined((RedisCallback<Object>) connection -> {
+                addAll(connection, reverseKeys, member, ttlSeconds);
+                return null;
+            }));
+        } catch (Exception e) {
+            log.warn("검색 캐시 역색인 L2 기록 실패 ({}): {}", searchKey, e.getMessage());
+        }
+    }
+
+    private static void addAll(RedisConnection connection, List<byte[]> reverseKeys, byte[] member, long ttlSeconds) {
+        for (byte[] reverseKey : reverseKeys) {
+            connection.setCommands().sAdd(reverseKey, member);
+            connection.keyCommands().expire(reverseKey, ttlSeconds);
+        }
+    }
+
+    /**
+     * 게시글 수정/삭제 — 이 게시글을 포함한 검색 결과만 L1 + L2에서 삭제한다.
+     *
+     * @return 무효화한 검색 키 수
+     */
+    public int invalidatePost(long postId) {
+        Set<String> keys = new HashSet<>();
+        Set<String> local = l1Reverse.asMap().remove(postId);
+        if (local != null) {
+            keys.addAll(local);
+        }
+
+        String reverseKey = REVERSE_KEY_PREFIX + postId;
+        try {
+            for (StringRedisTemplate node : ownersOf(reverseKey)) {
+                Set<String> remote = node.opsForSet().members(reverseKey);
+                if (remote != null) {
+                    keys.addAll(remote);
+                }
+                node.delete(reverseKey);
+            }
+        } catch (Exception e) {
+            log.warn("검색 캐시 역색인 L2 조회 실패 (postId={}): {}", postId, e.getMessage());
+        }
+
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        searchResultsL1Cache.invalidateAll(keys);
+        invalidationBus.publishKeys(searchResultsL1Cache, keys);
+        deleteFromL2(keys);
+        postEvictions.increment(keys.size());
+        return keys.size();
+    }
+
+    /**
+     * 새 문서(또는 제목 변경) — 검색어 토큰이 제목에 포함된 L1 검색 키를 L1 + L2에서 삭제한다.
+     * 새 문서가 결과에 새로 들어가야 할 가능성이 높은 쿼리만 골라낸다.
+     *
+     * @return 무효화한 검색 키 수
+     */
+    public int invalidateMatchingTitle(Post post) {
+        if (post == null || post.getTitle() == null) {
+            return 0;
+        }
+        List<String> matched = keysMatchingTitle(searchResultsL1Cache, post.getTitle());
+        if (!matched.isEmpty()) {
+            searchResultsL1Cache.invalidateAll(matched);
+            deleteFromL2(matched);
+            titleEvictions.increment(matched.size());
+        }
+        invalidationBus.publishTitle(searchResultsL1Cache, post.getTitle());
+        return matched.size();
+    }
+
+    /** 검색어 토큰이 제목에 포함된 L1 검색 키 — 다른 노드도 버스 메시지로 같은 매칭을 수행한다. */
+    static List<String> keysMatchingTitle(Cache<String, Object> l1Cache, String rawTitle) {
+        return keysMatchingTitles(l1Cache, List.of(rawTitle));
+    }
+
+    /** 여러 제목 중 하나라도 매칭되는 L1 검색 키 — L1 키 순회는 제목 수와 무관하게 1번. */
+    static List<String> keysMatchingTitles(Cache<String, Object> l1Cache, Collection<String> rawTitles) {
+        List<String> titles = rawTitles.stream().map(title -> title.toLowerCase(Locale.ROOT)).toList();
+        List<String> matched = new ArrayList<>();
+        for (String key : l1Cache.asMap().keySet()) {
+            String keyword = keywordOf(key);
+            if (keyword != null && titles.stream().anyMatch(title -> anyTokenIn(keyword, title))) {
+                matched.add(key);
+            }
+        }
+        return matched;
+    }
+
+    private void deleteFromL2(Collection<String> keys) {
+        Map<StringRedisTemplate, List<String>> byNode = new HashMap<>();
+        for (String key : keys) {
+            for (StringRedisTemplate owner : ownersOf(key)) {
+                byNode.computeIfAbsent(owner, node -> new ArrayList<>()).add(key);
+            }
+        }
+        try {
+            byNode.forEach(StringRedisTemplate::delete);
+        } catch (Exception e) {
+            log.warn("검색 캐시 L2 삭제 실패 ({}건): {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /** "search:{keyword}:{category}:{page}:{size}" → keyword (keyword 안의 ':'는 허용). */
+    static String keywordOf(String searchKey) {
+        if (!searchKey.startsWith(SEARCH_KEY_PREFIX)) {
+            return null;
+        }
+        int end = searchKey.length();
+        for (int i = 0; i < 3; i++) {
+            end = searchKey.lastIndexOf(':', end - 1);
+            if (end < SEARCH_KEY_PREFIX.length()) {
+                return null;
+            }
+        }
+        return searchKey.substring(SEARCH_KEY_PREFIX.length(), end);
+    }
+
+    private static boolean anyTokenIn(String keyword, String title) {
+        for (String token : keyword.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!token.isEmpty() && title.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 검색 결과 L1 캐시 — TieredCacheService에서 직접 사용.
+ *
+ * <p>만료는 쓰기 시각이 아니라 Origin 로드 시각 + L2 hard TTL(10분, PostService SEARCH_L2_TTL).
+ * 기존 expireAfterWrite(5분)는 soft TTL(0.8 × 10분)보다 짧아 L1 히트에서 stale-while-revalidate가
+ * 한 번도 돌지 않고 5분마다 L2 왕복으로 떨어졌다. {@link TieredCacheService#expireAfterLoad} 참고.
+ */
+@Configuration
+class SearchResultsCacheConfig {
+
+    @Bean
+    Cache<String, Object> searchResultsL1Cache() {
+        return Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfter(TieredCacheService.expireAfterLoad(Duration.ofMinutes(10)))
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.wiki.engine.post.internal.cache;
+
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Smile(바이너리 JSON) 포맷.
+ *
+ * <p>JSON과 같은 데이터 모델이라 기존 DTO/엔티티를 그대로 쓰면서:
+ * - 필드명 back-reference: CachedSearchResult의 결과 20건이 필드명을 1번만 기록
+ * - 숫자/길이 prefix 바이너리 인코딩: 따옴표/이스케이프 없음 (Post content의 escape 비용 제거)
+ *
+ * <p>알 수 없는 필드는 무시 — 롤링 배포 중 새 버전이 추가한 필드를 이전 노드가 읽어도 실패하지 않게.
+ */
+@Component
+class SmileCacheValueCodec implements CacheValueCodec {
+
+    static final byte FORMAT_ID = 1;
+
+    private final SmileMapper smileMapper = SmileMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public byte formatId() {
+        return FORMAT_ID;
+    }
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        return smileMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, int offset, int length, Class<T> type) {
+        return smileMapper.readValue(bytes, offset, length, type);
+    }
+}
@@ -1,16 +1,42 @@
 package com.wiki.engine.post.internal.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
-import tools.jackson.databind.json.JsonMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -19,25 +45,180 @@ import java.util.function.Supplier;
  * <p>조회 순서: L1 → L2 → Origin(DB/Lucene).
  * L2 히트 시 L1에 승격, Origin 조회 시 양쪽에 저장.
  * Redis 장애 시 L1+Origin fallback (서비스 중단 없음).
+ *
+ * <p>L2 값은 {@link CacheEnvelopeCodec}으로 인코딩한 바이트로 저장한다 (헤더 + Smile/JSON + 크기 임계 압축).
+ * StringRedisTemplate의 String 직렬화를 거치지 않도록 connection 레벨 GET/SET을 사용한다.
+ *
+ * <p>캐시 스탬피드 방지 — 인기 쿼리의 L1/L2가 동시에 만료되면 모든 요청이 loader를 호출해
+ * 같은 Lucene 검색 + MySQL hydration이 서버 수 × 동시 요청 수만큼 실행됐다.
+ * - JVM 내부 single-flight: 키별 in-flight future 1개, 동시 미스는 같은 결과를 기다린다
+ * - 분산 lease (선택, {@code cache.stampede.lease.enabled}): {@code lease:{key}} SET NX PX를 얻은
+ *   노드만 계산하고, 나머지 노드는 wait-ms 동안 L2를 폴링하다 값이 생기면 사용한다.
+ *   대기 시간을 넘기면 직접 계산한다 (lease 보유 노드 장애 시에도 응답 보장).
+ * lease 키는 값 키와 같은 노드로 라우팅한다.
+ *
+ * <p>Soft TTL (stale-while-revalidate) — 고정 TTL 만료 시점에 도착한 요청이 Origin 비용을 전부 떠안던 문제.
+ * L1/L2 값에 Origin 로드 시각(loadedAt)을 함께 저장하고:
+ * - loadedAt + l2Ttl × soft-ttl-ratio 경과: stale — 즉시 응답하고 백그라운드 갱신 1회
+ * - 인기 키 (L1 엔트리 히트 수 ≥ hot-hits): l2Ttl × ahead-ratio 경과 시 미리 갱신 → 만료로 식지 않는다
+ * 백그라운드 갱신도 in-flight 맵에 등록되어 같은 키의 콜드 미스와 공유되고, 동시 갱신 수는 max-concurrent로 제한한다.
+ * L2 hard TTL은 l2Ttl 그대로 — soft~hard 구간이 stale 허용 구간.
+ *
+ * <p>Hot key (샤딩 시): 라우터가 hot으로 판정한 키는 쓰기를 복제 노드에도 반영하고,
+ * 읽기는 {@link ConsistentHashRouter#getBalancedNode}가 고른 복제본에서 — 미스면 담당 노드를 다시 본다.
+ *
+ * <p>다중 키 조회({@link #getAll}) — L1 → 샤드별 MGET(샤드 간 병렬) → 진짜 미스만 batch loader 1회.
  */
 @Component
 public class TieredCacheService {
 
     private static final Logger log = LoggerFactory.getLogger(TieredCacheService.class);
 
+    private static final String LEASE_PREFIX = "lease:";
+    private static final long LEASE_POLL_MILLIS = 20;
+    private static final int MGET_CHUNK = 100;
+
+    /** 자신이 잡은 lease만 해제 — 만료 후 다른 노드가 잡은 lease를 지우지 않도록 토큰 비교. */
+    private static final RedisScript<Long> RELEASE_LEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
     private final StringRedisTemplate redis;
     private final @Nullable ConsistentHashRouter hashRouter;
-    private final JsonMapper jsonMapper;
+    private final CacheEnvelopeCodec codec;
     private final MeterRegistry meterRegistry;
+    private final L1InvalidationBus invalidationBus;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService shardExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore refreshPermits;
+    private final ConcurrentHashMap<String, Timer> originWaitTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Timer> l1InflateTimers = new ConcurrentHashMap<>();
+
+    /**
+     * L1 엔트리 — 값 + Origin 로드 시각 + 로드 이후 L1 히트 수(인기도) + 가중치(추정 힙 바이트).
+     * 큰 값(payload ≥ cache.l1.compress-threshold-bytes)은 객체 대신 L2와 같은 압축 envelope 바이트로 보관하고
+     * 읽을 때마다 복원한다 — 수백 KB 위키 본문이 힙에 그대로 쌓이지 않도록.
+     */
+    static final class Entry {
+        static final int OVERHEAD_BYTES = 256;
+
+        final Object value;           // 압축 보관 시 null
+        final byte[] compressed;      // CacheEnvelopeCodec envelope (Deflate)
+        final Class<?> valueType;
+        final long loadedAtMillis;
+        final int weight;
+        final AtomicInteger hits = new AtomicInteger();
+
+        Entry(Object value, long loadedAtMillis) {
+            this(value, loadedAtMillis, OVERHEAD_BYTES);
+        }
+
+        Entry(Object value, long loadedAtMillis, int weight) {
+            this.value = value;
+            this.compressed = null;
+            this.valueType = value != null ? value.getClass() : Object.class;
+            this.loadedAtMillis = loadedAtMillis;
+            this.weight = weight;
+        }
+
+        private Entry(byte[] compressed, Class<?> valueType, long loadedAtMillis) {
+            this.value = null;
+            this.compressed = compressed;
+            this.valueType = valueType;
+            this.loadedAtMillis = loadedAtMillis;
+            this.weight = compressed.length + OVERHEAD_BYTES;
+        }
+
+        static Entry compressed(byte[] envelope, Class<?> valueType, long loadedAtMillis) {
+            return new Entry(envelope, valueType, loadedAtMillis);
+        }
 
-    public TieredCacheService(StringRedisTemplate redis,
-                              @Nullable ConsistentHashRouter hashRouter,
-                              JsonMapper jsonMapper,
-                              MeterRegistry meterRegistry) {
+        boolean holds(Class<?> type) {
+            return compressed != null ? type.isAssignableFrom(valueType) : type.isInstance(value);
+        }
+
+        /** Caffeine weigher — Entry가 아닌 값은 고정 가중치. */
+        static int weigh(String key, Object value) {
+            return value instanceof Entry entry ? entry.weight : OVERHEAD_BYTES;
+        }
+    }
+
+    /**
+     * L1 만료 정책 — 쓰기 시각이 아니라 Origin 로드 시각(loadedAt) + hardTtl에 만료한다.
+     * expireAfterWrite가 soft TTL보다 짧으면 L1 히트에서 stale-while-revalidate가 돌지 않고,
+     * L2에서 다시 채운 엔트리는 L2 hard TTL보다 오래 남는다. Entry가 아닌 값은 쓰기 시각 + hardTtl.
+     */
+    static Expiry<String, Object> expireAfterLoad(Duration hardTtl) {
+        long hardTtlMillis = hardTtl.toMillis();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Object value, long currentTime) {
+                if (!(value instanceof Entry entry)) {
+                    return hardTtl.toNanos();
+                }
+                long remaining = entry.loadedAtMillis + hardTtlMillis - System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    @Value("${cache.stampede.lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    @Value("${cache.stampede.lease.ttl-ms:5000}")
+    private long leaseTtlMillis;
+
+    @Value("${cache.stampede.lease.wait-ms:300}")
+    private long leaseWaitMillis;
+
+    @Value("${cache.refresh.enabled:true}")
+    private boolean refreshEnabled;
+
+    @Value("${cache.refresh.soft-ttl-ratio:0.8}")
+    private double softTtlRatio;
+
+    @Value("${cache.refresh.ahead-ratio:0.5}")
+    private double aheadRatio;
+
+    @Value("${cache.refresh.hot-hits:20}")
+    private int hotHits;
+
+    @Value("${cache.l1.compress-threshold-bytes:16384}")
+    private int l1CompressThresholdBytes;
+
+    TieredCacheService(StringRedisTemplate redis,
+                       @Nullable ConsistentHashRouter hashRouter,
+                       CacheEnvelopeCodec codec,
+                       MeterRegistry meterRegistry,
+                       L1InvalidationBus invalidationBus,
+                       @Value("${cache.refresh.max-concurrent:8}") int maxConcurrentRefresh) {
         this.redis = redis;
         this.hashRouter = hashRouter;
-        this.jsonMapper = jsonMapper;
+        this.codec = codec;
         this.meterRegistry = meterRegistry;
+        this.invalidationBus = invalidationBus;
+        this.refreshPermits = new Semaphore(maxConcurrentRefresh);
+    }
+
+    @PreDestroy
+    void close() {
+        refreshExecutor.shutdownNow();
+        shardExecutor.shutdownNow();
     }
 
     /** 샤딩 활성화 시 ConsistentHashRouter로 라우팅, 아니면 기존 단일 Redis */
@@ -45,6 +226,36 @@ public class TieredCacheService {
         return hashRouter != null ? hashRouter.getNode(key) : redis;
     }
 
+    /** hot key면 담당 노드를 제외한 복제 노드 — 쓰기를 복제본에도 반영한다. hot이 아니면 빈 목록. */
+    private List<StringRedisTemplate> extraReplicasFor(String key) {
+        if (hashRouter == null || !hashRouter.isHot(key)) {
+            return List.of();
+        }
+        List<StringRedisTemplate> replicas = hashRouter.getReplicaNodes(key);
+        return replicas.subList(1, replicas.size());
+    }
+
+    /** 리샤딩 중 담당이 바뀐 키의 이전 노드 (아니면 null). */
+    private @Nullable StringRedisTemplate previousNodeFor(String key) {
+        return hashRouter != null ? hashRouter.getPreviousNode(key) : null;
+    }
+
+    /** L2 읽기 결과를 샤드 브레이커에 보고한다 — 연속 실패한 샤드는 링에서 퇴출된다. */
+    private <R> R observed(StringRedisTemplate node, Supplier<R> call) {
+        if (hashRouter == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            R result = call.get();
+            hashRouter.recordSuccess(node, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            hashRouter.recordFailure(node);
+            throw e;
+        }
+    }
+
     /**
      * 2계층 캐시 조회.
      *
@@ -61,48 +272,573 @@ public class TieredCacheService {
                      Class<T> type,
                      Duration l2Ttl,
                      Supplier<T> loader) {
+        return get(region, l1Cache, redisKey, type, l2Ttl, loader, value -> {});
+    }
+
+    /**
+     * @param afterStore Origin에서 로드한 값을 L1/L2에 저장한 뒤 호출 (백그라운드 갱신 포함) —
+     *                   저장 전에 부수 효과(역색인 등록 등)를 남기면 그 사이의 무효화를 놓친다
+     */
+    public <T> T get(String region,
+                     Cache<String, Object> l1Cache,
+                     String redisKey,
+                     Class<T> type,
+                     Duration l2Ttl,
+                     Supplier<T> loader,
+                     Consumer<? super T> afterStore) {
 
         // 1. L1 확인
-        Object cached = l1Cache.getIfPresent(redisKey);
-        if (cached != null && type.isInstance(cached)) {
+        Entry cached = l1Entry(l1Cache, redisKey, type);
+        if (cached != null) {
             meterRegistry.counter("tiered_cache", "region", region, "level", "L1").increment();
-            return type.cast(cached);
+            cached.hits.incrementAndGet();
+            T value = type.cast(valueOf(region, cached, type));
+            maybeRefresh(region, l1Cache, redisKey, cached, value, l2Ttl, loader, afterStore);
+            return value;
         }
 
         // 2. L2 확인 (Redis 장애 시 스킵)
+        Entry fromL2 = readL2(region, l1Cache, redisKey, type);
+        if (fromL2 != null) {
+            T value = type.cast(valueOf(region, fromL2, type));
+            maybeRefresh(region, l1Cache, redisKey, fromL2, value, l2Ttl, loader, afterStore);
+            return value;
+        }
+
+        // 3. Origin 조회 — 같은 키의 동시 미스는 in-flight 로드 1개를 공유
+        long waitStart = System.nanoTime();
         try {
-            String json = redisFor(redisKey).opsForValue().get(redisKey);
-            if (json != null) {
-                T value = jsonMapper.readValue(json, type);
-                l1Cache.put(redisKey, value);
-                meterRegistry.counter("tiered_cache", "region", region, "level", "L2").increment();
+            return type.cast(loadSingleFlight(region, l1Cache, redisKey, type, l2Ttl, loader, afterStore));
+        } finally {
+            originWaitTimer(region).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> Object loadSingleFlight(String region, Cache<String, Object> l1Cache, String redisKey,
+                                        Class<T> type, Duration l2Ttl, Supplier<T> loader,
+                                        Consumer<? super T> afterStore) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(redisKey, mine);
+        if (existing != null) {
+            meterRegistry.counter("tiered_cache_coalesced", "region", region, "scope", "jvm").increment();
+            return await(existing);
+        }
+        try {
+            // 직전 리더가 L1에 저장하고 in-flight를 정리한 직후 진입한 경우
+            Entry justLoaded = l1Entry(l1Cache, redisKey, type);
+            if (justLoaded != null) {
+                Object value = valueOf(region, justLoaded, type);
+                mine.complete(value);
                 return value;
             }
+            T value = leaseEnabled
+                    ? loadWithLease(region, l1Cache, redisKey, type, l2Ttl, loader, afterStore)
+                    : loadAndStore(region, l1Cache, redisKey, l2Ttl, loader, afterStore);
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Error(OOM, StackOverflow 등)도 완료시켜야 await 중인 스레드가 풀린다
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(redisKey, mine);
+        }
+    }
+
+    private static Entry l1Entry(Cache<String, Object> l1Cache, String redisKey, Class<?> type) {
+        return l1Cache.getIfPresent(redisKey) instanceof Entry entry && entry.holds(type) ? entry : null;
+    }
+
+    /** L1 엔트리의 값 — 압축 보관된 엔트리는 복원 시간을 측정한다. */
+    private Object valueOf(String region, Entry entry, Class<?> type) {
+        if (entry.compressed == null) {
+            return entry.value;
+        }
+        long start = System.nanoTime();
+        try {
+            return codec.decode(entry.compressed, type).value();
+        } finally {
+            l1InflateTimers.computeIfAbsent(region, r -> Timer.builder("tiered_cache_l1_inflate")
+                            .tag("region", r)
+                            .description("L1에 압축 보관된 값의 복원 시간")
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** L1 엔트리 생성 — payload가 임계값 이상이고 envelope가 압축되어 있으면 바이트로 보관. */
+    private Entry newEntry(Object value, byte[] envelope, int payloadBytes, long loadedAtMillis) {
+        if (value != null && payloadBytes >= l1CompressThresholdBytes && CacheEnvelopeCodec.isCompressed(envelope)) {
+            return Entry.compressed(envelope, value.getClass(), loadedAtMillis);
+        }
+        return new Entry(value, loadedAtMillis, payloadBytes + Entry.OVERHEAD_BYTES);
+    }
+
+    private <T> Entry readL2(String region, Cache<String, Object> l1Cache, String redisKey, Class<T> type) {
+        try {
+            byte[] keyBytes = redisKey.getBytes(StandardCharsets.UTF_8);
+            StringRedisTemplate node = hashRouter != null ? hashRouter.getBalancedNode(redisKey) : redis;
+            byte[] raw = observed(node, () -> node.execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands().get(keyBytes)));
+            if (raw == null && hashRouter != null && node != hashRouter.getNode(redisKey)) {
+                // hot key 복제본에 아직 없음 — 담당 노드에서 다시 읽는다
+                StringRedisTemplate owner = redisFor(redisKey);
+                raw = observed(owner, () -> owner.execute(
+                        (RedisCallback<byte[]>) connection -> connection.stringCommands().get(keyBytes)));
+            }
+            StringRedisTemplate previous = raw == null ? previousNodeFor(redisKey) : null;
+            if (previous != null) {
+                // 리샤딩 dual-read — 아직 옮겨지지 않은 키는 이전 담당 노드에 있다
+                raw = previous.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(keyBytes));
+            }
+            if (raw != null) {
+                CacheEnvelopeCodec.Decoded<T> decoded = codec.decode(region, raw, type);
+                Entry entry = newEntry(decoded.value(), raw, decoded.payloadBytes(), decoded.loadedAtMillis());
+                l1Cache.put(redisKey, entry);
+                meterRegistry.counter("tiered_cache", "region", region, "level", "L2").increment();
+                return entry;
+            }
         } catch (RedisConnectionFailureException e) {
             log.warn("Redis L2 조회 실패 ({}), L1+DB fallback: {}", redisKey, e.getMessage());
         } catch (Exception e) {
             log.warn("Redis L2 역직렬화 실패 ({}): {}", redisKey, e.getMessage());
         }
+        return null;
+    }
+
+    /**
+     * 분산 lease를 얻은 노드만 계산한다.
+     * lease를 못 얻으면 다른 노드가 L2에 값을 쓸 때까지 wait-ms 동안 폴링하고, 넘기면 직접 계산한다.
+     */
+    private <T> T loadWithLease(String region, Cache<String, Object> l1Cache, String redisKey,
+                                Class<T> type, Duration l2Ttl, Supplier<T> loader,
+                                Consumer<? super T> afterStore) {
+        StringRedisTemplate node = redisFor(redisKey);
+        String leaseKey = LEASE_PREFIX + redisKey;
+        String token = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        Boolean acquired;
+        try {
+            acquired = node.opsForValue().setIfAbsent(leaseKey, token, Duration.ofMillis(leaseTtlMillis));
+        } catch (Exception e) {
+            log.debug("캐시 lease 획득 실패 ({}), 직접 계산: {}", leaseKey, e.getMessage());
+            return loadAndStore(region, l1Cache, redisKey, l2Ttl, loader, afterStore);
+        }
+
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                return loadAndStore(region, l1Cache, redisKey, l2Ttl, loader, afterStore);
+            } finally {
+                releaseLease(node, leaseKey, token);
+            }
+        }
 
-        // 3. Origin 조회
+        long deadline = System.nanoTime() + Duration.ofMillis(leaseWaitMillis).toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Entry entry = readL2(region, l1Cache, redisKey, type);
+            if (entry != null) {
+                meterRegistry.counter("tiered_cache_coalesced", "region", region, "scope", "cluster").increment();
+                return type.cast(valueOf(region, entry, type));
+            }
+        }
+        meterRegistry.counter("tiered_cache_lease_timeout", "region", region).increment();
+        return loadAndStore(region, l1Cache, redisKey, l2Ttl, loader, afterStore);
+    }
+
+    private void releaseLease(StringRedisTemplate node, String leaseKey, String token) {
+        try {
+            node.execute(RELEASE_LEASE, List.of(leaseKey), token);
+        } catch (Exception e) {
+            // 해제 실패 시 lease TTL 만료까지 다른 노드가 대기 후 직접 계산
+            log.debug("캐시 lease 해제 실패 ({}): {}", leaseKey, e.getMessage());
+        }
+    }
+
+    private <T> T loadAndStore(String region, Cache<String, Object> l1Cache, String redisKey,
+                               Duration l2Ttl, Supplier<T> loader,
+                               Consumer<? super T> afterStore) {
         T value = loader.get();
+        long loadedAtMillis = System.currentTimeMillis();
 
-        // 4. L1 + L2 양쪽에 저장
+        // L1 + L2 양쪽에 저장
         // 빈 결과(negative cache)는 짧은 TTL — 인덱스 로딩 지연/일시적 장애 시 빠른 복구
         Duration effectiveTtl = isEmpty(value) ? Duration.ofSeconds(30) : l2Ttl;
-        l1Cache.put(redisKey, value);
+        CacheEnvelopeCodec.Encoded encoded;
+        try {
+            encoded = codec.encode(region, value, loadedAtMillis);
+        } catch (Exception e) {
+            log.warn("캐시 값 직렬화 실패 ({}), L1에만 캐싱: {}", redisKey, e.getMessage());
+            l1Cache.put(redisKey, new Entry(value, loadedAtMillis));
+            afterStore.accept(value);
+            meterRegistry.counter("tiered_cache", "region", region, "level", "origin").increment();
+            return value;
+        }
+        l1Cache.put(redisKey, newEntry(value, encoded.bytes(), encoded.payloadBytes(), loadedAtMillis));
         try {
-            redisFor(redisKey).opsForValue().set(redisKey, jsonMapper.writeValueAsString(value), effectiveTtl);
+            byte[] keyBytes = redisKey.getBytes(StandardCharsets.UTF_8);
+            redisFor(redisKey).execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                    .set(keyBytes, encoded.bytes(), Expiration.from(effectiveTtl), SetOption.upsert()));
+            for (StringRedisTemplate replica : extraReplicasFor(redisKey)) {
+                replica.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                        .set(keyBytes, encoded.bytes(), Expiration.from(effectiveTtl), SetOption.upsert()));
+            }
         } catch (RedisConnectionFailureException e) {
             log.warn("Redis L2 저장 실패 ({}), L1에만 캐싱: {}", redisKey, e.getMessage());
         } catch (Exception e) {
-            log.warn("Redis L2 직렬화 실패 ({}): {}", redisKey, e.getMessage());
+            log.warn("Redis L2 저장 실패 ({}): {}", redisKey, e.getMessage());
         }
+        afterStore.accept(value);
 
         meterRegistry.counter("tiered_cache", "region", region, "level", "origin").increment();
         return value;
     }
 
+    /**
+     * soft TTL 경과(stale) 또는 인기 키의 refresh-ahead 시점이면 백그라운드 갱신을 1회 예약한다.
+     * 같은 키가 이미 로드/갱신 중이거나 동시 갱신 한도에 걸리면 건너뛴다 (다음 요청이 다시 시도).
+     */
+    private <T> void maybeRefresh(String region, Cache<String, Object> l1Cache, String redisKey,
+                                  Entry entry, Object currentValue, Duration l2Ttl, Supplier<T> loader,
+                                  Consumer<? super T> afterStore) {
+        if (!refreshEnabled) {
+            return;
+        }
+        long age = System.currentTimeMillis() - entry.loadedAtMillis;
+        long ttlMillis = l2Ttl.toMillis();
+        boolean stale = age >= ttlMillis * softTtlRatio;
+        boolean ahead = !stale && age >= ttlMillis * aheadRatio && entry.hits.get() >= hotHits;
+        if (!stale && !ahead) {
+            return;
+        }
+        if (stale) {
+            meterRegistry.counter("tiered_cache_stale_served", "region", region).increment();
+        }
+
+        String reason = stale ? "stale" : "ahead";
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(redisKey, refresh) != null) {
+            return;
+        }
+        if (!refreshPermits.tryAcquire()) {
+            inFlight.remove(redisKey, refresh);
+            refresh.complete(currentValue);
+            meterRegistry.counter("tiered_cache_refresh", "region", region,
+                    "reason", reason, "result", "skipped").increment();
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.complete(loadAndStore(region, l1Cache, redisKey, l2Ttl, loader, afterStore));
+                    meterRegistry.counter("tiered_cache_refresh", "region", region,
+                            "reason", reason, "result", "success").increment();
+                } catch (RuntimeException e) {
+                    refresh.completeExceptionally(e);
+                    meterRegistry.counter("tiered_cache_refresh", "region", region,
+                            "reason", reason, "result", "failure").increment();
+                    log.warn("캐시 백그라운드 갱신 실패 ({}): {}", redisKey, e.getMessage());
+                } finally {
+                    inFlight.remove(redisKey, refresh);
+                    refreshPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor 종료 중
+            inFlight.remove(redisKey, refresh);
+            refreshPermits.release();
+            refresh.complete(currentValue);
+        }
+    }
+
+    /**
+     * 다중 키 조회.
+     *
+     * <p>1. L1에서 찾은 키 제외
+     * 2. 나머지를 샤드별로 묶어 MGET (100키 단위 chunk를 pipeline 1회로), 샤드가 여럿이면 가상 스레드로 병렬.
+     *    hot key 복제본 분산/담당 노드 재조회/리샤딩 dual-read는 단건 조회와 같다
+     * 3. L2에도 없는 키는 단건 {@link #get}과 같은 in-flight 맵으로 single-flight —
+     *    다른 요청(단건/다중)이 이미 로드 중인 키는 그 결과를 기다리고, 나머지만 batchLoader 1회 호출 →
+     *    L1 + L2(샤드별 pipelined SET) 저장. 자기 키를 먼저 완료한 뒤 기다리므로 교차 대기로 막히지 않는다.
+     *
+     * <p>soft TTL 갱신은 적용하지 않는다 — batch 경로는 상세 조회와 같은 엔트리를 공유하므로
+     * 인기 키는 단건 경로에서 갱신된다.
+     *
+     * @param batchLoader 미스 키 목록 → (키 → 값). 결과에 없는 키(존재하지 않는 데이터)는 캐싱하지 않는다.
+     * @return 키 → 값, 입력 순서 유지. 찾지 못한 키는 제외.
+     */
+    public <T> Map<String, T> getAll(String region,
+                                     Cache<String, Object> l1Cache,
+                                     List<String> keys,
+                                     Class<T> type,
+                                     Duration l2Ttl,
+                                     Function<List<String>, Map<String, T>> batchLoader) {
+        Map<String, T> found = new HashMap<>();
+        List<String> l1Misses = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            Entry entry = l1Entry(l1Cache, key, type);
+            if (entry != null) {
+                entry.hits.incrementAndGet();
+                found.put(key, type.cast(valueOf(region, entry, type)));
+            } else {
+                l1Misses.add(key);
+            }
+        }
+        meterRegistry.counter("tiered_cache", "region", region, "level", "L1").increment(found.size());
+
+        List<String> l2Misses = l1Misses;
+        if (!l1Misses.isEmpty()) {
+            Map<String, byte[]> raw = multiGetL2(l1Misses);
+            l2Misses = new ArrayList<>();
+            int l2Hits = 0;
+            for (String key : l1Misses) {
+                byte[] bytes = raw.get(key);
+                T value = bytes != null ? decodeToL1(region, l1Cache, key, bytes, type) : null;
+                if (value != null) {
+                    found.put(key, value);
+                    l2Hits++;
+                } else {
+                    l2Misses.add(key);
+                }
+            }
+            meterRegistry.counter("tiered_cache", "region", region, "level", "L2").increment(l2Hits);
+        }
+
+        if (!l2Misses.isEmpty()) {
+            found.putAll(loadAllSingleFlight(region, l1Cache, l2Misses, type, l2Ttl, batchLoader));
+        }
+
+        Map<String, T> ordered = new LinkedHashMap<>();
+        for (String key : keys) {
+            T value = found.get(key);
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 미스 키 batch 로드 — 키마다 in-flight를 선점한 것만 batchLoader로 읽고, 선점당한 키는 기존 로드를 기다린다.
+     * 로드 결과에 없는 키(존재하지 않는 데이터)는 null로 완료해 기다리던 쪽도 미스로 처리한다.
+     */
+    private <T> Map<String, T> loadAllSingleFlight(String region, Cache<String, Object> l1Cache, List<String> keys,
+                                                   Class<T> type, Duration l2Ttl,
+                                                   Function<List<String>, Map<String, T>> batchLoader) {
+        Map<String, T> result = new HashMap<>();
+        Map<String, CompletableFuture<Object>> mine = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                joined.put(key, existing);
+            } else {
+                mine.put(key, future);
+            }
+        }
+        if (!joined.isEmpty()) {
+            meterRegistry.counter("tiered_cache_coalesced", "region", region, "scope", "jvm").increment(joined.size());
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            List<String> toLoad = new ArrayList<>();
+            for (var claimed : mine.entrySet()) {
+                // 직전 리더가 L1에 저장하고 in-flight를 정리한 직후 선점한 경우
+                Entry justLoaded = l1Entry(l1Cache, claimed.getKey(), type);
+                if (justLoaded != null) {
+                    Object value = valueOf(region, justLoaded, type);
+                    result.put(claimed.getKey(), type.cast(value));
+                    claimed.getValue().complete(value);
+                } else {
+                    toLoad.add(claimed.getKey());
+                }
+            }
+            if (!toLoad.isEmpty()) {
+                Map<String, T> loaded = batchLoader.apply(toLoad);
+                storeAll(region, l1Cache, loaded, l2Ttl);
+                result.putAll(loaded);
+                meterRegistry.counter("tiered_cache", "region", region, "level", "origin").increment(loaded.size());
+                for (String key : toLoad) {
+                    mine.get(key).complete(loaded.get(key));
+                }
+            }
+        } catch (Throwable e) {
+            mine.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        } finally {
+            mine.forEach(inFlight::remove);
+        }
+
+        for (var wait : joined.entrySet()) {
+            Object value = await(wait.getValue());
+            if (type.isInstance(value)) {
+                result.put(wait.getKey(), type.cast(value));
+            }
+        }
+        originWaitTimer(region).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    /**
+     * 샤드별 MGET — 단건 {@link #readL2}와 같은 라우팅을 라운드로 적용한다.
+     *
+     * <p>1. hot key는 복제본 중 부하 한도 이내 노드, 나머지는 담당 노드
+     * 2. 복제본에서 못 찾은 hot key는 담당 노드에서 다시
+     * 3. 리샤딩 중 아직 못 찾은 키는 이전 담당 노드에서 (dual-read)
+     *
+     * <p>2/3 라운드는 해당 키가 있을 때만 실행 — 샤딩이 없거나 평시에는 MGET 1라운드.
+     */
+    private Map<String, byte[]> multiGetL2(List<String> keys) {
+        Map<String, byte[]> result = new HashMap<>();
+        if (hashRouter == null) {
+            result.putAll(multiGetNode(redis, keys));
+            return result;
+        }
+        Map<String, StringRedisTemplate> balanced = new HashMap<>();
+        for (String key : keys) {
+            balanced.put(key, hashRouter.getBalancedNode(key));
+        }
+        multiGetRound(keys, balanced::get, result);
+        multiGetRound(missing(keys, result), key -> {
+            StringRedisTemplate owner = hashRouter.getNode(key);
+            return owner != balanced.get(key) ? owner : null;
+        }, result);
+        multiGetRound(missing(keys, result), hashRouter::getPreviousNode, result);
+        return result;
+    }
+
+    private static List<String> missing(List<String> keys, Map<String, byte[]> found) {
+        return keys.stream().filter(key -> !found.containsKey(key)).toList();
+    }
+
+    /** route가 노드를 주는(null 아닌) 키만 노드별로 묶어 MGET — 샤드 간 병렬, 실패한 샤드의 키는 미스로 처리. */
+    private void multiGetRound(List<String> keys, Function<String, StringRedisTemplate> route,
+                               Map<String, byte[]> result) {
+        Map<StringRedisTemplate, List<String>> byNode = new HashMap<>();
+        for (String key : keys) {
+            StringRedisTemplate node = route.apply(key);
+            if (node != null) {
+                byNode.computeIfAbsent(node, n -> new ArrayList<>()).add(key);
+            }
+        }
+        if (byNode.size() <= 1) {
+            byNode.forEach((node, nodeKeys) -> result.putAll(multiGetNode(node, nodeKeys)));
+            return;
+        }
+        List<CompletableFuture<Map<String, byte[]>>> futures = new ArrayList<>();
+        byNode.forEach((node, nodeKeys) ->
+                futures.add(CompletableFuture.supplyAsync(() -> multiGetNode(node, nodeKeys), shardExecutor)));
+        for (CompletableFuture<Map<String, byte[]>> future : futures) {
+            result.putAll(future.join());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> multiGetNode(StringRedisTemplate node, List<String> keys) {
+        Map<String, byte[]> result = new HashMap<>();
+        try {
+            List<Object> replies = observed(node, () -> node.executePipelined((RedisCallback<Object>) connection -> {
+                for (int from = 0; from < keys.size(); from += MGET_CHUNK) {
+                    List<String> chunk = keys.subList(from, Math.min(from + MGET_CHUNK, keys.size()));
+                    connection.stringCommands().mGet(toBytes(chunk));
+                }
+                return null;
+            }, RedisSerializer.byteArray()));
+            int index = 0;
+            for (Object reply : replies) {
+                for (Object value : (List<Object>) reply) {
+                    if (value != null) {
+                        result.put(keys.get(index), (byte[]) value);
+                    }
+                    index++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Redis L2 MGET 실패 ({}건), Origin fallback: {}", keys.size(), e.getMessage());
+        }
+        return result;
+    }
+
+    private <T> T decodeToL1(String region, Cache<String, Object> l1Cache, String key, byte[] raw, Class<T> type) {
+        try {
+            CacheEnvelopeCodec.Decoded<T> decoded = codec.decode(region, raw, type);
+            l1Cache.put(key, newEntry(decoded.value(), raw, decoded.payloadBytes(), decoded.loadedAtMillis()));
+            return decoded.value();
+        } catch (Exception e) {
+            log.warn("Redis L2 역직렬화 실패 ({}): {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /** batch loader 결과를 L1 + L2에 저장 — L2는 샤드별 pipelined SET. */
+    private <T> void storeAll(String region, Cache<String, Object> l1Cache, Map<String, T> values, Duration l2Ttl) {
+        long loadedAtMillis = System.currentTimeMillis();
+        Map<StringRedisTemplate, Map<byte[], byte[]>> byNode = new HashMap<>();
+        values.forEach((key, value) -> {
+            try {
+                CacheEnvelopeCodec.Encoded encoded = codec.encode(region, value, loadedAtMillis);
+                l1Cache.put(key, newEntry(value, encoded.bytes(), encoded.payloadBytes(), loadedAtMillis));
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                byNode.computeIfAbsent(redisFor(key), node -> new LinkedHashMap<>()).put(keyBytes, encoded.bytes());
+                for (StringRedisTemplate replica : extraReplicasFor(key)) {
+                    byNode.computeIfAbsent(replica, node -> new LinkedHashMap<>()).put(keyBytes, encoded.bytes());
+                }
+            } catch (Exception e) {
+                log.warn("캐시 값 직렬화 실패 ({}), L1에만 캐싱: {}", key, e.getMessage());
+                l1Cache.put(key, new Entry(value, loadedAtMillis));
+            }
+        });
+        Expiration expiration = Expiration.from(l2Ttl);
+        byNode.forEach((node, entries) -> {
+            try {
+                node.executePipelined((RedisCallback<Object>) connection -> {
+                    entries.forEach((k, v) -> connection.stringCommands().set(k, v, expiration, SetOption.upsert()));
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("Redis L2 저장 실패 ({}건), L1에만 캐싱: {}", entries.size(), e.getMessage());
+            }
+        });
+    }
+
+    private static byte[][] toBytes(List<String> keys) {
+        byte[][] result = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            result[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /** 요청 스레드가 Origin 로드(또는 in-flight 로드 합류)로 대기한 시간 — refresh-ahead 후 남은 tail latency. */
+    private Timer originWaitTimer(String region) {
+        return originWaitTimers.computeIfAbsent(region, r -> Timer.builder("tiered_cache_origin_wait")
+                .tag("region", r)
+                .description("캐시 미스로 요청 스레드가 Origin 로드를 기다린 시간")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    /** in-flight 로드 결과 대기 — loader 예외는 감싸지 않고 그대로 전파. */
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
     /**
      * 결과가 비어있는지 판단 (negative caching용).
      * CachedSearchResult의 content가 비어있으면 빈 결과로 간주.
@@ -116,12 +852,22 @@ public class TieredCacheService {
     }
 
     /**
-     * L1 + L2 양쪽에서 캐시 무효화.
+     * L1 + L2 양쪽에서 캐시 무효화. 다른 노드의 L1은 {@link L1InvalidationBus}로 전파.
      */
     public void evict(Cache<String, Object> l1Cache, String redisKey) {
         l1Cache.invalidate(redisKey);
+        invalidationBus.publishKeys(l1Cache, List.of(redisKey));
         try {
-            redisFor(redisKey).delete(redisKey);
+            if (hashRouter == null) {
+                redis.delete(redisKey);
+            } else {
+                // hot 여부가 그사이 바뀌었을 수 있으므로 복제 노드 전부에서 삭제
+                hashRouter.getReplicaNodes(redisKey).forEach(node -> node.delete(redisKey));
+            }
+            StringRedisTemplate previous = previousNodeFor(redisKey);
+            if (previous != null) {
+                previous.delete(redisKey);   // 리샤딩 중 — 옮겨지기 전 사본이 되살아나지 않도록
+            }
         } catch (RedisConnectionFailureException e) {
             log.warn("Redis L2 삭제 실패 ({}): {}", redisKey, e.getMessage());
         }
@@ -1,6 +1,7 @@
 package com.wiki.engine.post.internal.cdc;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.wiki.engine.post.internal.cache.SearchCacheIndex;
 import com.wiki.engine.post.internal.cache.TieredCacheService;
 import com.wiki.engine.post.Post;
 import com.wiki.engine.post.internal.lucene.LuceneIndexService;
@@ -34,6 +35,8 @@ import java.io.IOException;
  * }
  * </pre>
  *
+ * <p>검색 캐시는 {@link SearchCacheIndex}로 영향받는 키만 무효화한다 (invalidateAll 대신).
+ *
  * <p>멱등성: Lucene updateDocument()는 자연 멱등, 캐시 evict()는 no-op 안전.
  * Kafka Consumer는 at-least-once이므로 중복 메시지가 올 수 있지만 안전하다.
  *
@@ -49,20 +52,20 @@ public class DebeziumCdcConsumer {
     private final PostRepository postRepository;
     private final TieredCacheService tieredCacheService;
     private final Cache<String, Object> postDetailL1Cache;
-    private final Cache<String, Object> searchResultsL1Cache;
+    private final SearchCacheIndex searchCacheIndex;
     private final JsonMapper jsonMapper;
 
     public DebeziumCdcConsumer(LuceneIndexService luceneIndexService,
                                PostRepository postRepository,
                                TieredCacheService tieredCacheService,
                                @Qualifier("postDetailL1Cache") Cache<String, Object> postDetailL1Cache,
-                               @Qualifier("searchResultsL1Cache") Cache<String, Object> searchResultsL1Cache,
+                               SearchCacheIndex searchCacheIndex,
                                JsonMapper jsonMapper) {
         this.luceneIndexService = luceneIndexService;
         this.postRepository = postRepository;
         this.tieredCacheService = tieredCacheService;
         this.postDetailL1Cache = postDetailL1Cache;
-        this.searchResultsL1Cache = searchResultsL1Cache;
+        this.searchCacheIndex = searchCacheIndex;
         this.jsonMapper = jsonMapper;
     }
 
@@ -101,7 +104,7 @@ public class DebeziumCdcConsumer {
 
         postRepository.findById(postId).ifPresent(post -> {
             indexSafely(post);
-            searchResultsL1Cache.invalidateAll();
+            searchCacheIndex.invalidateMatchingTitle(post);
             log.info("CDC CREATE: postId={}", postId);
         });
     }
@@ -115,7 +118,12 @@ public class DebeziumCdcConsumer {
         postRepository.findById(postId).ifPresent(post -> {
             indexSafely(post);
             tieredCacheService.evict(postDetailL1Cache, "post:" + postId);
-            searchResultsL1Cache.invalidateAll();
+            searchCacheIndex.invalidatePost(postId);
+            // 본문/조회수만 바뀐 UPDATE에서 L1 전체 제목 매칭을 돌지 않도록 — before가 없으면 바뀐 것으로 본다
+            JsonNode before = root.path("before");
+            if (before.isMissingNode() || !before.path("title").equals(after.path("title"))) {
+                searchCacheIndex.invalidateMatchingTitle(post);
+            }
             log.info("CDC UPDATE: postId={}", postId);
         });
     }
@@ -132,7 +140,7 @@ public class DebeziumCdcConsumer {
             log.error("CDC Lucene 삭제 실패: postId={}", postId, e);
         }
         tieredCacheService.evict(postDetailL1Cache, "post:" + postId);
-        searchResultsL1Cache.invalidateAll();
+        searchCacheIndex.invalidatePost(postId);
         log.info("CDC DELETE: postId={}", postId);
     }
 
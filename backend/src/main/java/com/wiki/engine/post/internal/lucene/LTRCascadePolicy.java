@@ -0,0 +1,117 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cascade 랭킹의 XGBoost 단계 window 크기를 결정한다.
+ *
+ * <p>입력 신호:
+ * - 요청당 지연 예산({@code ltr.cascade.budget-ms}) ÷ 문서당 비용(EWMA) → 예산 안에서 처리 가능한 문서 수
+ * - 최근 1분 rescore p95가 {@code ltr.cascade.p95-threshold-ms}를 넘으면 window 절반 (과부하 보호)
+ * - 하한: max(min-window, topK) — 현재 페이지는 항상 XGBoost 순위로 채운다
+ *
+ * <p>문서당 비용은 피처 추출 + 추론 시간을 처리 문서 수로 나눈 EWMA(alpha=0.1).
+ * 초기값 50us/doc에서 시작해 실측치로 수렴한다.
+ *
+ * <p>p95는 요청 경로에서 snapshot을 뜨지 않도록 1초 주기로 갱신해 volatile에 둔다.
+ */
+@Component
+class LTRCascadePolicy {
+
+    private static final double EWMA_ALPHA = 0.1;
+    private static final double INITIAL_COST_NANOS_PER_DOC = 50_000;
+
+    @Value("${ltr.cascade.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ltr.cascade.min-window:30}")
+    private int minWindow;
+
+    @Value("${ltr.cascade.budget-ms:25}")
+    private long budgetMs;
+
+    @Value("${ltr.cascade.p95-threshold-ms:40}")
+    private long p95ThresholdMs;
+
+    @Value("${ltr.cascade.confident-ratio:2.5}")
+    private float confidentRatio;
+
+    private final Timer rescoreTimer;
+    private final DistributionSummary windowSummary;
+
+    private volatile double costNanosPerDoc = INITIAL_COST_NANOS_PER_DOC;
+    private volatile double rescoreP95Ms;
+
+    LTRCascadePolicy(MeterRegistry meterRegistry) {
+        this.rescoreTimer = Timer.builder("ltr_rescore")
+                .description("LTR rescore 전체 시간 (linear + XGBoost 단계)")
+                .publishPercentiles(0.95)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.windowSummary = DistributionSummary.builder("ltr_cascade_window")
+                .description("XGBoost 단계에 들어간 문서 수")
+                .register(meterRegistry);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * BM25가 이미 확신하는 쿼리인지 판단한다 (top1 점수가 top2의 confident-ratio배 이상).
+     * 제목 완전 일치 등으로 1위가 압도적이면 재랭킹(linear 포함)을 생략하고 BM25 순서를 그대로 쓴다.
+     */
+    boolean isConfident(float top1Score, float top2Score) {
+        return confidentRatio > 0 && top2Score > 0 && top1Score >= top2Score * confidentRatio;
+    }
+
+    /**
+     * XGBoost 단계 window 크기.
+     *
+     * @param candidates linear 단계까지 올라온 후보 수 (rescore-window 이하)
+     * @param topK       이번 요청이 필요로 하는 상위 문서 수 (offset + limit + 1)
+     */
+    int xgboostWindow(int candidates, int topK) {
+        long budgetDocs = (long) (TimeUnit.MILLISECONDS.toNanos(budgetMs) / costNanosPerDoc);
+        int window = (int) Math.min(candidates, budgetDocs);
+        if (rescoreP95Ms > p95ThresholdMs) {
+            window /= 2;
+        }
+        int floor = Math.min(candidates, Math.max(minWindow, topK));
+        window = Math.max(window, floor);
+        windowSummary.record(window);
+        return window;
+    }
+
+    /** XGBoost 단계 실측 비용을 반영한다. */
+    void recordXgboostCost(long nanos, int docs) {
+        if (docs <= 0) {
+            return;
+        }
+        double perDoc = (double) nanos / docs;
+        costNanosPerDoc = costNanosPerDoc * (1 - EWMA_ALPHA) + perDoc * EWMA_ALPHA;
+    }
+
+    void recordRescore(long nanos) {
+        rescoreTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Scheduled(fixedRate = 1_000)
+    void refreshP95() {
+        for (ValueAtPercentile percentile : rescoreTimer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.95) {
+                rescoreP95Ms = percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -10,12 +10,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * LTR 학습 데이터 생성 서비스 — Gemini LLM-as-a-Judge.
  *
- * <p>방식: Pointwise + Chain-of-Thought + 4-point scale (0~3).
+ * <p>방식: Pointwise(문서별 독립 채점, 배치 프롬프트) + Chain-of-Thought + 4-point scale (0~3).
  * - 0: Irrelevant — 문서가 쿼리와 무관
  * - 1: Marginally relevant — 주제 언급만
  * - 2: Relevant — 부분적 답변
@@ -24,14 +26,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <p>설계 판단:
  * - LLM 직접 판정 + 3회 평균으로 학습 데이터 생성.
  * - 쿼리당 20건 소규모이므로 3회 호출 평균 반올림이 비용 대비 분산 감소에 최적.
- * - 1회성 배치 작업이고 병목이 Gemini rate limit(15 RPM)이므로
+ * - 1회성 배치 작업이고 병목이 Gemini rate limit이므로
  *   CSV append + resume로 crash-safe 내구성 확보.
  *
- * <p>Rate limit 대응 (Gemini 무료 티어 15 RPM):
- * - 라운드 간 5초 딜레이 (분당 12 요청 → 15 RPM 이내)
+ * <p>처리량 ({@link LTRJudgePipeline}):
+ * - 배치 프롬프트: 같은 쿼리 문서 {@code ltr.judge.batch-size}건을 1회 호출로 판정
+ * - 동시 워커 {@code ltr.judge.concurrency}개 + 공유 토큰 버킷({@code ltr.judge.requests-per-minute})
+ *   → 고정 딜레이 없이 쿼터까지 채워서 호출
  * - 실패 시 지수 백오프 재시도 (10초 → 20초, 최대 2회)
- * - 디스크 저장: 판정 즉시 CSV append → 서버 재시작 시 데이터 유실 방지
- * - Resume: 이전에 완료된 (qid, postId) 쌍은 건너뜀
+ * - 디스크 저장: 단일 writer 스레드가 판정 결과를 CSV append → 워커는 파일 I/O를 기다리지 않음.
+ *   기록 실패로 버린 행 수는 상태의 {@code dropped}와 종료 로그로 알린다
+ * - Resume: 이전에 완료된 (qid, postId) 쌍은 건너뜀. 행 순서는 완료 순서라 train_ltr.py가 qid로 정렬한다
  */
 @Slf4j
 @Service
@@ -44,30 +49,19 @@ public class LTRDataGenerationService {
     @Value("${ltr.data-path:ltr_training_data.csv}")
     private String dataPath;
 
-    private static final String JUDGE_PROMPT = """
-            You are a search relevance expert. Given a search query and a document,
-            rate how relevant the document is to the query.
+    @Value("${ltr.judge.concurrency:4}")
+    private int concurrency;
 
-            Scale:
-            - 0 (Irrelevant): Document has no relation to the query
-            - 1 (Marginally Relevant): Document mentions the topic but doesn't answer the query
-            - 2 (Relevant): Document partially answers or is closely related to the query
-            - 3 (Highly Relevant): Document directly and comprehensively answers the query
+    @Value("${ltr.judge.batch-size:5}")
+    private int batchSize;
 
-            Think step by step:
-            1. What is the user's intent behind this query?
-            2. Does the document address this intent?
-            3. How completely does it address the intent?
+    @Value("${ltr.judge.requests-per-minute:15}")
+    private int requestsPerMinute;
 
-            Query: %s
-            Document Title: %s
-            Document Content (first 300 chars): %s
-
-            Respond with ONLY a JSON object: {"reasoning": "brief explanation", "score": N}
-            """;
+    @Value("${ltr.judge.burst:2}")
+    private int burst;
 
     private static final int JUDGE_ROUNDS = 3;
-    private static final long ROUND_DELAY_MS = 5_000;       // 15 RPM 대응: 분당 12 요청
     private static final int MAX_RETRIES = 2;                // 라운드당 최대 2회 재시도
     private static final long RETRY_BASE_DELAY_MS = 10_000;  // 재시도 백오프: 10초 → 20초
 
@@ -75,6 +69,8 @@ public class LTRDataGenerationService {
     private final AtomicInteger totalCount = new AtomicInteger(0);
     private final AtomicInteger successCount = new AtomicInteger(0);
     private final AtomicInteger failCount = new AtomicInteger(0);
+    /** 판정은 성공했지만 CSV 기록 실패로 버려진 행 수. */
+    private final AtomicInteger droppedCount = new AtomicInteger(0);
     private volatile boolean running = false;
 
     public LTRDataGenerationService(LuceneSearchService luceneSearchService,
@@ -87,9 +83,9 @@ public class LTRDataGenerationService {
 
     /**
      * LTR 학습 데이터를 생성한다.
-     * 각 행은 판정 즉시 CSV 파일에 flush. 이전 실행 결과가 있으면 resume.
+     * 판정 결과는 writer 스레드가 CSV에 append + flush. 이전 실행 결과가 있으면 resume.
      */
-    public void generateAsync(List<String> queries, int topN, long delayMillis) {
+    public void generateAsync(List<String> queries, int topN) {
         if (running) {
             log.warn("LTR 데이터 생성이 이미 진행 중입니다");
             return;
@@ -100,6 +96,7 @@ public class LTRDataGenerationService {
         totalCount.set(queries.size() * topN);
         successCount.set(0);
         failCount.set(0);
+        droppedCount.set(0);
 
         Thread.startVirtualThread(() -> {
             Path csvPath = Path.of(dataPath);
@@ -121,45 +118,28 @@ public class LTRDataGenerationService {
                     writer.flush();
                 }
 
-                for (int qIdx = 0; qIdx < queries.size(); qIdx++) {
-                    String query = queries.get(qIdx);
-                    log.info("LTR 진행: query {}/{} — '{}' (성공: {}, 실패: {}, skip: {})",
-                            qIdx + 1, queries.size(), query,
-                            successCount.get(), failCount.get(), completed.size());
-
-                    try {
-                        var docs = luceneSearchService.extractLTRFeatures(
-                                query, topN, featureExtractor);
+                List<LTRJudgePipeline.JudgeBatch> batches = buildBatches(queries, topN, completed);
+                log.info("LTR 판정 시작: 배치 {}개 (batch-size={}, concurrency={}, {} RPM)",
+                        batches.size(), batchSize, concurrency, requestsPerMinute);
 
-                        for (var doc : docs) {
+                try (var rowWriter = new AsyncCsvWriter(writer, droppedCount)) {
+                    newPipeline().run(batches, (batch, relevances) -> {
+                        for (int i = 0; i < relevances.length; i++) {
                             processedCount.incrementAndGet();
-
-                            // Resume: 이미 완료된 쌍 건너뛰기
-                            String key = qIdx + ":" + doc.postId();
-                            if (completed.contains(key)) {
-                                continue;
-                            }
-
-                            int relevance = judgeRelevance(query, doc.title(), doc.snippet());
-
-                            if (relevance >= 0) {
+                            if (relevances[i] >= 0) {
                                 successCount.incrementAndGet();
-                                writer.write(csvRow(qIdx, relevance, doc, query));
-                                writer.newLine();
-                                writer.flush();
+                                rowWriter.append(csvRow(batch.qIdx(), relevances[i], batch.docs().get(i), batch.query()));
                             } else {
                                 failCount.incrementAndGet();
                             }
-
-                            if (delayMillis > 0) {
-                                sleep(delayMillis);
-                            }
                         }
-                    } catch (Exception e) {
-                        log.error("LTR 실패: query='{}', error={}", query, e.getMessage());
-                    }
+                        log.info("LTR 진행: {}/{} (성공: {}, 실패: {}) — '{}'",
+                                processedCount.get(), totalCount.get(),
+                                successCount.get(), failCount.get(), batch.query());
+                    });
                 }
-                log.info("LTR 데이터 생성 완료 (성공: {}, 실패: {})", successCount.get(), failCount.get());
+                log.info("LTR 데이터 생성 완료 (성공: {}, 실패: {}, 기록 실패: {})",
+                        successCount.get(), failCount.get(), droppedCount.get());
             } catch (IOException e) {
                 log.error("CSV 파일 오류: {}", e.getMessage());
             } finally {
@@ -168,75 +148,139 @@ public class LTRDataGenerationService {
         });
     }
 
+    /** 예상 소요 시간(분) — 호출 수 ÷ RPM. */
+    public long estimateMinutes(int docCount) {
+        long calls = (long) Math.ceil(docCount / (double) Math.max(1, batchSize)) * JUDGE_ROUNDS;
+        return calls / Math.max(1, requestsPerMinute);
+    }
+
     /**
-     * Gemini로 (query, document) 쌍의 relevance를 판정한다.
-     * 3회 호출 → 평균 → 반올림 (non-deterministic 대응).
-     *
-     * <p>Graded relevance(0~3)에서는 Majority Voting보다 Averaging이 분산을 줄여 적합.
-     * temperature=0이어도 완전 deterministic 아님.
-     *
-     * <p>실패 시 지수 백오프 재시도. 라운드당 최대 2회 재시도, 10초 → 20초 대기.
+     * 쿼리별 BM25 Top-N 피처를 추출하고, 완료되지 않은 문서를 batch-size 단위로 묶는다.
+     * 피처 추출은 로컬 Lucene이라 판정 전에 한 번에 끝낸다.
      */
-    private int judgeRelevance(String query, String title, String snippet) {
-        String prompt = String.format(JUDGE_PROMPT, query, title,
-                snippet != null ? snippet : "");
-
-        List<Integer> scores = new ArrayList<>();
-        for (int round = 0; round < JUDGE_ROUNDS; round++) {
-            int score = callWithRetry(prompt, query, title, round);
-            if (score >= 0) {
-                scores.add(score);
-            }
-            if (round < JUDGE_ROUNDS - 1) {
-                sleep(ROUND_DELAY_MS);
+    private List<LTRJudgePipeline.JudgeBatch> buildBatches(List<String> queries, int topN, Set<String> completed) {
+        List<LTRJudgePipeline.JudgeBatch> batches = new ArrayList<>();
+        for (int qIdx = 0; qIdx < queries.size(); qIdx++) {
+            String query = queries.get(qIdx);
+            try {
+                var pending = new ArrayList<LuceneSearchService.LTRDocFeatures>();
+                for (var doc : luceneSearchService.extractLTRFeatures(query, topN, featureExtractor)) {
+                    // Resume: 이미 완료된 쌍 건너뛰기
+                    if (completed.contains(qIdx + ":" + doc.postId())) {
+                        processedCount.incrementAndGet();
+                    } else {
+                        pending.add(doc);
+                    }
+                }
+                for (int from = 0; from < pending.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, pending.size());
+                    batches.add(new LTRJudgePipeline.JudgeBatch(qIdx, query, List.copyOf(pending.subList(from, to))));
+                }
+            } catch (Exception e) {
+                log.error("LTR 피처 추출 실패: query='{}', error={}", query, e.getMessage());
             }
         }
+        return batches;
+    }
 
-        if (scores.isEmpty()) return -1;
-        double avg = scores.stream().mapToInt(Integer::intValue).average().orElse(-1);
-        return (int) Math.round(avg);
+    private LTRJudgePipeline newPipeline() {
+        return new LTRJudgePipeline(
+                prompt -> chatClient.prompt().user(prompt).call().content(),
+                new TokenBucketRateLimiter(requestsPerMinute, burst),
+                concurrency, JUDGE_ROUNDS, MAX_RETRIES, RETRY_BASE_DELAY_MS);
     }
 
     /**
-     * Gemini API 호출 + 지수 백오프 재시도 (10초 → 20초).
+     * 비동기 CSV writer — 판정 워커는 큐에 행만 넣고, 단일 writer 스레드가 기록한다.
+     * 큐가 빌 때마다 flush하므로 crash 시 유실은 마지막 묶음뿐이고, resume에서 다시 판정된다.
+     * 기록 중 IOException이 나면 이후 행은 버리고 그 수(마지막 flush 이후 버퍼에 있던 행 포함)를 dropped에 센다.
      */
-    private int callWithRetry(String prompt, String query, String title, int round) {
-        for (int retry = 0; retry <= MAX_RETRIES; retry++) {
+    private static final class AsyncCsvWriter implements AutoCloseable {
+
+        /** 종료 신호 — 큐의 행(String)과 같을 수 없는 전용 객체. */
+        private static final Object EOF = new Object();
+
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final BufferedWriter writer;
+        private final AtomicInteger dropped;
+        private final Thread thread;
+        private volatile boolean failed;
+
+        AsyncCsvWriter(BufferedWriter writer, AtomicInteger dropped) {
+            this.writer = writer;
+            this.dropped = dropped;
+            this.thread = Thread.ofVirtual().name("ltr-csv-writer").start(this::drain);
+        }
+
+        void append(String row) {
+            if (failed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            queue.add(row);
+        }
+
+        private void drain() {
+            int unflushed = 0;
             try {
-                if (retry > 0) {
-                    long backoff = RETRY_BASE_DELAY_MS * (1L << (retry - 1));
-                    log.debug("재시도 대기 {}ms (round {}, retry {})", backoff, round + 1, retry);
-                    sleep(backoff);
-                }
-                String response = chatClient.prompt()
-                        .user(prompt)
-                        .call()
-                        .content();
-                return parseScore(response);
-            } catch (Exception e) {
-                if (retry == MAX_RETRIES) {
-                    log.warn("Gemini 판정 실패 (round {}, {}회 시도): query='{}', title='{}', error={}",
-                            round + 1, retry + 1, query, truncate(title, 30), e.getMessage());
+                while (true) {
+                    Object item = queue.take();
+                    do {
+                        if (item == EOF) {
+                            flush(unflushed);
+                            return;
+                        }
+                        if (failed) {
+                            dropped.incrementAndGet();
+                            continue;
+                        }
+                        try {
+                            writer.write((String) item);
+                            writer.newLine();
+                            unflushed++;
+                        } catch (IOException e) {
+                            fail(e, unflushed + 1);
+                        }
+                    } while ((item = queue.poll()) != null);
+                    flush(unflushed);
+                    unflushed = 0;
                 }
+            } catch (InterruptedException e) {
+                dropped.addAndGet((int) queue.stream().filter(item -> item != EOF).count());
+                Thread.currentThread().interrupt();
             }
         }
-        return -1;
-    }
 
-    private int parseScore(String response) {
-        if (response == null) return -1;
-        var scoreMatch = java.util.regex.Pattern.compile("\"score\"\\s*:\\s*(\\d)")
-                .matcher(response);
-        if (scoreMatch.find()) {
-            int score = Integer.parseInt(scoreMatch.group(1));
-            return Math.min(Math.max(score, 0), 3);
+        /** 버퍼를 내려쓴다 — 실패하면 마지막 flush 이후 행을 유실로 센다. */
+        private void flush(int unflushed) {
+            if (failed) {
+                return;
+            }
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                fail(e, unflushed);
+            }
         }
-        var numMatch = java.util.regex.Pattern.compile("\\b([0-3])\\b")
-                .matcher(response);
-        if (numMatch.find()) {
-            return Integer.parseInt(numMatch.group(1));
+
+        private void fail(IOException e, int lost) {
+            failed = true;
+            dropped.addAndGet(lost);
+            log.error("CSV 기록 실패 — 이후 행은 기록하지 않는다 (resume 시 다시 판정): {}", e.getMessage());
+        }
+
+        @Override
+        public void close() {
+            queue.add(EOF);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (dropped.get() > 0) {
+                log.error("CSV에 기록하지 못한 판정 결과 {}건 — 다음 실행에서 resume으로 다시 판정된다", dropped.get());
+            }
         }
-        return -1;
     }
 
     // ── Resume 지원: 이전에 완료된 (qid:postId) 쌍 로드 ──
@@ -294,6 +338,10 @@ public class LTRDataGenerationService {
         status.put("total", totalCount.get());
         status.put("success", successCount.get());
         status.put("fail", failCount.get());
+        status.put("dropped", droppedCount.get());
+        status.put("concurrency", concurrency);
+        status.put("batchSize", batchSize);
+        status.put("requestsPerMinute", requestsPerMinute);
         status.put("csvPath", dataPath);
         return status;
     }
@@ -309,12 +357,4 @@ public class LTRDataGenerationService {
         }
         return csvHeader() + "\n";
     }
-
-    private static String truncate(String s, int maxLen) {
-        return s != null && s.length() > maxLen ? s.substring(0, maxLen) + "..." : s;
-    }
-
-    private static void sleep(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
-    }
 }
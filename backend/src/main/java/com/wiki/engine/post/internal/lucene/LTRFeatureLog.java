@@ -0,0 +1,285 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Serve-time LTR 피처 로그 — 메모리 매핑 append-only 바이너리 로그.
+ *
+ * <p>배경: 학습 데이터는 {@code extractLTRFeatures}로 오프라인 재추출해 왔다.
+ * 재추출 시점의 viewCount/likeCount/인덱스 상태가 서빙 시점과 달라 학습-서빙 skew가 생기고,
+ * 쿼리마다 검색을 다시 돌려야 한다. 대신 rescorer가 실제로 계산한 피처 벡터를
+ * 검색 impression ID와 함께 기록하고, 이후 click_logs(impression_id, click_position, dwell_time_ms)와
+ * 조인하여 재계산 없이 학습 행을 만든다.
+ *
+ * <p>세그먼트 파일 포맷 ({@code features-*.ltrf}, little-endian, 고정 크기 → 임의 접근 가능):
+ * <pre>
+ * header (32B): magic "LTRF" | formatVersion | featureCount | recordSize | createdAtMillis | reserved
+ * record (96B): impressionId(long) | timestampMillis(long) | postId(long) | modelVersion(int, CRC32)
+ *               | position(int, 0-based 전체 순위) | ltrScore(float) | features(float × 14) | padding
+ * </pre>
+ * 세그먼트는 미리 segment-size-mb만큼 매핑되고 0으로 채워져 있다. impressionId=0인 슬롯은 빈 슬롯이다.
+ *
+ * <p>기록 경로 (요청 스레드):
+ * - 샘플링: impression ID 해시로 결정 → 같은 impression의 문서는 모두 기록되거나 모두 생략
+ * - 슬롯 예약은 AtomicInteger.getAndAdd 1회, 이후 absolute put만 사용 → lock/객체 할당 없음
+ * - impressionId를 마지막에 써서, 쓰다 만 슬롯은 빈 슬롯으로 보인다
+ * - 세그먼트가 차면 synchronized로 다음 세그먼트를 연다 (64MB 기준 약 70만 건마다 1회)
+ * 디스크 반영은 OS page cache에 맡기고, 10초마다 force()한다.
+ */
+@Slf4j
+@Component
+class LTRFeatureLog {
+
+    static final int MAGIC = 0x4652544C;  // "LTRF" (little-endian)
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 96;
+    static final String SEGMENT_SUFFIX = ".ltrf";
+
+    private static final int FEATURES_OFFSET = 36;
+
+    /** 오프라인 조인용 레코드 방문자 — features 배열은 레코드마다 재사용된다. */
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long impressionId, long timestampMillis, long postId, int modelVersion,
+                   int position, float ltrScore, float[] features);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger next = new AtomicInteger(HEADER_SIZE);
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /** 레코드 슬롯 offset 예약 — 공간이 없으면 -1. */
+        int reserve() {
+            int offset = next.getAndAdd(RECORD_SIZE);
+            return offset <= buffer.capacity() - RECORD_SIZE ? offset : -1;
+        }
+    }
+
+    @Value("${ltr.feature-log.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ltr.feature-log.dir:./data/ltr-feature-log}")
+    private String dir;
+
+    @Value("${ltr.feature-log.sample-rate:0.05}")
+    private double sampleRate;
+
+    @Value("${ltr.feature-log.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${ltr.feature-log.max-segments:32}")
+    private int maxSegments;
+
+    private final Counter recordsCounter;
+    private final Counter droppedCounter;
+
+    private volatile Segment current;
+    private int segmentSeq;
+
+    LTRFeatureLog(MeterRegistry meterRegistry) {
+        this.recordsCounter = Counter.builder("ltr_feature_log_records_total")
+                .description("serve-time 피처 로그에 기록된 문서 수")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("ltr_feature_log_dropped_total")
+                .description("세그먼트 생성 실패 등으로 기록하지 못한 문서 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(dir));
+            current = openSegment();
+            log.info("LTR 피처 로그 활성화: dir={}, sample-rate={}, segment={}MB", dir, sampleRate, segmentSizeMb);
+        } catch (IOException e) {
+            log.error("LTR 피처 로그 초기화 실패 — 기록 비활성화: {}", e.getMessage());
+        }
+    }
+
+    /** 새 impression ID — 0이 아닌 63비트 난수 (노드 간 조율 없이 충돌 확률 무시 가능). */
+    static long newImpressionId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+        } while (id == 0);
+        return id;
+    }
+
+    /** 이 impression을 기록할지 — ID 해시 기반이라 같은 impression은 항상 같은 결정. */
+    boolean shouldLog(long impressionId) {
+        if (current == null || impressionId == 0) {
+            return false;
+        }
+        long h = impressionId * 0x9E3779B97F4A7C15L;
+        return (h >>> 11) * 0x1.0p-53 < sampleRate;
+    }
+
+    /**
+     * 문서 1건의 피처 벡터를 기록한다 (할당 없음).
+     *
+     * @param features       rescorer의 flat 피처 배열
+     * @param featureOffset  이 문서 피처의 시작 인덱스
+     */
+    void append(long impressionId, long postId, int modelVersion, int position, float ltrScore,
+                float[] features, int featureOffset) {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        int offset = segment.reserve();
+        if (offset < 0) {
+            segment = roll(segment);
+            offset = segment != null ? segment.reserve() : -1;
+            if (offset < 0) {
+                droppedCounter.increment();
+                return;
+            }
+        }
+
+        MappedByteBuffer buf = segment.buffer;
+        buf.putLong(offset + 8, System.currentTimeMillis());
+        buf.putLong(offset + 16, postId);
+        buf.putInt(offset + 24, modelVersion);
+        buf.putInt(offset + 28, position);
+        buf.putFloat(offset + 32, ltrScore);
+        for (int f = 0; f < LTRFeatureExtractor.FEATURE_COUNT; f++) {
+            buf.putFloat(offset + FEATURES_OFFSET + f * Float.BYTES, features[featureOffset + f]);
+        }
+        buf.putLong(offset, impressionId);
+        recordsCounter.increment();
+    }
+
+    @Scheduled(fixedDelay = 10_000)
+    void force() {
+        Segment segment = current;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        Segment segment = current;
+        current = null;
+        if (segment != null) {
+            closeSegment(segment);
+        }
+    }
+
+    /** 가득 찬 세그먼트를 닫고 다음 세그먼트를 연다. 다른 스레드가 이미 교체했으면 그것을 반환. */
+    private synchronized Segment roll(Segment full) {
+        if (current != full) {
+            return current;
+        }
+        try {
+            Segment next = openSegment();
+            current = next;
+            closeSegment(full);
+            deleteOldSegments();
+            return next;
+        } catch (IOException e) {
+            log.error("LTR 피처 로그 세그먼트 생성 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = Path.of(dir).resolve(String.format("features-%d-%04d%s",
+                System.currentTimeMillis(), segmentSeq++ % 10_000, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = (long) segmentSizeMb * 1024 * 1024;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, LTRFeatureExtractor.FEATURE_COUNT);
+        buffer.putInt(12, RECORD_SIZE);
+        buffer.putLong(16, System.currentTimeMillis());
+        return new Segment(path, channel, buffer);
+    }
+
+    /**
+     * 세그먼트를 디스크에 반영하고 채널을 닫는다.
+     * 매핑은 GC 시 해제되므로, 교체 직전에 슬롯을 예약한 스레드의 기록도 유실되지 않는다.
+     */
+    private void closeSegment(Segment segment) {
+        try {
+            segment.buffer.force();
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("LTR 피처 로그 세그먼트 닫기 실패: {} — {}", segment.path, e.getMessage());
+        }
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(Path.of(dir))) {
+            segments = files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * 세그먼트 파일을 읽어 유효 레코드를 방문한다 — click_logs 조인 배치용.
+     * 빈 슬롯(impressionId=0)은 건너뛴다.
+     */
+    static void read(Path segmentPath, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("LTR 피처 로그 포맷 불일치: " + segmentPath);
+            }
+            int featureCount = buf.getInt(8);
+            int recordSize = buf.getInt(12);
+            float[] features = new float[featureCount];
+            for (int offset = HEADER_SIZE; offset <= buf.capacity() - recordSize; offset += recordSize) {
+                long impressionId = buf.getLong(offset);
+                if (impressionId == 0) {
+                    continue;
+                }
+                for (int f = 0; f < featureCount; f++) {
+                    features[f] = buf.getFloat(offset + FEATURES_OFFSET + f * Float.BYTES);
+                }
+                visitor.visit(impressionId, buf.getLong(offset + 8), buf.getLong(offset + 16),
+                        buf.getInt(offset + 24), buf.getInt(offset + 28), buf.getFloat(offset + 32), features);
+            }
+        }
+    }
+}
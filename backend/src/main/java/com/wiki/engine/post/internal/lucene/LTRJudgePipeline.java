@@ -0,0 +1,229 @@
+package com.wiki.engine.post.internal.lucene;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * LLM 판정 파이프라인 — 동시 워커 + 공유 토큰 버킷 + 배치 프롬프트.
+ *
+ * <p>기존 방식은 (query, doc) 1쌍 × 3라운드를 순차 호출하고 라운드 사이 5초를 잤다.
+ * 병목은 provider 쿼터인데 실제로는 대기 시간이 대부분이었다.
+ * - 배치: 프롬프트 1회에 같은 쿼리의 문서 batch-size건을 함께 판정 → 호출 수 1/batch-size
+ * - 동시성: concurrency개 워커가 배치를 병렬 처리, 호출 속도는 {@link TokenBucketRateLimiter}가 쿼터로 제한
+ * - 고정 sleep 없음: 토큰이 있으면 즉시 호출
+ *
+ * <p>LLM 호출은 {@code Function<String, String>}(prompt → 응답)으로 주입받는다.
+ * 운영에서는 ChatClient, 테스트/처리량 측정에서는 지연만 흉내 내는 stub을 넣는다.
+ */
+@Slf4j
+final class LTRJudgePipeline {
+
+    /** 같은 쿼리의 문서 묶음 — 프롬프트 1회 단위. */
+    record JudgeBatch(int qIdx, String query, List<LuceneSearchService.LTRDocFeatures> docs) {}
+
+    /** 배치 판정 결과 콜백 — relevances[i]는 docs[i]의 0~3 등급, 실패 시 -1. 워커 스레드에서 호출된다. */
+    @FunctionalInterface
+    interface BatchResultHandler {
+        void onJudged(JudgeBatch batch, int[] relevances);
+    }
+
+    static final String BATCH_JUDGE_PROMPT = """
+            You are a search relevance expert. Given a search query and a numbered list of documents,
+            rate how relevant each document is to the query.
+
+            Scale:
+            - 0 (Irrelevant): Document has no relation to the query
+            - 1 (Marginally Relevant): Document mentions the topic but doesn't answer the query
+            - 2 (Relevant): Document partially answers or is closely related to the query
+            - 3 (Highly Relevant): Document directly and comprehensively answers the query
+
+            Think step by step for each document:
+            1. What is the user's intent behind this query?
+            2. Does the document address this intent?
+            3. How completely does it address the intent?
+
+            Query: %s
+
+            Documents:
+            %s
+            Judge every document independently.
+            Respond with ONLY a JSON object:
+            {"results": [{"doc": 1, "reasoning": "brief explanation", "score": N}, ...]}
+            """;
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final int SNIPPET_CHARS = 300;
+
+    private final Function<String, String> llm;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int concurrency;
+    private final int rounds;
+    private final int maxRetries;
+    private final long retryBaseDelayMs;
+
+    LTRJudgePipeline(Function<String, String> llm, TokenBucketRateLimiter rateLimiter,
+                     int concurrency, int rounds, int maxRetries, long retryBaseDelayMs) {
+        this.llm = llm;
+        this.rateLimiter = rateLimiter;
+        this.concurrency = Math.max(1, concurrency);
+        this.rounds = rounds;
+        this.maxRetries = maxRetries;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+    }
+
+    /**
+     * 모든 배치를 판정하고 끝날 때까지 대기한다.
+     * 결과는 완료 순서대로 handler에 전달된다 (쿼리 순서 보장 없음).
+     */
+    void run(List<JudgeBatch> batches, BatchResultHandler handler) {
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+                concurrency, Thread.ofVirtual().name("ltr-judge-", 0).factory())) {
+            for (JudgeBatch batch : batches) {
+                executor.execute(() -> {
+                    try {
+                        handler.onJudged(batch, judge(batch));
+                    } catch (Exception e) {
+                        log.error("LTR 배치 판정 실패: query='{}', error={}", batch.query(), e.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 배치 1개를 rounds회 판정 → 문서별 평균 → 반올림 (non-deterministic 대응).
+     * Graded relevance(0~3)에서는 Majority Voting보다 Averaging이 분산을 줄여 적합.
+     */
+    int[] judge(JudgeBatch batch) {
+        int n = batch.docs().size();
+        String prompt = buildPrompt(batch.query(), batch.docs());
+
+        int[] sums = new int[n];
+        int[] counts = new int[n];
+        for (int round = 0; round < rounds; round++) {
+            int[] scores = callWithRetry(prompt, n, batch.query(), round);
+            for (int i = 0; i < n; i++) {
+                if (scores[i] >= 0) {
+                    sums[i] += scores[i];
+                    counts[i]++;
+                }
+            }
+        }
+
+        int[] relevances = new int[n];
+        for (int i = 0; i < n; i++) {
+            relevances[i] = counts[i] == 0 ? -1 : Math.round((float) sums[i] / counts[i]);
+        }
+        return relevances;
+    }
+
+    /**
+     * LLM 호출 + 지수 백오프 재시도 (10초 → 20초).
+     * 재시도도 토큰을 소비한다 — 429 직후 쿼터를 더 두드리지 않기 위함.
+     */
+    private int[] callWithRetry(String prompt, int docCount, String query, int round) {
+        for (int retry = 0; retry <= maxRetries; retry++) {
+            try {
+                if (retry > 0) {
+                    long backoff = retryBaseDelayMs * (1L << (retry - 1));
+                    log.debug("재시도 대기 {}ms (round {}, retry {})", backoff, round + 1, retry);
+                    Thread.sleep(backoff);
+                }
+                rateLimiter.acquire();
+                return parseScores(llm.apply(prompt), docCount);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (retry == maxRetries) {
+                    log.warn("LLM 판정 실패 (round {}, {}회 시도): query='{}', error={}",
+                            round + 1, retry + 1, query, e.getMessage());
+                }
+            }
+        }
+        return failed(docCount);
+    }
+
+    static String buildPrompt(String query, List<LuceneSearchService.LTRDocFeatures> docs) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < docs.size(); i++) {
+            var doc = docs.get(i);
+            String snippet = doc.snippet() != null ? doc.snippet() : "";
+            if (snippet.length() > SNIPPET_CHARS) {
+                snippet = snippet.substring(0, SNIPPET_CHARS);
+            }
+            sb.append('[').append(i + 1).append("] Title: ").append(doc.title()).append('\n')
+              .append("Content (first ").append(SNIPPET_CHARS).append(" chars): ").append(snippet).append("\n\n");
+        }
+        return String.format(BATCH_JUDGE_PROMPT, query, sb);
+    }
+
+    /**
+     * 배치 응답에서 문서별 점수를 추출한다. 누락/범위 밖 문서는 -1.
+     * 문서 1건이면 {"score": N} 단건 응답도 허용한다.
+     *
+     * <p>응답의 첫 '{'부터 마지막 '}'까지를 JSON 객체로 파싱한다 — 코드 펜스(```json)나 앞뒤 설명 문장은 무시되고,
+     * reasoning 안의 괄호/따옴표/"score" 문자열이 점수로 잘못 잡히지 않는다.
+     * 파싱할 수 없는 응답은 전체 실패(-1)로 처리해 재시도/다른 라운드에 맡긴다.
+     */
+    static int[] parseScores(String response, int docCount) {
+        int[] scores = failed(docCount);
+        JsonNode root = parseObject(response);
+        if (root == null) {
+            return scores;
+        }
+        for (JsonNode result : root.path("results")) {
+            JsonNode doc = result.path("doc");
+            int docIdx = doc.isIntegralNumber() ? doc.intValue() - 1 : -1;
+            if (docIdx >= 0 && docIdx < docCount) {
+                scores[docIdx] = scoreOf(result);
+            }
+        }
+        if (docCount == 1 && scores[0] < 0) {
+            scores[0] = scoreOf(root);
+        }
+        return scores;
+    }
+
+    private static JsonNode parseObject(String response) {
+        if (response == null) {
+            return null;
+        }
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return null;
+        }
+        try {
+            JsonNode root = JSON.readTree(response.substring(start, end + 1));
+            return root.isObject() ? root : null;
+        } catch (JacksonException e) {
+            log.debug("LTR 판정 응답 JSON 파싱 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** "score" 필드 (0~3, 3 초과는 3). 없거나 숫자가 아니거나 음수면 -1. */
+    private static int scoreOf(JsonNode node) {
+        JsonNode score = node.path("score");
+        if (!score.isNumber()) {
+            return -1;
+        }
+        long value = Math.round(score.doubleValue());
+        return value < 0 ? -1 : (int) Math.min(value, 3);
+    }
+
+    private static int[] failed(int docCount) {
+        int[] scores = new int[docCount];
+        Arrays.fill(scores, -1);
+        return scores;
+    }
+}
@@ -0,0 +1,236 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ml.dmlc.xgboost4j.java.Booster;
+import ml.dmlc.xgboost4j.java.XGBoost;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * LTR 모델 레지스트리 — 감시 디렉토리 기반 핫 리로드 + 섀도 모델.
+ *
+ * <p>디렉토리 구조 ({@code ltr.model-dir}):
+ * <pre>
+ * active.xgb   — 서빙 모델 (필수)
+ * shadow.xgb   — 섀도 모델 (선택, 응답에 영향 없이 샘플 트래픽만 비동기 채점)
+ * </pre>
+ * 배포는 임시 파일에 쓴 뒤 {@code mv}(rename)로 교체한다 — 부분 기록된 파일을 읽지 않기 위함.
+ *
+ * <p>교체 방식: 새 모델을 로드 + 더미 추론으로 검증한 뒤 volatile 참조만 교체한다.
+ * 요청 경로는 volatile read 1회로 모델을 고정하므로 lock이 없고,
+ * 진행 중인 요청은 이전 Booster로 끝까지 추론한다 (이전 Booster는 GC가 해제).
+ * 내려간 모델의 버전 타이머는 다른 슬롯(active/shadow)이 같은 버전을 쓰지 않으면 레지스트리에서 제거한다 —
+ * 배포마다 model 태그 시계열이 쌓이지 않게. 롤백으로 같은 버전이 다시 올라오면 타이머도 새로 등록된다.
+ *
+ * <p>모델 버전 = 파일 내용의 CRC32. 노드마다 같은 파일이면 같은 버전 태그가 붙어
+ * Grafana에서 노드 간 비교가 가능하다.
+ *
+ * <p>model-dir이 비어 있으면 기존처럼 {@code ltr.model-path}(classpath)만 1회 로드한다.
+ */
+@Slf4j
+@Component
+class LTRModelRegistry {
+
+    static final String ACTIVE_FILE = "active.xgb";
+    static final String SHADOW_FILE = "shadow.xgb";
+
+    /**
+     * 로드된 모델 + 버전별 타이머.
+     * 타이머를 모델과 함께 보관하여 요청 경로에서 meter 조회(tag 해시)를 하지 않는다.
+     * versionCrc는 version의 int 값 — 피처 로그 레코드에 기록된다.
+     */
+    record LoadedModel(String version, int versionCrc, Booster booster,
+                       Timer inferenceTimer, Timer featureTimer) {}
+
+    private record FileStamp(long lastModified, long size) {}
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ltr.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ltr.model-path:classpath:ltr/model.xgb}")
+    private Resource fallbackResource;
+
+    @Value("${ltr.model-dir:}")
+    private String modelDir;
+
+    private volatile LoadedModel active;
+    private volatile LoadedModel shadow;
+    private volatile FileStamp activeStamp;
+    private volatile FileStamp shadowStamp;
+
+    LTRModelRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (hasModelDir() && Files.exists(modelPath(ACTIVE_FILE))) {
+            reloadIfChanged();
+            return;
+        }
+        try {
+            if (!fallbackResource.exists()) {
+                log.warn("LTR 모델 파일 없음: {} — BM25 순위 유지", fallbackResource);
+                return;
+            }
+            try (InputStream is = fallbackResource.getInputStream()) {
+                active = load(is.readAllBytes());
+            }
+            log.info("LTR 모델 로드 완료: {} (version={})", fallbackResource.getFilename(), active.version());
+        } catch (Exception e) {
+            log.error("LTR 모델 로드 실패: {} — BM25 순위 유지", e.getMessage());
+        }
+    }
+
+    /**
+     * 모델 디렉토리를 폴링하여 변경된 파일만 다시 로드한다.
+     * (lastModified, size)가 같으면 파일을 읽지 않는다.
+     */
+    @Scheduled(fixedDelayString = "${ltr.model-poll-interval-ms:10000}")
+    void reloadIfChanged() {
+        if (!enabled || !hasModelDir()) {
+            return;
+        }
+
+        Path activePath = modelPath(ACTIVE_FILE);
+        FileStamp stamp = stampOf(activePath);
+        if (stamp != null && !stamp.equals(activeStamp)) {
+            LoadedModel loaded = loadFile(activePath, active);
+            if (loaded != null) {
+                LoadedModel previous = active;
+                active = loaded;
+                log.info("LTR active 모델 교체: {} → {}",
+                        previous != null ? previous.version() : "none", loaded.version());
+                retire(previous);
+            }
+            activeStamp = stamp;
+        }
+
+        Path shadowPath = modelPath(SHADOW_FILE);
+        FileStamp shadowFileStamp = stampOf(shadowPath);
+        if (shadowFileStamp == null) {
+            if (shadow != null) {
+                LoadedModel previous = shadow;
+                log.info("LTR shadow 모델 제거: {}", previous.version());
+                shadow = null;
+                retire(previous);
+            }
+            shadowStamp = null;
+        } else if (!shadowFileStamp.equals(shadowStamp)) {
+            LoadedModel loaded = loadFile(shadowPath, shadow);
+            if (loaded != null) {
+                LoadedModel previous = shadow;
+                shadow = loaded;
+                log.info("LTR shadow 모델 로드: {}", loaded.version());
+                retire(previous);
+            }
+            shadowStamp = shadowFileStamp;
+        }
+    }
+
+    /** 서빙 모델 (없으면 null → BM25 순위 유지). */
+    LoadedModel active() {
+        return active;
+    }
+
+    /** 섀도 모델 (없으면 null). */
+    LoadedModel shadow() {
+        return shadow;
+    }
+
+    /**
+     * 파일에서 모델을 로드한다. 내용(CRC32)이 현재 모델과 같으면 재사용한다 (touch만 된 경우).
+     * 로드/검증 실패 시 null — 호출자는 기존 모델을 유지한다.
+     */
+    private LoadedModel loadFile(Path path, LoadedModel current) {
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (current != null && current.version().equals(versionOf(bytes))) {
+                return current;
+            }
+            return load(bytes);
+        } catch (Exception e) {
+            log.error("LTR 모델 로드 실패: {} — 기존 모델 유지: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Booster를 로드하고 피처 수가 맞는지 더미 추론으로 검증한다.
+     * 피처 스키마가 다른 모델이 올라오면 서빙 경로에 들어가기 전에 여기서 거부된다.
+     */
+    private LoadedModel load(byte[] bytes) throws Exception {
+        Booster booster = XGBoost.loadModel(new ByteArrayInputStream(bytes));
+        booster.inplace_predict(new float[LTRFeatureExtractor.FEATURE_COUNT], 1,
+                LTRFeatureExtractor.FEATURE_COUNT, Float.NaN);
+
+        String version = versionOf(bytes);
+        int versionCrc = (int) Long.parseLong(version, 16);
+        Timer inferenceTimer = Timer.builder("ltr_inference")
+                .tag("model", version)
+                .description("LTR 모델 배치 추론 시간 (rescore window 전체)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Timer featureTimer = Timer.builder("ltr_feature_extraction")
+                .tag("model", version)
+                .description("LTR 피처 추출 시간 (rescore window 전체)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return new LoadedModel(version, versionCrc, booster, inferenceTimer, featureTimer);
+    }
+
+    /** 내려간 모델의 버전 타이머 제거 — active/shadow 중 같은 버전이 남아 있으면 유지. */
+    private void retire(LoadedModel unloaded) {
+        if (unloaded == null || isServing(active, unloaded) || isServing(shadow, unloaded)) {
+            return;
+        }
+        meterRegistry.remove(unloaded.inferenceTimer());
+        meterRegistry.remove(unloaded.featureTimer());
+    }
+
+    private static boolean isServing(LoadedModel model, LoadedModel unloaded) {
+        return model != null && model.version().equals(unloaded.version());
+    }
+
+    private static String versionOf(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static FileStamp stampOf(Path path) {
+        try {
+            if (!Files.isRegularFile(path)) {
+                return null;
+            }
+            return new FileStamp(Files.getLastModifiedTime(path).toMillis(), Files.size(path));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean hasModelDir() {
+        return modelDir != null && !modelDir.isBlank();
+    }
+
+    private Path modelPath(String fileName) {
+        return Path.of(modelDir).resolve(fileName);
+    }
+}
@@ -1,18 +1,28 @@
 package com.wiki.engine.post.internal.lucene;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import ml.dmlc.xgboost4j.java.Booster;
-import ml.dmlc.xgboost4j.java.XGBoost;
 import ml.dmlc.xgboost4j.java.XGBoostError;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * LTR Rescorer — XGBoost4J로 LambdaMART 모델 추론.
@@ -27,14 +37,37 @@ import java.util.*;
  * - ARM64 Linux (OCI Ampere A1) 네이티브 라이브러리 JAR에 번들 포함
  * - inplace_predict()가 thread-safe — 웹서버 동시 요청 처리에 적합
  *
+ * <p>Cascade: linear(doc values) → XGBoost(top slice). slice 크기는 {@link LTRCascadePolicy}가
+ * 요청당 지연 예산과 최근 p95로 조절한다. 단계별 실행 횟수는 {@code ltr_cascade_stage_total}.
+ * 기본은 꺼져 있다 — {@code /admin/lucene/evaluate}의 full vs cascade 비교로 품질 손실을 확인한 뒤 켠다.
+ *
+ * <p>모델 로딩/교체는 {@link LTRModelRegistry}가 담당한다 (감시 디렉토리 핫 리로드).
+ * 요청마다 active 모델을 한 번만 읽어 고정하므로, 처리 도중 모델이 교체되어도
+ * 피처 추출 ~ 추론이 같은 모델 버전으로 끝난다.
+ *
+ * <p>섀도 채점: shadow 모델이 있으면 {@code ltr.shadow.sample-rate} 비율의 요청에 대해
+ * 이미 추출한 피처를 그대로 넘겨 별도 스레드에서 추론한다. 응답 경로는 큐 offer만 하고,
+ * 큐가 가득 차면 버린다 (섀도 때문에 서빙 지연이 늘지 않도록).
+ * active 대비 Top-10 일치율을 {@code ltr_shadow_topk_overlap}으로 기록한다.
+ *
  * <p>모델 파일이 없으면 BM25 순위를 그대로 사용 (graceful degradation).
  */
 @Slf4j
 @Component
 public class LTRRescorer {
 
-    @Value("${ltr.model-path:classpath:ltr/model.xgb}")
-    private Resource modelResource;
+    private static final int SHADOW_QUEUE_CAPACITY = 32;
+    private static final int SHADOW_OVERLAP_K = 10;
+    private static final int LINEAR_WEIGHT_COUNT = 4;
+
+    private final LTRModelRegistry modelRegistry;
+    private final LTRCascadePolicy cascadePolicy;
+    private final LTRFeatureLog featureLog;
+    private final MeterRegistry meterRegistry;
+    private final Counter shadowDroppedCounter;
+    private final Counter linearStageCounter;
+    private final Counter xgboostStageCounter;
+    private final Counter skippedStageCounter;
 
     @Value("${ltr.enabled:false}")
     private boolean enabled;
@@ -42,42 +75,120 @@ public class LTRRescorer {
     @Value("${ltr.rescore-window:200}")
     private int rescoreWindow;
 
-    private Booster booster;
-    private boolean modelLoaded = false;
+    /** cascade linear 단계 가중치: bm25(정규화), log1p(viewCount), log1p(likeCount), ageDays — 기동 시 개수 검증. */
+    @Value("${ltr.cascade.linear-weights:1.0,0.02,0.02,-0.0005}")
+    private float[] linearWeights;
 
-    @PostConstruct
-    void init() {
-        if (!enabled) {
-            log.info("LTR 비활성화 (ltr.enabled=false)");
-            return;
-        }
+    @Value("${ltr.shadow.sample-rate:0.1}")
+    private double shadowSampleRate;
 
-        try {
-            if (!modelResource.exists()) {
-                log.warn("LTR 모델 파일 없음: {} — BM25 순위 유지", modelResource);
-                return;
-            }
+    /**
+     * 섀도 추론 전용 단일 스레드 — 네이티브 추론이 CPU 바운드이므로 서빙 스레드와 경쟁을 최소화.
+     * 큐가 가득 차면 요청 스레드를 막지 않고 버린 뒤 드롭 카운트만 올린다.
+     */
+    private final ThreadPoolExecutor shadowExecutor;
 
-            booster = XGBoost.loadModel(modelResource.getInputStream());
-            modelLoaded = true;
-            log.info("LTR XGBoost 모델 로드 완료: {}", modelResource.getFilename());
-        } catch (Exception e) {
-            log.error("LTR 모델 로드 실패: {} — BM25 순위 유지", e.getMessage());
+    LTRRescorer(LTRModelRegistry modelRegistry, LTRCascadePolicy cascadePolicy,
+                LTRFeatureLog featureLog, MeterRegistry meterRegistry) {
+        this.modelRegistry = modelRegistry;
+        this.cascadePolicy = cascadePolicy;
+        this.featureLog = featureLog;
+        this.meterRegistry = meterRegistry;
+        this.linearStageCounter = stageCounter(meterRegistry, "linear");
+        this.xgboostStageCounter = stageCounter(meterRegistry, "xgboost");
+        this.skippedStageCounter = stageCounter(meterRegistry, "skipped_confident");
+        this.shadowDroppedCounter = Counter.builder("ltr_shadow_dropped_total")
+                .description("섀도 큐 포화로 버려진 채점 요청 수")
+                .register(meterRegistry);
+        this.shadowExecutor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SHADOW_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ltr-shadow");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> shadowDroppedCounter.increment());
+    }
+
+    private static Counter stageCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("ltr_cascade_stage_total")
+                .tag("stage", stage)
+                .description("cascade 랭킹 단계별 실행 횟수")
+                .register(meterRegistry);
+    }
+
+    /** 가중치 개수가 틀리면 첫 cascade 요청에서 ArrayIndexOutOfBounds 대신 기동 실패로 알린다. */
+    @PostConstruct
+    void validateLinearWeights() {
+        if (linearWeights == null || linearWeights.length != LINEAR_WEIGHT_COUNT) {
+            throw new IllegalArgumentException("ltr.cascade.linear-weights는 " + LINEAR_WEIGHT_COUNT
+                    + "개(bm25, log1p(조회수), log1p(좋아요), 경과일)여야 한다: "
+                    + (linearWeights == null ? "null" : Arrays.toString(linearWeights)));
         }
     }
 
     @PreDestroy
     void destroy() {
         // XGBoost4J Booster는 별도 close 불필요 (GC가 네이티브 리소스 해제)
+        shadowExecutor.shutdownNow();
     }
 
     /**
-     * BM25 Top-N 결과를 XGBoost 모델로 재랭킹한다.
+     * 응답 1건의 impression ID(클릭 로그와 serve-time 피처 로그의 조인 키).
+     * 캐시 히트 응답도 매번 새로 발급하므로 같은 결과를 받은 사용자끼리 ID를 공유하지 않는다.
+     *
+     * @return impression ID, LTR 미적용이면 0
+     */
+    public long newImpressionId() {
+        return isEnabled() && isModelLoaded() ? LTRFeatureLog.newImpressionId() : 0L;
+    }
+
+    /**
+     * BM25 Top-N 결과를 XGBoost 모델로 재랭킹한다 — 상위 offset + limit + 1건 반환.
+     * {@code ltr.cascade.enabled}이면 cascade(linear → XGBoost top slice)로 동작한다.
+     *
+     * <p>impressionId가 샘플링되면 이 페이지에 나간 문서([offset, offset + limit) 중 XGBoost 단계를 거친 것)의
+     * 피처 행을 그 ID로 피처 로그에 바로 기록한다. 샘플링되지 않으면 행을 모으거나 복사하지 않는다.
+     *
+     * @param impressionId 이 응답의 impression ID, 기록하지 않으면 0
      */
     public ScoreDoc[] rescore(IndexSearcher searcher, TopDocs firstPassTopDocs,
                               String keyword, LTRFeatureExtractor featureExtractor,
-                              int topK) throws IOException {
-        if (!modelLoaded) {
+                              int offset, int limit, long impressionId) throws IOException {
+        ServedPage page = featureLog.shouldLog(impressionId)
+                ? new ServedPage(impressionId, offset, offset + limit)
+                : null;
+        return rescore(searcher, firstPassTopDocs, keyword, featureExtractor, offset + limit + 1,
+                cascadePolicy.isEnabled(), page);
+    }
+
+    /** 피처 로그에 기록할 응답 페이지 — 전체 순위 기준 [from, to). */
+    private record ServedPage(long impressionId, int from, int to) {}
+
+    /** 재랭킹 — cascade 여부를 명시한다 (평가 API에서 full window와 비교용, 피처 로그 미기록). */
+    public ScoreDoc[] rescore(IndexSearcher searcher, TopDocs firstPassTopDocs,
+                              String keyword, LTRFeatureExtractor featureExtractor,
+                              int topK, boolean cascade) throws IOException {
+        return rescore(searcher, firstPassTopDocs, keyword, featureExtractor, topK, cascade, null);
+    }
+
+    /**
+     * 재랭킹 본체.
+     *
+     * <p>Cascade:
+     * 1. linear 단계: rescore-window 전체를 doc values 피처(BM25 점수, 조회수, 좋아요, 작성일)만으로 재정렬.
+     *    stored fields/재분석이 없어 200건에 수십 us 수준.
+     * 0. BM25가 확신하는 쿼리(top1 ≫ top2)는 재랭킹 없이 BM25 순서 그대로 — linear 단계가 1위를 밀어내지 않도록.
+     * 3. XGBoost 단계: linear 순위 상위 slice만 14개 피처 추출 + 추론.
+     *    slice 크기는 {@link LTRCascadePolicy}가 지연 예산/부하로 결정한다.
+     * slice 밖 문서는 linear 순서를 유지한 채 뒤에 붙는다.
+     */
+    private ScoreDoc[] rescore(IndexSearcher searcher, TopDocs firstPassTopDocs,
+                               String keyword, LTRFeatureExtractor featureExtractor,
+                               int topK, boolean cascade, ServedPage page) throws IOException {
+        LTRModelRegistry.LoadedModel model = modelRegistry.active();
+        if (model == null) {
             return Arrays.copyOf(firstPassTopDocs.scoreDocs,
                     Math.min(topK, firstPassTopDocs.scoreDocs.length));
         }
@@ -86,18 +197,39 @@ public class LTRRescorer {
         if (docsToRescore == 0) {
             return new ScoreDoc[0];
         }
-        ScoreDoc[] docs = Arrays.copyOf(firstPassTopDocs.scoreDocs, docsToRescore);
+        long rescoreStart = System.nanoTime();
 
-        // 피처 추출
-        float[] flatFeatures = new float[docsToRescore * LTRFeatureExtractor.FEATURE_COUNT];
+        // 원본 ScoreDoc은 highlighter가 BM25 점수로 다시 쓰므로 복사본에 점수를 기록한다
+        ScoreDoc[] docs = new ScoreDoc[docsToRescore];
         for (int i = 0; i < docsToRescore; i++) {
+            ScoreDoc sd = firstPassTopDocs.scoreDocs[i];
+            docs[i] = new ScoreDoc(sd.doc, sd.score, sd.shardIndex);
+        }
+
+        int xgboostWindow = docsToRescore;
+        if (cascade) {
+            if (docsToRescore > 1 && cascadePolicy.isConfident(docs[0].score, docs[1].score)) {
+                skippedStageCounter.increment();
+                cascadePolicy.recordRescore(System.nanoTime() - rescoreStart);
+                return Arrays.copyOf(docs, Math.min(topK, docs.length));
+            }
+            linearStage(searcher, docs);
+            linearStageCounter.increment();
+            xgboostWindow = cascadePolicy.xgboostWindow(docsToRescore, topK);
+        }
+
+        // 피처 추출
+        long featureStart = System.nanoTime();
+        float[] flatFeatures = new float[xgboostWindow * LTRFeatureExtractor.FEATURE_COUNT];
+        for (int i = 0; i < xgboostWindow; i++) {
             float[] docFeatures = featureExtractor.extractFeatures(searcher, docs[i].doc, keyword);
             System.arraycopy(docFeatures, 0, flatFeatures,
                     i * LTRFeatureExtractor.FEATURE_COUNT, LTRFeatureExtractor.FEATURE_COUNT);
         }
+        model.featureTimer().record(System.nanoTime() - featureStart, TimeUnit.NANOSECONDS);
 
         // XGBoost4J 추론
-        float[] ltrScores = predict(flatFeatures, docsToRescore);
+        float[] ltrScores = predict(model, flatFeatures, xgboostWindow);
 
         // 추론 실패(null) 시 BM25 원본 순위 유지
         if (ltrScores == null) {
@@ -105,16 +237,114 @@ public class LTRRescorer {
             return Arrays.copyOf(firstPassTopDocs.scoreDocs,
                     Math.min(topK, firstPassTopDocs.scoreDocs.length));
         }
+        xgboostStageCounter.increment();
+        cascadePolicy.recordXgboostCost(System.nanoTime() - featureStart, xgboostWindow);
 
-        // LTR 점수로 재정렬
-        for (int i = 0; i < docsToRescore; i++) {
+        submitShadow(model, flatFeatures, ltrScores, xgboostWindow);
+
+        // 정렬 전 행 순서 보존 (피처 행 기록: 정렬 후 문서 → flatFeatures 행 매핑용)
+        int[] rowDocs = null;
+        if (page != null) {
+            rowDocs = new int[xgboostWindow];
+            for (int i = 0; i < xgboostWindow; i++) {
+                rowDocs[i] = docs[i].doc;
+            }
+        }
+
+        // LTR 점수로 재정렬 (slice 내부만 — slice 밖은 linear 순서 유지)
+        for (int i = 0; i < xgboostWindow; i++) {
             docs[i].score = ltrScores[i];
         }
-        Arrays.sort(docs, (a, b) -> Float.compare(b.score, a.score));
+        Arrays.sort(docs, 0, xgboostWindow, (a, b) -> Float.compare(b.score, a.score));
+
+        if (rowDocs != null) {
+            logServedFeatures(searcher, model, docs, page.from(), Math.min(page.to(), xgboostWindow),
+                    rowDocs, flatFeatures, page.impressionId());
+        }
 
+        cascadePolicy.recordRescore(System.nanoTime() - rescoreStart);
         return Arrays.copyOf(docs, Math.min(topK, docs.length));
     }
 
+    /**
+     * Cascade 1단계 — doc values만 읽는 선형 모델로 후보를 재정렬한다.
+     *
+     * <p>score = w0 * (bm25 / maxBm25) + w1 * log1p(viewCount) + w2 * log1p(likeCount) + w3 * ageDays
+     *
+     * <p>doc values는 세그먼트 내에서 앞으로만 advance 가능하므로 docId 순으로 방문한다.
+     * viewCount/likeCount/createdAt은 LongField라 SortedNumericDocValues가 함께 색인되어 있다.
+     */
+    private void linearStage(IndexSearcher searcher, ScoreDoc[] docs) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        float maxScore = docs[0].score > 0 ? docs[0].score : 1.0f;
+        long now = System.currentTimeMillis();
+
+        ScoreDoc[] byDocId = docs.clone();
+        Arrays.sort(byDocId, Comparator.comparingInt(sd -> sd.doc));
+
+        int currentLeaf = -1;
+        LeafReaderContext ctx = null;
+        SortedNumericDocValues views = null, likes = null, createdAt = null;
+        for (ScoreDoc sd : byDocId) {
+            int leafIndex = ReaderUtil.subIndex(sd.doc, leaves);
+            if (leafIndex != currentLeaf) {
+                currentLeaf = leafIndex;
+                ctx = leaves.get(leafIndex);
+                views = DocValues.getSortedNumeric(ctx.reader(), "viewCount");
+                likes = DocValues.getSortedNumeric(ctx.reader(), "likeCount");
+                createdAt = DocValues.getSortedNumeric(ctx.reader(), "createdAt");
+            }
+            int localDoc = sd.doc - ctx.docBase;
+            long created = firstValue(createdAt, localDoc, now);
+            sd.score = linearWeights[0] * (sd.score / maxScore)
+                    + linearWeights[1] * (float) Math.log1p(firstValue(views, localDoc, 0))
+                    + linearWeights[2] * (float) Math.log1p(firstValue(likes, localDoc, 0))
+                    + linearWeights[3] * ((now - created) / 86_400_000f);
+        }
+        Arrays.sort(docs, (a, b) -> Float.compare(b.score, a.score));
+    }
+
+    /**
+     * 순위 [from, to) 문서의 피처 벡터를 피처 로그에 기록한다 — flatFeatures 행을 그대로 넘겨 복사하지 않는다.
+     * postId는 "id" 필드의 doc values(KeywordField)에서 읽는다 — stored fields 디코딩 없음.
+     */
+    private void logServedFeatures(IndexSearcher searcher, LTRModelRegistry.LoadedModel model, ScoreDoc[] docs,
+                                   int from, int to, int[] rowDocs, float[] flatFeatures, long impressionId) {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        try {
+            for (int position = from; position < to; position++) {
+                int doc = docs[position].doc;
+                int row = 0;
+                while (rowDocs[row] != doc) {
+                    row++;
+                }
+                LeafReaderContext ctx = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                SortedSetDocValues ids = DocValues.getSortedSet(ctx.reader(), "id");
+                if (!ids.advanceExact(doc - ctx.docBase)) {
+                    continue;
+                }
+                long postId = parseLong(ids.lookupOrd(ids.nextOrd()));
+                featureLog.append(impressionId, postId, model.versionCrc(), position, docs[position].score,
+                        flatFeatures, row * LTRFeatureExtractor.FEATURE_COUNT);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("LTR 피처 행 기록 실패: {}", e.getMessage());
+        }
+    }
+
+    /** ASCII 숫자 BytesRef → long (String 할당 없이). */
+    private static long parseLong(BytesRef bytes) {
+        long value = 0;
+        for (int i = bytes.offset; i < bytes.offset + bytes.length; i++) {
+            value = value * 10 + (bytes.bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static long firstValue(SortedNumericDocValues values, int localDoc, long missing) throws IOException {
+        return values.advanceExact(localDoc) ? values.nextValue() : missing;
+    }
+
     /**
      * XGBoost4J inplace_predict로 배치 추론한다.
      *
@@ -122,9 +352,10 @@ public class LTRRescorer {
      * inplace_predict()는 DMatrix 생성 없이 flat float[]로 직접 추론하며,
      * 공유 상태를 변경하지 않아 thread-safe — 웹서버 동시 요청 처리에 적합.
      */
-    private float[] predict(float[] flatFeatures, int numRows) {
+    private float[] predict(LTRModelRegistry.LoadedModel model, float[] flatFeatures, int numRows) {
+        long start = System.nanoTime();
         try {
-            float[][] predictions = booster.inplace_predict(
+            float[][] predictions = model.booster().inplace_predict(
                     flatFeatures, numRows, LTRFeatureExtractor.FEATURE_COUNT, Float.NaN);
             // predictions[i][0] = i번째 문서의 LTR 점수
             float[] scores = new float[numRows];
@@ -133,13 +364,58 @@ public class LTRRescorer {
             }
             return scores;
         } catch (XGBoostError e) {
-            log.error("XGBoost 추론 실패: {}", e.getMessage());
+            log.error("XGBoost 추론 실패 (model={}): {}", model.version(), e.getMessage());
             return null;
+        } finally {
+            model.inferenceTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 샘플링된 요청의 피처를 섀도 스레드로 넘긴다.
+     * flatFeatures/activeScores는 이 요청 로컬 배열이고 이후 수정되지 않으므로 복사 없이 전달한다.
+     */
+    private void submitShadow(LTRModelRegistry.LoadedModel activeModel, float[] flatFeatures,
+                              float[] activeScores, int numRows) {
+        LTRModelRegistry.LoadedModel shadowModel = modelRegistry.shadow();
+        if (shadowModel == null || shadowSampleRate <= 0
+                || ThreadLocalRandom.current().nextDouble() >= shadowSampleRate) {
+            return;
         }
+        shadowExecutor.execute(
+                () -> scoreShadow(activeModel, shadowModel, flatFeatures, activeScores, numRows));
+    }
+
+    private void scoreShadow(LTRModelRegistry.LoadedModel activeModel, LTRModelRegistry.LoadedModel shadowModel,
+                             float[] flatFeatures, float[] activeScores, int numRows) {
+        float[] shadowScores = predict(shadowModel, flatFeatures, numRows);
+        if (shadowScores == null) {
+            return;
+        }
+        int k = Math.min(SHADOW_OVERLAP_K, numRows);
+        Set<Integer> activeTop = topIndices(activeScores, k);
+        Set<Integer> shadowTop = topIndices(shadowScores, k);
+        activeTop.retainAll(shadowTop);
+
+        DistributionSummary.builder("ltr_shadow_topk_overlap")
+                .tag("active", activeModel.version())
+                .tag("shadow", shadowModel.version())
+                .description("active 대비 shadow 모델의 Top-10 일치율 (0~1)")
+                .register(meterRegistry)
+                .record((double) activeTop.size() / k);
+    }
+
+    private static Set<Integer> topIndices(float[] scores, int k) {
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        return new HashSet<>(Arrays.asList(order).subList(0, k));
     }
 
     public boolean isModelLoaded() {
-        return modelLoaded;
+        return modelRegistry.active() != null;
     }
 
     public boolean isEnabled() {
@@ -149,4 +425,17 @@ public class LTRRescorer {
     public int getRescoreWindow() {
         return rescoreWindow;
     }
+
+    /** 관리자 API용 — 현재 active/shadow 모델 버전. */
+    public Map<String, Object> getModelStatus() {
+        LTRModelRegistry.LoadedModel active = modelRegistry.active();
+        LTRModelRegistry.LoadedModel shadow = modelRegistry.shadow();
+        var status = new LinkedHashMap<String, Object>();
+        status.put("enabled", enabled);
+        status.put("active", active != null ? active.version() : null);
+        status.put("shadow", shadow != null ? shadow.version() : null);
+        status.put("shadowSampleRate", shadowSampleRate);
+        status.put("shadowQueued", shadowExecutor.getQueue().size());
+        return status;
+    }
 }
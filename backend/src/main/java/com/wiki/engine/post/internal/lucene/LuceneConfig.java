@@ -68,6 +68,7 @@ class LuceneConfig {
      *
      * - 기본(title, content 등): Nori 한국어 형태소 분석기 (IC 제거)
      * - title_ngram: 2-3gram 문자 단위 분석기 (형태소 분석 우회)
+     * - title_suggest: 제목 변형 1개 = 토큰 1개 (completion 필드, TitleCompletion)
      *
      * Nori가 불완전한 입력("안녕하세")을 비표준적으로 토큰화하는 문제를
      * N-gram 필드로 보완한다. 검색 시 Nori 매칭(MUST) + N-gram 부스트(SHOULD)를
@@ -80,7 +81,9 @@ class LuceneConfig {
     Analyzer luceneAnalyzer() {
         Analyzer noriAnalyzer = createNoriAnalyzer();
         Analyzer ngramAnalyzer = createNgramAnalyzer();
-        return new PerFieldAnalyzerWrapper(noriAnalyzer, Map.of("title_ngram", ngramAnalyzer));
+        return new PerFieldAnalyzerWrapper(noriAnalyzer, Map.of(
+                "title_ngram", ngramAnalyzer,
+                TitleCompletion.FIELD, TitleCompletion.ANALYZER));
     }
 
     /**
@@ -142,6 +145,9 @@ class LuceneConfig {
     /**
      * Primary 모드에서만 IndexWriter 생성.
      * Replica 모드에서는 이 빈이 생성되지 않는다.
+     *
+     * codec은 기본 codec과 이름이 같아 replica는 별도 설정 없이 읽는다
+     * (completion postings format은 META-INF/services로 SPI 등록).
      */
     @Bean(destroyMethod = "close")
     @ConditionalOnProperty(name = "lucene.mode", havingValue = "primary", matchIfMissing = true)
@@ -151,6 +157,7 @@ class LuceneConfig {
         config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
         config.setRAMBufferSizeMB(256);
         config.setIndexDeletionPolicy(snapshotPolicy);
+        config.setCodec(TitleCompletion.codec());   // title_suggest 필드만 completion postings
         return new IndexWriter(directory, config);
     }
 
@@ -144,6 +144,7 @@ public class LuceneIndexService {
         if (startId == 0) {
             log.info("=== Lucene 전체 인덱싱 시작 (기존 인덱스 초기화) ===");
             indexWriter.deleteAll();
+            TitleCompletion.markReady(indexWriter, false);   // 끝날 때까지 자동완성은 PrefixQuery fallback
             indexWriter.commit(); // 멀티스레드 인덱싱 전에 깨끗한 상태 확보
         } else {
             log.info("=== Lucene 인덱싱 재개 (id={} 이후부터) ===", startId);
@@ -249,6 +250,9 @@ public class LuceneIndexService {
         }
 
         log.info("=== 최종 commit ===");
+        if (producerError.get() < 0) {
+            TitleCompletion.markReady(indexWriter, true);   // 모든 문서에 completion 필드 — 자동완성 전환
+        }
         indexWriter.commit();
 
         log.info("=== forceMerge 시작 (세그먼트 병합) ===");
@@ -270,6 +274,7 @@ public class LuceneIndexService {
      * - title: TextField (형태소 분석 + 검색 대상, stored)
      * - content: TextField (형태소 분석 + 검색 대상, not stored — 본문은 DB에서 조회)
      * - snippetSource: StoredField (앞 500자, UnifiedHighlighter용)
+     * - title_suggest: SuggestField (자동완성 completion, 가중치 = 조회수)
      * - categoryId: LongField (필터링/범위 쿼리용)
      * - viewCount: LongField (stored, 조회용) + FeatureField (랭킹 부스트용)
      * - likeCount: FeatureField (랭킹 부스트용)
@@ -296,6 +301,11 @@ public class LuceneIndexService {
                 post.getTitle().toLowerCase());
         doc.add(new StringField("title_jamo", titleJamo, Field.Store.NO));
 
+        // completion 자동완성 필드 — 원본/자모/초성 변형, 가중치 = 조회수 (TitleCompletion)
+        for (Field suggest : TitleCompletion.fields(post.getTitle(), post.getViewCount())) {
+            doc.add(suggest);
+        }
+
         // snippet용 plain text 저장 (UnifiedHighlighter 용)
         // 위키 마크업을 정리한 clean text를 저장해야 하이라이터가 정확하게 동작한다.
         // raw 마크업을 저장하면 마크업 토큰에서 매칭 시도 → 빈 snippet 발생.
@@ -1,7 +1,7 @@
 package com.wiki.engine.post.internal.lucene;
 
 import com.wiki.engine.post.Post;
-import com.wiki.engine.post.internal.PostRepository;
+import com.wiki.engine.post.internal.cache.PostDetailCache;
 import com.wiki.engine.post.internal.search.QueryExpansionService;
 import com.wiki.engine.post.internal.search.RecencyDecaySource;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +19,7 @@ import org.apache.lucene.facet.LabelAndValue;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -35,6 +36,7 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -53,7 +55,7 @@ public class LuceneSearchService {
 
     private final SearcherManager searcherManager;
     private final Analyzer analyzer;
-    private final PostRepository postRepository;
+    private final PostDetailCache postDetailCache;
     private final QueryExpansionService queryExpansionService;
     private final FacetsConfig facetsConfig;
     private final LTRRescorer ltrRescorer;
@@ -107,6 +109,15 @@ public class LuceneSearchService {
     public record SearchResult(Slice<Post> posts, Map<Long, String> snippets,
                                 Map<String, Long> categoryFacets) {}
 
+    /**
+     * 검색 응답 1건의 impression ID (클릭 로그 ↔ serve-time 피처 로그 조인 키).
+     *
+     * @return impression ID, LTR 미적용이면 0
+     */
+    public long newImpressionId() {
+        return ltrRescorer.newImpressionId();
+    }
+
     /**
      * 키워드 검색 — Slice + snippet 반환.
      * title과 content 필드를 동시에 검색하며, title에 더 높은 가중치를 부여한다.
@@ -115,6 +126,15 @@ public class LuceneSearchService {
      * @param categoryId null이면 전체 검색, 값이 있으면 해당 카테고리만 필터링.
      */
     public SearchResult search(String keyword, Long categoryId, Pageable pageable) throws IOException {
+        return search(keyword, categoryId, pageable, 0L);
+    }
+
+    /**
+     * @param impressionId 이 응답의 impression ID — 샘플링되면 LTR 재랭킹이 이 페이지에 나간 문서의
+     *                     피처 행을 기록한다. 0이면 기록하지 않는다.
+     */
+    public SearchResult search(String keyword, Long categoryId, Pageable pageable, long impressionId)
+            throws IOException {
         IndexSearcher searcher = searcherManager.acquire();
         try {
             Query query = buildQuery(keyword, categoryId);
@@ -138,7 +158,7 @@ public class LuceneSearchService {
             ScoreDoc[] finalDocs;
             if (ltrRescorer.isEnabled() && ltrRescorer.isModelLoaded()) {
                 ScoreDoc[] rescored = ltrRescorer.rescore(
-                        searcher, topDocs, keyword, ltrFeatureExtractor, offset + limit + 1);
+                        searcher, topDocs, keyword, ltrFeatureExtractor, offset, limit, impressionId);
                 finalDocs = rescored;
             } else {
                 finalDocs = topDocs.scoreDocs;
@@ -173,8 +193,8 @@ public class LuceneSearchService {
                 return new SearchResult(new SliceImpl<>(List.of(), pageable, false), Map.of(), Map.of());
             }
 
-            List<Post> posts = postRepository.findAllById(postIds);
-            posts.sort((a, b) -> postIds.indexOf(a.getId()) - postIds.indexOf(b.getId()));
+            // 게시글 상세 캐시(L1 → 샤드별 MGET → 미스만 findAllById)로 hydration, 순위 순서 유지
+            List<Post> posts = postDetailCache.getAll(postIds);
 
             boolean hasNext = finalDocs.length > offset + limit;
             return new SearchResult(new SliceImpl<>(posts, pageable, hasNext), snippetMap, categoryFacets);
@@ -215,63 +235,89 @@ public class LuceneSearchService {
     }
 
     /**
-     * 자동완성: title_raw 필드에서 prefix 매칭으로 상위 10건 반환.
-     *
-     * title_raw = StringField(untokenized, lowercased) — Nori 분석 없이 원본 제목 그대로.
-     * "성매" → PrefixQuery → "성매매" 정확 매칭. 한국어/영어 모두 동작.
+     * 자동완성: title_suggest completion 필드에서 조회수 순 상위 limit건 (TitleCompletion).
      *
-     * Nori-analyzed title 필드를 쓰면 "성매" → "성"으로 분해되어
-     * "성악가", "남한산성" 등 무관한 결과가 나오는 문제 해결.
+     * 세그먼트별 가중치 FST에서 상위 N개만 찾으므로 1~2글자 접두사도 시간이 제한되고,
+     * NRT reader에서 조회하므로 새 글/삭제가 refresh 즉시 반영된다.
+     * 자모("자ㅂ")/초성("ㅅㅅ")/띄어쓰기 포함("자바 가비지") 입력 모두 제목 접두사로 매칭.
      *
-     * 이 경로는 Redis 자동완성(메인)의 fallback으로만 사용.
-     * Redis: 검색 로그 기반 인기 검색어 제안 (CQRS 읽기 경로)
-     * Lucene: Redis 미스 시 문서 제목 기반 보조 제안
+     * 이 경로는 FST/Redis 자동완성(메인)의 fallback으로만 사용.
+     * 전체 재색인이 끝나지 않은 인덱스(completion 필드가 일부 문서에만 있음)는 title_raw/title_jamo PrefixQuery로 응답한다.
      */
     public List<String> autocomplete(String prefix, int limit) throws IOException {
         IndexSearcher searcher = searcherManager.acquire();
         try {
-            String normalized = prefix.toLowerCase().trim();
-            if (normalized.isEmpty()) {
-                return List.of();
+            if (hasCompletionField(searcher)) {
+                return TitleCompletion.suggest(searcher, prefix, limit);
             }
+            return prefixAutocomplete(searcher, prefix, limit);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
 
-            Query query;
-            if (normalized.contains(" ")) {
-                // 띄어쓰기 포함 ("자바 가비지") → BM25 title AND 검색
-                // PrefixQuery는 전체 문자열이 제목 시작과 일치해야 하므로 다중 단어 불가
-                try {
-                    var parser = new org.apache.lucene.queryparser.classic.MultiFieldQueryParser(
-                            new String[]{"title"}, analyzer);
-                    parser.setDefaultOperator(org.apache.lucene.queryparser.classic.QueryParser.Operator.AND);
-                    query = parser.parse(
-                            org.apache.lucene.queryparser.classic.QueryParser.escape(normalized));
-                } catch (org.apache.lucene.queryparser.classic.ParseException e) {
-                    return List.of();
-                }
-            } else if (com.wiki.engine.post.internal.autocomplete.JamoDecomposer.containsJamo(normalized)) {
-                // 자모 포함 ("자ㅂ", "ㅅㅅ") → title_jamo PrefixQuery
-                String decomposed = com.wiki.engine.post.internal.autocomplete.JamoDecomposer.decompose(normalized);
-                query = new PrefixQuery(new Term("title_jamo", decomposed));
-            } else {
-                // 완성된 한글/영어 ("황치열", "java") → title_raw PrefixQuery
-                // title_raw는 원본 제목 lowercase — StringField PrefixQuery로 직접 매칭
-                // title_jamo에서 완성 한글을 자모 분해하면 prefix 매칭 범위가 너무 넓어
-                // BooleanQuery.maxClauseCount를 초과할 수 있음
-                query = new PrefixQuery(new Term("title_raw", normalized));
-            }
+    /** reader별 completion 준비 여부 — segments_N 읽기는 reader가 바뀔 때만. */
+    private record CompletionReadiness(IndexReader reader, boolean ready) {}
 
-            TopDocs topDocs = searcher.search(query, limit);
+    private volatile CompletionReadiness completionReadiness;
 
-            StoredFields storedFields = searcher.storedFields();
-            List<String> titles = new ArrayList<>();
-            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                Document doc = storedFields.document(scoreDoc.doc);
-                titles.add(doc.get("title"));
+    /** 전체 재색인 완료 표시가 있는 commit 이후인지 (세그먼트에 필드가 있는 것만으로는 부족 — TitleCompletion 참고). */
+    private boolean hasCompletionField(IndexSearcher searcher) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        CompletionReadiness cached = completionReadiness;
+        if (cached == null || cached.reader() != reader) {
+            cached = new CompletionReadiness(reader, TitleCompletion.isReady(reader));
+            completionReadiness = cached;
+        }
+        return cached.ready();
+    }
+
+    /**
+     * 재색인 전 인덱스용 자동완성: title_raw 필드에서 prefix 매칭.
+     *
+     * title_raw = StringField(untokenized, lowercased) — Nori 분석 없이 원본 제목 그대로.
+     * "성매" → PrefixQuery → "성매매" 정확 매칭. 결과는 색인 순(인기순 아님).
+     */
+    private List<String> prefixAutocomplete(IndexSearcher searcher, String prefix, int limit) throws IOException {
+        String normalized = prefix.toLowerCase().trim();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        Query query;
+        if (normalized.contains(" ")) {
+            // 띄어쓰기 포함 ("자바 가비지") → BM25 title AND 검색
+            // PrefixQuery는 전체 문자열이 제목 시작과 일치해야 하므로 다중 단어 불가
+            try {
+                var parser = new org.apache.lucene.queryparser.classic.MultiFieldQueryParser(
+                        new String[]{"title"}, analyzer);
+                parser.setDefaultOperator(org.apache.lucene.queryparser.classic.QueryParser.Operator.AND);
+                query = parser.parse(
+                        org.apache.lucene.queryparser.classic.QueryParser.escape(normalized));
+            } catch (org.apache.lucene.queryparser.classic.ParseException e) {
+                return List.of();
             }
-            return titles;
-        } finally {
-            searcherManager.release(searcher);
+        } else if (com.wiki.engine.post.internal.autocomplete.JamoDecomposer.containsJamo(normalized)) {
+            // 자모 포함 ("자ㅂ", "ㅅㅅ") → title_jamo PrefixQuery
+            String decomposed = com.wiki.engine.post.internal.autocomplete.JamoDecomposer.decompose(normalized);
+            query = new PrefixQuery(new Term("title_jamo", decomposed));
+        } else {
+            // 완성된 한글/영어 ("황치열", "java") → title_raw PrefixQuery
+            // title_raw는 원본 제목 lowercase — StringField PrefixQuery로 직접 매칭
+            // title_jamo에서 완성 한글을 자모 분해하면 prefix 매칭 범위가 너무 넓어
+            // BooleanQuery.maxClauseCount를 초과할 수 있음
+            query = new PrefixQuery(new Term("title_raw", normalized));
         }
+
+        TopDocs topDocs = searcher.search(query, limit);
+
+        StoredFields storedFields = searcher.storedFields();
+        List<String> titles = new ArrayList<>();
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            Document doc = storedFields.document(scoreDoc.doc);
+            titles.add(doc.get("title"));
+        }
+        return titles;
     }
 
     private String analyzeFirstToken(String text) throws IOException {
@@ -330,6 +376,37 @@ public class LuceneSearchService {
 
     public record EvalDoc(long id, String title, float score, long viewCount) {}
 
+    /**
+     * LTR 평가용 검색 — 전체 랭킹 쿼리 + LTR 재랭킹.
+     * cascade=false면 rescore window 전체를 XGBoost로, true면 linear → XGBoost slice로 재랭킹한다.
+     * LTR 모델이 없으면 재랭킹 없이 1차 결과를 반환한다.
+     */
+    public List<EvalDoc> searchForEvalLtr(String keyword, int topN, boolean cascade) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Query query = buildQuery(keyword, null);
+            TopDocs topDocs = searcher.search(query, Math.max(ltrRescorer.getRescoreWindow(), topN));
+            ScoreDoc[] hits = ltrRescorer.isModelLoaded()
+                    ? ltrRescorer.rescore(searcher, topDocs, keyword, ltrFeatureExtractor, topN, cascade)
+                    : Arrays.copyOf(topDocs.scoreDocs, Math.min(topN, topDocs.scoreDocs.length));
+
+            StoredFields storedFields = searcher.storedFields();
+            List<EvalDoc> results = new ArrayList<>();
+            for (ScoreDoc scoreDoc : hits) {
+                Document doc = storedFields.document(scoreDoc.doc);
+                results.add(new EvalDoc(
+                        Long.parseLong(doc.get("id")),
+                        doc.get("title"),
+                        scoreDoc.score,
+                        Long.parseLong(doc.get("viewCount"))
+                ));
+            }
+            return results;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
     /**
      * LTR 학습 데이터 추출 — 주어진 키워드에 대해 BM25 Top-N 문서의 피처를 추출한다.
      *
@@ -431,77 +508,29 @@ public class LuceneSearchService {
      * 동의어 확장이 적용된 텍스트 쿼리를 생성한다.
      *
      * 원래 키워드: "AI"
-     * → 동의어 확장: ["AI" (boost=1.0), "인공지능" (boost=1.0)]
-     * → BooleanQuery(SHOULD): title:"ai"^3 OR content:"ai" OR title:"인공지능"^3 OR content:"인공지능"
+     * → 동의어 그래프 분석기(QueryExpansionService): 같은 위치에 "ai" / "인공지능"
+     * → title:Synonym(ai 인공지능)^3 OR content:Synonym(ai 인공지능) — 한 번의 파싱으로 만든 단일 쿼리.
+     * 여러 단어 동의어는 구문 쿼리(slop 2)로 들어간다.
      *
      * 동의어가 없으면 기존 BM25 쿼리와 동일하게 동작한다.
      */
     private Query buildTextQueryWithSynonyms(String keyword) throws ParseException {
         var boosts = java.util.Map.of("title", 3.0f, "content", 1.0f);
-        var parser = new MultiFieldQueryParser(new String[]{"title", "content"}, analyzer, boosts);
+        var parser = new MultiFieldQueryParser(new String[]{"title", "content"},
+                queryExpansionService.queryAnalyzer(), boosts);
         parser.setPhraseSlop(2);
+        parser.setAutoGenerateMultiTermSynonymsPhraseQuery(true);
 
-        // 원래 키워드를 토큰화하여 동의어 확장
-        List<String> tokens = tokenize(keyword);
+        Query query = parser.parse(escapePreservingPhrases(keyword));
 
         // 토큰 전멸 폴백: Nori가 모든 토큰을 stop filter로 제거한 경우
         // (예: 미지의 품사 태깅 엣지 케이스)
         // title 필드의 term dictionary에서 prefix 매칭으로 결과를 반환한다.
-        if (tokens.isEmpty()) {
+        if (query instanceof BooleanQuery booleanQuery && booleanQuery.clauses().isEmpty()) {
             log.info("토큰 전멸 폴백 적용: keyword={}", keyword);
             return new PrefixQuery(new Term("title", keyword));
         }
-
-        List<QueryExpansionService.ExpandedTerm> expanded = queryExpansionService.expand(tokens);
-
-        // 동의어가 없으면 (원래 term만) 기존 방식
-        boolean hasSynonyms = expanded.stream().anyMatch(e -> !e.original());
-        if (!hasSynonyms) {
-            return parser.parse(escapePreservingPhrases(keyword));
-        }
-
-        // 동의어가 있으면: 원래 쿼리 + 동의어 쿼리를 SHOULD로 묶기
-        BooleanQuery.Builder synonymBuilder = new BooleanQuery.Builder();
-
-        // 원래 키워드 쿼리 (boost=1.0)
-        Query originalQuery = parser.parse(escapePreservingPhrases(keyword));
-        synonymBuilder.add(new BoostQuery(originalQuery, 1.0f), BooleanClause.Occur.SHOULD);
-
-        // 동의어별 쿼리 (각자 weight 적용)
-        for (var term : expanded) {
-            if (!term.original()) {
-                try {
-                    Query synQuery = parser.parse(escapePreservingPhrases(term.term()));
-                    synonymBuilder.add(new BoostQuery(synQuery, (float) term.boost()), BooleanClause.Occur.SHOULD);
-                } catch (ParseException e) {
-                    log.debug("동의어 쿼리 파싱 실패: synonym={}", term.term());
-                }
-            }
-        }
-
-        // minimumNumberShouldMatch=1: 최소 1개(원래 or 동의어)는 매칭되어야 함
-        synonymBuilder.setMinimumNumberShouldMatch(1);
-        return synonymBuilder.build();
-    }
-
-    /**
-     * 키워드를 Nori 형태소 분석기로 토큰화한다.
-     * 동의어 확장 시 각 토큰별로 동의어를 찾기 위해 사용.
-     */
-    private List<String> tokenize(String text) {
-        List<String> tokens = new ArrayList<>();
-        try (var stream = analyzer.tokenStream("title", text)) {
-            var termAttr = stream.addAttribute(org.apache.lucene.analysis.tokenattributes.CharTermAttribute.class);
-            stream.reset();
-            while (stream.incrementToken()) {
-                tokens.add(termAttr.toString());
-            }
-            stream.end();
-        } catch (IOException e) {
-            log.warn("토큰화 실패: text={}", text);
-            tokens.add(text); // fallback: 원본 그대로
-        }
-        return tokens;
+        return query;
     }
 
     /**
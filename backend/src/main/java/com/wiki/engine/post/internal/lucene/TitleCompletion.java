@@ -0,0 +1,171 @@
+package com.wiki.engine.post.internal.lucene;
+
+import com.wiki.engine.post.internal.autocomplete.JamoDecomposer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.perfield.PerFieldPostingsFormat;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.suggest.document.PrefixCompletionQuery;
+import org.apache.lucene.search.suggest.document.SuggestField;
+import org.apache.lucene.search.suggest.document.SuggestIndexSearcher;
+import org.apache.lucene.search.suggest.document.TopSuggestDocs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 제목 자동완성 completion 필드 — 문서마다 제목 변형을 SuggestField(가중치 = 조회수)로 색인한다.
+ *
+ * <p>기존 fallback(title_raw/title_jamo PrefixQuery)은 1~2글자 접두사에서 거대한 term 범위를 훑고
+ * 결과가 인기순이 아닌 색인 순이었다. completion 필드는 세그먼트별 가중치 FST에서 상위 N개만 찾으므로
+ * 접두사 길이와 무관하게 시간이 제한되고 조회수 순으로 나온다.
+ * NRT reader(SearcherManager)에서 바로 조회하므로 새 글/삭제는 refresh 즉시 반영된다.
+ *
+ * <p>변형: 원본(lowercase) / 자모 분해 / 초성(2자 이상) — 자동완성 배치/FST와 같은 키 체계.
+ * 입력에 자모가 섞이면("자ㅂ", "ㅅㅅ") 자모 분해해서 조회한다.
+ *
+ * <p>준비 표시: 필드가 생긴 뒤 색인된 문서만 completion을 가진다. 세그먼트에 필드가 있어도
+ * 병합으로 섞인 이전 문서는 빠져 있을 수 있으므로, 전체 재색인이 끝날 때 commit user data에
+ * {@link #READY_COMMIT_KEY}를 남기고 그 commit 이후에만 completion으로 응답한다.
+ */
+final class TitleCompletion {
+
+    static final String FIELD = "title_suggest";
+
+    /** 전체 재색인 완료 표시 — commit user data 키. 이후 commit에도 그대로 이어진다. */
+    static final String READY_COMMIT_KEY = "title_suggest.ready";
+
+    /** 변형 1개를 통째로 한 토큰으로 — Nori 분석을 거치면 제목 접두사 매칭이 깨진다. */
+    static final Analyzer ANALYZER = new KeywordAnalyzer();
+
+    private static final int VARIANTS = 3;
+    /** 접두사 자동완성에 필요한 길이만 색인 — FST 크기 제한. */
+    private static final int MAX_KEY_LENGTH = 50;
+
+    private TitleCompletion() {
+    }
+
+    /**
+     * IndexWriter codec — completion 필드만 TitleSuggestPostingsFormat, 나머지는 기본 codec 그대로.
+     * 이름을 기본 codec과 같게 두어 읽을 때는 기본 codec이 필드별 format 이름으로 복원한다.
+     */
+    static Codec codec() {
+        Codec base = Codec.getDefault();
+        PerFieldPostingsFormat basePostings = (PerFieldPostingsFormat) base.postingsFormat();
+        PostingsFormat suggestPostings = new TitleSuggestPostingsFormat();
+        PostingsFormat postings = new PerFieldPostingsFormat() {
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+                return FIELD.equals(field) ? suggestPostings : basePostings.getPostingsFormatForField(field);
+            }
+        };
+        return new FilterCodec(base.getName(), base) {
+            @Override
+            public PostingsFormat postingsFormat() {
+                return postings;
+            }
+        };
+    }
+
+    /** 다음 commit에 준비 표시를 기록한다 — 재색인 시작 시 false, 완료 시 true. 다른 user data는 유지. */
+    static void markReady(IndexWriter writer, boolean ready) {
+        Map<String, String> data = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(e -> data.put(e.getKey(), e.getValue()));
+        }
+        data.put(READY_COMMIT_KEY, String.valueOf(ready));
+        writer.setLiveCommitData(data.entrySet());
+    }
+
+    /**
+     * reader 디렉토리의 최신 commit에 준비 표시가 있는지.
+     * NRT reader의 commit data는 writer를 연 시점 값이라, 디렉토리의 segments_N을 직접 읽는다.
+     */
+    static boolean isReady(IndexReader reader) throws IOException {
+        if (!(reader instanceof DirectoryReader directoryReader)) {
+            return false;
+        }
+        try {
+            return Boolean.parseBoolean(SegmentInfos.readLatestCommit(directoryReader.directory())
+                    .getUserData().get(READY_COMMIT_KEY));
+        } catch (IndexNotFoundException e) {
+            return false;
+        }
+    }
+
+    /** 제목 1개의 completion 필드들 (중복 변형 제외). */
+    static List<SuggestField> fields(String title, long viewCount) {
+        String normalized = sanitize(title.toLowerCase().trim());
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        int weight = (int) Math.min(Math.max(viewCount, 0), Integer.MAX_VALUE);
+        Set<String> variants = new LinkedHashSet<>(VARIANTS);
+        variants.add(truncate(normalized));
+        variants.add(truncate(JamoDecomposer.decompose(normalized)));
+        String choseong = JamoDecomposer.extractChoseong(normalized);
+        if (choseong.length() >= 2) {
+            variants.add(truncate(choseong));
+        }
+        List<SuggestField> fields = new ArrayList<>(variants.size());
+        for (String variant : variants) {
+            fields.add(new SuggestField(FIELD, variant, weight));
+        }
+        return fields;
+    }
+
+    /**
+     * 접두사 자동완성 — 조회수 내림차순 제목.
+     * 한 문서가 여러 변형으로 잡힐 수 있어 limit × 3개를 찾은 뒤 제목 중복을 제거한다.
+     */
+    static List<String> suggest(IndexSearcher searcher, String prefix, int limit) throws IOException {
+        String normalized = sanitize(prefix.toLowerCase().trim());
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // 항상 자모 분해 키로 — 마지막 음절의 받침이 아직 없는 입력("삼서")도 "삼성"의 분해 변형에 접두사로 걸린다
+        String key = JamoDecomposer.decompose(normalized);
+
+        SuggestIndexSearcher suggester = new SuggestIndexSearcher(searcher.getIndexReader());
+        TopSuggestDocs top = suggester.suggest(
+                new PrefixCompletionQuery(ANALYZER, new Term(FIELD, truncate(key))), limit * VARIANTS, false);
+
+        StoredFields storedFields = searcher.storedFields();
+        Set<String> titles = new LinkedHashSet<>();
+        for (TopSuggestDocs.SuggestScoreDoc hit : top.scoreLookupDocs()) {
+            String title = storedFields.document(hit.doc, Set.of("title")).get("title");
+            if (title != null) {
+                titles.add(title);
+            }
+            if (titles.size() >= limit) {
+                break;
+            }
+        }
+        return List.copyOf(titles);
+    }
+
+    /** SuggestField 예약 문자(0x00, 0x1E, 0x1F)는 색인 시 예외 — 공백으로 치환. */
+    private static String sanitize(String text) {
+        return text.replace('\u0000', ' ').replace('\u001E', ' ').replace('\u001F', ' ').trim();
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_KEY_LENGTH ? text : text.substring(0, MAX_KEY_LENGTH);
+    }
+}
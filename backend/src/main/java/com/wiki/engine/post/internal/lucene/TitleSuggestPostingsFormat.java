@@ -0,0 +1,31 @@
+package com.wiki.engine.post.internal.lucene;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.perfield.PerFieldPostingsFormat;
+import org.apache.lucene.search.suggest.document.CompletionPostingsFormat;
+
+/**
+ * 제목 자동완성 completion 필드 전용 postings format.
+ *
+ * <p>기본 completion format(ON_HEAP)은 세그먼트마다 FST를 힙에 올린다 — 1,200만 제목 × 3변형이면 수백 MB.
+ * OFF_HEAP으로 FST를 MMapDirectory 위에서 바로 읽어 페이지 캐시를 쓴다.
+ *
+ * <p>읽기 시 세그먼트에 기록된 이름으로 SPI 조회되므로 public 무인자 생성자 +
+ * META-INF/services/org.apache.lucene.codecs.PostingsFormat 등록이 필요하다.
+ * delegate(일반 postings)는 현재 기본 codec의 format을 쓰고, 그 이름은 파일에 기록되어 읽을 때 그대로 복원된다.
+ */
+public final class TitleSuggestPostingsFormat extends CompletionPostingsFormat {
+
+    public static final String NAME = "WikiTitleSuggest";
+
+    public TitleSuggestPostingsFormat() {
+        super(NAME, FSTLoadMode.OFF_HEAP);
+    }
+
+    @Override
+    protected PostingsFormat delegatePostingsFormat() {
+        return ((PerFieldPostingsFormat) Codec.getDefault().postingsFormat())
+                .getPostingsFormatForField(TitleCompletion.FIELD);
+    }
+}
@@ -0,0 +1,66 @@
+package com.wiki.engine.post.internal.lucene;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 토큰 버킷 rate limiter — LLM 판정 워커들이 공유하는 provider 쿼터.
+ *
+ * <p>분당 permitsPerMinute개 토큰이 연속적으로 채워지고, 최대 burst개까지 쌓인다.
+ * 워커 N개가 동시에 호출해도 전체 호출 속도는 쿼터를 넘지 않는다.
+ *
+ * <p>대기는 lock 밖에서 sleep한다 — 가상 스레드 워커가 lock을 잡은 채 잠들지 않도록.
+ * 시계는 테스트에서 주입 가능하다.
+ */
+final class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucketRateLimiter(int permitsPerMinute, int burst) {
+        this(permitsPerMinute, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int permitsPerMinute, int burst, LongSupplier nanoClock) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerMinute, burst는 양수여야 합니다");
+        }
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /** 토큰 1개를 얻을 때까지 대기한다. */
+    void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos = tryAcquireOrWaitNanos();
+            if (waitNanos == 0) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /** 대기 없이 토큰 획득을 시도한다. */
+    boolean tryAcquire() {
+        return tryAcquireOrWaitNanos() == 0;
+    }
+
+    /** 토큰을 얻으면 0, 아니면 다음 토큰까지 남은 시간(ns). */
+    private synchronized long tryAcquireOrWaitNanos() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+}
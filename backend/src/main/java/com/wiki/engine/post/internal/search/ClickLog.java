@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
  * 검색 결과 클릭 로그 — LTR implicit feedback 수집.
  *
  * <p>position, dwell_time이 핵심 컬럼.
+ * impression_id로 LTR serve-time 피처 로그(LTRFeatureLog)와 조인한다.
  */
 @Entity
 @Table(name = "click_logs")
@@ -32,18 +33,21 @@ class ClickLog {
 
     private Long userId;
 
+    private Long impressionId;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
     protected ClickLog() {}
 
     ClickLog(String query, Long postId, Short clickPosition,
-             String sessionId, Long userId) {
+             String sessionId, Long userId, Long impressionId) {
         this.query = query;
         this.postId = postId;
         this.clickPosition = clickPosition;
         this.sessionId = sessionId;
         this.userId = userId;
+        this.impressionId = impressionId;
         this.createdAt = LocalDateTime.now();
     }
 
@@ -58,5 +62,6 @@ class ClickLog {
     Long getDwellTimeMs() { return dwellTimeMs; }
     String getSessionId() { return sessionId; }
     Long getUserId() { return userId; }
+    Long getImpressionId() { return impressionId; }
     LocalDateTime getCreatedAt() { return createdAt; }
 }
@@ -40,11 +40,13 @@ public class ClickLogService {
     /**
      * 검색 결과 클릭을 기록한다.
      * Kafka topic에 produce + DB에 즉시 저장.
+     *
+     * @param impressionId 검색 응답의 LTR impression ID (없으면 null)
      */
     public void recordClick(String query, Long postId, short clickPosition,
-                            String sessionId, Long userId) {
+                            String sessionId, Long userId, Long impressionId) {
         // 1. DB 저장
-        var clickLog = new ClickLog(query, postId, clickPosition, sessionId, userId);
+        var clickLog = new ClickLog(query, postId, clickPosition, sessionId, userId, impressionId);
         clickLogRepository.save(clickLog);
 
         // 2. Kafka produce (비동기, 실패해도 DB에는 이미 저장됨)
@@ -55,6 +57,7 @@ public class ClickLogService {
                     "clickPosition", clickPosition,
                     "sessionId", sessionId != null ? sessionId : "",
                     "userId", userId != null ? userId : 0,
+                    "impressionId", impressionId != null ? impressionId : 0,
                     "timestamp", System.currentTimeMillis()
             ));
             kafkaTemplate.send(CLICK_TOPIC, String.valueOf(postId), message);
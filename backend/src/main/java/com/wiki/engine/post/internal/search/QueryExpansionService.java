@@ -1,76 +1,256 @@
 package com.wiki.engine.post.internal.search;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.search.BoostAttribute;
+import org.apache.lucene.util.CharsRef;
+import org.apache.lucene.util.CharsRefBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 쿼리 확장 서비스 — 동의어를 활용하여 검색 Recall을 개선한다.
  *
- * "AI" 검색 시 → ["AI", "인공지능"] 으로 확장하여 BooleanQuery(SHOULD)로 검색.
- * 동의어 사전은 DB에서 관리하며, Caffeine 캐시(30분 TTL)로 DB 조회를 최소화한다.
+ * "AI" 검색 시 → 같은 위치에 "ai" / "인공지능" 토큰을 내는 그래프로 분석되어,
+ * QueryParser가 SynonymQuery(한 단어 동의어) 또는 구문 쿼리(여러 단어 동의어)로 한 번에 만든다.
  *
- * DB 기반 쿼리 타임 확장.
- * 향후: SynonymGraphFilter(파일 기반)로 전환 가능.
+ * 동의어 테이블 전체를 불변 SynonymMap 스냅샷으로 컴파일하고, 검색 분석기(title/content)에
+ * SynonymGraphFilter로 붙인다 — 요청 경로에는 토큰별 캐시/DB 조회가 없다.
+ * 항목은 색인과 같은 Nori 분석기로 분석해 넣으므로 "응용프로그래밍인터페이스"처럼 여러 토큰으로
+ * 나뉘는 동의어도 토큰 시퀀스로 매칭된다.
+ *
+ * 동의어 weight는 BoostAttribute로 동의어 토큰에 실어 SynonymQuery 안의 term boost가 된다
+ * (한 단어 동의어만 — 여러 단어 동의어는 구문 쿼리라 boost 1.0). weight는 (입력, 동의어) 쌍별이다 —
+ * "js → javascript 0.8"과 "ecmascript → javascript 0.3"이 서로의 boost를 덮어쓰지 않는다.
+ *
+ * 핫 리로드: poll-interval-ms마다 테이블 지문(행 수 + 내용 CRC32 합)을 비교해 바뀌었을 때만
+ * 전체를 다시 읽어 새 스냅샷으로 교체한다 (volatile swap). 노드마다 각자 폴링한다.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class QueryExpansionService {
 
-    private final SynonymRepository synonymRepository;
-
     private static final int MAX_SYNONYMS_PER_TERM = 3;
+    private static final Set<String> SYNONYM_FIELDS = Set.of("title", "content");
+
+    private final SynonymRepository synonymRepository;
+    private final Analyzer analyzer;
 
-    // 동의어 캐시: term → List<ExpandedTerm> (30분 TTL)
-    // DB 조회 비용 ~1-2ms, 캐시 히트 시 ~0.01ms
-    private final Cache<String, List<ExpandedTerm>> synonymCache = Caffeine.newBuilder()
-            .maximumSize(5_000)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            .build();
+    private volatile Snapshot snapshot;
 
     /**
-     * 원래 검색어의 각 토큰에 대해 동의어를 찾아 확장한다.
-     *
-     * @param originalTerms Nori 형태소 분석 후의 토큰 목록
-     * @return 원래 term + 동의어가 포함된 확장 목록
+     * @param queryAnalyzer 검색 분석기 — 동의어가 없으면 색인 분석기 그대로
      */
-    public List<ExpandedTerm> expand(List<String> originalTerms) {
-        List<ExpandedTerm> expanded = new ArrayList<>();
+    private record Snapshot(String fingerprint, Analyzer queryAnalyzer, int entries) {}
+
+    public QueryExpansionService(SynonymRepository synonymRepository, Analyzer analyzer, MeterRegistry meterRegistry) {
+        this.synonymRepository = synonymRepository;
+        this.analyzer = analyzer;
+        this.snapshot = new Snapshot(null, analyzer, 0);
+        Gauge.builder("search_synonyms_entries", this, s -> s.snapshot.entries())
+                .description("동의어 스냅샷 항목 수")
+                .register(meterRegistry);
+    }
 
-        for (String term : originalTerms) {
-            // 원래 term은 항상 boost=1.0
-            expanded.add(new ExpandedTerm(term, 1.0, true));
+    /** 동의어 그래프가 적용된 검색 분석기 (현재 스냅샷). */
+    public Analyzer queryAnalyzer() {
+        return snapshot.queryAnalyzer();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void initialize() {
+        reloadIfChanged();
+    }
 
-            // 캐시에서 동의어 조회 (미스 시 DB 조회)
-            List<ExpandedTerm> synonyms = synonymCache.get(term.toLowerCase(), this::loadSynonyms);
-            if (synonyms != null) {
-                expanded.addAll(synonyms);
+    /** 테이블 지문이 바뀌었으면 스냅샷 재구축. 실패하면 이전 스냅샷 유지. */
+    @Scheduled(fixedDelayString = "${synonyms.poll-interval-ms:30000}")
+    synchronized void reloadIfChanged() {
+        try {
+            Object[] row = synonymRepository.fingerprint().getFirst();
+            String fingerprint = row[0] + ":" + row[1];
+            if (fingerprint.equals(snapshot.fingerprint())) {
+                return;
             }
+            snapshot = build(fingerprint, synonymRepository.findAll());
+            log.info("동의어 스냅샷 교체: {}개 항목 (지문 {})", snapshot.entries(), fingerprint);
+        } catch (Exception e) {
+            log.warn("동의어 스냅샷 갱신 실패 — 이전 스냅샷 유지: {}", e.getMessage());
         }
-
-        return expanded;
     }
 
-    private List<ExpandedTerm> loadSynonyms(String term) {
-        return synonymRepository.findByTermIgnoreCase(term).stream()
-                .limit(MAX_SYNONYMS_PER_TERM)
-                .map(s -> new ExpandedTerm(s.getSynonym(), s.getWeight(), false))
+    /**
+     * 용어별 weight 상위 MAX_SYNONYMS_PER_TERM개만 SynonymMap에 넣는다.
+     * 분석 결과가 비는 항목(불용어만 있는 경우 등)은 건너뛴다.
+     * weight는 분석된 입력 → 동의어 → weight로 — 같은 쌍이 여러 행이면 큰 값.
+     */
+    private Snapshot build(String fingerprint, List<Synonym> rows) throws IOException {
+        TableParser parser = new TableParser(analyzer);
+        Map<String, Map<String, Float>> weights = new HashMap<>();
+        Map<String, Integer> perTerm = new HashMap<>();
+        int entries = 0;
+        List<Synonym> sorted = rows.stream()
+                .sorted(Comparator.comparingDouble(Synonym::getWeight).reversed())
                 .toList();
+        for (Synonym synonym : sorted) {
+            String term = synonym.getTerm().toLowerCase();
+            if (perTerm.getOrDefault(term, 0) >= MAX_SYNONYMS_PER_TERM) {
+                continue;
+            }
+            try {
+                CharsRef input = parser.analyze(synonym.getTerm(), new CharsRefBuilder());
+                CharsRef output = parser.analyze(synonym.getSynonym(), new CharsRefBuilder());
+                parser.add(input, output, true);
+                String outputTerm = output.toString();
+                if (outputTerm.indexOf(SynonymMap.WORD_SEPARATOR) < 0) {
+                    weights.computeIfAbsent(input.toString(), k -> new HashMap<>())
+                            .merge(outputTerm, synonym.getWeight().floatValue(), Math::max);
+                }
+                perTerm.merge(term, 1, Integer::sum);
+                entries++;
+            } catch (IllegalArgumentException e) {
+                log.debug("동의어 항목 분석 결과 없음 — 건너뜀: {} → {}", synonym.getTerm(), synonym.getSynonym());
+            }
+        }
+        if (entries == 0) {
+            return new Snapshot(fingerprint, analyzer, 0);
+        }
+        Map<String, Map<String, Float>> frozen = new HashMap<>();
+        weights.forEach((input, outputs) -> frozen.put(input, Map.copyOf(outputs)));
+        return new Snapshot(fingerprint, withSynonyms(analyzer, parser.build(), Map.copyOf(frozen)), entries);
+    }
+
+    /** title/content 분석 체인 끝에 SynonymGraphFilter + weight boost. 다른 필드는 그대로. */
+    private static Analyzer withSynonyms(Analyzer base, SynonymMap synonymMap, Map<String, Map<String, Float>> weights) {
+        return new AnalyzerWrapper(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+            @Override
+            protected Analyzer getWrappedAnalyzer(String fieldName) {
+                return base;
+            }
+
+            @Override
+            protected TokenStreamComponents wrapComponents(String fieldName, TokenStreamComponents components) {
+                if (!SYNONYM_FIELDS.contains(fieldName)) {
+                    return components;
+                }
+                TokenStream synonyms = new SynonymGraphFilter(components.getTokenStream(), synonymMap, true);
+                return new TokenStreamComponents(components.getSource(), new SynonymBoostFilter(synonyms, weights));
+            }
+        };
+    }
+
+    /** 테이블 행을 SynonymMap으로 — analyze()로 항목을 색인 분석기 토큰 시퀀스로 바꾼다. */
+    private static final class TableParser extends SynonymMap.Parser {
+
+        TableParser(Analyzer analyzer) {
+            super(true, analyzer);
+        }
+
+        @Override
+        public void parse(Reader in) {
+            throw new UnsupportedOperationException("동의어는 synonyms 테이블에서만 읽는다");
+        }
     }
 
     /**
-     * 확장된 검색어 정보.
+     * 동의어 토큰에 weight를 BoostAttribute로 싣는다 — QueryBuilder가 SynonymQuery term boost로 쓴다.
      *
-     * @param term     검색어 (원래 or 동의어)
-     * @param boost    가중치 (원래 term=1.0, 동의어=DB weight)
-     * @param original 원래 term인지 여부
+     * <p>weight는 (입력, 동의어) 쌍별이라 동의어 토큰만으로는 찾을 수 없다. SynonymGraphFilter는 매칭 구간의
+     * 동의어 토큰을 먼저, 원래 토큰을 나중에 내므로(오프셋 역행 방지) 동의어 토큰을 만나면 그 오프셋 구간을
+     * 덮는 원래 토큰이 나올 때까지 모아 입력을 복원한 뒤 내보낸다. 매칭이 없는 토큰은 버퍼링하지 않는다.
      */
-    public record ExpandedTerm(String term, double boost, boolean original) {}
+    private static final class SynonymBoostFilter extends TokenFilter {
+
+        private final Map<String, Map<String, Float>> weights;
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+        private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+        private final BoostAttribute boostAtt = addAttribute(BoostAttribute.class);
+
+        private final ArrayDeque<State> pending = new ArrayDeque<>();
+        private Map<String, Float> pendingWeights = Map.of();
+        private boolean exhausted;
+
+        SynonymBoostFilter(TokenStream input, Map<String, Map<String, Float>> weights) {
+            super(input);
+            this.weights = weights;
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            if (pending.isEmpty()) {
+                if (exhausted || !input.incrementToken()) {
+                    return false;
+                }
+                if (!isSynonym()) {
+                    boostAtt.setBoost(1.0f);
+                    return true;
+                }
+                bufferMatch();
+            }
+            restoreState(pending.removeFirst());
+            boostAtt.setBoost(isSynonym() ? pendingWeights.getOrDefault(termAtt.toString(), 1.0f) : 1.0f);
+            return true;
+        }
+
+        /** 현재 동의어 토큰부터 매칭 구간 끝의 원래 토큰까지 모으고, 원래 토큰으로 입력을 복원한다. */
+        private void bufferMatch() throws IOException {
+            int start = offsetAtt.startOffset();
+            int end = offsetAtt.endOffset();
+            StringBuilder matched = new StringBuilder();
+            pending.add(captureState());
+            while (true) {
+                if (!input.incrementToken()) {
+                    exhausted = true;
+                    break;
+                }
+                pending.add(captureState());
+                if (isSynonym()) {
+                    continue;
+                }
+                if (offsetAtt.startOffset() >= start && offsetAtt.endOffset() <= end) {
+                    if (!matched.isEmpty()) {
+                        matched.append(SynonymMap.WORD_SEPARATOR);
+                    }
+                    matched.append(termAtt);
+                }
+                if (offsetAtt.endOffset() >= end) {
+                    break;
+                }
+            }
+            pendingWeights = weights.getOrDefault(matched.toString(), Map.of());
+        }
+
+        private boolean isSynonym() {
+            return SynonymGraphFilter.TYPE_SYNONYM.equals(typeAtt.type());
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            pending.clear();
+            pendingWeights = Map.of();
+            exhausted = false;
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.wiki.engine.post.internal.search;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재검색 쌍 — 결과가 적었던 검색어(from) 직후 같은 세션에서 다시 검색해 결과를 얻은 검색어(to).
+ * SpellCheckService 교정 사전의 원천. SearchLog와 같은 시간 버킷 집계.
+ */
+@Entity
+@Table(name = "query_reformulations", indexes = {
+        @Index(name = "idx_query_reformulations_time_bucket", columnList = "time_bucket")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_query_reformulations_pair_bucket",
+                columnNames = {"from_query", "to_query", "time_bucket"})
+})
+class QueryReformulation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String fromQuery;
+
+    @Column(nullable = false, length = 200)
+    private String toQuery;
+
+    @Column(nullable = false)
+    private LocalDateTime timeBucket;
+
+    @Column(nullable = false)
+    private long count;
+
+    protected QueryReformulation() {
+    }
+}
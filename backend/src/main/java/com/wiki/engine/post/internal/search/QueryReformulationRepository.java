@@ -0,0 +1,50 @@
+package com.wiki.engine.post.internal.search;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface QueryReformulationRepository extends JpaRepository<QueryReformulation, Long> {
+
+    /**
+     * 시간 버킷 기반 upsert — SearchLogCollector.flush()에서 호출.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO query_reformulations (from_query, to_query, time_bucket, count)
+            VALUES (:fromQuery, :toQuery, :timeBucket, :count)
+            ON DUPLICATE KEY UPDATE count = count + VALUES(count)
+            """, nativeQuery = true)
+    void upsert(@Param("fromQuery") String fromQuery,
+                @Param("toQuery") String toQuery,
+                @Param("timeBucket") LocalDateTime timeBucket,
+                @Param("count") long count);
+
+    /**
+     * 교정 사전 후보 — 지정 시점 이후 (from, to) 쌍별 합산, minCount 이상만 빈도 내림차순.
+     *
+     * 반환: (from_query, to_query, 총 횟수)
+     */
+    @Query(value = """
+            SELECT from_query, to_query, SUM(count) AS total_count
+            FROM query_reformulations
+            WHERE time_bucket >= :since
+            GROUP BY from_query, to_query
+            HAVING total_count >= :minCount
+            ORDER BY total_count DESC
+            LIMIT :lmt
+            """, nativeQuery = true)
+    List<Object[]> findTopPairsSince(@Param("since") LocalDateTime since,
+                                     @Param("minCount") long minCount,
+                                     @Param("lmt") int lmt);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM query_reformulations WHERE time_bucket < :before
+            """, nativeQuery = true)
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -1,11 +1,16 @@
 package com.wiki.engine.post.internal.search;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wiki.engine.post.internal.autocomplete.JamoDecomposer;
+import com.wiki.engine.post.internal.autocomplete.TrendingQueryTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.ConcurrentHashMap;
@@ -20,14 +25,43 @@ import java.util.concurrent.atomic.LongAdder;
  *
  * 시간 버킷 예시: 14:23에 flush → time_bucket = 14:00:00
  * 같은 시간대의 여러 flush(14:05, 14:10, ...)는 같은 버킷에 누적된다.
+ *
+ * 같은 검색어를 TrendingQueryTracker에도 바로 넘긴다 — 5분 flush + 매시간 배치를 기다리지 않고
+ * 급상승 검색어를 자동완성에 반영하기 위해.
+ *
+ * 재검색 쌍: 같은 세션에서 결과가 적은 검색 직후 철자가 가까운 검색어로 다시 검색해 결과를 얻으면
+ * (이전 검색어 → 새 검색어)를 같은 방식(버퍼 → 5분 flush, 시간 버킷 upsert)으로 query_reformulations에 집계한다.
+ * SpellCheckService가 이를 교정 사전으로 쓴다.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SearchLogCollector {
 
+    /** 결과가 이 건수 미만(다음 페이지 없음)이면 "결과가 적은" 검색. */
+    private static final int LOW_RESULT_COUNT = 3;
+    /** 다음 페이지가 있거나 이 건수 이상이면 재검색 성공. */
+    private static final int HIGH_RESULT_COUNT = 10;
+    private static final Duration REFORMULATION_WINDOW = Duration.ofSeconds(60);
+    /** 자모 단위 편집 거리 상한 — 음절 1~2개 오타 ("컴퓨텨" → "컴퓨터"는 1). */
+    private static final int MAX_JAMO_EDITS = 3;
+    private static final int MAX_QUERY_LENGTH = 200;
+
     private volatile ConcurrentHashMap<String, LongAdder> buffer = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<QueryPair, LongAdder> reformulations = new ConcurrentHashMap<>();
     private final SearchLogRepository searchLogRepository;
+    private final QueryReformulationRepository queryReformulationRepository;
+    private final TrendingQueryTracker trendingQueryTracker;
+
+    /** 세션별 직전 검색 — 재검색 쌍 판정용 (60초 후 만료, 세션 수 상한). */
+    private final Cache<String, LastSearch> lastSearches = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(REFORMULATION_WINDOW)
+            .build();
+
+    private record LastSearch(String query, boolean lowResult) {}
+
+    private record QueryPair(String from, String to) {}
 
     /**
      * 검색 완료 시 호출. 인메모리 집계만 수행하므로 I/O 없음.
@@ -36,7 +70,37 @@ public class SearchLogCollector {
         if (query == null || query.isBlank()) {
             return;
         }
-        buffer.computeIfAbsent(query.toLowerCase().trim(), k -> new LongAdder()).increment();
+        String normalized = query.toLowerCase().trim();
+        buffer.computeIfAbsent(normalized, k -> new LongAdder()).increment();
+        trendingQueryTracker.record(normalized);
+    }
+
+    /**
+     * 첫 페이지 검색 결과 기록 — 재검색 쌍 수집. 인메모리만 (I/O 없음).
+     *
+     * @param sessionId   브라우저 탭 세션 ID (없으면 무시)
+     * @param resultCount 첫 페이지 결과 수
+     * @param hasNext     다음 페이지 존재 여부
+     */
+    public void recordOutcome(String sessionId, String query, int resultCount, boolean hasNext) {
+        if (sessionId == null || sessionId.isBlank() || query == null || query.isBlank()) {
+            return;
+        }
+        String normalized = query.toLowerCase().trim();
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        boolean lowResult = resultCount < LOW_RESULT_COUNT && !hasNext;
+        boolean highResult = hasNext || resultCount >= HIGH_RESULT_COUNT;
+
+        LastSearch previous = lastSearches.getIfPresent(sessionId);
+        if (previous != null && previous.lowResult() && highResult
+                && !previous.query().equals(normalized)
+                && isCloseReformulation(previous.query(), normalized)) {
+            reformulations.computeIfAbsent(new QueryPair(previous.query(), normalized), k -> new LongAdder())
+                    .increment();
+        }
+        lastSearches.put(sessionId, new LastSearch(normalized, lowResult));
     }
 
     /**
@@ -48,13 +112,23 @@ public class SearchLogCollector {
     public void flush() {
         ConcurrentHashMap<String, LongAdder> snapshot = buffer;
         buffer = new ConcurrentHashMap<>();
+        ConcurrentHashMap<QueryPair, LongAdder> pairs = reformulations;
+        reformulations = new ConcurrentHashMap<>();
+
+        LocalDateTime timeBucket = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        for (var entry : pairs.entrySet()) {
+            queryReformulationRepository.upsert(entry.getKey().from(), entry.getKey().to(),
+                    timeBucket, entry.getValue().sum());
+        }
+        if (!pairs.isEmpty()) {
+            log.info("Query reformulations flushed: {} pairs to bucket {}", pairs.size(), timeBucket);
+        }
 
         if (snapshot.isEmpty()) {
             return;
         }
 
-        LocalDateTime timeBucket = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
-
         int count = 0;
         for (var entry : snapshot.entrySet()) {
             searchLogRepository.upsert(entry.getKey(), timeBucket, entry.getValue().sum());
@@ -74,5 +148,48 @@ public class SearchLogCollector {
         if (deleted > 0) {
             log.info("Search logs cleanup: {} old rows deleted (before {})", deleted, threshold);
         }
+        int deletedPairs = queryReformulationRepository.deleteOlderThan(threshold);
+        if (deletedPairs > 0) {
+            log.info("Query reformulations cleanup: {} old rows deleted (before {})", deletedPairs, threshold);
+        }
+    }
+
+    /**
+     * 철자 교정으로 볼 만큼 가까운 재검색인지 — 자모 분해 후 편집 거리가 MAX_JAMO_EDITS 이하이고
+     * 긴 쪽 길이의 1/3 이하. 전혀 다른 검색어로 넘어간 경우("자바" → "파이썬")는 제외.
+     */
+    static boolean isCloseReformulation(String from, String to) {
+        String a = JamoDecomposer.decompose(from);
+        String b = JamoDecomposer.decompose(to);
+        int distance = boundedEditDistance(a, b, MAX_JAMO_EDITS);
+        return distance <= MAX_JAMO_EDITS && distance * 3 <= Math.max(a.length(), b.length());
+    }
+
+    /** Levenshtein 거리, max를 넘으면 max + 1 (조기 종료). */
+    private static int boundedEditDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = prev;
+            prev = curr;
+            curr = swap;
+        }
+        return prev[b.length()];
     }
 }
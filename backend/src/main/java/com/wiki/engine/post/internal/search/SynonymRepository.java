@@ -1,10 +1,19 @@
 package com.wiki.engine.post.internal.search;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 interface SynonymRepository extends JpaRepository<Synonym, Long> {
 
-    List<Synonym> findByTermIgnoreCase(String term);
+    /**
+     * 테이블 변경 감지용 지문 — (행 수, 행 내용 CRC32 합). 동의어 테이블은 작아서 전체 집계도 수 ms.
+     * 추가/삭제/수정 모두 값이 바뀐다.
+     */
+    @Query(value = """
+            SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT(term, CHAR(9), synonym, CHAR(9), weight))), 0)
+            FROM synonyms
+            """, nativeQuery = true)
+    List<Object[]> fingerprint();
 }
@@ -0,0 +1,13 @@
+-- LTR serve-time 피처 로그 조인 키 — click_logs.impression_id 추가 (idempotent)
+--
+-- 검색 응답의 impressionId를 클릭 이벤트에 함께 기록한다.
+-- 학습 행 = LTRFeatureLog 레코드(impression_id, position, features) ⋈ click_logs(impression_id, click_position, dwell_time_ms)
+-- 미클릭 + position <= 3 → grade 0 규칙도 피처 로그 쪽 position으로 판정 가능.
+SET @col_exists = (SELECT COUNT(*) FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = 'click_logs' AND column_name = 'impression_id');
+SET @sql = IF(@col_exists = 0,
+              'ALTER TABLE click_logs ADD COLUMN impression_id BIGINT NULL COMMENT ''LTR 검색 impression ID (피처 로그 조인 키)'', ADD INDEX idx_click_logs_impression (impression_id)',
+              'SELECT 1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
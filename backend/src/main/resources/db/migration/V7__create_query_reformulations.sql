@@ -0,0 +1,16 @@
+-- 재검색 로그 — "혹시 이것을 찾으셨나요?" 교정 사전 원천
+--
+-- 같은 세션에서 결과가 적은 검색(< 3건) 직후 60초 안에 철자가 가까운 검색어로 다시 검색해
+-- 결과가 충분히 나온 경우(다음 페이지 있음 또는 10건 이상)를 (from_query → to_query) 쌍으로 집계한다.
+-- search_logs와 같은 시간 버킷 upsert + 30일 보관. 매시간 집계해 SpellCheckService 교정 사전으로 적재.
+
+CREATE TABLE IF NOT EXISTS query_reformulations (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    from_query  VARCHAR(200) NOT NULL COMMENT '결과가 적었던 검색어 (정규화)',
+    to_query    VARCHAR(200) NOT NULL COMMENT '이어서 검색한 교정 검색어 (정규화)',
+    time_bucket DATETIME     NOT NULL COMMENT '시간 버킷 (정시)',
+    count       BIGINT       NOT NULL DEFAULT 0,
+
+    UNIQUE KEY uk_query_reformulations_pair_bucket (from_query, to_query, time_bucket),
+    INDEX idx_query_reformulations_time_bucket (time_bucket)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
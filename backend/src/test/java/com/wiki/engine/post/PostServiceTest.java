@@ -3,6 +3,7 @@ package com.wiki.engine.post;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.wiki.engine.common.BusinessException;
 import com.wiki.engine.common.ErrorCode;
+import com.wiki.engine.post.internal.cache.SearchCacheIndex;
 import com.wiki.engine.post.internal.cache.TieredCacheService;
 import com.wiki.engine.post.dto.CachedSearchResult;
 import com.wiki.engine.post.dto.LikeResponse;
@@ -11,6 +12,7 @@ import com.wiki.engine.post.internal.lucene.LuceneSearchService;
 import com.wiki.engine.post.internal.autocomplete.SpellCheckService;
 import com.wiki.engine.post.internal.category.CategoryRecommendService;
 import com.wiki.engine.post.internal.filter.ContentFilterService;
+import com.wiki.engine.post.internal.LikeCountService;
 import com.wiki.engine.post.internal.PostLikeRepository;
 import com.wiki.engine.post.internal.PostRepository;
 import com.wiki.engine.post.internal.autocomplete.RedisAutocompleteService;
@@ -24,10 +26,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 import java.time.Duration;
@@ -35,11 +39,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
@@ -52,24 +58,28 @@ class PostServiceTest {
 
     @Mock private PostRepository postRepository;
     @Mock private PostLikeRepository postLikeRepository;
+    @Mock private LikeCountService likeCountService;
     @Mock private LuceneSearchService luceneSearchService;
     @Mock private SearchLogCollector searchLogCollector;
     @Mock private RedisAutocompleteService redisAutocompleteService;
     @Mock private SpellCheckService spellCheckService;
     @Mock private CategoryRecommendService categoryRecommendService;
     @Mock private TieredCacheService tieredCacheService;
+    @Mock private SearchCacheIndex searchCacheIndex;
     @Mock private ContentFilterService contentFilterService;
     @Mock private Cache<String, Object> searchResultsL1Cache;
     @Mock private Cache<String, Object> postDetailL1Cache;
     @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setUp() {
         postService = new PostService(
-                postRepository, postLikeRepository,
+                postRepository, postLikeRepository, likeCountService,
                 luceneSearchService, searchLogCollector, redisAutocompleteService, spellCheckService,
-                categoryRecommendService, tieredCacheService, contentFilterService, searchResultsL1Cache, postDetailL1Cache,
-                eventPublisher);
+                categoryRecommendService, tieredCacheService, searchCacheIndex, contentFilterService,
+                searchResultsL1Cache, postDetailL1Cache,
+                eventPublisher, transactionManager);
 
         // TieredCacheService: pass-through (항상 origin loader 호출)
         lenient().when(tieredCacheService.get(
@@ -79,6 +89,16 @@ class PostServiceTest {
                     Supplier<?> loader = invocation.getArgument(5);
                     return loader.get();
                 });
+        lenient().when(tieredCacheService.get(
+                        any(String.class), any(Cache.class), any(String.class),
+                        any(Class.class), any(Duration.class), any(Supplier.class), any(Consumer.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<?> loader = invocation.getArgument(5);
+                    Consumer<Object> afterStore = invocation.getArgument(6);
+                    Object value = loader.get();
+                    afterStore.accept(value);
+                    return value;
+                });
     }
 
     private Post createTestPost() {
@@ -188,6 +208,8 @@ class PostServiceTest {
             verify(eventPublisher).publishEvent(captor.capture());
             assertThat(captor.getValue().postId()).isEqualTo(1L);
             assertThat(captor.getValue().post()).isEqualTo(post);
+            assertThat(captor.getValue().previousTitle()).isEqualTo("테스트 게시글");
+            assertThat(captor.getValue().titleChanged()).isTrue();
         }
 
         @Test
@@ -265,17 +287,46 @@ class PostServiceTest {
     class LikePost {
 
         @Test
-        @DisplayName("[해피] 새 좋아요 — likeCount 증가 + LikeChanged 이벤트 + 현재 상태 반환")
+        @DisplayName("[해피] 새 좋아요 — Redis 카운터 값 반환, posts 행 UPDATE 없음")
         void success() {
             given(postLikeRepository.insertIgnore(1L, 1L)).willReturn(1);
-            given(postRepository.findLikeCountById(1L)).willReturn(10L);
+            given(likeCountService.add(1L, 1)).willReturn(10L);
 
             LikeResponse result = postService.likePost(1L, 1L);
 
             assertThat(result.likeCount()).isEqualTo(10);
             assertThat(result.liked()).isTrue();
+            verify(postRepository, never()).incrementLikeCount(any());
+            verify(postRepository, never()).findLikeCountById(any());
+        }
+
+        @Test
+        @DisplayName("[해피] 카운터는 post_likes 커밋 후에 올린다")
+        void countsAfterCommit() {
+            given(postLikeRepository.insertIgnore(1L, 1L)).willReturn(1);
+            given(likeCountService.add(1L, 1)).willReturn(10L);
+
+            postService.likePost(1L, 1L);
+
+            var inOrder = inOrder(postLikeRepository, transactionManager, likeCountService);
+            inOrder.verify(postLikeRepository).insertIgnore(1L, 1L);
+            inOrder.verify(transactionManager).commit(any());
+            inOrder.verify(likeCountService).add(1L, 1);
+        }
+
+        @Test
+        @DisplayName("[코너] Redis 장애 — 행 UPDATE + LikeChanged 이벤트로 fallback")
+        void redisDown() {
+            given(postLikeRepository.insertIgnore(1L, 1L)).willReturn(1);
+            given(likeCountService.add(1L, 1)).willThrow(new RedisConnectionFailureException("down"));
+            given(postRepository.findLikeCountById(1L)).willReturn(10L);
+
+            LikeResponse result = postService.likePost(1L, 1L);
+
+            assertThat(result.likeCount()).isEqualTo(10);
             verify(postRepository).incrementLikeCount(1L);
             verify(eventPublisher).publishEvent(any(PostEvent.LikeChanged.class));
+            verify(likeCountService).invalidate(1L);   // DB 증분이 빠진 카운터 제거
         }
 
         @Test
@@ -288,6 +339,8 @@ class PostServiceTest {
                     .satisfies(e -> assertThat(((BusinessException) e).getErrorCode())
                             .isEqualTo(ErrorCode.ALREADY_LIKED));
             verify(postRepository, never()).incrementLikeCount(any());
+            verify(likeCountService, never()).add(any(), anyInt());
+            verify(transactionManager).rollback(any());
         }
     }
 
@@ -298,17 +351,16 @@ class PostServiceTest {
     class UnlikePost {
 
         @Test
-        @DisplayName("[해피] 좋아요 취소 — likeCount 감소 + LikeChanged 이벤트 + 현재 상태 반환")
+        @DisplayName("[해피] 좋아요 취소 — Redis 카운터 감소 값 반환")
         void success() {
             given(postLikeRepository.deleteByPostIdAndUserId(1L, 1L)).willReturn(1);
-            given(postRepository.findLikeCountById(1L)).willReturn(9L);
+            given(likeCountService.add(1L, -1)).willReturn(9L);
 
             LikeResponse result = postService.unlikePost(1L, 1L);
 
             assertThat(result.likeCount()).isEqualTo(9);
             assertThat(result.liked()).isFalse();
-            verify(postRepository).decrementLikeCount(1L);
-            verify(eventPublisher).publishEvent(any(PostEvent.LikeChanged.class));
+            verify(postRepository, never()).decrementLikeCount(any());
         }
 
         @Test
@@ -335,7 +387,7 @@ class PostServiceTest {
         void success() throws IOException {
             Post post = createTestPost();
             Pageable pageable = PageRequest.of(0, 20);
-            given(luceneSearchService.search("테스트", null, pageable))
+            given(luceneSearchService.search("테스트", null, pageable, 0L))
                     .willReturn(new LuceneSearchService.SearchResult(
                             new SliceImpl<>(List.of(post), pageable, false), Map.of(), Map.of()));
 
@@ -350,7 +402,7 @@ class PostServiceTest {
         @DisplayName("[코너] 검색 결과 없음 — 빈 Slice")
         void empty() throws IOException {
             Pageable pageable = PageRequest.of(0, 20);
-            given(luceneSearchService.search("없는키워드", null, pageable))
+            given(luceneSearchService.search("없는키워드", null, pageable, 0L))
                     .willReturn(new LuceneSearchService.SearchResult(
                             new SliceImpl<>(Collections.emptyList(), pageable, false), Map.of(), Map.of()));
 
@@ -359,6 +411,61 @@ class PostServiceTest {
             assertThat(result.results().getContent()).isEmpty();
             assertThat(result.results().hasNext()).isFalse();
         }
+
+        @Test
+        @DisplayName("[해피] 캐시 히트여도 응답마다 새 impression ID — 피처 행은 기록하지 않는다")
+        void freshImpressionIdPerResponse() throws IOException {
+            Pageable pageable = PageRequest.of(1, 20);
+            given(tieredCacheService.get(
+                    any(String.class), any(Cache.class), any(String.class),
+                    any(Class.class), any(Duration.class), any(Supplier.class), any(Consumer.class)))
+                    .willReturn(new CachedSearchResult(List.of(), false, Map.of()));
+            given(luceneSearchService.newImpressionId()).willReturn(11L, 12L);
+
+            var first = postService.search("테스트", null, pageable);
+            var second = postService.search("테스트", null, pageable);
+
+            assertThat(first.impressionId()).isEqualTo("11");
+            assertThat(second.impressionId()).isEqualTo("12");
+            verify(luceneSearchService, never()).search(any(), any(), any(), anyLong());
+        }
+
+        @Test
+        @DisplayName("[해피] 캐시 미스면 이 응답의 impression ID로 검색해 피처 행 기록")
+        void missSearchesWithImpressionId() throws IOException {
+            Pageable pageable = PageRequest.of(0, 20);
+            given(luceneSearchService.newImpressionId()).willReturn(21L);
+            given(luceneSearchService.search("테스트", null, pageable, 21L))
+                    .willReturn(new LuceneSearchService.SearchResult(
+                            new SliceImpl<>(List.of(createTestPost()), pageable, false), Map.of(), Map.of()));
+
+            var result = postService.search("테스트", null, pageable);
+
+            assertThat(result.impressionId()).isEqualTo("21");
+        }
+
+        @Test
+        @DisplayName("[코너] soft TTL 백그라운드 갱신(다른 스레드)은 피처 행을 기록하지 않는다")
+        void backgroundRefreshDoesNotLog() throws Exception {
+            Pageable pageable = PageRequest.of(0, 20);
+            given(luceneSearchService.newImpressionId()).willReturn(31L);
+            given(luceneSearchService.search("테스트", null, pageable, 0L))
+                    .willReturn(new LuceneSearchService.SearchResult(
+                            new SliceImpl<>(List.of(createTestPost()), pageable, false), Map.of(), Map.of()));
+            given(tieredCacheService.get(
+                    any(String.class), any(Cache.class), any(String.class),
+                    any(Class.class), any(Duration.class), any(Supplier.class), any(Consumer.class)))
+                    .willAnswer(invocation -> {
+                        Supplier<?> loader = invocation.getArgument(5);
+                        Thread refresh = Thread.ofVirtual().start(loader::get);
+                        refresh.join();
+                        return new CachedSearchResult(List.of(), false, Map.of());
+                    });
+
+            postService.search("테스트", null, pageable);
+
+            verify(luceneSearchService).search("테스트", null, pageable, 0L);
+        }
     }
 
     // ========== autocomplete ==========
@@ -0,0 +1,168 @@
+package com.wiki.engine.post.internal;
+
+import com.wiki.engine.post.PostEvent;
+import com.wiki.engine.post.internal.cache.ConsistentHashRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeCountServiceTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LikeCountService service = new LikeCountService(
+            redis, null, jdbcTemplate, transactionManager, eventPublisher, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "counterTtlHours", 24L);
+        ReflectionTestUtils.setField(service, "dbBatchSize", 500);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+    }
+
+    @Test
+    @DisplayName("카운터가 없으면 DB 값으로 초기화 후 증가 — 이후 좋아요는 DB를 읽지 않는다")
+    @SuppressWarnings("unchecked")
+    void seedsFromDatabaseOnce() {
+        when(redis.execute(any(RedisScript.class), anyList(), eq(""), eq("1"), eq("7"), anyString()))
+                .thenReturn(-1L)
+                .thenReturn(43L);
+        when(redis.execute(any(RedisScript.class), anyList(), eq("41"), eq("1"), eq("7"), anyString()))
+                .thenReturn(42L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(7L))).thenReturn(41L);
+
+        assertThat(service.add(7L, 1)).isEqualTo(42);
+        assertThat(service.add(7L, 1)).isEqualTo(43);
+
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), eq(7L));
+        assertThat(meterRegistry.get("like_count_seeded").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("초기값은 DB 값 + 아직 반영되지 않은 pending/flushing 증분 — 담당 노드가 바뀐 뒤에도 증분을 놓치지 않는다")
+    @SuppressWarnings("unchecked")
+    void seedsWithUnflushedDeltas() {
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(hashOps.get("likes:pending", "7")).thenReturn("3");
+        when(hashOps.get("likes:flushing", "7")).thenReturn("-1");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(7L))).thenReturn(41L);
+        when(redis.execute(any(RedisScript.class), anyList(), eq(""), eq("1"), eq("7"), anyString()))
+                .thenReturn(-1L);
+        when(redis.execute(any(RedisScript.class), anyList(), eq("43"), eq("1"), eq("7"), anyString()))
+                .thenReturn(44L);
+
+        assertThat(service.add(7L, 1)).isEqualTo(44);
+    }
+
+    @Test
+    @DisplayName("링 교체 — 담당 노드가 바뀐 카운터와 담당이 아닌 노드에 남은 카운터를 지운다")
+    void dropsCountersWhoseOwnerChanged() {
+        StringRedisTemplate nodeA = mock(StringRedisTemplate.class);
+        StringRedisTemplate nodeB = mock(StringRedisTemplate.class);
+        try (var router = new ConsistentHashRouter(List.of(nodeA, nodeB))) {
+            var sharded = new LikeCountService(redis, router, jdbcTemplate, transactionManager, eventPublisher,
+                    meterRegistry);
+            String onA = keyOwnedBy(router, nodeA);
+            String onB = keyOwnedBy(router, nodeB);
+            givenCounters(nodeA, onA, onB);
+            givenCounters(nodeB, onA, onB);
+
+            // A가 퇴출됐다가 복귀 — 이전 링에서는 모든 키를 B가 담당했다
+            sharded.dropMovedCounters(key -> nodeB);
+
+            verify(nodeA).delete(List.of(onA, onB));   // onA: B에서 옮겨 옴(퇴출 전 값), onB: 담당 아님
+            verify(nodeB).delete(List.of(onA));        // onA: 더 이상 담당 아님, onB는 유지
+        }
+    }
+
+    private static String keyOwnedBy(ConsistentHashRouter router, StringRedisTemplate node) {
+        for (int i = 0; ; i++) {
+            String key = "post:likes:" + i;
+            if (router.getOwnerNode(key) == node) {
+                return key;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void givenCounters(StringRedisTemplate node, String... keys) {
+        Cursor<String> cursor = mock(Cursor.class);
+        Iterator<String> it = List.of(keys).iterator();
+        when(cursor.hasNext()).thenAnswer(inv -> it.hasNext());
+        when(cursor.next()).thenAnswer(inv -> it.next());
+        when(node.scan(any(ScanOptions.class))).thenReturn(cursor);
+    }
+
+    @Test
+    @DisplayName("DB fallback 후 카운터 삭제 — Redis가 아직 장애면 다음 flush에서 다시 지운다")
+    void invalidateRetriesOnNextFlush() {
+        when(redis.delete("post:likes:7"))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(true);
+
+        service.invalidate(7L);
+        service.flushToDB();
+        service.flushToDB();
+
+        verify(redis, times(2)).delete("post:likes:7");
+    }
+
+    @Test
+    @DisplayName("flush — pending을 flushing으로 봉인, 음수 증분 포함 batch UPDATE 후 LikeChanged 발행 + 해시 삭제")
+    @SuppressWarnings("unchecked")
+    void flushAppliesPendingDeltas() {
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.setIfAbsent(eq("likes:flush-lock"), anyString(), any(Duration.class))).thenReturn(true);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        Iterator<Map.Entry<Object, Object>> it = List.<Map.Entry<Object, Object>>of(
+                Map.entry("1", "120"), Map.entry("2", "-1"), Map.entry("3", "0")).iterator();
+        when(cursor.hasNext()).thenAnswer(inv -> it.hasNext());
+        when(cursor.next()).thenAnswer(inv -> it.next());
+        when(hashOps.scan(eq("likes:flushing"), any(ScanOptions.class))).thenReturn(cursor);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        int applied = service.flushNode(redis);
+
+        assertThat(applied).isEqualTo(2);
+        verify(redis).execute(any(RedisScript.class), eq(List.of("likes:pending", "likes:flushing")));
+        verify(eventPublisher).publishEvent(new PostEvent.LikeChanged(1L));
+        verify(eventPublisher).publishEvent(new PostEvent.LikeChanged(2L));
+        verify(hashOps).delete("likes:flushing", "1", "2", "3");
+        verify(redis).delete("likes:flushing");
+    }
+}
@@ -0,0 +1,150 @@
+package com.wiki.engine.post.internal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ViewCountServiceTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOps = mock(SetOperations.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ViewCountService service =
+            new ViewCountService(redis, null, jdbcTemplate, transactionManager, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "bucketSeconds", 10L);
+        ReflectionTestUtils.setField(service, "dbBatchSize", 2);
+        ReflectionTestUtils.setField(service, "maxBufferedPosts", 1000);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(redis.opsForSet()).thenReturn(setOps);
+    }
+
+    @Test
+    @DisplayName("조회는 로컬 버퍼에만 누적 — 한 주기 뒤 노드당 파이프라인 1회로 버킷 등록 + 합산 HINCRBY")
+    @SuppressWarnings("unchecked")
+    void incrementIsBufferedAndPublishedPerShard() {
+        service.increment(1L);
+        service.increment(2L);
+        service.increment(1L);
+
+        service.publishBuffered();   // 현재 버퍼 봉인
+        verify(redis, never()).executePipelined(any(RedisCallback.class));
+        service.publishBuffered();   // 봉인한 버퍼 반영
+
+        ArgumentCaptor<RedisCallback<Object>> captor = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redis, times(1)).executePipelined(captor.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        RedisSetCommands setCommands = mock(RedisSetCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.setCommands()).thenReturn(setCommands);
+        captor.getValue().doInRedis(connection);
+
+        byte[] bucketKey = ("views:bucket:" + service.bucketOf(System.currentTimeMillis())).getBytes();
+        verify(setCommands).sAdd(any(byte[].class), any(byte[].class));
+        verify(hashCommands).hIncrBy(aryEq(bucketKey), aryEq("1".getBytes()), eq(2L));
+        verify(hashCommands).hIncrBy(aryEq(bucketKey), aryEq("2".getBytes()), eq(1L));
+    }
+
+    @Test
+    @DisplayName("버퍼가 가득 차면 새 게시글은 Redis에 직접, 종료 시 남은 버퍼는 모두 반영")
+    @SuppressWarnings("unchecked")
+    void overflowWritesThroughAndShutdownDrains() {
+        ReflectionTestUtils.setField(service, "maxBufferedPosts", 1);
+
+        service.increment(1L);
+        service.increment(2L);   // 버퍼 가득 — 직접 반영
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class));
+        assertThat(meterRegistry.get("view_count_buffer_overflow").counter().count()).isEqualTo(1);
+
+        service.close();
+        verify(redis, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("flushing 해시를 HSCAN 페이지마다 batch UPDATE 후 HDEL — 중복 반환 필드는 1회만, 완료 시 키 삭제")
+    void drainAppliesPagesAndDeletesBucket() {
+        stubScan(e("3", "4"), e("1", "2"), e("3", "4"), e("2", "1"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        int applied = service.drain(redis, "100");
+
+        assertThat(applied).isEqualTo(3);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(hashOps).delete("views:flushing:100", "3", "1");
+        verify(hashOps).delete("views:flushing:100", "2");
+        verify(redis).delete("views:flushing:100");
+        verify(setOps).remove("views:flushing", "100");
+    }
+
+    @Test
+    @DisplayName("DB 반영이 실패한 페이지는 HDEL하지 않고 버킷을 남겨 다음 flush에서 재시도")
+    void failedPageStaysInBucket() {
+        stubScan(e("1", "5"), e("2", "1"), e("3", "7"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new RuntimeException("lock wait timeout"))
+                .thenReturn(new int[]{1});
+
+        int applied = service.drain(redis, "100");
+
+        assertThat(applied).isEqualTo(1);
+        verify(hashOps, never()).delete("views:flushing:100", "1", "2");
+        verify(hashOps).delete("views:flushing:100", "3");
+        verify(redis, never()).delete(anyString());
+        verify(setOps, never()).remove(eq("views:flushing"), any());
+        assertThat(meterRegistry.get("view_count_flush_retained").counter().count()).isEqualTo(2);
+    }
+
+    private static Map.Entry<Object, Object> e(String postId, String delta) {
+        return Map.entry(postId, delta);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stubScan(Map.Entry<Object, Object>... entries) {
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        Iterator<Map.Entry<Object, Object>> it = List.of(entries).iterator();
+        when(cursor.hasNext()).thenAnswer(inv -> it.hasNext());
+        when(cursor.next()).thenAnswer(inv -> it.next());
+        when(hashOps.scan(eq("views:flushing:100"), any(ScanOptions.class))).thenReturn(cursor);
+    }
+}
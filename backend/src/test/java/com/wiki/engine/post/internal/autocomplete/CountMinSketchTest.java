@@ -0,0 +1,45 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+    @Test
+    @DisplayName("추정값은 실제 값 이상, 충돌이 적은 폭에서는 거의 정확")
+    void neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 16);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("검색어" + i, i % 10 + 1);
+        }
+        sketch.add("지진", 500);
+
+        int exact = 0;
+        for (int i = 0; i < 10_000; i++) {
+            double estimate = sketch.estimate("검색어" + i);
+            assertThat(estimate).isGreaterThanOrEqualTo(i % 10 + 1);
+            if (estimate == i % 10 + 1) {
+                exact++;
+            }
+        }
+        assertThat(sketch.estimate("지진")).isGreaterThanOrEqualTo(500);
+        assertThat(exact).isGreaterThan(9_900);
+        assertThat(sketch.sizeInBytes()).isEqualTo(4L * 65_536 * Double.BYTES);
+    }
+
+    @Test
+    @DisplayName("scale은 모든 추정값에 같은 비율을 곱한다")
+    void scaleAppliesToAllCounters() {
+        CountMinSketch sketch = new CountMinSketch(4, 1000);   // 1024로 올림
+        sketch.add("a", 8);
+        sketch.add("b", 4);
+
+        sketch.scale(0.25);
+
+        assertThat(sketch.estimate("a")).isEqualTo(2.0);
+        assertThat(sketch.estimate("b")).isEqualTo(1.0);
+        assertThat(sketch.sizeInBytes()).isEqualTo(4L * 1024 * Double.BYTES);
+    }
+}
@@ -0,0 +1,119 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.PostRepository;
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class FstAutocompleteSuggesterTest {
+
+    private final SearchLogRepository searchLogRepository = mock(SearchLogRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        given(searchLogRepository.findTopQueriesSince(any(LocalDateTime.class), anyInt()))
+                .willReturn(List.of(new Object[]{"삼성전자", 50L}, new Object[]{"삼국지", 3L}));
+        given(postRepository.findTopTitlesByViewCount(anyInt()))
+                .willReturn(List.of(new Object[]{"삼성", 1_000L}, new Object[]{"삼계탕", 10L},
+                        new Object[]{"삼성전자", 7L}));
+    }
+
+    private FstAutocompleteSuggester suggester(String dir, String mode) {
+        PopularTitles popularTitles = new PopularTitles(postRepository);
+        ReflectionTestUtils.setField(popularTitles, "maxTitles", 100);
+        ReflectionTestUtils.setField(popularTitles, "maxAgeMs", 3_600_000L);
+        FstAutocompleteSuggester suggester = new FstAutocompleteSuggester(
+                searchLogRepository, popularTitles, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(suggester, "enabled", true);
+        ReflectionTestUtils.setField(suggester, "dir", dir);
+        ReflectionTestUtils.setField(suggester, "queryWeight", 100L);
+        ReflectionTestUtils.setField(suggester, "luceneMode", mode);
+        return suggester;
+    }
+
+    @Test
+    @DisplayName("검색어 × 가중치 + 제목 조회수 합산 순으로 prefix 자동완성")
+    void suggestsByWeight() {
+        FstAutocompleteSuggester suggester = suggester("", "primary");
+        assertThat(suggester.isReady()).isFalse();
+        assertThat(suggester.suggest("삼", 10)).isEmpty();
+
+        suggester.rebuild();
+
+        assertThat(suggester.isReady()).isTrue();
+        // 삼성전자 5007, 삼성 1000, 삼국지 300, 삼계탕 10
+        assertThat(suggester.suggest("삼", 10)).containsExactly("삼성전자", "삼성", "삼국지", "삼계탕");
+        assertThat(suggester.suggest("삼", 2)).containsExactly("삼성전자", "삼성");
+        assertThat(suggester.suggest("삼성전", 10)).containsExactly("삼성전자");
+        assertThat(suggester.suggest("없음", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("자모가 섞인 입력과 초성 입력도 매칭, 변형 간 중복 없음")
+    void matchesJamoAndChoseong() {
+        FstAutocompleteSuggester suggester = suggester("", "primary");
+        suggester.rebuild();
+
+        assertThat(suggester.suggest("삼ㅅ", 10)).containsExactly("삼성전자", "삼성");
+        assertThat(suggester.suggest("ㅅㅅ", 10)).containsExactly("삼성전자", "삼성");
+        assertThat(suggester.suggest("ㅅㄱ", 10)).containsExactly("삼국지", "삼계탕");
+    }
+
+    @Test
+    @DisplayName("입력 중인 마지막 음절(종성 전)도 자모 단위로 매칭")
+    void matchesSyllableInProgress() {
+        FstAutocompleteSuggester suggester = suggester("", "primary");
+        suggester.rebuild();
+
+        assertThat(suggester.suggest("삼서", 10)).containsExactly("삼성전자", "삼성");
+        assertThat(suggester.suggest("삼성저", 10)).containsExactly("삼성전자");
+    }
+
+    @Test
+    @DisplayName("primary가 저장한 파일을 replica가 폴링으로 로드")
+    void replicaLoadsStoredFile(@TempDir Path dir) {
+        FstAutocompleteSuggester primary = suggester(dir.toString(), "primary");
+        primary.rebuild();
+
+        FstAutocompleteSuggester replica = suggester(dir.toString(), "replica");
+        replica.scheduledRebuild();
+        assertThat(replica.isReady()).isFalse();   // replica는 빌드하지 않는다
+
+        replica.reloadIfChanged();
+        assertThat(replica.isReady()).isTrue();
+        assertThat(replica.suggest("삼성", 10)).containsExactly("삼성전자", "삼성");
+    }
+
+    @Test
+    @DisplayName("조회 지연 — 수 μs 수준 (네트워크 왕복 없음)")
+    void lookupLatency() {
+        FstAutocompleteSuggester suggester = suggester("", "primary");
+        suggester.rebuild();
+
+        int iterations = 100_000;
+        for (int i = 0; i < 10_000; i++) {
+            suggester.suggest("삼", 10);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            suggester.suggest(i % 2 == 0 ? "삼" : "ㅅㅅ", 10);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+        assertThat(micros).isLessThan(1_000);
+    }
+}
@@ -0,0 +1,59 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JamoTermIndexTest {
+
+    private static JamoTermIndex index;
+
+    @BeforeAll
+    static void build() throws IOException {
+        index = JamoTermIndex.build(Map.of(
+                "컴퓨터", 100L,
+                "삼성전자", 1_000L,
+                "삼성전지", 10L,
+                "알고리즘", 50L,
+                "스프링", 30L,
+                "java", 20L));
+    }
+
+    @Test
+    @DisplayName("자모 1개 치환/삽입/삭제/전치는 편집 1")
+    void singleJamoEdit() throws IOException {
+        assertThat(index.correct("컴퓨텨")).isEqualTo("컴퓨터");   // ㅕ → ㅓ
+        assertThat(index.correct("스프링ㅇ")).isEqualTo("스프링");  // 삽입
+        assertThat(index.correct("스프르")).isNull();              // ㄹㅡ vs ㄹㅣㅇ — 편집 2, 짧은 단어
+        assertThat(index.correct("jvaa")).isEqualTo("java");       // 전치
+    }
+
+    @Test
+    @DisplayName("같은 거리 후보는 가중치가 큰 단어")
+    void prefersHeavierCandidate() throws IOException {
+        assertThat(index.correct("삼성전쟈")).isEqualTo("삼성전자");
+    }
+
+    @Test
+    @DisplayName("편집 2는 긴 단어만, 첫 자모는 일치해야 한다")
+    void twoEditsForLongTermsOnly() throws IOException {
+        assertThat(index.correct("알거리즈")).isEqualTo("알고리즘");   // ㅗ → ㅓ, ㅁ 삭제
+        assertThat(index.correct("캄퓨터")).isEqualTo("컴퓨터");
+        assertThat(index.correct("엄퓨터")).isNull();                 // 첫 자모 다름
+        assertThat(index.correct("가")).isNull();
+    }
+
+    @Test
+    @DisplayName("사전 단어 포함 여부는 자모 시퀀스 일치")
+    void contains() throws IOException {
+        assertThat(index.contains("컴퓨터")).isTrue();
+        assertThat(index.contains("컴퓨텨")).isFalse();
+        assertThat(JamoTermIndex.EMPTY.contains("컴퓨터")).isFalse();
+        assertThat(JamoTermIndex.EMPTY.correct("컴퓨텨")).isNull();
+    }
+}
@@ -0,0 +1,39 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTopKTest {
+
+    @Test
+    @DisplayName("같은 검색어는 한 번만, 점수 내림차순 상위 K개 유지")
+    void keepsDistinctTopK() {
+        PrefixTopK topK = new PrefixTopK(3);
+
+        assertThat(topK.offer("삼성전자", 100)).isTrue();
+        assertThat(topK.offer("삼성전자", 100)).isFalse();   // 원본/자모 분해에서 중복 유입
+        topK.offer("삼성", 50);
+        topK.offer("삼국지", 70);
+        assertThat(topK.offer("삼계탕", 10)).isFalse();      // 최솟값 이하 — heap 변경 없음
+        topK.offer("삼성sdi", 80);                           // "삼성"(50) 밀려남
+
+        assertThat(topK.sorted()).containsExactly("삼성전자", "삼성sdi", "삼국지");
+        assertThat(topK.offer("삼성", 90)).isTrue();         // 밀려난 검색어는 다시 들어올 수 있다
+        assertThat(topK.sorted()).containsExactly("삼성전자", "삼성", "삼성sdi");
+    }
+
+    @Test
+    @DisplayName("1만 검색어 × 접두사 삽입 — 중복 검사가 K에 비례하지 않는다")
+    void offerThroughput() {
+        PrefixTopK topK = new PrefixTopK(10);
+        for (int round = 0; round < 3; round++) {         // 원본 + 자모 + 초성
+            for (int i = 0; i < 10_000; i++) {
+                topK.offer("query" + i, i);
+            }
+        }
+
+        assertThat(topK.sorted()).hasSize(10).first().isEqualTo("query9999");
+    }
+}
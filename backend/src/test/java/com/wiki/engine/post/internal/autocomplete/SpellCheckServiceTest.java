@@ -0,0 +1,198 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.PostRepository;
+import com.wiki.engine.post.internal.search.QueryReformulationRepository;
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class SpellCheckServiceTest {
+
+    private final QueryReformulationRepository queryReformulationRepository = mock(QueryReformulationRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final SearchLogRepository searchLogRepository = mock(SearchLogRepository.class);
+    private final PopularTitles popularTitles = new PopularTitles(postRepository);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ByteBuffersDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private SpellCheckService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = new ByteBuffersDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()));
+        for (String title : List.of("컴퓨터", "프로그래밍", "자바")) {
+            Document doc = new Document();
+            doc.add(new StringField("title", title, Field.Store.NO));
+            writer.addDocument(doc);
+        }
+        writer.commit();
+        searcherManager = new SearcherManager(writer, null);
+
+        given(queryReformulationRepository.findTopPairsSince(any(LocalDateTime.class), anyLong(), anyInt()))
+                .willReturn(List.of(
+                        new Object[]{"잡아 스크립트", "자바스크립트", 12L},
+                        new Object[]{"잡아 스크립트", "자바 스크립트", 5L}));
+        given(postRepository.findTopTitlesByViewCount(anyInt())).willReturn(List.of(
+                new Object[]{"컴퓨터 구조", 100L},
+                new Object[]{"프로그래밍 입문", 50L},
+                new Object[]{"스프링 부트 입문", 30L}));
+        given(searchLogRepository.findTopQueriesSince(any(LocalDateTime.class), anyInt()))
+                .willReturn(List.of(
+                        new Object[]{"스프링 부트", 3L},
+                        new Object[]{"자바스크립트", 20L},
+                        new Object[]{"컴퓨텨", 1_000L}));
+        ReflectionTestUtils.setField(popularTitles, "maxTitles", 1_000);
+        ReflectionTestUtils.setField(popularTitles, "maxAgeMs", 3_600_000L);
+
+        service = new SpellCheckService(searcherManager, queryReformulationRepository,
+                popularTitles, searchLogRepository, meterRegistry);
+        ReflectionTestUtils.setField(service, "budgetMs", 1_000L);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 8);
+        ReflectionTestUtils.setField(service, "cacheSize", 1_000L);
+        ReflectionTestUtils.setField(service, "rebuildIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "queryWeight", 100L);
+        ReflectionTestUtils.setField(service, "dictionaryMinSupport", 3L);
+        ReflectionTestUtils.setField(service, "dictionaryMaxSize", 1_000);
+        service.init();
+        service.refreshDictionary();
+        service.rebuildTermIndex();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.shutdown();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private double requests(String source) {
+        return meterRegistry.get("spell_check_requests").tag("source", source).counter().count();
+    }
+
+    @Test
+    @DisplayName("교정 사전에 있는 검색어는 최다 재검색으로 바로 교정")
+    void dictionaryHit() {
+        assertThat(service.suggestCorrection("잡아 스크립트")).contains("자바스크립트");
+        assertThat(requests("dictionary")).isEqualTo(1);
+        assertThat(requests("computed")).isZero();
+    }
+
+    @Test
+    @DisplayName("사전에 없으면 자모 단어 사전으로 계산 후 같은 세대 동안 캐시")
+    void computesOnceThenCaches() {
+        assertThat(service.suggestCorrection("컴퓨텨")).contains("컴퓨터");
+        assertThat(service.suggestCorrection("컴퓨텨")).contains("컴퓨터");
+        assertThat(service.suggestCorrection(" 컴퓨텨 ")).contains("컴퓨터");   // 정규화 키
+
+        assertThat(requests("computed")).isEqualTo(1);
+        assertThat(requests("cache")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("교정 없음도 캐시")
+    void cachesNoCorrection() {
+        assertThat(service.suggestCorrection("컴퓨터")).isEmpty();
+        assertThat(service.suggestCorrection("컴퓨터")).isEmpty();
+
+        assertThat(requests("computed")).isEqualTo(1);
+        assertThat(requests("cache")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("단어별로 자모 교정 — 제목 단어 기준")
+    void correctsEachTokenByJamo() {
+        assertThat(service.suggestCorrection("컴퓨텨 구조")).contains("컴퓨터 구조");
+        assertThat(service.suggestCorrection("스프링 부투")).contains("스프링 부트");
+        assertThat(service.suggestCorrection("프로그래빙 2025")).contains("프로그래밍 2025");   // 숫자는 그대로
+    }
+
+    @Test
+    @DisplayName("검색어 단어는 제목/교정 사전에 있을 때만 — 자주 친 오타는 사전에 들어가지 않는다")
+    void queryTermsNeedTitleOrDictionary() {
+        assertThat(service.suggestCorrection("컴퓨텨")).contains("컴퓨터");              // 검색 로그 1,000회
+        assertThat(service.suggestCorrection("자바스크립투")).contains("자바스크립트");   // 교정 사전의 교정 검색어 단어
+    }
+
+    @Test
+    @DisplayName("사전 재빌드로 세대가 바뀌면 다시 계산")
+    void rebuildInvalidatesByGeneration() {
+        service.suggestCorrection("프로그래빙");
+
+        service.rebuildTermIndex();
+
+        assertThat(service.suggestCorrection("프로그래빙")).contains("프로그래밍");
+        assertThat(requests("computed")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("자모 단어 사전 준비 전에는 title term으로 DirectSpellChecker 교정")
+    void fallsBackToDirectSpellCheckerBeforeBuild() {
+        SpellCheckService notBuilt = new SpellCheckService(searcherManager, queryReformulationRepository,
+                popularTitles, searchLogRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(notBuilt, "budgetMs", 1_000L);
+        ReflectionTestUtils.setField(notBuilt, "threads", 1);
+        ReflectionTestUtils.setField(notBuilt, "queueCapacity", 8);
+        ReflectionTestUtils.setField(notBuilt, "cacheSize", 1_000L);
+        ReflectionTestUtils.setField(notBuilt, "rebuildIntervalMs", 3_600_000L);
+        notBuilt.init();
+        try {
+            assertThat(notBuilt.suggestCorrection("프로그래빙")).contains("프로그래밍");
+        } finally {
+            notBuilt.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("시간 예산 초과 시 제안 없이 반환하고, 계산은 계속되어 다음 요청에서 캐시 히트")
+    void budgetExceededReturnsEmptyThenCaches() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "budgetMs", 50L);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(service.suggestCorrection("컴퓨텨")).isEmpty();
+        assertThat(requests("timeout")).isEqualTo(1);
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> service.suggestCorrection("컴퓨텨").isPresent());
+        assertThat(requests("cache")).isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.wiki.engine.post.internal.autocomplete;
+
+import com.wiki.engine.post.internal.search.SearchLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class TrendingQueryTrackerTest {
+
+    private static final long T0 = 1_000_000_000L;
+    private static final long HALF_LIFE = Duration.ofMinutes(15).toMillis();
+
+    private final SearchLogRepository searchLogRepository = mock(SearchLogRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TrendingQueryTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        // 7일 100만 건 ≈ 15분 반감기 창에서 약 2,147건 기대
+        given(searchLogRepository.findTopQueriesSince(any(LocalDateTime.class), anyInt()))
+                .willReturn(List.<Object[]>of(new Object[]{"삼성전자", 1_000_000L}));
+        tracker = new TrendingQueryTracker(searchLogRepository, meterRegistry);
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "capacity", 100);
+        ReflectionTestUtils.setField(tracker, "sketchDepth", 4);
+        ReflectionTestUtils.setField(tracker, "sketchWidth", 4096);
+        ReflectionTestUtils.setField(tracker, "halfLifeMinutes", 15L);
+        ReflectionTestUtils.setField(tracker, "minLift", 20.0);
+        ReflectionTestUtils.setField(tracker, "maxSlots", 3);
+        ReflectionTestUtils.setField(tracker, "maxPending", 1_000);
+        tracker.init();
+        tracker.refreshBaseline();
+    }
+
+    private void search(String query, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(query);
+        }
+    }
+
+    @Test
+    @DisplayName("기준선보다 급증한 검색어만 다음 tick에 접두사(원본/자모/초성)로 노출")
+    void spikeEntersAllPrefixVariants() {
+        search("지진 속보", 100);
+        search("삼성전자", 100);   // 평소 검색량 이하 — 급상승 아님
+        search("날씨", 5);         // min-lift 미만
+        assertThat(tracker.suggest("지", 10)).isEmpty();   // tick 전
+
+        tracker.tick(T0);
+
+        assertThat(tracker.suggest("지", 10)).containsExactly("지진 속보");
+        assertThat(tracker.suggest("지진 ", 10)).containsExactly("지진 속보");
+        assertThat(tracker.suggest("ㅈㅣㅈ", 10)).containsExactly("지진 속보");   // 자모 분해 키
+        assertThat(tracker.suggest("ㅈㅈ", 10)).containsExactly("지진 속보");     // 초성
+        assertThat(tracker.suggest("삼", 10)).isEmpty();
+        assertThat(tracker.suggest("날", 10)).isEmpty();
+        assertThat(meterRegistry.get("autocomplete_trending_changes").tag("type", "entered").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("점수 내림차순, max-slots개까지")
+    void ordersByScoreWithinSlots() {
+        search("지진", 300);
+        search("지하철 파업", 200);
+        search("지방선거", 100);
+        search("지구", 50);
+        tracker.tick(T0);
+
+        assertThat(tracker.suggest("지", 10)).containsExactly("지진", "지하철 파업", "지방선거");
+        assertThat(tracker.suggest("지", 2)).containsExactly("지진", "지하철 파업");
+    }
+
+    @Test
+    @DisplayName("검색이 멈추면 반감기마다 절반으로 감쇠해 목록과 접두사 인덱스에서 빠진다")
+    void decayedQueryLeaves() {
+        search("지진", 100);
+        tracker.tick(T0);
+        assertThat(tracker.suggest("지", 10)).containsExactly("지진");
+
+        tracker.tick(T0 + 2 * HALF_LIFE);   // 25건 — 유지
+        assertThat(tracker.suggest("지", 10)).containsExactly("지진");
+
+        tracker.tick(T0 + 3 * HALF_LIFE);   // 12.5건 < 20
+        assertThat(tracker.suggest("지", 10)).isEmpty();
+        assertThat(tracker.suggest("ㅈㅈ", 10)).isEmpty();
+        assertThat(meterRegistry.get("autocomplete_trending_changes").tag("type", "left").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("최근 검색이 과거 검색보다 무겁다 — landmark 이동 후에도 순위 유지")
+    void recentOutweighsOldAcrossLandmarkMove() {
+        search("지진", 1_000);
+        tracker.tick(T0);
+
+        long later = T0 + 40 * HALF_LIFE;   // λ·Δt ≈ 27.7 → landmark 이동
+        search("지하철", 30);
+        tracker.tick(later);
+        search("지구", 25);
+        tracker.tick(later + 1_000);
+
+        assertThat(tracker.suggest("지", 10)).containsExactly("지하철", "지구");
+    }
+
+    @Test
+    @DisplayName("검색어 종류가 많아도 Top-K와 tick 버퍼는 상한을 넘지 않는다")
+    void memoryStaysBounded() {
+        for (int tick = 0; tick < 20; tick++) {
+            for (int i = 0; i < 5_000; i++) {
+                tracker.record("q" + tick + "-" + i);
+            }
+            tracker.tick(T0 + tick * 5_000L);
+        }
+
+        Map<?, ?> topScores = (Map<?, ?>) ReflectionTestUtils.getField(tracker, "topScores");
+        assertThat(topScores).hasSizeLessThanOrEqualTo(100);
+        assertThat(meterRegistry.get("autocomplete_trending_dropped").counter().count())
+                .isEqualTo(20 * 4_000);
+        assertThat(tracker.suggest("q", 10)).isEmpty();   // 1건씩 — 급상승 아님
+    }
+}
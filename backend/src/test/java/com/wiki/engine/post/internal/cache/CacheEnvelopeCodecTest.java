@@ -0,0 +1,135 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.wiki.engine.post.dto.CachedSearchResult;
+import com.wiki.engine.post.dto.PostSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheEnvelopeCodecTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CacheEnvelopeCodec codec(String format) {
+        return codec(format, true);
+    }
+
+    private CacheEnvelopeCodec codec(String format, boolean envelopeEnabled) {
+        return new CacheEnvelopeCodec(
+                List.of(new JsonCacheValueCodec(jsonMapper), new SmileCacheValueCodec()),
+                format, envelopeEnabled, 1024, meterRegistry);
+    }
+
+    private static CachedSearchResult searchResult(int size) {
+        List<PostSearchResponse> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(new PostSearchResponse((long) i, "대한민국의 역사 " + i,
+                    "대한민국의 역사는 고조선에서 시작하여 삼국 시대, 남북국 시대, 고려, 조선을 거쳐 현재에 이른다. " + i,
+                    7L, "위키편집자", 1200L + i, 30L, Instant.parse("2026-01-01T00:00:00Z")));
+        }
+        return new CachedSearchResult(content, true, Map.of("역사", 120L, "지리", 8L));
+    }
+
+    @Test
+    @DisplayName("Smile + 압축 인코딩 후 디코딩하면 원본과 같다")
+    void roundTrip() {
+        CacheEnvelopeCodec codec = codec("smile");
+        CachedSearchResult original = searchResult(20);
+
+        byte[] encoded = codec.encode("searchResults", original, 1_000L).bytes();
+
+        assertThat(CacheEnvelopeCodec.hasHeader(encoded)).isTrue();
+        assertThat(encoded[2]).isEqualTo(SmileCacheValueCodec.FORMAT_ID);
+        assertThat(encoded[3] & CacheEnvelopeCodec.FLAG_DEFLATE).isEqualTo(CacheEnvelopeCodec.FLAG_DEFLATE);
+        var decoded = codec.decode("searchResults", encoded, CachedSearchResult.class);
+        assertThat(decoded.value()).isEqualTo(original);
+        assertThat(decoded.loadedAtMillis()).isEqualTo(1_000L);
+    }
+
+    @Test
+    @DisplayName("임계값 미만의 작은 값은 압축하지 않는다")
+    void smallValueNotCompressed() {
+        byte[] encoded = codec("smile").encode("searchResults", searchResult(1), 1_000L).bytes();
+
+        assertThat(encoded[3] & CacheEnvelopeCodec.FLAG_DEFLATE).isZero();
+    }
+
+    @Test
+    @DisplayName("헤더 없는 기존 JSON 값도 읽는다 — 롤링 배포 중 이전 노드가 쓴 값, 로드 시각은 0(stale)")
+    void readsLegacyJson() {
+        CachedSearchResult original = searchResult(3);
+        byte[] legacy = jsonMapper.writeValueAsString(original).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CacheEnvelopeCodec.hasHeader(legacy)).isFalse();
+        var decoded = codec("smile").decode("searchResults", legacy, CachedSearchResult.class);
+        assertThat(decoded.value()).isEqualTo(original);
+        assertThat(decoded.loadedAtMillis()).isZero();
+    }
+
+    @Test
+    @DisplayName("envelope 비활성이면 기존 배포의 역직렬화(UTF-8 문자열 → readValue)로 그대로 읽힌다")
+    void plainJsonReadableByBaselineDeserializer() {
+        CachedSearchResult original = searchResult(20);
+
+        byte[] encoded = codec("json", false).encode("searchResults", original, 1_000L).bytes();
+
+        assertThat(CacheEnvelopeCodec.hasHeader(encoded)).isFalse();
+        assertThat(encoded).isEqualTo(jsonMapper.writeValueAsString(original).getBytes(StandardCharsets.UTF_8));
+        String stored = new String(encoded, StandardCharsets.UTF_8);
+        assertThat(jsonMapper.readValue(stored, CachedSearchResult.class)).isEqualTo(original);
+    }
+
+    @Test
+    @DisplayName("envelope 비활성 모드의 헤더 없는 값은 읽은 시각을 로드 시각으로 본다")
+    void plainJsonLoadedAtIsReadTime() {
+        CacheEnvelopeCodec codec = codec("json", false);
+        byte[] encoded = codec.encode("searchResults", searchResult(3), 1_000L).bytes();
+        long before = System.currentTimeMillis();
+
+        var decoded = codec.decode("searchResults", encoded, CachedSearchResult.class);
+
+        assertThat(decoded.loadedAtMillis()).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("envelope 없이 smile 쓰기는 시작 시 거부한다")
+    void smileRequiresEnvelope() {
+        assertThatThrownBy(() -> codec("smile", false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("쓰기 포맷과 무관하게 헤더의 포맷 ID로 읽는다")
+    void readsAnyRegisteredFormat() {
+        CachedSearchResult original = searchResult(20);
+        byte[] json = codec("json").encode("searchResults", original, 1_000L).bytes();
+
+        assertThat(json[2]).isEqualTo(JsonCacheValueCodec.FORMAT_ID);
+        assertThat(codec("smile").decode("searchResults", json, CachedSearchResult.class).value()).isEqualTo(original);
+    }
+
+    @Test
+    @DisplayName("검색 결과 20건 기준 저장 크기 비교 — JSON 문자열 vs 코덱 인코딩")
+    void comparesStoredSize() {
+        CachedSearchResult value = searchResult(20);
+        int legacy = jsonMapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8).length;
+        int json = codec("json").encode("searchResults", value, 1_000L).bytes().length;
+        int smile = codec("smile").encode("searchResults", value, 1_000L).bytes().length;
+
+        assertThat(json).isLessThan(legacy);
+        assertThat(smile).isLessThan(legacy / 2);
+        assertThat(meterRegistry.find("tiered_cache_value_bytes")
+                .tags("region", "searchResults", "stage", "stored").summary().count()).isEqualTo(2);
+    }
+}
@@ -23,7 +23,7 @@ class CacheInvalidationEventHandlerTest {
         var handler = new CacheInvalidationEventHandler(tieredCacheService, postDetailL1Cache);
         Post post = Post.builder().title("t").content("c").authorId(1L).build();
 
-        handler.onUpdated(new PostEvent.Updated(42L, post));
+        handler.onUpdated(new PostEvent.Updated(42L, post, post.getTitle()));
 
         verify(tieredCacheService).evict(postDetailL1Cache, "post:42");
     }
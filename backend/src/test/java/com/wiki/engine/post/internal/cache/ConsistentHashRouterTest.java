@@ -1,15 +1,25 @@
 package com.wiki.engine.post.internal.cache;
 
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class ConsistentHashRouterTest {
 
@@ -109,4 +119,142 @@ class ConsistentHashRouterTest {
         assertThat(router.getRingSize()).isEqualTo(450);
         assertThat(router.getNodeCount()).isEqualTo(3);
     }
+
+    @Test
+    @DisplayName("할당 없는 해시 — Guava murmur3_128(UTF-8).asLong()과 동일 (기존 키 배치 유지)")
+    void hashMatchesGuava() {
+        List<String> keys = new ArrayList<>(List.of(
+                "", "a", "post:1", "search:스프링 부트:0:20", "0123456789abcdef", "0123456789abcdef0",
+                "이모지 \uD83D\uDE80 키", "짝 없는 \uD800 surrogate", "끝 surrogate \uDC00", "ÿ€߿ࠀ"));
+        for (int len = 0; len < 40; len++) {
+            keys.add("k".repeat(len) + "가".repeat(len % 5));
+        }
+        for (String key : keys) {
+            long expected = Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong() & 0x7FFFFFFFFFFFFFFFL;
+            assertThat(ConsistentHashRouter.hash(key)).as(key).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("연속 실패 5회 → 샤드 퇴출(다른 노드로 라우팅), PING 3회 성공 → 복귀")
+    @SuppressWarnings("unchecked")
+    void ejectAndReadmit() {
+        var node1 = mockNode("node-0");
+        var node2 = mockNode("node-1");
+        var node3 = mockNode("node-2");
+        var router = new ConsistentHashRouter(List.of(node1, node2, node3));
+
+        for (int i = 0; i < 4; i++) {
+            router.recordFailure(node2);
+        }
+        router.recordSuccess(node2, 1_000_000);   // 성공이 끼면 연속 실패 초기화
+        for (int i = 0; i < 4; i++) {
+            router.recordFailure(node2);
+        }
+        assertThat(router.isEjected(node2)).isFalse();
+
+        router.recordFailure(node2);
+        assertThat(router.isEjected(node2)).isTrue();
+        assertThat(router.getRingSize()).isEqualTo(300);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(router.getNode("key:" + i)).isNotSameAs(node2);
+        }
+
+        when(node2.execute(any(RedisCallback.class))).thenReturn("PONG");
+        router.probeEjected();
+        router.probeEjected();
+        assertThat(router.isEjected(node2)).as("2회 성공으로는 아직 퇴출 상태").isTrue();
+        router.probeEjected();
+        assertThat(router.isEjected(node2)).isFalse();
+        assertThat(router.getRingSize()).isEqualTo(450);
+        router.close();
+    }
+
+    @Test
+    @DisplayName("마지막 남은 활성 노드는 퇴출하지 않는다")
+    void neverEjectLastNode() {
+        var node1 = mockNode("node-0");
+        var node2 = mockNode("node-1");
+        var router = new ConsistentHashRouter(List.of(node1, node2));
+
+        for (int i = 0; i < 5; i++) {
+            router.recordFailure(node1);
+            router.recordFailure(node2);
+        }
+
+        assertThat(router.isEjected(node1)).isTrue();
+        assertThat(router.isEjected(node2)).isFalse();
+        assertThat(router.getNode("any")).isSameAs(node2);
+        router.close();
+    }
+
+    @Test
+    @DisplayName("노드 추가 후 dual-read — 담당이 바뀐 키만 이전 노드를 알려주고, 마이그레이션 완료 후 해제")
+    void previousNodeDuringMigration() {
+        var node1 = mockNode("node-0");
+        var node2 = mockNode("node-1");
+        var node3 = mockNode("node-2");
+        var router = new ConsistentHashRouter(List.of(node1, node2, node3));
+        Map<String, StringRedisTemplate> before = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            before.put("key:" + i, router.getNode("key:" + i));
+        }
+
+        var node4 = mockNode("node-3");
+        router.addNode(node4);
+
+        assertThat(router.isMigrating()).isTrue();
+        for (int i = 0; i < 1000; i++) {
+            String key = "key:" + i;
+            StringRedisTemplate previous = router.getPreviousNode(key);
+            if (router.getNode(key) == before.get(key)) {
+                assertThat(previous).isNull();
+            } else {
+                assertThat(router.getNode(key)).isSameAs(node4);
+                assertThat(previous).isSameAs(before.get(key));
+            }
+        }
+
+        router.completeMigration();
+        assertThat(router.isMigrating()).isFalse();
+        assertThat(router.getPreviousNode("key:1")).isNull();
+        router.close();
+    }
+
+    @Test
+    @DisplayName("hot key — 서로 다른 3개 노드에 복제, 읽기는 복제본으로 분산 / 일반 키는 담당 노드 고정")
+    void hotKeySpreadsAcrossReplicas() {
+        var nodes = List.of(mockNode("n0"), mockNode("n1"), mockNode("n2"), mockNode("n3"));
+        var hotKeySettings = new ConsistentHashRouter.HotKeySettings(
+                true, 1, 0.01, Duration.ofHours(1), 100, 3, 1.25);
+        var router = new ConsistentHashRouter(nodes, new SimpleMeterRegistry(),
+                ConsistentHashRouter.BreakerSettings.DEFAULTS, hotKeySettings);
+
+        for (int i = 0; i < 100; i++) {
+            router.getNode("search:hot");
+        }
+        for (int i = 0; i < 5; i++) {
+            router.getNode("search:cold");
+        }
+        router.rotateHotKeys();
+
+        assertThat(router.isHot("search:hot")).isTrue();
+        assertThat(router.isHot("search:cold")).isFalse();
+        List<StringRedisTemplate> replicas = router.getReplicaNodes("search:hot");
+        assertThat(replicas).hasSize(3).doesNotHaveDuplicates();
+        assertThat(replicas.getFirst()).isSameAs(router.getNode("search:hot"));
+
+        Set<StringRedisTemplate> chosen = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            chosen.add(router.getBalancedNode("search:hot"));
+        }
+        assertThat(replicas).containsAll(chosen);
+        assertThat(chosen).hasSizeGreaterThanOrEqualTo(2);
+
+        StringRedisTemplate coldOwner = router.getNode("search:cold");
+        for (int i = 0; i < 50; i++) {
+            assertThat(router.getBalancedNode("search:cold")).isSameAs(coldOwner);
+        }
+        router.close();
+    }
 }
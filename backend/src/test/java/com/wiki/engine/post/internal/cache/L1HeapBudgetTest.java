@@ -0,0 +1,49 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class L1HeapBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final Cache<String, Object> cache = new PostDetailCacheConfig().postDetailL1Cache(1);
+
+    private L1HeapBudget newBudget() {
+        var budget = new L1HeapBudget(cache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(budget, "maxHeapFraction", 0.2);
+        ReflectionTestUtils.setField(budget, "headroomFraction", 0.5);
+        ReflectionTestUtils.setField(budget, "minBudgetMb", 32L);
+        return budget;
+    }
+
+    @Test
+    @DisplayName("예산 — 힙 여유의 절반까지 늘리되 최대 힙 20%를 넘지 않고, 압박 시 하한 유지")
+    void computeBudget() {
+        var budget = newBudget();
+        long heap = 2048 * MB;
+
+        assertThat(budget.computeBudget(heap, 512 * MB, 0)).isEqualTo(heap / 5);          // 여유 충분 → 상한
+        assertThat(budget.computeBudget(heap, 1900 * MB, 40 * MB)).isEqualTo(114 * MB);   // 40 + 148/2
+        assertThat(budget.computeBudget(heap, 2040 * MB, 0)).isEqualTo(32 * MB);          // 압박 → 하한
+    }
+
+    @Test
+    @DisplayName("가중치 상한 — 큰 엔트리가 들어오면 개수와 무관하게 바이트 기준으로 제거")
+    void evictsByWeight() {
+        for (int i = 0; i < 20; i++) {
+            cache.put("post:" + i, new TieredCacheService.Entry("본문", 0L, 200 * 1024));   // 200KB × 20 = 4MB
+        }
+        cache.cleanUp();
+
+        long weighted = cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertThat(weighted).isLessThanOrEqualTo(MB);
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(5);
+        assertThat(cache.stats().evictionWeight()).isGreaterThan(0);
+    }
+}
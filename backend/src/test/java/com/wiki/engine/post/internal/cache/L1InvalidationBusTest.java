@@ -0,0 +1,111 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class L1InvalidationBusTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final Cache<String, Object> searchL1 = Caffeine.newBuilder().build();
+    private final Cache<String, Object> postL1 = Caffeine.newBuilder().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private L1InvalidationBus newBus() {
+        var bus = new L1InvalidationBus(redis, mock(RedisMessageListenerContainer.class), searchL1, postL1, meterRegistry);
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "batchWindowMillis", 60_000L);   // 테스트에서는 flush() 직접 호출
+        ReflectionTestUtils.setField(bus, "maxEntriesPerMessage", 500);
+        return bus;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(L1InvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("배치 윈도우 안의 무효화는 중복 제거되어 메시지 1건으로 발행된다")
+    void coalescesIntoOneMessage() {
+        var bus = newBus();
+        bus.publishKeys(postL1, List.of("post:1"));
+        bus.publishKeys(postL1, List.of("post:1"));
+        bus.publishKeys(searchL1, List.of("search:자바:all:0:20", "search:스프링:all:0:20"));
+        bus.flush();
+
+        var body = ArgumentCaptor.forClass(String.class);
+        verify(redis, times(1)).convertAndSend(eq(L1InvalidationBus.CHANNEL), body.capture());
+        assertThat(body.getValue().lines().skip(1)).containsExactly(
+                "k postDetail post:1",
+                "k searchResults search:자바:all:0:20",
+                "k searchResults search:스프링:all:0:20");
+    }
+
+    @Test
+    @DisplayName("다른 노드의 메시지는 로컬 L1에 적용, 자신이 보낸 메시지는 무시")
+    void appliesRemoteMessages() {
+        var bus = newBus();
+        postL1.put("post:1", "stale");
+        postL1.put("post:2", "fresh");
+        searchL1.put("search:자바 버전:all:0:20", "r1");
+        searchL1.put("search:파이썬:all:0:20", "r2");
+
+        bus.onMessage(message(L1InvalidationBus.encode("other-node", System.currentTimeMillis(), List.of(
+                "k postDetail post:1",
+                "t searchResults " + L1InvalidationBus.escape("자바 21 출시")))), null);
+
+        assertThat(postL1.asMap()).containsOnlyKeys("post:2");
+        assertThat(searchL1.asMap()).containsOnlyKeys("search:파이썬:all:0:20");
+
+        String ownNode = (String) ReflectionTestUtils.getField(bus, "nodeId");
+        bus.onMessage(message(L1InvalidationBus.encode(ownNode, System.currentTimeMillis(),
+                List.of("k postDetail post:2"))), null);
+        assertThat(postL1.asMap()).containsOnlyKeys("post:2");
+        assertThat(meterRegistry.find("l1_invalidation_bus_entries_total")
+                .tags("direction", "applied").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("한 메시지의 여러 제목은 region별로 모아 한 번에 매칭")
+    void appliesTitlesTogether() {
+        var bus = newBus();
+        List<String> matched = new ArrayList<>();
+        bus.onTitleMatched(searchL1, matched::addAll);
+        searchL1.put("search:자바:all:0:20", "r1");
+        searchL1.put("search:스프링:all:0:20", "r2");
+        searchL1.put("search:파이썬:all:0:20", "r3");
+
+        int applied = bus.apply(String.join("\n",
+                "t searchResults 자바 21 출시",
+                "t searchResults 스프링 부트 4"));
+
+        assertThat(applied).isEqualTo(2);
+        assertThat(searchL1.asMap()).containsOnlyKeys("search:파이썬:all:0:20");
+        assertThat(matched).containsExactlyInAnyOrder("search:자바:all:0:20", "search:스프링:all:0:20");
+    }
+
+    @Test
+    @DisplayName("키에 포함된 개행/역슬래시는 escape 후 원래 값으로 복원")
+    void escapeRoundTrip() {
+        String key = "search:a\\b\nc:all:0:20";
+        assertThat(L1InvalidationBus.escape(key)).doesNotContain("\n");
+        assertThat(L1InvalidationBus.unescape(L1InvalidationBus.escape(key))).isEqualTo(key);
+    }
+}
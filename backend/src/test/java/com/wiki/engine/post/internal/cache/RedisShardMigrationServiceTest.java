@@ -0,0 +1,148 @@
+package com.wiki.engine.post.internal.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisShardMigrationServiceTest {
+
+    private final StringRedisTemplate source = mock(StringRedisTemplate.class, "node-0");
+    private final StringRedisTemplate target = mock(StringRedisTemplate.class, "node-1");
+    private final ConsistentHashRouter router = new ConsistentHashRouter(List.of(source, target));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RedisShardMigrationService service = new RedisShardMigrationService(router,
+            mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    @Test
+    @DisplayName("DUMP/RESTORE 이동 — BUSYKEY는 skip(원본 유지), 이동 중 원본이 사라진 키는 대상 사본 삭제")
+    @SuppressWarnings("unchecked")
+    void moveBatchHandlesConflicts() {
+        List<String> keys = keysOwnedBy(target, 3);
+        byte[] dump = {1, 2, 3};
+        when(source.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(Arrays.<Object>asList(dump, 60_000L, dump, -1L, dump, 1_000L));
+        when(target.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisPipelineException(new Exception("pipeline"), Arrays.<Object>asList(
+                        "OK", new RedisSystemException("BUSYKEY Target key name already exists", null), "OK")))
+                .thenReturn(List.of());
+        // 0번 키는 정상 삭제, 2번 키는 그 사이 무효화되어 원본에 없음
+        when(source.executePipelined(any(RedisCallback.class))).thenReturn(List.<Object>of(1L, 0L));
+
+        service.moveBatch(source, keys);
+
+        assertThat(count("moved")).isEqualTo(1);
+        assertThat(count("skipped")).isEqualTo(1);
+        assertThat(count("failed")).isZero();
+        verify(target, times(2)).executePipelined(any(RedisCallback.class));   // RESTORE + 고아 사본 DEL
+    }
+
+    @Test
+    @DisplayName("SCAN 이후 만료된 키(DUMP nil / PTTL -2)는 옮기지 않는다")
+    @SuppressWarnings("unchecked")
+    void expiredKeysAreIgnored() {
+        List<String> keys = keysOwnedBy(target, 2);
+        when(source.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(Arrays.<Object>asList(null, -2L, new byte[]{1}, -2L));
+
+        service.moveBatch(source, keys);
+
+        assertThat(count("moved")).isZero();
+        verify(target, times(0)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("다른 노드가 발행한 링 구성을 따라간다 — 추가/제거 후 dual-read, 이동 완료 발행에 종료")
+    void followsPublishedTopology() {
+        StringRedisTemplate first = shard("10.0.0.1", 6379);
+        StringRedisTemplate second = shard("10.0.0.2", 6379);
+        ConsistentHashRouter local = new ConsistentHashRouter(List.of(first, second));
+        try {
+            var follower = new RedisShardMigrationService(local, mock(StringRedisTemplate.class),
+                    mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+            String migrating = "migrating\n+10.0.0.1:6379\n-10.0.0.2:6379\n+10.0.0.3:6379";
+
+            follower.onMessage(message("origin\n" + migrating), null);
+
+            assertThat(local.getNodeCount()).isEqualTo(3);
+            assertThat(local.getMemberNodes()).hasSize(2).doesNotContain(second);
+            assertThat(local.isMigrating()).isTrue();
+            assertThat(follower.currentTopology().encode()).isEqualTo(migrating);
+
+            follower.onMessage(message("origin\n" + migrating.replace("migrating", "stable")), null);
+
+            assertThat(local.getNodeCount()).isEqualTo(3);
+            assertThat(local.isMigrating()).isFalse();
+        } finally {
+            local.close();
+        }
+    }
+
+    @Test
+    @DisplayName("로컬 주소와 어긋난 구성은 적용하지 않는다")
+    void ignoresMismatchedTopology() {
+        ConsistentHashRouter local = new ConsistentHashRouter(List.of(shard("10.0.0.1", 6379)));
+        try {
+            var follower = new RedisShardMigrationService(local, mock(StringRedisTemplate.class),
+                    mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+
+            follower.applyTopology(RedisShardMigrationService.Topology.decode("stable\n+10.0.0.9:6379\n+10.0.0.3:6379"));
+
+            assertThat(local.getNodeCount()).isEqualTo(1);
+        } finally {
+            local.close();
+        }
+    }
+
+    private static StringRedisTemplate shard(String host, int port) {
+        StringRedisTemplate template = mock(StringRedisTemplate.class, host);
+        when(template.getConnectionFactory())
+                .thenReturn(new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port)));
+        return template;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisShardMigrationService.TOPOLOGY_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> keysOwnedBy(StringRedisTemplate node, int n) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < n; i++) {
+            if (router.getNode("post:" + i) == node) {
+                keys.add("post:" + i);
+            }
+        }
+        return keys;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("redis_shard_migration_keys").tag("result", result).counter().count();
+    }
+}
@@ -1,6 +1,5 @@
 package com.wiki.engine.post.internal.cache;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import com.wiki.engine.post.Post;
 import com.wiki.engine.post.PostEvent;
 import org.junit.jupiter.api.DisplayName;
@@ -10,41 +9,57 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class SearchCacheEventHandlerTest {
 
-    @Mock private Cache<String, Object> searchResultsL1Cache;
+    @Mock private SearchCacheIndex searchCacheIndex;
 
     @Test
-    @DisplayName("[해피] Created → 검색 캐시 L1 전체 무효화")
+    @DisplayName("[해피] Created → 제목에 매칭되는 검색 키만 무효화")
     void onCreated() {
-        var handler = new SearchCacheEventHandler(searchResultsL1Cache);
+        var handler = new SearchCacheEventHandler(searchCacheIndex);
         Post post = Post.builder().title("t").content("c").authorId(1L).build();
 
         handler.onCreated(new PostEvent.Created(1L, post));
 
-        verify(searchResultsL1Cache).invalidateAll();
+        verify(searchCacheIndex).invalidateMatchingTitle(post);
+        verifyNoMoreInteractions(searchCacheIndex);
     }
 
     @Test
-    @DisplayName("[해피] Updated → 검색 캐시 L1 전체 무효화")
+    @DisplayName("[해피] Updated(제목 변경) → 이 게시글을 포함한 검색 키 + 새 제목 매칭 키 무효화")
     void onUpdated() {
-        var handler = new SearchCacheEventHandler(searchResultsL1Cache);
+        var handler = new SearchCacheEventHandler(searchCacheIndex);
         Post post = Post.builder().title("t").content("c").authorId(1L).build();
 
-        handler.onUpdated(new PostEvent.Updated(1L, post));
+        handler.onUpdated(new PostEvent.Updated(1L, post, "old"));
 
-        verify(searchResultsL1Cache).invalidateAll();
+        verify(searchCacheIndex).invalidatePost(1L);
+        verify(searchCacheIndex).invalidateMatchingTitle(post);
     }
 
     @Test
-    @DisplayName("[해피] Deleted → 검색 캐시 L1 전체 무효화")
+    @DisplayName("[코너] Updated(제목 그대로) → 이 게시글을 포함한 검색 키만 무효화, 제목 매칭 생략")
+    void onUpdatedWithoutTitleChange() {
+        var handler = new SearchCacheEventHandler(searchCacheIndex);
+        Post post = Post.builder().title("t").content("c").authorId(1L).build();
+
+        handler.onUpdated(new PostEvent.Updated(1L, post, "t"));
+
+        verify(searchCacheIndex).invalidatePost(1L);
+        verifyNoMoreInteractions(searchCacheIndex);
+    }
+
+    @Test
+    @DisplayName("[해피] Deleted → 이 게시글을 포함한 검색 키만 무효화")
     void onDeleted() {
-        var handler = new SearchCacheEventHandler(searchResultsL1Cache);
+        var handler = new SearchCacheEventHandler(searchCacheIndex);
 
         handler.onDeleted(new PostEvent.Deleted(1L));
 
-        verify(searchResultsL1Cache).invalidateAll();
+        verify(searchCacheIndex).invalidatePost(1L);
+        verifyNoMoreInteractions(searchCacheIndex);
     }
 }
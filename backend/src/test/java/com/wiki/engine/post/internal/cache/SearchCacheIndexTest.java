@@ -0,0 +1,134 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wiki.engine.post.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SearchCacheIndexTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private static Cache<String, Object> newL1() {
+        return Caffeine.newBuilder().maximumSize(10_000).build();
+    }
+
+    private static SearchCacheIndex newIndex(Cache<String, Object> l1) {
+        return new SearchCacheIndex(mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS), null, l1,
+                mock(L1InvalidationBus.class), new SimpleMeterRegistry(), 200_000, 600_000);
+    }
+
+    @Test
+    @DisplayName("검색 키에서 keyword 추출 — keyword 안의 ':'도 보존")
+    void keywordOf() {
+        assertThat(SearchCacheIndex.keywordOf("search:자바 가비지:all:0:20")).isEqualTo("자바 가비지");
+        assertThat(SearchCacheIndex.keywordOf("search:a:b:3:1:20")).isEqualTo("a:b");
+        assertThat(SearchCacheIndex.keywordOf("post:1")).isNull();
+    }
+
+    @Test
+    @DisplayName("수정된 게시글을 포함한 검색 키만 무효화되고 나머지는 유지된다")
+    void invalidatePostEvictsOnlyAffectedKeys() {
+        Cache<String, Object> l1 = newL1();
+        SearchCacheIndex index = newIndex(l1);
+        l1.put("search:자바:all:0:20", "r1");
+        l1.put("search:파이썬:all:0:20", "r2");
+        index.register("search:자바:all:0:20", List.of(1L, 2L), TTL);
+        index.register("search:파이썬:all:0:20", List.of(3L), TTL);
+
+        assertThat(index.invalidatePost(2L)).isEqualTo(1);
+
+        assertThat(l1.getIfPresent("search:자바:all:0:20")).isNull();
+        assertThat(l1.getIfPresent("search:파이썬:all:0:20")).isEqualTo("r2");
+    }
+
+    @Test
+    @DisplayName("새 게시글 — 검색어 토큰이 제목에 포함된 키만 L1 + L2에서 무효화")
+    void invalidateMatchingTitle() {
+        Cache<String, Object> l1 = newL1();
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        SearchCacheIndex index = new SearchCacheIndex(redis, null, l1,
+                mock(L1InvalidationBus.class), new SimpleMeterRegistry(), 200_000, 600_000);
+        l1.put("search:자바 가비지:all:0:20", "r1");
+        l1.put("search:파이썬:all:0:20", "r2");
+
+        Post post = Post.builder().title("자바 입문").content("c").authorId(1L).build();
+
+        assertThat(index.invalidateMatchingTitle(post)).isEqualTo(1);
+        assertThat(l1.getIfPresent("search:자바 가비지:all:0:20")).isNull();
+        assertThat(l1.getIfPresent("search:파이썬:all:0:20")).isEqualTo("r2");
+        verify(redis).delete(List.of("search:자바 가비지:all:0:20"));
+    }
+
+    /**
+     * 읽기/쓰기 혼합 replay — invalidateAll vs 역색인 무효화의 L1 히트율 비교.
+     * 쿼리 1,000개(1/rank 인기도), 게시글 10,000개, 쿼리당 결과 20건, 요청 10만 건 중 쓰기(수정) 5%.
+     */
+    @Test
+    @DisplayName("쓰기 5% 혼합 replay — 역색인 무효화가 invalidateAll보다 L1 히트율이 높다")
+    void replayHitRatio() {
+        double baseline = replay(false);
+        double targeted = replay(true);
+
+        assertThat(targeted).isGreaterThan(baseline * 2);
+    }
+
+    private static double replay(boolean targeted) {
+        int queries = 1_000;
+        int posts = 10_000;
+        double[] cumulative = new double[queries];
+        double sum = 0;
+        for (int i = 0; i < queries; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+
+        Cache<String, Object> l1 = newL1();
+        SearchCacheIndex index = newIndex(l1);
+        Random random = new Random(42);
+        int reads = 0, hits = 0;
+
+        for (int op = 0; op < 100_000; op++) {
+            if (random.nextDouble() < 0.05) {
+                long postId = random.nextInt(posts);
+                if (targeted) {
+                    index.invalidatePost(postId);
+                } else {
+                    l1.invalidateAll();
+                }
+                continue;
+            }
+
+            double r = random.nextDouble() * sum;
+            int q = 0;
+            while (cumulative[q] < r) q++;
+            String key = "search:q" + q + ":all:0:20";
+            reads++;
+            if (l1.getIfPresent(key) != null) {
+                hits++;
+                continue;
+            }
+            l1.put(key, "result");
+            Random results = new Random(q);
+            List<Long> postIds = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                postIds.add((long) results.nextInt(posts));
+            }
+            index.register(key, postIds, TTL);
+        }
+        return (double) hits / reads;
+    }
+}
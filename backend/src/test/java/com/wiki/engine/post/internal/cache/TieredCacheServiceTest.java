@@ -0,0 +1,369 @@
+package com.wiki.engine.post.internal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TieredCacheServiceTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final CacheEnvelopeCodec codec = mock(CacheEnvelopeCodec.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TieredCacheService service = new TieredCacheService(redis, null, codec, meterRegistry,
+            mock(L1InvalidationBus.class), 8);
+    private final Cache<String, Object> l1 = Caffeine.newBuilder().maximumSize(100).build();
+
+    @BeforeEach
+    void stubCodec() {
+        when(codec.encode(anyString(), any(), anyLong())).thenReturn(new CacheEnvelopeCodec.Encoded(new byte[16], 4));
+    }
+
+    private double counter(String name, String... tags) {
+        var found = meterRegistry.find(name).tags(tags).counter();
+        return found == null ? 0 : found.count();
+    }
+
+    @Test
+    @DisplayName("동시 미스 32건 — loader는 1번만 호출되고 나머지는 같은 결과를 공유")
+    void singleFlight() throws Exception {
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.get("searchResults", l1, "search:자바:all:0:20", String.class, TTL, () -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "결과";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("결과");
+            }
+        }
+
+        double coalesced = counter("tiered_cache_coalesced", "scope", "jvm");
+        double l1Hits = counter("tiered_cache", "level", "L1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalesced + l1Hits).isEqualTo(31);
+    }
+
+    @Test
+    @DisplayName("loader 예외는 대기 중인 요청에도 그대로 전파되고, 다음 요청은 다시 로드한다")
+    void failurePropagates() {
+        var loads = new AtomicInteger();
+        try {
+            service.get("searchResults", l1, "k", String.class, TTL, () -> {
+                loads.incrementAndGet();
+                throw new IllegalStateException("origin down");
+            });
+        } catch (IllegalStateException expected) {
+            // 다음 호출은 in-flight가 정리되어 새로 로드
+        }
+        assertThat(service.get("searchResults", l1, "k", String.class, TTL, () -> {
+            loads.incrementAndGet();
+            return "ok";
+        })).isEqualTo("ok");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("loader가 Error를 던져도 합류해 대기 중인 요청이 풀린다")
+    void errorReleasesJoiners() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = pool.submit(() -> service.get("searchResults", l1, "k", String.class, TTL, () -> {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("mapper bug");
+            }));
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> joiner = pool.submit(() -> service.get("searchResults", l1, "k", String.class, TTL,
+                    () -> "다시 로드"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> counter("tiered_cache_coalesced", "scope", "jvm") == 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> joiner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        }
+    }
+
+    @Test
+    @DisplayName("다른 노드가 lease를 보유하면 L2에 값이 생길 때까지 대기 후 그 값을 사용")
+    @SuppressWarnings("unchecked")
+    void waitsForLeaseHolder() {
+        ReflectionTestUtils.setField(service, "leaseEnabled", true);
+        ReflectionTestUtils.setField(service, "leaseTtlMillis", 5000L);
+        ReflectionTestUtils.setField(service, "leaseWaitMillis", 1000L);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        byte[] encoded = {1};
+        when(redis.execute(any(RedisCallback.class))).thenReturn(null, null, encoded);
+        when(codec.decode(eq("searchResults"), eq(encoded), eq(String.class)))
+                .thenReturn(new CacheEnvelopeCodec.Decoded<>("다른 노드 결과", System.currentTimeMillis(), 4));
+
+        var loads = new AtomicInteger();
+        String value = service.get("searchResults", l1, "search:hot:all:0:20", String.class, TTL, () -> {
+            loads.incrementAndGet();
+            return "직접 계산";
+        });
+
+        assertThat(value).isEqualTo("다른 노드 결과");
+        assertThat(loads.get()).isZero();
+        assertThat(counter("tiered_cache_coalesced", "scope", "cluster")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("soft TTL 경과 — stale 값을 즉시 반환하고 백그라운드에서 1번만 갱신")
+    void staleWhileRevalidate() {
+        ReflectionTestUtils.setField(service, "refreshEnabled", true);
+        ReflectionTestUtils.setField(service, "softTtlRatio", 0.8);
+        ReflectionTestUtils.setField(service, "aheadRatio", 0.5);
+        ReflectionTestUtils.setField(service, "hotHits", 20);
+        long nineMinutesAgo = System.currentTimeMillis() - Duration.ofMinutes(9).toMillis();
+        l1.put("post:1", new TieredCacheService.Entry("이전 값", nineMinutesAgo));
+
+        var loads = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            String value = service.get("postDetail", l1, "post:1", String.class, TTL, () -> {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "새 값";
+            });
+            assertThat(value).isIn("이전 값", "새 값");
+        }
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(((TieredCacheService.Entry) l1.getIfPresent("post:1")).value).isEqualTo("새 값"));
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(counter("tiered_cache_refresh", "reason", "stale", "result", "success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("afterStore는 Origin 로드 값을 L1에 저장한 뒤 1번 — 캐시 히트에서는 호출하지 않는다")
+    void afterStoreRunsAfterPut() {
+        String key = "search:자바:all:0:20";
+        List<Boolean> storedAtCallback = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            service.get("searchResults", l1, key, String.class, TTL, () -> "결과",
+                    value -> storedAtCallback.add(l1.getIfPresent(key) != null));
+        }
+
+        assertThat(storedAtCallback).containsExactly(true);
+    }
+
+    @Test
+    @DisplayName("L1 만료는 Origin 로드 시각 기준 — soft TTL 지난 엔트리는 남고, hard TTL 지난 엔트리는 만료")
+    void l1ExpiresFromLoadedAt() {
+        Cache<String, Object> cache = Caffeine.newBuilder()
+                .expireAfter(TieredCacheService.expireAfterLoad(TTL))
+                .build();
+        long now = System.currentTimeMillis();
+        cache.put("stale", new TieredCacheService.Entry("결과", now - Duration.ofMinutes(9).toMillis()));
+        cache.put("expired", new TieredCacheService.Entry("결과", now - Duration.ofMinutes(11).toMillis()));
+
+        assertThat(cache.getIfPresent("stale")).isNotNull();     // soft TTL(8분) 경과 — L1에서 stale 응답 + 갱신
+        assertThat(cache.getIfPresent("expired")).isNull();      // L2에서 다시 채운 엔트리도 hard TTL에 만료
+    }
+
+    @Test
+    @DisplayName("인기 키는 soft TTL 전(ahead-ratio)에 미리 갱신, 비인기 키는 갱신하지 않음")
+    void refreshAheadForHotKeys() {
+        ReflectionTestUtils.setField(service, "refreshEnabled", true);
+        ReflectionTestUtils.setField(service, "softTtlRatio", 0.8);
+        ReflectionTestUtils.setField(service, "aheadRatio", 0.5);
+        ReflectionTestUtils.setField(service, "hotHits", 5);
+        long sixMinutesAgo = System.currentTimeMillis() - Duration.ofMinutes(6).toMillis();
+        l1.put("hot", new TieredCacheService.Entry("v", sixMinutesAgo));
+        l1.put("cold", new TieredCacheService.Entry("v", sixMinutesAgo));
+
+        var loads = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            service.get("searchResults", l1, "hot", String.class, TTL, () -> "v" + loads.incrementAndGet());
+        }
+        service.get("searchResults", l1, "cold", String.class, TTL, () -> "v" + loads.incrementAndGet());
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(counter("tiered_cache_refresh", "reason", "ahead", "result", "success")).isEqualTo(1));
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("큰 값은 L1에 압축 바이트로 보관하고 읽을 때 복원 — 가중치는 압축 크기")
+    void storesLargeValuesCompressedInL1() {
+        var realCodec = new CacheEnvelopeCodec(
+                List.of(new JsonCacheValueCodec(tools.jackson.databind.json.JsonMapper.builder().build()),
+                        new SmileCacheValueCodec()),
+                "smile", true, 1024, meterRegistry);
+        var compressing = new TieredCacheService(redis, null, realCodec, meterRegistry,
+                mock(L1InvalidationBus.class), 8);
+        ReflectionTestUtils.setField(compressing, "l1CompressThresholdBytes", 16 * 1024);
+        String content = "나무위키 문서 본문 ".repeat(10_000);   // ~270KB (UTF-8)
+
+        String loaded = compressing.get("postDetail", l1, "post:9", String.class, TTL, () -> content);
+        var entry = (TieredCacheService.Entry) l1.getIfPresent("post:9");
+
+        assertThat(loaded).isEqualTo(content);
+        assertThat(entry.compressed).isNotNull();
+        assertThat(entry.weight).isLessThan(content.length() / 10);
+        assertThat(compressing.get("postDetail", l1, "post:9", String.class, TTL, () -> "loader")).isEqualTo(content);
+        assertThat(meterRegistry.find("tiered_cache_l1_inflate").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getAll — L1 히트 제외, 나머지는 MGET 1회, 진짜 미스만 batch loader로 조회하고 입력 순서 유지")
+    @SuppressWarnings("unchecked")
+    void getAllLoadsOnlyTrueMisses() {
+        l1.put("post:1", new TieredCacheService.Entry("p1", System.currentTimeMillis()));
+        byte[] p2 = {2};
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(java.util.Arrays.asList(p2, null)));
+        when(codec.decode(eq("postDetail"), eq(p2), eq(String.class)))
+                .thenReturn(new CacheEnvelopeCodec.Decoded<>("p2", System.currentTimeMillis(), 2));
+
+        List<List<String>> loaderCalls = new ArrayList<>();
+        Map<String, String> result = service.getAll("postDetail", l1, List.of("post:3", "post:1", "post:2", "post:4"),
+                String.class, TTL, missing -> {
+                    loaderCalls.add(missing);
+                    return Map.of("post:3", "p3");   // post:4는 존재하지 않는 게시글
+                });
+
+        assertThat(result).containsExactly(Map.entry("post:3", "p3"), Map.entry("post:1", "p1"), Map.entry("post:2", "p2"));
+        assertThat(loaderCalls).containsExactly(List.of("post:3", "post:4"));
+        assertThat(l1.asMap()).containsKeys("post:1", "post:2", "post:3").doesNotContainKey("post:4");
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+    }
+
+    @Test
+    @DisplayName("getAll — 단건 조회와 같은 라우팅: hot key 복제본 미스는 담당 노드, 리샤딩 중 미스는 이전 노드에서 다시 MGET")
+    @SuppressWarnings("unchecked")
+    void getAllFollowsSingleKeyRouting() {
+        StringRedisTemplate owner = mock(StringRedisTemplate.class);
+        StringRedisTemplate replica = mock(StringRedisTemplate.class);
+        StringRedisTemplate previous = mock(StringRedisTemplate.class);
+        ConsistentHashRouter router = mock(ConsistentHashRouter.class);
+        when(router.getNode(anyString())).thenReturn(owner);
+        when(router.getBalancedNode("post:hot")).thenReturn(replica);
+        when(router.getBalancedNode("post:moved")).thenReturn(owner);
+        when(router.getPreviousNode("post:moved")).thenReturn(previous);
+        byte[] hot = {1};
+        byte[] moved = {2};
+        when(replica.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(java.util.Arrays.asList((Object) null)));
+        when(owner.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(java.util.Arrays.asList((Object) null)),
+                        List.of(java.util.Arrays.asList((Object) hot)));
+        when(previous.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(java.util.Arrays.asList((Object) moved)));
+        when(codec.decode(eq("postDetail"), eq(hot), eq(String.class)))
+                .thenReturn(new CacheEnvelopeCodec.Decoded<>("hot", System.currentTimeMillis(), 3));
+        when(codec.decode(eq("postDetail"), eq(moved), eq(String.class)))
+                .thenReturn(new CacheEnvelopeCodec.Decoded<>("moved", System.currentTimeMillis(), 5));
+        TieredCacheService sharded = new TieredCacheService(redis, router, codec, meterRegistry,
+                mock(L1InvalidationBus.class), 8);
+
+        Map<String, String> result = sharded.getAll("postDetail", l1, List.of("post:hot", "post:moved"),
+                String.class, TTL, missing -> {
+                    throw new AssertionError("L2에 있는 키는 loader를 부르지 않는다: " + missing);
+                });
+
+        assertThat(result).containsExactly(Map.entry("post:hot", "hot"), Map.entry("post:moved", "moved"));
+        verify(owner, times(2)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+        verify(previous, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+    }
+
+    @Test
+    @DisplayName("getAll — 단건 조회가 로드 중인 키는 기다려 공유하고, 나머지만 batch loader로 조회")
+    @SuppressWarnings("unchecked")
+    void getAllJoinsInFlightLoads() throws Exception {
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(java.util.Arrays.asList(null, null)));
+        var singleLoading = new CountDownLatch(1);
+        var releaseSingle = new CountDownLatch(1);
+        var singleLoads = new AtomicInteger();
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> single = pool.submit(() -> service.get("postDetail", l1, "post:1", String.class, TTL, () -> {
+                singleLoads.incrementAndGet();
+                singleLoading.countDown();
+                try {
+                    releaseSingle.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "p1";
+            }));
+            assertThat(singleLoading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<List<String>> loaderCalls = new CopyOnWriteArrayList<>();
+            Future<Map<String, String>> batch = pool.submit(() -> service.getAll("postDetail", l1,
+                    List.of("post:1", "post:2"), String.class, TTL, missing -> {
+                        loaderCalls.add(missing);
+                        return Map.of("post:2", "p2");
+                    }));
+            await().atMost(Duration.ofSeconds(5)).until(() -> !loaderCalls.isEmpty());
+            releaseSingle.countDown();
+
+            assertThat(single.get(5, TimeUnit.SECONDS)).isEqualTo("p1");
+            assertThat(batch.get(5, TimeUnit.SECONDS)).containsExactly(Map.entry("post:1", "p1"), Map.entry("post:2", "p2"));
+            assertThat(loaderCalls).containsExactly(List.of("post:2"));
+        }
+        assertThat(singleLoads.get()).isEqualTo(1);
+        assertThat(counter("tiered_cache_coalesced", "region", "postDetail", "scope", "jvm")).isEqualTo(1);
+    }
+}
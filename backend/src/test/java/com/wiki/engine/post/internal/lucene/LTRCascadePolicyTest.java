@@ -0,0 +1,77 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LTRCascadePolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LTRCascadePolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new LTRCascadePolicy(meterRegistry);
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "minWindow", 5);
+        ReflectionTestUtils.setField(policy, "budgetMs", 10L);
+        ReflectionTestUtils.setField(policy, "p95ThresholdMs", 40L);
+        ReflectionTestUtils.setField(policy, "confidentRatio", 2.5f);
+    }
+
+    @Test
+    @DisplayName("예산 ÷ 문서당 비용 — 초기 비용(50us/doc)이면 10ms 예산으로 후보 전체")
+    void initialCostCoversCandidates() {
+        assertThat(policy.xgboostWindow(150, 3)).isEqualTo(150);
+        assertThat(meterRegistry.get("ltr_cascade_window").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("실측 비용이 EWMA로 반영되어 window가 예산에 맞게 줄어든다")
+    void measuredCostShrinksWindow() {
+        for (int i = 0; i < 200; i++) {
+            policy.recordXgboostCost(TimeUnit.MILLISECONDS.toNanos(100), 100);   // 1ms/doc
+        }
+
+        assertThat(policy.xgboostWindow(150, 3)).isBetween(9, 10);
+    }
+
+    @Test
+    @DisplayName("rescore p95가 임계값을 넘으면 window 절반")
+    void halvesWindowWhenP95Exceeded() {
+        int normal = policy.xgboostWindow(150, 3);
+        for (int i = 0; i < 100; i++) {
+            policy.recordRescore(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        policy.refreshP95();
+
+        assertThat(policy.xgboostWindow(150, 3)).isEqualTo(normal / 2);
+    }
+
+    @Test
+    @DisplayName("하한은 max(min-window, topK) — 단 후보 수를 넘지 않는다")
+    void floorCoversPageButNotBeyondCandidates() {
+        ReflectionTestUtils.setField(policy, "budgetMs", 0L);
+
+        assertThat(policy.xgboostWindow(150, 3)).isEqualTo(5);
+        assertThat(policy.xgboostWindow(150, 21)).isEqualTo(21);
+        assertThat(policy.xgboostWindow(10, 21)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("top1이 top2의 confident-ratio배 이상일 때만 XGBoost 생략")
+    void confidentOnlyWhenTop1Dominates() {
+        assertThat(policy.isConfident(10f, 4f)).isTrue();
+        assertThat(policy.isConfident(10f, 5f)).isFalse();
+        assertThat(policy.isConfident(10f, 0f)).isFalse();
+
+        ReflectionTestUtils.setField(policy, "confidentRatio", 0f);
+        assertThat(policy.isConfident(10f, 1f)).isFalse();
+    }
+}
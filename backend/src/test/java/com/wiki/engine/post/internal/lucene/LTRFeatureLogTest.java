@@ -0,0 +1,106 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LTRFeatureLogTest {
+
+    @TempDir
+    Path dir;
+
+    private LTRFeatureLog featureLog;
+
+    private record Row(long impressionId, long postId, int modelVersion, int position, float score, float firstFeature) {}
+
+    @BeforeEach
+    void setUp() {
+        featureLog = new LTRFeatureLog(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(featureLog, "enabled", true);
+        ReflectionTestUtils.setField(featureLog, "dir", dir.toString());
+        ReflectionTestUtils.setField(featureLog, "sampleRate", 1.0);
+        ReflectionTestUtils.setField(featureLog, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(featureLog, "maxSegments", 32);
+        featureLog.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        featureLog.close();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private List<Row> readAll() throws IOException {
+        List<Row> rows = new ArrayList<>();
+        for (Path segment : segments()) {
+            LTRFeatureLog.read(segment, (impressionId, ts, postId, modelVersion, position, score, features) ->
+                    rows.add(new Row(impressionId, postId, modelVersion, position, score, features[0])));
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("기록한 피처 벡터를 impression ID와 함께 그대로 읽어온다")
+    void appendAndRead() throws IOException {
+        long impressionId = LTRFeatureLog.newImpressionId();
+        float[] flat = new float[LTRFeatureExtractor.FEATURE_COUNT * 2];
+        flat[0] = 1.5f;
+        flat[LTRFeatureExtractor.FEATURE_COUNT] = 7.25f;
+
+        featureLog.append(impressionId, 100L, 0xCAFE, 0, 0.9f, flat, LTRFeatureExtractor.FEATURE_COUNT);
+        featureLog.append(impressionId, 200L, 0xCAFE, 1, 0.4f, flat, 0);
+        featureLog.close();
+
+        assertThat(readAll()).containsExactly(
+                new Row(impressionId, 100L, 0xCAFE, 0, 0.9f, 7.25f),
+                new Row(impressionId, 200L, 0xCAFE, 1, 0.4f, 1.5f));
+    }
+
+    @Test
+    @DisplayName("세그먼트가 가득 차면 다음 세그먼트로 넘어가고 유실 없이 읽힌다")
+    void rollsSegment() throws IOException {
+        int perSegment = (1024 * 1024 - LTRFeatureLog.HEADER_SIZE) / LTRFeatureLog.RECORD_SIZE;
+        float[] flat = new float[LTRFeatureExtractor.FEATURE_COUNT];
+        for (int i = 0; i < perSegment + 10; i++) {
+            featureLog.append(1L, i, 1, i, 0f, flat, 0);
+        }
+        featureLog.close();
+
+        assertThat(segments()).hasSize(2);
+        assertThat(readAll()).hasSize(perSegment + 10);
+    }
+
+    @Test
+    @DisplayName("샘플링은 impression 단위로 결정된다 — 같은 ID는 항상 같은 결과")
+    void samplingIsPerImpression() {
+        ReflectionTestUtils.setField(featureLog, "sampleRate", 0.1);
+
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = LTRFeatureLog.newImpressionId();
+            boolean first = featureLog.shouldLog(id);
+            assertThat(featureLog.shouldLog(id)).isEqualTo(first);
+            if (first) sampled++;
+        }
+        assertThat(sampled).isBetween(700, 1300);
+        assertThat(featureLog.shouldLog(0L)).isFalse();
+    }
+}
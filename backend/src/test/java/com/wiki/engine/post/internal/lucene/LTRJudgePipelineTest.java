@@ -0,0 +1,126 @@
+package com.wiki.engine.post.internal.lucene;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LTRJudgePipelineTest {
+
+    private static LuceneSearchService.LTRDocFeatures doc(long postId) {
+        return new LuceneSearchService.LTRDocFeatures(postId, "문서" + postId, "본문",
+                new float[LTRFeatureExtractor.FEATURE_COUNT], 1.0f);
+    }
+
+    /** 로컬 stub 모델 — 지연만 흉내 내고, 프롬프트의 모든 문서에 score=2를 준다. */
+    private static Function<String, String> stubModel(long latencyMs, AtomicInteger inFlight, AtomicInteger maxInFlight) {
+        return prompt -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            var sb = new StringBuilder("{\"results\": [");
+            for (int i = 1; prompt.contains("[" + i + "] Title:"); i++) {
+                if (i > 1) sb.append(", ");
+                sb.append("{\"doc\": ").append(i).append(", \"reasoning\": \"ok\", \"score\": 2}");
+            }
+            return sb.append("]}").toString();
+        };
+    }
+
+    @Test
+    @DisplayName("배치 응답 파싱 — 문서 번호별 점수, 누락 문서는 -1")
+    void parseBatchScores() {
+        String response = """
+                {"results": [
+                  {"doc": 1, "reasoning": "직접 답변", "score": 3},
+                  {"doc": 3, "reasoning": "무관", "score": 0}
+                ]}
+                """;
+
+        assertThat(LTRJudgePipeline.parseScores(response, 3)).containsExactly(3, -1, 0);
+        assertThat(LTRJudgePipeline.parseScores("{\"reasoning\": \"x\", \"score\": 1}", 1)).containsExactly(1);
+        assertThat(LTRJudgePipeline.parseScores(null, 2)).containsExactly(-1, -1);
+    }
+
+    @Test
+    @DisplayName("응답을 JSON으로 파싱 — 코드 펜스/reasoning 안의 괄호·score 문자열에 흔들리지 않는다")
+    void parseIgnoresNoiseAroundAndInsideJson() {
+        String fenced = """
+                판정 결과입니다.
+                ```json
+                {"results": [
+                  {"doc": 1, "reasoning": "{score: 0} 같은 예시를 언급하지만 직접 답변", "score": 3},
+                  {"doc": 2, "reasoning": "부분 관련 (score 1~2 사이)", "score": 2},
+                  {"doc": 9, "reasoning": "범위 밖", "score": 1},
+                  {"doc": 3, "reasoning": "점수 누락"}
+                ]}
+                ```
+                """;
+
+        assertThat(LTRJudgePipeline.parseScores(fenced, 3)).containsExactly(3, 2, -1);
+        assertThat(LTRJudgePipeline.parseScores("{\"results\": [{\"doc\": 1, \"score\": 7}]}", 1)).containsExactly(3);
+        assertThat(LTRJudgePipeline.parseScores("{\"results\": [{\"doc\": 1, \"score\": ", 1)).containsExactly(-1);
+    }
+
+    @Test
+    @DisplayName("stub 모델로 처리량 측정 — 워커 수만큼 동시 호출, 모든 문서 판정")
+    void concurrentJudgingWithStubModel() {
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        var pipeline = new LTRJudgePipeline(stubModel(50, inFlight, maxInFlight),
+                new TokenBucketRateLimiter(60_000, 100), 4, 3, 0, 0);
+
+        List<LTRJudgePipeline.JudgeBatch> batches = new ArrayList<>();
+        for (int q = 0; q < 8; q++) {
+            batches.add(new LTRJudgePipeline.JudgeBatch(q, "쿼리" + q,
+                    List.of(doc(q * 10L + 1), doc(q * 10L + 2), doc(q * 10L + 3))));
+        }
+
+        Map<Long, Integer> judged = new ConcurrentHashMap<>();
+        pipeline.run(batches, (batch, relevances) -> {
+            for (int i = 0; i < relevances.length; i++) {
+                judged.put(batch.docs().get(i).postId(), relevances[i]);
+            }
+        });
+
+        assertThat(judged).hasSize(24).allSatisfy((postId, relevance) -> assertThat(relevance).isEqualTo(2));
+        assertThat(maxInFlight.get()).isBetween(1, 4);
+    }
+
+    @Test
+    @DisplayName("토큰 버킷 — burst 소진 후 refill 간격만큼 지나야 다음 토큰")
+    void tokenBucketRefill() {
+        var now = new AtomicLong();
+        var limiter = new TokenBucketRateLimiter(60, 2, now::get);   // 초당 1개
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        // 오래 쉬어도 burst 이상은 쌓이지 않는다
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+}
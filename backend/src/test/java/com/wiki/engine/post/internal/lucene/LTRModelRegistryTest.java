@@ -0,0 +1,154 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ml.dmlc.xgboost4j.java.DMatrix;
+import ml.dmlc.xgboost4j.java.XGBoost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LTRModelRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private LTRModelRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LTRModelRegistry(meterRegistry);
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        ReflectionTestUtils.setField(registry, "modelDir", dir.toString());
+    }
+
+    /** rounds가 다르면 내용(버전)이 다른 모델. */
+    private static byte[] model(int rounds, int featureCount) throws Exception {
+        int rows = 8;
+        float[] data = new float[rows * featureCount];
+        float[] labels = new float[rows];
+        for (int i = 0; i < rows; i++) {
+            data[i * featureCount] = i;
+            labels[i] = i % 2;
+        }
+        DMatrix matrix = new DMatrix(data, rows, featureCount, Float.NaN);
+        matrix.setLabel(labels);
+        return XGBoost.train(matrix, Map.of("objective", "binary:logistic", "max_depth", 2), rounds,
+                Map.of(), null, null).toByteArray("ubj");
+    }
+
+    private static byte[] model(int rounds) throws Exception {
+        return model(rounds, LTRFeatureExtractor.FEATURE_COUNT);
+    }
+
+    /** mv 배포 흉내 — 같은 크기여도 폴링이 변경을 보도록 mtime을 매번 올린다. */
+    private void deploy(String file, byte[] bytes) throws Exception {
+        Path path = dir.resolve(file);
+        Files.write(path, bytes);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(clock.addAndGet(1_000)));
+    }
+
+    private boolean hasTimers(String version) {
+        return meterRegistry.find("ltr_inference").tag("model", version).timer() != null
+                && meterRegistry.find("ltr_feature_extraction").tag("model", version).timer() != null;
+    }
+
+    @Test
+    @DisplayName("active.xgb를 로드하고 바뀌면 교체 — 내려간 버전의 타이머는 제거")
+    void swapsActiveAndRemovesOldTimers() throws Exception {
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(1));
+        registry.reloadIfChanged();
+        String v1 = registry.active().version();
+        assertThat(hasTimers(v1)).isTrue();
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(2));
+        registry.reloadIfChanged();
+        String v2 = registry.active().version();
+
+        assertThat(v2).isNotEqualTo(v1);
+        assertThat(hasTimers(v2)).isTrue();
+        assertThat(hasTimers(v1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("이전 파일로 롤백하면 같은 버전으로 돌아가고 타이머도 다시 등록")
+    void rollbackRestoresVersion() throws Exception {
+        byte[] v1Bytes = model(1);
+        deploy(LTRModelRegistry.ACTIVE_FILE, v1Bytes);
+        registry.reloadIfChanged();
+        String v1 = registry.active().version();
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(2));
+        registry.reloadIfChanged();
+        String v2 = registry.active().version();
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, v1Bytes);
+        registry.reloadIfChanged();
+
+        assertThat(registry.active().version()).isEqualTo(v1);
+        assertThat(hasTimers(v1)).isTrue();
+        assertThat(hasTimers(v2)).isFalse();
+    }
+
+    @Test
+    @DisplayName("내용이 같은 파일(touch)은 같은 모델 인스턴스를 유지")
+    void touchKeepsModel() throws Exception {
+        byte[] bytes = model(1);
+        deploy(LTRModelRegistry.ACTIVE_FILE, bytes);
+        registry.reloadIfChanged();
+        LTRModelRegistry.LoadedModel loaded = registry.active();
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, bytes);
+        registry.reloadIfChanged();
+
+        assertThat(registry.active()).isSameAs(loaded);
+        assertThat(hasTimers(loaded.version())).isTrue();
+    }
+
+    @Test
+    @DisplayName("피처 수가 다르거나 깨진 모델은 거부하고 기존 모델 유지")
+    void rejectsInvalidModel() throws Exception {
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(1));
+        registry.reloadIfChanged();
+        LTRModelRegistry.LoadedModel loaded = registry.active();
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(1, LTRFeatureExtractor.FEATURE_COUNT + 3));
+        registry.reloadIfChanged();
+        assertThat(registry.active()).isSameAs(loaded);
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, new byte[]{1, 2, 3});
+        registry.reloadIfChanged();
+        assertThat(registry.active()).isSameAs(loaded);
+    }
+
+    @Test
+    @DisplayName("shadow를 active로 승격한 뒤 shadow.xgb를 지워도 active 버전 타이머는 유지")
+    void promotedShadowKeepsTimers() throws Exception {
+        byte[] candidate = model(2);
+        deploy(LTRModelRegistry.ACTIVE_FILE, model(1));
+        deploy(LTRModelRegistry.SHADOW_FILE, candidate);
+        registry.reloadIfChanged();
+        String v1 = registry.active().version();
+        String v2 = registry.shadow().version();
+
+        deploy(LTRModelRegistry.ACTIVE_FILE, candidate);
+        registry.reloadIfChanged();
+        Files.delete(dir.resolve(LTRModelRegistry.SHADOW_FILE));
+        registry.reloadIfChanged();
+
+        assertThat(registry.active().version()).isEqualTo(v2);
+        assertThat(registry.shadow()).isNull();
+        assertThat(hasTimers(v2)).isTrue();
+        assertThat(hasTimers(v1)).isFalse();
+    }
+}
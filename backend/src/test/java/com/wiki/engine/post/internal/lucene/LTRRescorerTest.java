@@ -0,0 +1,64 @@
+package com.wiki.engine.post.internal.lucene;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class LTRRescorerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LTRModelRegistry modelRegistry = mock(LTRModelRegistry.class);
+    private LTRRescorer rescorer;
+
+    @BeforeEach
+    void setUp() {
+        LTRCascadePolicy policy = new LTRCascadePolicy(meterRegistry);
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "confidentRatio", 2.5f);
+        rescorer = new LTRRescorer(modelRegistry, policy, new LTRFeatureLog(meterRegistry), meterRegistry);
+        ReflectionTestUtils.setField(rescorer, "rescoreWindow", 200);
+        ReflectionTestUtils.setField(rescorer, "linearWeights", new float[]{1.0f, 0.02f, 0.02f, -0.0005f});
+    }
+
+    @Test
+    @DisplayName("BM25 1위가 압도적이면 linear/XGBoost 없이 BM25 순서와 점수를 그대로 반환")
+    void confidentQueryKeepsBm25Order() throws IOException {
+        given(modelRegistry.active()).willReturn(new LTRModelRegistry.LoadedModel("v1", 1, null,
+                Timer.builder("inference").register(meterRegistry), Timer.builder("feature").register(meterRegistry)));
+        TopDocs topDocs = new TopDocs(new TotalHits(3, TotalHits.Relation.EQUAL_TO), new ScoreDoc[]{
+                new ScoreDoc(5, 30f), new ScoreDoc(7, 4f), new ScoreDoc(9, 3.5f)});
+
+        // 검색기/피처 추출기를 건드리면 NPE — confident 경로는 doc values도 읽지 않는다
+        ScoreDoc[] result = rescorer.rescore(null, topDocs, "삼성", null, 10, true);
+
+        assertThat(Arrays.stream(result).mapToInt(sd -> sd.doc)).containsExactly(5, 7, 9);
+        assertThat(result[0].score).isEqualTo(30f);
+        assertThat(meterRegistry.get("ltr_cascade_stage_total").tag("stage", "skipped_confident").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("ltr_cascade_stage_total").tag("stage", "linear").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("linear 가중치가 4개가 아니면 기동 시 실패")
+    void rejectsWrongLinearWeightCount() {
+        ReflectionTestUtils.setField(rescorer, "linearWeights", new float[]{1.0f, 0.02f, 0.02f});
+
+        assertThatThrownBy(rescorer::validateLinearWeights)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("linear-weights");
+    }
+}
@@ -49,7 +49,7 @@ class LuceneIndexEventHandlerTest {
     void onUpdated() throws IOException {
         Post post = createTestPost();
 
-        handler.onUpdated(new PostEvent.Updated(1L, post));
+        handler.onUpdated(new PostEvent.Updated(1L, post, post.getTitle()));
 
         verify(luceneIndexService).indexPost(post);
     }
@@ -0,0 +1,136 @@
+package com.wiki.engine.post.internal.lucene;
+
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TitleCompletionTest {
+
+    private ByteBuffersDirectory directory;
+    private IndexWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = new ByteBuffersDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(new PerFieldAnalyzerWrapper(
+                new StandardAnalyzer(), Map.of(TitleCompletion.FIELD, TitleCompletion.ANALYZER)));
+        config.setCodec(TitleCompletion.codec());
+        writer = new IndexWriter(directory, config);
+        index(1, "삼성전자", 5_000);
+        index(2, "삼성", 9_000);
+        index(3, "삼국지", 300);
+        index(4, "자바 가비지 컬렉션", 700);
+        index(5, "자바", 1_200);
+        index(6, "Java Virtual Machine", 800);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writer.close();
+        directory.close();
+    }
+
+    private void index(long id, String title, long viewCount) throws IOException {
+        Document doc = new Document();
+        doc.add(new KeywordField("id", String.valueOf(id), Field.Store.YES));
+        doc.add(new TextField("title", title, Field.Store.YES));
+        TitleCompletion.fields(title, viewCount).forEach(doc::add);
+        writer.updateDocument(new Term("id", String.valueOf(id)), doc);
+    }
+
+    private IndexSearcher searcher() throws IOException {
+        return new IndexSearcher(DirectoryReader.open(writer));
+    }
+
+    @Test
+    @DisplayName("1글자 접두사도 조회수 내림차순, limit개까지")
+    void ranksByViewCount() throws IOException {
+        IndexSearcher searcher = searcher();
+
+        assertThat(TitleCompletion.suggest(searcher, "삼", 10)).containsExactly("삼성", "삼성전자", "삼국지");
+        assertThat(TitleCompletion.suggest(searcher, "삼", 2)).containsExactly("삼성", "삼성전자");
+        assertThat(TitleCompletion.suggest(searcher, "삼성전", 10)).containsExactly("삼성전자");
+        assertThat(TitleCompletion.suggest(searcher, "없는제목", 10)).isEmpty();
+        assertThat(TitleCompletion.suggest(searcher, " ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("자모 조합 중 입력, 초성, 띄어쓰기, 대소문자 모두 제목 접두사로 매칭 (문서 중복 없음)")
+    void matchesVariants() throws IOException {
+        IndexSearcher searcher = searcher();
+
+        assertThat(TitleCompletion.suggest(searcher, "삼ㅅ", 10)).containsExactly("삼성", "삼성전자");
+        assertThat(TitleCompletion.suggest(searcher, "ㅅㅅ", 10)).containsExactly("삼성", "삼성전자");
+        assertThat(TitleCompletion.suggest(searcher, "ㅈ", 10)).containsExactly("자바", "자바 가비지 컬렉션");
+        assertThat(TitleCompletion.suggest(searcher, "자바 가", 10)).containsExactly("자바 가비지 컬렉션");
+        assertThat(TitleCompletion.suggest(searcher, "JAVA v", 10)).containsExactly("Java Virtual Machine");
+    }
+
+    @Test
+    @DisplayName("받침 없이 입력 중인 마지막 음절(자모 없음)도 매칭 — \"삼서\" → \"삼성\"")
+    void matchesSyllableBeforeFinalConsonant() throws IOException {
+        IndexSearcher searcher = searcher();
+
+        assertThat(TitleCompletion.suggest(searcher, "삼서", 10)).containsExactly("삼성", "삼성전자");
+        assertThat(TitleCompletion.suggest(searcher, "자", 10)).containsExactly("자바", "자바 가비지 컬렉션");
+    }
+
+    @Test
+    @DisplayName("NRT — 새 글/삭제/조회수 변경이 reader 재오픈 즉시 반영")
+    void reflectsNrtChanges() throws IOException {
+        assertThat(TitleCompletion.suggest(searcher(), "삼", 10)).containsExactly("삼성", "삼성전자", "삼국지");
+
+        index(7, "삼계탕", 20_000);
+        writer.deleteDocuments(new Term("id", "2"));
+        index(3, "삼국지", 6_000);
+
+        assertThat(TitleCompletion.suggest(searcher(), "삼", 10)).containsExactly("삼계탕", "삼국지", "삼성전자");
+    }
+
+    @Test
+    @DisplayName("준비 표시는 완료 commit 이후에만 — 필드가 있는 세그먼트만으로는 준비되지 않음")
+    void readyOnlyAfterMarkedCommit() throws IOException {
+        writer.commit();
+        assertThat(TitleCompletion.isReady(DirectoryReader.open(writer))).isFalse();
+
+        TitleCompletion.markReady(writer, true);
+        assertThat(TitleCompletion.isReady(DirectoryReader.open(writer))).isFalse();   // commit 전
+
+        writer.commit();
+        assertThat(TitleCompletion.isReady(DirectoryReader.open(writer))).isTrue();
+
+        index(9, "삼각김밥", 10);
+        writer.commit();   // 이후 commit에도 유지
+        assertThat(TitleCompletion.isReady(DirectoryReader.open(writer))).isTrue();
+
+        TitleCompletion.markReady(writer, false);
+        writer.commit();
+        assertThat(TitleCompletion.isReady(DirectoryReader.open(directory))).isFalse();
+    }
+
+    @Test
+    @DisplayName("예약 문자가 섞인 제목도 색인 실패 없이 매칭")
+    void sanitizesReservedCharacters() throws IOException {
+        index(8, "삼\u001F양", 10);
+
+        assertThat(TitleCompletion.suggest(searcher(), "삼 양", 10)).containsExactly("삼\u001F양");
+    }
+}
@@ -0,0 +1,129 @@
+package com.wiki.engine.post.internal.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.ko.KoreanAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.search.BoostAttribute;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class QueryExpansionServiceTest {
+
+    private final SynonymRepository synonymRepository = mock(SynonymRepository.class);
+    private final Analyzer analyzer = new KoreanAnalyzer();
+    private final QueryExpansionService service =
+            new QueryExpansionService(synonymRepository, analyzer, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        analyzer.close();
+    }
+
+    private static Synonym synonym(String term, String synonym, double weight) {
+        Synonym s = new Synonym();
+        ReflectionTestUtils.setField(s, "term", term);
+        ReflectionTestUtils.setField(s, "synonym", synonym);
+        ReflectionTestUtils.setField(s, "weight", weight);
+        return s;
+    }
+
+    private void givenTable(String fingerprint, List<Synonym> rows) {
+        given(synonymRepository.fingerprint()).willReturn(List.<Object[]>of(new Object[]{fingerprint, 0L}));
+        given(synonymRepository.findAll()).willReturn(rows);
+    }
+
+    /** 토큰 → boost (분석 순서 유지). */
+    private Map<String, Float> analyze(String field, String text) throws IOException {
+        Map<String, Float> tokens = new LinkedHashMap<>();
+        try (TokenStream stream = service.queryAnalyzer().tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            BoostAttribute boost = stream.addAttribute(BoostAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.put(term.toString(), boost.getBoost());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("동의어 없으면 색인 분석기 그대로")
+    void emptyTableKeepsBaseAnalyzer() {
+        givenTable("0", List.of());
+        service.reloadIfChanged();
+
+        assertThat(service.queryAnalyzer()).isSameAs(analyzer);
+    }
+
+    @Test
+    @DisplayName("동의어 토큰을 원래 토큰과 함께 내고, weight를 boost로 싣는다")
+    void emitsSynonymWithWeight() throws IOException {
+        givenTable("1", List.of(synonym("JS", "javascript", 0.8)));
+        service.reloadIfChanged();
+
+        Map<String, Float> tokens = analyze("title", "js 강의");
+
+        assertThat(tokens).containsEntry("js", 1.0f).containsEntry("javascript", 0.8f).containsKey("강의");
+        assertThat(analyze("author", "js")).containsOnlyKeys("js");   // title/content만 확장
+    }
+
+    @Test
+    @DisplayName("같은 동의어라도 weight는 입력별 — 다른 입력의 weight로 덮어쓰지 않는다")
+    void weightIsPerInputOutputPair() throws IOException {
+        givenTable("1", List.of(
+                synonym("JS", "javascript", 0.8),
+                synonym("ECMAScript", "javascript", 0.3),
+                synonym("machine learning", "ml", 0.6)));
+        service.reloadIfChanged();
+
+        assertThat(analyze("title", "js")).containsEntry("javascript", 0.8f);
+        assertThat(analyze("title", "ecmascript 표준")).containsEntry("javascript", 0.3f).containsEntry("ecmascript", 1.0f);
+        assertThat(analyze("title", "machine learning 입문"))   // 여러 토큰 입력도 원래 토큰으로 입력을 복원
+                .containsEntry("ml", 0.6f).containsEntry("machine", 1.0f).containsKey("입문");
+    }
+
+    @Test
+    @DisplayName("여러 단어 동의어는 구문 쿼리로 한 번에 파싱")
+    void multiWordSynonymBecomesPhrase() throws Exception {
+        givenTable("1", List.of(synonym("ML", "machine learning", 1.0)));
+        service.reloadIfChanged();
+
+        var parser = new MultiFieldQueryParser(new String[]{"title"}, service.queryAnalyzer());
+        parser.setAutoGenerateMultiTermSynonymsPhraseQuery(true);
+
+        assertThat(parser.parse("ml").toString()).contains("title:\"machine learning\"").contains("title:ml");
+    }
+
+    @Test
+    @DisplayName("테이블 지문이 바뀔 때만 다시 읽어 스냅샷 교체")
+    void reloadsOnlyWhenFingerprintChanges() throws IOException {
+        givenTable("1", List.of(synonym("JS", "javascript", 1.0)));
+        service.reloadIfChanged();
+        service.reloadIfChanged();
+        verify(synonymRepository, times(1)).findAll();
+
+        givenTable("2", List.of(synonym("TS", "typescript", 1.0)));
+        service.reloadIfChanged();
+
+        verify(synonymRepository, times(2)).findAll();
+        assertThat(analyze("title", "ts")).containsKey("typescript");
+        assertThat(analyze("title", "js")).doesNotContainKey("javascript");
+    }
+}
@@ -0,0 +1,60 @@
+package com.wiki.engine.post.internal.search;
+
+import com.wiki.engine.post.internal.autocomplete.TrendingQueryTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SearchLogCollectorTest {
+
+    private final SearchLogRepository searchLogRepository = mock(SearchLogRepository.class);
+    private final QueryReformulationRepository queryReformulationRepository = mock(QueryReformulationRepository.class);
+    private final SearchLogCollector collector = new SearchLogCollector(
+            searchLogRepository, queryReformulationRepository, mock(TrendingQueryTracker.class));
+
+    @Test
+    @DisplayName("결과가 적은 검색 → 가까운 재검색으로 결과를 얻으면 재검색 쌍을 flush")
+    void recordsLowToHighReformulation() {
+        collector.recordOutcome("s1", "컴퓨텨", 0, false);
+        collector.recordOutcome("s1", "컴퓨터", 20, true);
+        collector.flush();
+
+        verify(queryReformulationRepository).upsert(eq("컴퓨텨"), eq("컴퓨터"), any(LocalDateTime.class), eq(1L));
+    }
+
+    @Test
+    @DisplayName("세션 없음 / 직전 검색 결과가 충분 / 다른 세션이면 쌍을 만들지 않는다")
+    void ignoresNonReformulations() {
+        collector.recordOutcome(null, "컴퓨텨", 0, false);
+        collector.recordOutcome(null, "컴퓨터", 20, true);
+
+        collector.recordOutcome("s1", "자바", 20, true);
+        collector.recordOutcome("s1", "자바스", 20, true);
+
+        collector.recordOutcome("s2", "프로그래빙", 0, false);
+        collector.recordOutcome("s3", "프로그래밍", 20, true);
+        collector.flush();
+
+        verify(queryReformulationRepository, never()).upsert(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("철자가 가까운 재검색만 교정으로 본다 (자모 편집 거리)")
+    void closeReformulation() {
+        assertThat(SearchLogCollector.isCloseReformulation("컴퓨텨", "컴퓨터")).isTrue();
+        assertThat(SearchLogCollector.isCloseReformulation("프로그래빙", "프로그래밍")).isTrue();
+        assertThat(SearchLogCollector.isCloseReformulation("jva", "java")).isTrue();
+        assertThat(SearchLogCollector.isCloseReformulation("자바", "파이썬")).isFalse();
+        assertThat(SearchLogCollector.isCloseReformulation("ab", "xy")).isFalse();
+    }
+}
@@ -8,6 +8,7 @@ export async function GET(request: NextRequest) {
   const page = searchParams.get("page") || "0";
   const size = searchParams.get("size") || "20";
   const categoryId = searchParams.get("categoryId") || "";
+  const sessionId = searchParams.get("sessionId") || "";
 
   if (!query.trim()) {
     return NextResponse.json({ results: [], hasNext: false });
@@ -20,6 +21,9 @@ export async function GET(request: NextRequest) {
     if (categoryId) {
       url += `&categoryId=${encodeURIComponent(categoryId)}`;
     }
+    if (sessionId) {
+      url += `&sessionId=${encodeURIComponent(sessionId)}`;
+    }
     const res = await fetch(url, { cache: "no-store", signal: controller.signal });
     clearTimeout(timeout);
 
@@ -33,6 +37,7 @@ export async function GET(request: NextRequest) {
     // Phase 18: 응답 구조 변경 — data.results (Slice) + data.suggestion (오타 교정)
     const sliceData = data.results || data;  // fallback: 이전 응답 형식 호환
     const suggestion = data.suggestion || null;
+    const impressionId = data.impressionId || null;  // LTR 피처 로그 조인 키 (클릭 로그에 전달)
 
     const results = (sliceData.content || []).map(
       (post: { id: number; title: string; snippet?: string; viewCount: number; likeCount: number; createdAt: string }) => ({
@@ -50,6 +55,7 @@ export async function GET(request: NextRequest) {
       hasNext: sliceData.last === false,
       currentPage: sliceData.number || 0,
       suggestion,
+      impressionId,
     });
   } catch {
     return NextResponse.json({ results: [], hasNext: false });
@@ -114,6 +114,7 @@ function SearchPageContent() {
   };
 
   const [suggestions, setSuggestions] = useState<string[]>([]);
+  const [impressionId, setImpressionId] = useState<string | null>(null);
   const [showSuggestions, setShowSuggestions] = useState(false);
   const [selectedIdx, setSelectedIdx] = useState(-1);
   const inputRef = useRef<HTMLInputElement>(null);
@@ -206,11 +207,14 @@ function SearchPageContent() {
     try {
       let url = `/api/search?q=${encodeURIComponent(q)}&page=${page}`;
       if (catId) url += `&categoryId=${catId}`;
+      // 재검색 로그(오타 → 교정 검색어 쌍) 수집용 — 클릭 로그와 같은 탭 단위 세션 ID
+      url += `&sessionId=${getOrCreateSessionId()}`;
       const res = await fetch(url);
       const data = await res.json();
       setResults(data.results || []);
       setHasNext(data.hasNext || false);
       setCurrentPage(data.currentPage || 0);
+      setImpressionId(data.impressionId || null);
       if (data.suggestion) {
         setSpellSuggestion(data.suggestion);
       }
@@ -598,8 +602,9 @@ function SearchPageContent() {
                       // Phase 19: 클릭 로그 수집 (LTR implicit feedback)
                       const sessionId = getOrCreateSessionId();
                       const position = currentPage * 20 + index;
+                      const impression = impressionId ? `&impressionId=${impressionId}` : "";
                       navigator.sendBeacon(
-                        `${API_URL}/api/v1.0/posts/${result.id}/click?q=${encodeURIComponent(query)}&position=${position}&sessionId=${sessionId}`
+                        `${API_URL}/api/v1.0/posts/${result.id}/click?q=${encodeURIComponent(query)}&position=${position}&sessionId=${sessionId}${impression}`
                       );
                     }}
                     className="block rounded-lg border border-zinc-200 bg-white px-5 py-4 transition-colors hover:border-blue-300 hover:bg-blue-50/50 dark:border-zinc-800 dark:bg-zinc-900 dark:hover:border-blue-700 dark:hover:bg-zinc-800"